@@ -0,0 +1,28 @@
+package uk.gov.dwp.uc.pairtest;
+
+import uk.gov.dwp.uc.pairtest.domain.TicketPurchaseRequest;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+
+public interface NonThrowingTicketService {
+
+    /**
+     * Same as {@link TicketService#purchaseTickets(TicketPurchaseRequest)}, but reports a rejected purchase as a
+     * result instead of throwing. Failures of the downstream services still propagate.
+     */
+    PurchaseOutcome tryPurchaseTickets(TicketPurchaseRequest ticketPurchaseRequest);
+
+    /**
+     * Pair with a service built with {@code cachedRejections(true)} so rejections cost neither a stack walk nor an
+     * allocation.
+     */
+    static NonThrowingTicketService of(TicketService ticketService) {
+        return ticketPurchaseRequest -> {
+            try {
+                ticketService.purchaseTickets(ticketPurchaseRequest);
+                return PurchaseOutcome.ACCEPTED;
+            } catch (InvalidPurchaseException e) {
+                return PurchaseOutcome.rejected(e.getReason());
+            }
+        };
+    }
+}
@@ -0,0 +1,158 @@
+package uk.gov.dwp.uc.pairtest;
+
+import thirdparty.discount.DiscountService;
+import thirdparty.discount.exception.InvalidDiscountCodeException;
+import uk.gov.dwp.uc.pairtest.domain.TicketOrder;
+import uk.gov.dwp.uc.pairtest.domain.TicketRequest;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+import uk.gov.dwp.uc.pairtest.exception.Rejections;
+import uk.gov.dwp.uc.pairtest.validation.PurchaseValidator;
+import uk.gov.dwp.uc.pairtest.validation.ValidationRules;
+
+/**
+ * Validates a purchase and totals its price and seats in a single pass over the ticket lines.
+ * <p>
+ * A request, an account and a non-negative ticket count are always required. Every other rule comes from the
+ * {@link PurchaseValidator}'s policy for the order's performance.
+ * <p>
+ * The result is packed into a single {@code long} (amount in the high word, seats in the low word) so that the
+ * hot path does not allocate; use {@link #amount(long)} and {@link #seats(long)} to unpack it.
+ * <p>
+ * Group pricing for the size of the basket is applied to the amount first. A request carrying a discount code then
+ * has the discount applied to what is left, rounded down in the customer's favour.
+ * Without a {@link DiscountService} such requests are rejected rather than silently charged in full.
+ */
+public final class PurchaseEvaluator {
+
+    private final TariffRegistry tariffRegistry;
+    private final boolean cachedRejections;
+    private final DiscountService discountService;
+    private final PurchaseValidator validator;
+
+    public PurchaseEvaluator(TariffRegistry tariffRegistry) {
+        this(tariffRegistry, false);
+    }
+
+    public PurchaseEvaluator(TariffRegistry tariffRegistry, boolean cachedRejections) {
+        this(tariffRegistry, cachedRejections, null);
+    }
+
+    /**
+     * @param cachedRejections  {@code true} to throw the shared stackless exceptions from {@link Rejections#cached}
+     *                          instead of creating a new exception per rejection
+     * @param discountService   Resolves discount codes, or {@code null} if discounts are not accepted
+     */
+    public PurchaseEvaluator(TariffRegistry tariffRegistry, boolean cachedRejections,
+                             DiscountService discountService) {
+        this(tariffRegistry, cachedRejections, discountService, new PurchaseValidator(ValidationRules.DEFAULT));
+    }
+
+    /**
+     * @param validator Purchase rules per performance
+     */
+    public PurchaseEvaluator(TariffRegistry tariffRegistry, boolean cachedRejections,
+                             DiscountService discountService, PurchaseValidator validator) {
+        this.tariffRegistry = tariffRegistry;
+        this.cachedRejections = cachedRejections;
+        this.discountService = discountService;
+        this.validator = validator;
+    }
+
+    /**
+     * @param ticketOrder Purchase to evaluate
+     * @return            Packed amount and seat totals
+     * @throws InvalidPurchaseException if the purchase breaks any of the purchase rules
+     */
+    public long evaluate(TicketOrder ticketOrder) {
+        if (ticketOrder == null) {
+            throw reject(RejectionReason.INVALID_REQUEST);
+        }
+        if (ticketOrder.getAccountId() <= 0) {
+            throw reject(RejectionReason.INVALID_ACCOUNT);
+        }
+
+        var rules = validator.program(ticketOrder.getPerformanceId());
+        int lines = ticketOrder.getLineCount();
+        var rejection = rules.checkLines(lines);
+        if (rejection != null) {
+            throw reject(rejection);
+        }
+
+        var tariff = tariffRegistry.current();
+        var priceRow = tariff.priceRow(ticketOrder.getPerformanceId());
+        // A policy need not cap the ticket count, so the totals are kept in longs and an order whose totals do not
+        // fit an int is rejected rather than wrapped round into a small or negative charge.
+        long ticketCount = 0;
+        long totalAmount = 0;
+        long totalSeats = 0;
+        boolean adultFound = false;
+        boolean underageFound = false;
+        try {
+            for (int i = 0; i < lines; i++) {
+                var type = ticketOrder.getTicketType(i);
+                var noOfTickets = ticketOrder.getNoOfTickets(i);
+
+                ticketCount += noOfTickets;
+                if (type == TicketRequest.Type.ADULT) {
+                    adultFound = true;
+                } else {
+                    underageFound = true;
+                }
+                totalAmount = Math.addExact(totalAmount, (long) tariff.getPrice(priceRow, type) * noOfTickets);
+                totalSeats = Math.addExact(totalSeats, (long) tariff.getSeatReservationCount(type) * noOfTickets);
+            }
+        } catch (ArithmeticException e) {
+            throw reject(RejectionReason.EXCESSIVE_TICKETS);
+        }
+
+        if (ticketCount < 0 || totalAmount < 0 || totalSeats < 0) {
+            throw reject(RejectionReason.NEGATIVE_TICKETS);
+        }
+        if (ticketCount > Integer.MAX_VALUE || totalAmount > Integer.MAX_VALUE || totalSeats > Integer.MAX_VALUE) {
+            throw reject(RejectionReason.EXCESSIVE_TICKETS);
+        }
+        rejection = rules.checkTotals((int) ticketCount, adultFound, underageFound);
+        if (rejection != null) {
+            throw reject(rejection);
+        }
+        var amount = tariff.applyGroupPricing((int) totalAmount, (int) ticketCount);
+        var seats = (int) totalSeats;
+
+        var discountCode = ticketOrder.getDiscountCode();
+        if (discountCode != null) {
+            amount = applyDiscount(ticketOrder.getAccountId(), discountCode, amount);
+        }
+        return pack(amount, seats);
+    }
+
+    private int applyDiscount(long accountId, String discountCode, int amount) {
+        if (discountService == null) {
+            throw reject(RejectionReason.INVALID_DISCOUNT_CODE);
+        }
+        double percentage;
+        try {
+            percentage = discountService.getDiscountPercentage(accountId, discountCode).percentage();
+        } catch (InvalidDiscountCodeException e) {
+            throw reject(RejectionReason.INVALID_DISCOUNT_CODE);
+        }
+        var clamped = Math.max(0, Math.min(100, percentage));
+        return (int) Math.floor(amount * (100 - clamped) / 100);
+    }
+
+    private InvalidPurchaseException reject(RejectionReason reason) {
+        return cachedRejections ? Rejections.cached(reason) : Rejections.create(reason);
+    }
+
+    static long pack(int amount, int seats) {
+        return ((long) amount << 32) | (seats & 0xFFFFFFFFL);
+    }
+
+    public static int amount(long totals) {
+        return (int) (totals >>> 32);
+    }
+
+    public static int seats(long totals) {
+        return (int) totals;
+    }
+}
@@ -0,0 +1,46 @@
+package uk.gov.dwp.uc.pairtest;
+
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+
+/**
+ * Result of a purchase attempt that does not throw on rejection. One instance exists per outcome, so returning a
+ * result never allocates.
+ */
+public final class PurchaseOutcome {
+
+    public static final PurchaseOutcome ACCEPTED = new PurchaseOutcome(null);
+
+    private static final PurchaseOutcome[] REJECTED = new PurchaseOutcome[RejectionReason.values().length];
+
+    static {
+        for (var reason : RejectionReason.values()) {
+            REJECTED[reason.ordinal()] = new PurchaseOutcome(reason);
+        }
+    }
+
+    private final RejectionReason rejectionReason;
+
+    private PurchaseOutcome(RejectionReason rejectionReason) {
+        this.rejectionReason = rejectionReason;
+    }
+
+    public static PurchaseOutcome rejected(RejectionReason reason) {
+        return REJECTED[reason.ordinal()];
+    }
+
+    public boolean isAccepted() {
+        return rejectionReason == null;
+    }
+
+    /**
+     * @return  Why the purchase was rejected, or {@code null} if it was accepted
+     */
+    public RejectionReason getRejectionReason() {
+        return rejectionReason;
+    }
+
+    @Override
+    public String toString() {
+        return isAccepted() ? "ACCEPTED" : "REJECTED(" + rejectionReason + ")";
+    }
+}
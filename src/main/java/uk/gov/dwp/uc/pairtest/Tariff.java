@@ -0,0 +1,90 @@
+package uk.gov.dwp.uc.pairtest;
+
+import uk.gov.dwp.uc.pairtest.domain.TicketRequest;
+import uk.gov.dwp.uc.pairtest.pricing.PriceTable;
+import uk.gov.dwp.uc.pairtest.pricing.PriceTableSource;
+
+import java.util.Arrays;
+
+/**
+ * Immutable price and seat table, indexed by {@link TicketRequest.Type#ordinal()}.
+ * <p>
+ * Built once from a {@link PricingService} and {@link SeatingCalculatorService} so that the purchase path does a
+ * plain array load per ticket line instead of an interface call. A {@link PriceTableSource} contributes its whole
+ * {@link PriceTable}, so prices can also vary by performance and basket size.
+ */
+public final class Tariff {
+
+    private static final TicketRequest.Type[] TYPES = TicketRequest.Type.values();
+
+    private final PriceTable prices;
+    private final int[] seats;
+
+    private Tariff(PriceTable prices, int[] seats) {
+        this.prices = prices;
+        this.seats = seats;
+    }
+
+    /**
+     * @param pricingService            Source of the price per ticket type
+     * @param seatingCalculatorService  Source of the seats per ticket type
+     * @return                          Tariff holding a snapshot of both
+     */
+    public static Tariff compile(PricingService pricingService, SeatingCalculatorService seatingCalculatorService) {
+        var seats = new int[TYPES.length];
+        for (var type : TYPES) {
+            seats[type.ordinal()] = seatingCalculatorService.getSeatReservationCount(type);
+        }
+        if (pricingService instanceof PriceTableSource source) {
+            return new Tariff(source.getPriceTable(), seats);
+        }
+        var prices = new int[TYPES.length];
+        for (var type : TYPES) {
+            prices[type.ordinal()] = pricingService.getPrice(type);
+        }
+        return new Tariff(PriceTable.flat(prices), seats);
+    }
+
+    /**
+     * @return  Price of {@code ticketType} for a performance without its own pricing
+     */
+    public int getPrice(TicketRequest.Type ticketType) {
+        return prices.price(0, ticketType);
+    }
+
+    /**
+     * @return  Row to pass to {@link #getPrice(int, TicketRequest.Type)} for every line of an order for
+     *          {@code performanceId}
+     */
+    public int priceRow(long performanceId) {
+        return prices.row(performanceId);
+    }
+
+    public int getPrice(int priceRow, TicketRequest.Type ticketType) {
+        return prices.price(priceRow, ticketType);
+    }
+
+    /**
+     * @return  {@code amount} less any group discount for a basket of {@code ticketCount} tickets
+     */
+    public int applyGroupPricing(int amount, int ticketCount) {
+        return prices.applyGroupPricing(amount, ticketCount);
+    }
+
+    public int getSeatReservationCount(TicketRequest.Type ticketType) {
+        return seats[ticketType.ordinal()];
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Tariff that = (Tariff) o;
+        return prices.equals(that.prices) && Arrays.equals(seats, that.seats);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * prices.hashCode() + Arrays.hashCode(seats);
+    }
+}
@@ -0,0 +1,50 @@
+package uk.gov.dwp.uc.pairtest;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the {@link Tariff} currently in force and allows it to be swapped atomically at runtime.
+ * <p>
+ * Purchases read the tariff once and use that snapshot throughout, so a swap never leaves a purchase priced with
+ * one tariff and seated with another. The first tariff is compiled lazily on first use.
+ */
+public class TariffRegistry {
+
+    private final PricingService pricingService;
+    private final SeatingCalculatorService seatingCalculatorService;
+    private final AtomicReference<Tariff> current = new AtomicReference<>();
+
+    public TariffRegistry(PricingService pricingService, SeatingCalculatorService seatingCalculatorService) {
+        this.pricingService = pricingService;
+        this.seatingCalculatorService = seatingCalculatorService;
+    }
+
+    /**
+     * @return  The tariff in force, compiling it from the pricing and seating services if none has been published
+     */
+    public Tariff current() {
+        var tariff = current.get();
+        if (tariff != null) {
+            return tariff;
+        }
+        current.compareAndSet(null, Tariff.compile(pricingService, seatingCalculatorService));
+        return current.get();
+    }
+
+    /**
+     * Recompiles the tariff from the pricing and seating services, e.g. after their prices have changed.
+     * @return  The newly published tariff
+     */
+    public Tariff reload() {
+        var tariff = Tariff.compile(pricingService, seatingCalculatorService);
+        current.set(tariff);
+        return tariff;
+    }
+
+    /**
+     * @param tariff    Tariff to put in force for all purchases that start after this call
+     */
+    public void publish(Tariff tariff) {
+        current.set(tariff);
+    }
+}
@@ -0,0 +1,14 @@
+package uk.gov.dwp.uc.pairtest;
+
+import uk.gov.dwp.uc.pairtest.domain.TicketOrder;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+
+public interface TicketOrderService {
+
+    /**
+     * Same rules and downstream calls as {@link TicketService#purchaseTickets}, for purchases that are read in place,
+     * such as a {@link uk.gov.dwp.uc.pairtest.codec.PurchaseRequestView} over an encoded buffer.
+     */
+    void purchaseTickets(TicketOrder ticketOrder) throws InvalidPurchaseException;
+
+}
@@ -1,29 +1,75 @@
 package uk.gov.dwp.uc.pairtest;
 
+import thirdparty.discount.DiscountService;
 import thirdparty.paymentgateway.TicketPaymentService;
 import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.domain.TicketOrder;
 import uk.gov.dwp.uc.pairtest.domain.TicketPurchaseRequest;
-import uk.gov.dwp.uc.pairtest.domain.TicketRequest;
-import uk.gov.dwp.uc.pairtest.exception.ExcessiveTicketException;
+import uk.gov.dwp.uc.pairtest.events.PurchaseListener;
 import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
-import uk.gov.dwp.uc.pairtest.exception.NoAdultPresentException;
+import uk.gov.dwp.uc.pairtest.exception.OutcomeUnknownException;
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+import uk.gov.dwp.uc.pairtest.exception.Rejections;
+import uk.gov.dwp.uc.pairtest.exception.UnfulfilledPurchaseException;
+import uk.gov.dwp.uc.pairtest.hold.SeatHoldService;
+import uk.gov.dwp.uc.pairtest.inventory.SeatAvailability;
+import uk.gov.dwp.uc.pairtest.inventory.SeatInventory;
+import uk.gov.dwp.uc.pairtest.journal.PurchaseJournal;
+import uk.gov.dwp.uc.pairtest.metrics.PurchaseMetrics;
+import uk.gov.dwp.uc.pairtest.metrics.Stage;
+import uk.gov.dwp.uc.pairtest.validation.PurchaseValidator;
+import uk.gov.dwp.uc.pairtest.validation.ValidationRules;
 
 
-public class TicketServiceImpl implements TicketService {
+public class TicketServiceImpl implements TicketService, TicketOrderService {
 
-    private static final int MAX_TICKET_AMOUNT = 20;
-
-    private final PricingService pricingService;
-    private final SeatingCalculatorService seatingCalculatorService;
+    private final PurchaseEvaluator purchaseEvaluator;
     private final TicketPaymentService ticketPaymentService;
     private final SeatReservationService seatReservationService;
+    private final SeatAvailability seatAvailability;
+    private final SeatInventory seatInventory;
+    private final SeatHoldService seatHolds;
+    private final PurchaseJournal journal;
+    private final PurchaseListener listener;
+    private final PurchaseMetrics metrics;
+    private final boolean metricsEnabled;
+    private final boolean cachedRejections;
 
+    /**
+     * Prices and seats are read from {@code pricingService} and {@code seatingCalculatorService} once, on the first
+     * purchase, and never again: later changes to what they return are not seen. To change prices at runtime, build
+     * the service with {@link #builder} over a {@link TariffRegistry} and call {@link TariffRegistry#reload()}.
+     */
     public TicketServiceImpl(PricingService pricingService, SeatingCalculatorService seatingCalculatorService,
                              TicketPaymentService ticketPaymentService, SeatReservationService seatReservationService) {
-        this.pricingService = pricingService;
-        this.seatingCalculatorService = seatingCalculatorService;
-        this.ticketPaymentService = ticketPaymentService;
-        this.seatReservationService = seatReservationService;
+        this(builder(new TariffRegistry(pricingService, seatingCalculatorService),
+                ticketPaymentService, seatReservationService));
+    }
+
+    private TicketServiceImpl(Builder builder) {
+        this.purchaseEvaluator = new PurchaseEvaluator(builder.tariffRegistry, builder.cachedRejections,
+                builder.discountService, builder.validator);
+        this.ticketPaymentService = builder.ticketPaymentService;
+        this.seatReservationService = builder.seatReservationService;
+        this.seatAvailability = builder.seatAvailability;
+        this.seatInventory = builder.seatInventory;
+        this.seatHolds = builder.seatHolds;
+        this.journal = builder.journal;
+        this.listener = builder.listener;
+        this.metrics = builder.metrics;
+        this.metricsEnabled = builder.metrics.isEnabled();
+        this.cachedRejections = builder.cachedRejections;
+    }
+
+    /**
+     * @param tariffRegistry            Source of prices and seats per ticket type
+     * @param ticketPaymentService      Gateway used to take payment
+     * @param seatReservationService    Service used to reserve seats
+     * @return                          Builder for a service with optional collaborators
+     */
+    public static Builder builder(TariffRegistry tariffRegistry, TicketPaymentService ticketPaymentService,
+                                  SeatReservationService seatReservationService) {
+        return new Builder(tariffRegistry, ticketPaymentService, seatReservationService);
     }
 
     /**
@@ -31,70 +77,322 @@ public class TicketServiceImpl implements TicketService {
      */
     @Override
     public void purchaseTickets(TicketPurchaseRequest ticketPurchaseRequest) throws InvalidPurchaseException {
-        rejectInvalidRequests(ticketPurchaseRequest);
+        purchase(ticketPurchaseRequest);
+    }
 
-        restrictTicketSales(ticketPurchaseRequest);
+    @Override
+    public void purchaseTickets(TicketOrder ticketOrder) throws InvalidPurchaseException {
+        purchase(ticketOrder);
+    }
+
+    private void purchase(TicketOrder ticketOrder) {
+        if (listener == null) {
+            process(ticketOrder);
+            return;
+        }
+        long totals;
+        try {
+            totals = process(ticketOrder);
+        } catch (InvalidPurchaseException e) {
+            listener.rejected(ticketOrder, e.getReason());
+            throw e;
+        } catch (UnfulfilledPurchaseException e) {
+            listener.unfulfilled(ticketOrder, e.getAmount(), e.getSeats());
+            throw e;
+        } catch (RuntimeException e) {
+            listener.failed(ticketOrder);
+            throw e;
+        }
+        listener.accepted(ticketOrder, PurchaseEvaluator.amount(totals), PurchaseEvaluator.seats(totals));
+    }
 
-        prohibitChildrenAndInfantsWithoutAdult(ticketPurchaseRequest);
+    /**
+     * Journal writes wait for the disk, so each stage is timed around its own work only and the journal's latency
+     * does not show up as slow payments or reservations.
+     *
+     * @return  Packed amount and seat totals of the completed purchase
+     */
+    private long process(TicketOrder ticketOrder) {
+        var started = metricsEnabled ? System.nanoTime() : 0;
 
-        takePayment(ticketPurchaseRequest);
+        var totals = validate(ticketOrder);
+        var accountId = ticketOrder.getAccountId();
+        var holdId = seatHolds == null ? 0
+                : holdSeats(ticketOrder.getPerformanceId(), accountId, PurchaseEvaluator.seats(totals));
+        started = recordStage(Stage.VALIDATION, started);
 
-        reserveSeats(ticketPurchaseRequest);
-    }
+        var purchaseId = journal == null ? 0
+                : journal.started(accountId, ticketOrder.getPerformanceId(), PurchaseEvaluator.amount(totals),
+                        PurchaseEvaluator.seats(totals));
+        started = restartClock(started);
 
-    private void rejectInvalidRequests(TicketPurchaseRequest ticketPurchaseRequest) {
-        if (ticketPurchaseRequest == null) {
-            throw new InvalidPurchaseException();
+        takePayment(accountId, PurchaseEvaluator.amount(totals), purchaseId, holdId);
+        started = recordStage(Stage.PAYMENT, started);
+        // Journalled as paid before seats are reserved, so a crash in between is replayed on restart
+        if (journal != null) {
+            journal.paid(purchaseId);
         }
+        started = restartClock(started);
 
-        if (ticketPurchaseRequest.getAccountId() <= 0) {
-            throw new InvalidPurchaseException();
+        if (seatHolds == null) {
+            reserveSeats(ticketOrder.getPerformanceId(), accountId, totals, purchaseId);
+        } else {
+            confirmSeats(holdId, totals, purchaseId);
+        }
+        recordStage(Stage.RESERVATION, started);
+        if (journal != null) {
+            journal.completed(purchaseId);
         }
+
+        if (metricsEnabled) {
+            metrics.accepted();
+        }
+        return totals;
     }
 
-    private void restrictTicketSales(TicketPurchaseRequest ticketPurchaseRequest) {
-        if (ticketPurchaseRequest.getTicketTypeRequests().size() > MAX_TICKET_AMOUNT) {
-            throw new ExcessiveTicketException();
+    private long validate(TicketOrder ticketOrder) {
+        try {
+            var totals = purchaseEvaluator.evaluate(ticketOrder);
+            if (!canAllocate(ticketOrder.getPerformanceId(), PurchaseEvaluator.seats(totals))) {
+                throw cachedRejections ? Rejections.cached(RejectionReason.SOLD_OUT)
+                        : Rejections.create(RejectionReason.SOLD_OUT);
+            }
+            return totals;
+        } catch (InvalidPurchaseException e) {
+            if (metricsEnabled) {
+                metrics.rejected(e.getReason());
+            }
+            throw e;
         }
+    }
 
-        var sum = ticketPurchaseRequest.getTicketTypeRequests().stream().mapToInt(TicketRequest::getNoOfTickets).sum();
-        if (sum < 0) {
-            throw new InvalidPurchaseException();
+    private boolean canAllocate(long performanceId, int totalSeats) {
+        if (seatInventory != null) {
+            return seatInventory.canAllocate(performanceId, totalSeats);
         }
-        if (sum > MAX_TICKET_AMOUNT) {
-            throw new ExcessiveTicketException();
+        return seatAvailability == null || seatAvailability.canAllocate(totalSeats);
+    }
+
+    /**
+     * Seats are held before payment so they cannot sell out while the customer pays. Failing to get them is a
+     * rejection like any other check before payment.
+     */
+    private long holdSeats(long performanceId, long accountId, int totalSeats) {
+        try {
+            return seatHolds.hold(performanceId, accountId, totalSeats);
+        } catch (InvalidPurchaseException e) {
+            if (metricsEnabled) {
+                metrics.rejected(e.getReason());
+            }
+            throw e;
+        } catch (RuntimeException e) {
+            recordFailure(Stage.RESERVATION);
+            throw e;
         }
     }
 
-    private void prohibitChildrenAndInfantsWithoutAdult(TicketPurchaseRequest ticketPurchaseRequest) {
-        var foundUnderage = ticketPurchaseRequest.getTicketTypeRequests().stream()
-                .anyMatch(t -> t.getTicketType() == TicketRequest.Type.CHILD
-                        || t.getTicketType() == TicketRequest.Type.INFANT);
-        if (foundUnderage) {
-            var cannotFindAdult = ticketPurchaseRequest.getTicketTypeRequests()
-                    .stream()
-                    .noneMatch(t -> t.getTicketType() == TicketRequest.Type.ADULT);
-            if (cannotFindAdult) {
-                throw new NoAdultPresentException();
+    /**
+     * A payment the gateway refused needs no recovery, so it is journalled as abandoned and any held seats are
+     * released. A payment that timed out may still go through, so its seats stay held until the hold lapses and it is
+     * journalled as due a refund for reconciliation.
+     */
+    private void takePayment(long accountId, int totalAmount, long purchaseId, long holdId) {
+        try {
+            ticketPaymentService.makePayment(accountId, totalAmount);
+        } catch (OutcomeUnknownException e) {
+            recordFailure(Stage.PAYMENT);
+            if (journal != null) {
+                journal.refundDue(purchaseId);
+            }
+            throw e;
+        } catch (RuntimeException e) {
+            recordFailure(Stage.PAYMENT);
+            if (seatHolds != null) {
+                seatHolds.release(holdId);
             }
+            if (journal != null) {
+                journal.abandoned(purchaseId);
+            }
+            throw e;
         }
     }
 
-    private void takePayment(TicketPurchaseRequest ticketPurchaseRequest) {
-        var totalAmount = ticketPurchaseRequest.getTicketTypeRequests()
-                .stream()
-                .mapToInt(t -> pricingService.getPrice(t.getTicketType()) * t.getNoOfTickets())
-                .sum();
+    /**
+     * The customer has paid by now, so a purchase whose seats cannot be reserved is journalled as due a refund
+     * rather than left at paid. A rejection at this point, such as the performance selling out or a hold lapsing
+     * while the payment was in flight, is reported as a failure since the customer was charged.
+     */
+    private void reserveSeats(long performanceId, long accountId, long totals, long purchaseId) {
+        try {
+            if (seatInventory == null) {
+                seatReservationService.reserveSeat(accountId, PurchaseEvaluator.seats(totals));
+            } else {
+                seatInventory.reserveSeats(performanceId, accountId, PurchaseEvaluator.seats(totals));
+            }
+        } catch (InvalidPurchaseException e) {
+            failAfterPayment(purchaseId);
+            throw unfulfilled("Paid for seats that could not be reserved", e, totals);
+        } catch (RuntimeException e) {
+            failAfterPayment(purchaseId);
+            throw e;
+        }
+    }
 
-        ticketPaymentService.makePayment(ticketPurchaseRequest.getAccountId(), totalAmount);
+    private void confirmSeats(long holdId, long totals, long purchaseId) {
+        try {
+            seatHolds.confirm(holdId);
+        } catch (InvalidPurchaseException e) {
+            failAfterPayment(purchaseId);
+            throw unfulfilled("Paid for seats that are no longer held", e, totals);
+        } catch (RuntimeException e) {
+            failAfterPayment(purchaseId);
+            throw e;
+        }
+    }
+
+    private static UnfulfilledPurchaseException unfulfilled(String message, InvalidPurchaseException cause,
+                                                            long totals) {
+        return new UnfulfilledPurchaseException(message, cause, PurchaseEvaluator.amount(totals),
+                PurchaseEvaluator.seats(totals));
+    }
+
+    private void failAfterPayment(long purchaseId) {
+        recordFailure(Stage.RESERVATION);
+        if (journal != null) {
+            journal.refundDue(purchaseId);
+        }
+    }
+
+    /**
+     * @return  The time the stage ended, which is when the next one starts
+     */
+    private long restartClock(long started) {
+        return metricsEnabled && journal != null ? System.nanoTime() : started;
     }
 
-    private void reserveSeats(TicketPurchaseRequest ticketPurchaseRequest) {
-        var totalSeats = ticketPurchaseRequest.getTicketTypeRequests()
-                .stream()
-                .mapToInt(t -> seatingCalculatorService.getSeatReservationCount(t.getTicketType()) * t.getNoOfTickets())
-                .sum();
+    private long recordStage(Stage stage, long started) {
+        if (!metricsEnabled) {
+            return 0;
+        }
+        var ended = System.nanoTime();
+        metrics.recordLatency(stage, ended - started);
+        return ended;
+    }
+
+    private void recordFailure(Stage stage) {
+        if (metricsEnabled) {
+            metrics.failed(stage);
+        }
+    }
+
+    public static final class Builder {
+
+        private final TariffRegistry tariffRegistry;
+        private final TicketPaymentService ticketPaymentService;
+        private final SeatReservationService seatReservationService;
+        private boolean cachedRejections;
+        private DiscountService discountService;
+        private PurchaseMetrics metrics = PurchaseMetrics.NOOP;
+        private SeatAvailability seatAvailability;
+        private SeatInventory seatInventory;
+        private PurchaseJournal journal;
+        private SeatHoldService seatHolds;
+        private PurchaseListener listener;
+        private PurchaseValidator validator = new PurchaseValidator(ValidationRules.DEFAULT);
+
+        private Builder(TariffRegistry tariffRegistry, TicketPaymentService ticketPaymentService,
+                        SeatReservationService seatReservationService) {
+            this.tariffRegistry = tariffRegistry;
+            this.ticketPaymentService = ticketPaymentService;
+            this.seatReservationService = seatReservationService;
+        }
+
+        /**
+         * @param cachedRejections  {@code true} to reject with shared stackless exceptions, see
+         *                          {@link uk.gov.dwp.uc.pairtest.exception.Rejections#cached}
+         */
+        public Builder cachedRejections(boolean cachedRejections) {
+            this.cachedRejections = cachedRejections;
+            return this;
+        }
+
+        /**
+         * @param discountService   Resolves discount codes on requests, typically a
+         *                          {@link uk.gov.dwp.uc.pairtest.discount.CachingDiscountService}. Without one, requests
+         *                          carrying a code are rejected.
+         */
+        public Builder discountService(DiscountService discountService) {
+            this.discountService = discountService;
+            return this;
+        }
+
+        /**
+         * @param metrics   Receives purchase counts and stage latencies, e.g. a
+         *                  {@link uk.gov.dwp.uc.pairtest.metrics.StripedPurchaseMetrics}
+         */
+        public Builder metrics(PurchaseMetrics metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
+        /**
+         * @param seatAvailability  Checked before payment so a sold-out performance is rejected without charging the
+         *                          customer
+         */
+        public Builder seatAvailability(SeatAvailability seatAvailability) {
+            this.seatAvailability = seatAvailability;
+            return this;
+        }
+
+        /**
+         * @param seatInventory Books each order against the performance it names, in place of the
+         *                      {@link SeatReservationService} and {@link SeatAvailability}, which are bound to one
+         *                      performance. An order for a performance not on sale is rejected before payment.
+         */
+        public Builder seatInventory(SeatInventory seatInventory) {
+            this.seatInventory = seatInventory;
+            return this;
+        }
 
-        seatReservationService.reserveSeat(ticketPurchaseRequest.getAccountId(), totalSeats);
+        /**
+         * @param journal   Records each stage of every purchase, see
+         *                  {@link uk.gov.dwp.uc.pairtest.journal.MappedPurchaseJournal}
+         */
+        public Builder journal(PurchaseJournal journal) {
+            this.journal = journal;
+            return this;
+        }
+
+        /**
+         * @param seatHolds Holds seats before payment and confirms them after, in place of the
+         *                  {@link SeatReservationService}, see {@link uk.gov.dwp.uc.pairtest.hold.SeatHoldManager}
+         */
+        public Builder seatHolds(SeatHoldService seatHolds) {
+            this.seatHolds = seatHolds;
+            return this;
+        }
+
+        /**
+         * @param listener  Told the outcome of every purchase, e.g. a
+         *                  {@link uk.gov.dwp.uc.pairtest.events.PurchaseEventStream}. Combine several with
+         *                  {@link PurchaseListener#of}.
+         */
+        public Builder listener(PurchaseListener listener) {
+            this.listener = listener;
+            return this;
+        }
+
+        /**
+         * @param validator Purchase rules per performance. Without one every performance gets
+         *                  {@link uk.gov.dwp.uc.pairtest.validation.ValidationPolicy#DEFAULT}.
+         */
+        public Builder validator(PurchaseValidator validator) {
+            this.validator = validator;
+            return this;
+        }
+
+        public TicketServiceImpl build() {
+            return new TicketServiceImpl(this);
+        }
     }
 }
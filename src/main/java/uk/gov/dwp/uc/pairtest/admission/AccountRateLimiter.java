@@ -0,0 +1,114 @@
+package uk.gov.dwp.uc.pairtest.admission;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket per account, held in a fixed table of slots indexed by account id hash. Each slot is updated with a
+ * compare-and-set, so there are no locks and contention is limited to accounts sharing a slot.
+ * <p>
+ * A slot holds the buckets of up to {@value #WAYS} accounts. An account arriving at a full slot takes over the bucket
+ * with the most tokens, tokens and all, rather than starting with a full one, so cycling through accounts that share
+ * a slot cannot reset an account that has used up its burst. The price is that more than {@value #WAYS} busy accounts
+ * in one slot share their allowance and may be limited early, which enough stripes makes rare.
+ */
+public class AccountRateLimiter {
+
+    private static final long ONE_TOKEN = 1_000_000;
+    private static final int WAYS = 4;
+
+    private final AtomicReferenceArray<Bucket[]> slots;
+    private final int mask;
+    private final long capacity;
+    private final long refillPerSecond;
+    private final long fullRefillNanos;
+    private final LongSupplier nanoClock;
+
+    public AccountRateLimiter(int burstCapacity, int refillPerSecond, int stripes, LongSupplier nanoClock) {
+        var size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.capacity = burstCapacity * ONE_TOKEN;
+        this.refillPerSecond = refillPerSecond;
+        this.fullRefillNanos = 1_000_000_000L * burstCapacity / refillPerSecond;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * @return  {@code true} if the account had a token, which is now spent
+     */
+    public boolean tryAcquire(long accountId) {
+        var slot = spread(accountId) & mask;
+        var now = nanoClock.getAsLong();
+        while (true) {
+            var current = slots.get(slot);
+            var way = current == null ? -1 : wayOf(current, accountId);
+            long tokens;
+            if (way >= 0) {
+                tokens = refill(current[way], now);
+            } else if (current == null || current.length < WAYS) {
+                tokens = capacity;
+            } else {
+                way = fullest(current, now);
+                tokens = refill(current[way], now);
+            }
+            if (tokens < ONE_TOKEN) {
+                return false;
+            }
+            var bucket = new Bucket(accountId, tokens - ONE_TOKEN, now);
+            Bucket[] updated;
+            if (way >= 0) {
+                updated = current.clone();
+                updated[way] = bucket;
+            } else if (current == null) {
+                updated = new Bucket[]{bucket};
+            } else {
+                updated = Arrays.copyOf(current, current.length + 1);
+                updated[current.length] = bucket;
+            }
+            if (slots.compareAndSet(slot, current, updated)) {
+                return true;
+            }
+        }
+    }
+
+    private static int wayOf(Bucket[] buckets, long accountId) {
+        for (int i = 0; i < buckets.length; i++) {
+            if (buckets[i].accountId() == accountId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int fullest(Bucket[] buckets, long now) {
+        var fullest = 0;
+        var most = refill(buckets[0], now);
+        for (int i = 1; i < buckets.length; i++) {
+            var tokens = refill(buckets[i], now);
+            if (tokens > most) {
+                fullest = i;
+                most = tokens;
+            }
+        }
+        return fullest;
+    }
+
+    private long refill(Bucket bucket, long now) {
+        var elapsed = now - bucket.refilledAt();
+        if (elapsed >= fullRefillNanos) {
+            return capacity;
+        }
+        // Tokens are held in millionths, so nanos * perSecond / 1000 is the refill in the same unit.
+        return Math.min(capacity, bucket.tokens() + elapsed * refillPerSecond / 1_000);
+    }
+
+    private static int spread(long accountId) {
+        var h = accountId * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private record Bucket(long accountId, long tokens, long refilledAt) {
+    }
+}
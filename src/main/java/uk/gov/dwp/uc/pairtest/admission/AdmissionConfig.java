@@ -0,0 +1,26 @@
+package uk.gov.dwp.uc.pairtest.admission;
+
+import java.time.Duration;
+
+/**
+ * @param burstCapacity         Purchases an account may make back to back before being rate limited
+ * @param refillPerSecond       Rate at which an account's allowance is restored
+ * @param idempotencyWindow     How long a completed purchase blocks an identical one from the same account
+ * @param stripes               Slots in the rate limiter table, rounded up to a power of two. Accounts hashing to
+ *                              the same slot evict each other rather than share an allowance.
+ * @param cachedRejections      {@code true} to reject with shared stackless exceptions
+ */
+public record AdmissionConfig(int burstCapacity, int refillPerSecond, Duration idempotencyWindow, int stripes,
+                              boolean cachedRejections) {
+
+    public static final AdmissionConfig DEFAULT = new AdmissionConfig(5, 1, Duration.ofSeconds(10), 1 << 16, false);
+
+    public AdmissionConfig {
+        if (burstCapacity <= 0 || refillPerSecond <= 0 || stripes <= 0) {
+            throw new IllegalArgumentException("burstCapacity, refillPerSecond and stripes must be positive");
+        }
+        if (idempotencyWindow.isNegative()) {
+            throw new IllegalArgumentException("idempotencyWindow cannot be negative");
+        }
+    }
+}
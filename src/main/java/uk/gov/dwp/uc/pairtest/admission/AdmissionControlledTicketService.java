@@ -0,0 +1,119 @@
+package uk.gov.dwp.uc.pairtest.admission;
+
+import uk.gov.dwp.uc.pairtest.TicketService;
+import uk.gov.dwp.uc.pairtest.domain.CanonicalTicketOrder;
+import uk.gov.dwp.uc.pairtest.domain.TicketPurchaseRequest;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+import uk.gov.dwp.uc.pairtest.exception.Rejections;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * Sits in front of another {@link TicketService} and turns away duplicate requests and accounts that exceed their
+ * rate limit before any downstream service is called.
+ * <p>
+ * Duplicates are checked first so that a double click does not also spend one of the account's tokens.
+ * <p>
+ * Only a rejection frees the request for an immediate retry, since it is raised before payment is taken. Any other
+ * failure may come after the customer was charged, or with the payment's outcome unknown, so the request keeps its
+ * window as if it had gone through and a retry is turned away as a duplicate.
+ * <p>
+ * A sweeper thread drops lapsed idempotency keys once a second. Create the service with a clock instead to sweep by
+ * calling {@link #sweep()}.
+ */
+public class AdmissionControlledTicketService implements TicketService, AutoCloseable {
+
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final TicketService delegate;
+    private final AccountRateLimiter rateLimiter;
+    private final IdempotencyWindow idempotencyWindow;
+    private final boolean cachedRejections;
+    private final Thread sweeper;
+    private volatile boolean closed;
+
+    public AdmissionControlledTicketService(TicketService delegate, AdmissionConfig config) {
+        this(delegate, config, System::nanoTime, true);
+    }
+
+    /**
+     * Creates a service without a sweeper thread; lapsed idempotency keys are only dropped by {@link #sweep()}.
+     */
+    public AdmissionControlledTicketService(TicketService delegate, AdmissionConfig config, LongSupplier nanoClock) {
+        this(delegate, config, nanoClock, false);
+    }
+
+    private AdmissionControlledTicketService(TicketService delegate, AdmissionConfig config, LongSupplier nanoClock,
+                                             boolean startSweeper) {
+        this.delegate = delegate;
+        this.rateLimiter = new AccountRateLimiter(config.burstCapacity(), config.refillPerSecond(), config.stripes(),
+                nanoClock);
+        this.idempotencyWindow = new IdempotencyWindow(config.idempotencyWindow().toNanos(), nanoClock);
+        this.cachedRejections = config.cachedRejections();
+        if (startSweeper) {
+            this.sweeper = new Thread(this::runSweeper, "idempotency-sweeper");
+            sweeper.setDaemon(true);
+            sweeper.start();
+        } else {
+            this.sweeper = null;
+        }
+    }
+
+    @Override
+    public void purchaseTickets(TicketPurchaseRequest ticketPurchaseRequest) throws InvalidPurchaseException {
+        if (ticketPurchaseRequest == null) {
+            delegate.purchaseTickets(null);
+            return;
+        }
+
+        var key = CanonicalTicketOrder.of(ticketPurchaseRequest);
+        if (!idempotencyWindow.tryBegin(key)) {
+            throw reject(RejectionReason.DUPLICATE_PURCHASE);
+        }
+        if (!rateLimiter.tryAcquire(ticketPurchaseRequest.getAccountId())) {
+            idempotencyWindow.abandon(key);
+            throw reject(RejectionReason.RATE_LIMITED);
+        }
+
+        try {
+            delegate.purchaseTickets(ticketPurchaseRequest);
+        } catch (InvalidPurchaseException e) {
+            idempotencyWindow.abandon(key);
+            throw e;
+        } catch (RuntimeException e) {
+            idempotencyWindow.complete(key);
+            throw e;
+        }
+        idempotencyWindow.complete(key);
+    }
+
+    /**
+     * Drops idempotency keys whose window has passed. Called by the sweeper thread, or by the owner of a service
+     * created without one.
+     */
+    public void sweep() {
+        idempotencyWindow.sweep();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        if (sweeper != null) {
+            LockSupport.unpark(sweeper);
+        }
+    }
+
+    private void runSweeper() {
+        while (!closed) {
+            LockSupport.parkNanos(this, SWEEP_INTERVAL_NANOS);
+            sweep();
+        }
+    }
+
+    private InvalidPurchaseException reject(RejectionReason reason) {
+        return cachedRejections ? Rejections.cached(reason) : Rejections.create(reason);
+    }
+}
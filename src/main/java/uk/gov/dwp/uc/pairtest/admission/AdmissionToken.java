@@ -0,0 +1,13 @@
+package uk.gov.dwp.uc.pairtest.admission;
+
+import java.time.Duration;
+
+/**
+ * A buyer's place in a {@link WaitingRoom}, handed back to the caller to check on and later redeem.
+ *
+ * @param id            Opaque, unguessable id of the place to pass back to {@link WaitingRoomTicketService}
+ * @param admitted      {@code true} once the buyer may purchase
+ * @param estimatedWait Time until admission at the current rate, zero once admitted. A hint for when to check back.
+ */
+public record AdmissionToken(String id, boolean admitted, Duration estimatedWait) {
+}
@@ -0,0 +1,74 @@
+package uk.gov.dwp.uc.pairtest.admission;
+
+import uk.gov.dwp.uc.pairtest.domain.CanonicalTicketOrder;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Tracks purchases that are in flight or completed recently, keyed on their {@link CanonicalTicketOrder}, so that
+ * an identical request from the same account can be turned away before it reaches the payment gateway. Requests for
+ * the same tickets count as identical however their lines are split.
+ * <p>
+ * A request in flight is marked by a shared entry with no expiry, so it can never be mistaken for one whose window
+ * has passed. Lapsed entries are dropped by {@link #sweep()}, which the owner calls away from the purchase path.
+ */
+public class IdempotencyWindow {
+
+    private static final Entry IN_FLIGHT = new Entry(0);
+
+    private final ConcurrentHashMap<CanonicalTicketOrder, Entry> entries = new ConcurrentHashMap<>();
+    private final long windowNanos;
+    private final LongSupplier nanoClock;
+
+    public IdempotencyWindow(long windowNanos, LongSupplier nanoClock) {
+        this.windowNanos = windowNanos;
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * @return  {@code true} if no identical request is in flight or within the window, in which case this request is
+     *          now in flight and must be finished with {@link #complete} or {@link #abandon}
+     */
+    public boolean tryBegin(CanonicalTicketOrder request) {
+        var existing = entries.putIfAbsent(request, IN_FLIGHT);
+        if (existing == null) {
+            return true;
+        }
+        return existing != IN_FLIGHT && existing.hasLapsed(nanoClock.getAsLong())
+                && entries.replace(request, existing, IN_FLIGHT);
+    }
+
+    /**
+     * Starts the window for a request that went through.
+     */
+    public void complete(CanonicalTicketOrder request) {
+        entries.put(request, new Entry(nanoClock.getAsLong() + windowNanos));
+    }
+
+    /**
+     * Forgets a request that did not go through, so it can be retried straight away.
+     */
+    public void abandon(CanonicalTicketOrder request) {
+        entries.remove(request, IN_FLIGHT);
+    }
+
+    /**
+     * Drops every completed request whose window has passed. Requests in flight are kept.
+     */
+    public void sweep() {
+        var now = nanoClock.getAsLong();
+        entries.values().removeIf(entry -> entry != IN_FLIGHT && entry.hasLapsed(now));
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private record Entry(long expiresAt) {
+
+        private boolean hasLapsed(long now) {
+            return expiresAt - now <= 0;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package uk.gov.dwp.uc.pairtest.admission;
+
+import thirdparty.paymentgateway.TicketPaymentService;
+
+import java.util.function.LongSupplier;
+
+/**
+ * {@link TicketPaymentService} that reports the latency of every payment to a {@link WaitingRoom}, which tunes its
+ * admit rate from it.
+ */
+public class MeasuredTicketPaymentService implements TicketPaymentService {
+
+    private final TicketPaymentService delegate;
+    private final WaitingRoom waitingRoom;
+    private final LongSupplier nanoClock;
+
+    public MeasuredTicketPaymentService(TicketPaymentService delegate, WaitingRoom waitingRoom) {
+        this(delegate, waitingRoom, System::nanoTime);
+    }
+
+    public MeasuredTicketPaymentService(TicketPaymentService delegate, WaitingRoom waitingRoom,
+                                        LongSupplier nanoClock) {
+        this.delegate = delegate;
+        this.waitingRoom = waitingRoom;
+        this.nanoClock = nanoClock;
+    }
+
+    @Override
+    public void makePayment(long accountId, int totalAmountToPay) {
+        var started = nanoClock.getAsLong();
+        var failed = true;
+        try {
+            delegate.makePayment(accountId, totalAmountToPay);
+            failed = false;
+        } finally {
+            waitingRoom.recordPayment(nanoClock.getAsLong() - started, failed);
+        }
+    }
+}
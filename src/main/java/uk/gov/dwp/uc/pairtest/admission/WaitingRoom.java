@@ -0,0 +1,294 @@
+package uk.gov.dwp.uc.pairtest.admission;
+
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+import uk.gov.dwp.uc.pairtest.exception.Rejections;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * Virtual queue that admits buyers in arrival order at a rate tuned to how the payment gateway is coping.
+ * <p>
+ * Each buyer takes the next queue position and is admitted once the admission frontier reaches it. The frontier
+ * moves forward at the admit rate, but never so far that more than {@code maxInFlight} admitted purchases are running
+ * at once, so admitted buyers see the same latency however long the queue behind them is. An admitted buyer holds
+ * one of those places from admission until its purchase finishes, and loses it if it does not {@link #redeem} the
+ * admission within {@code redeemWithin}.
+ * <p>
+ * The rate is adjusted every {@code adjustInterval} by additive increase, multiplicative decrease: it grows by a fixed
+ * step while nine in ten payments finish within {@code targetLatency}, and is cut by a factor when they do not. Payment
+ * latency is reported by a {@link MeasuredTicketPaymentService}. Nothing changes in an interval without payments.
+ * <p>
+ * Nobody waits inside the room: buyers keep their position and check back. Entering, checking and finishing take no
+ * shared lock, and only the ticker thread moves the frontier. Create the room with a clock instead to move it by
+ * calling {@link #advance()}.
+ * <p>
+ * Positions are consecutive, so anyone can guess the ones admitted ahead of them. Buyers should only ever be handed
+ * the tokens of a {@link WaitingRoomTicketService}, never raw positions.
+ */
+public class WaitingRoom implements AutoCloseable {
+
+    private static final int SLOW_SHARE_PERCENT = 10;
+
+    private final WaitingRoomConfig config;
+    private final LongSupplier nanoClock;
+    private final long targetLatencyNanos;
+    private final long adjustIntervalNanos;
+    private final long maxWaitNanos;
+    private final long redeemWithinNanos;
+    private final AtomicLong lastPosition = new AtomicLong();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ConcurrentHashMap<Long, Long> unredeemed = new ConcurrentHashMap<>();
+    private final LongAdder payments = new LongAdder();
+    private final LongAdder slowPayments = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder lapsed = new LongAdder();
+    private final Thread ticker;
+    private volatile boolean closed;
+    private volatile long frontier;
+    private volatile double rate;
+
+    // Guarded by this
+    private final Set<Long> abandoned = new HashSet<>();
+    private double credit;
+    private long lastAdvance;
+    private long lastAdjust;
+    private long sweptTo;
+
+    public WaitingRoom(WaitingRoomConfig config) {
+        this(config, System::nanoTime, true);
+    }
+
+    /**
+     * Creates a room without a ticker thread; the queue only moves on {@link #advance()}.
+     */
+    public WaitingRoom(WaitingRoomConfig config, LongSupplier nanoClock) {
+        this(config, nanoClock, false);
+    }
+
+    private WaitingRoom(WaitingRoomConfig config, LongSupplier nanoClock, boolean startTicker) {
+        this.config = config;
+        this.nanoClock = nanoClock;
+        this.targetLatencyNanos = config.targetLatency().toNanos();
+        this.adjustIntervalNanos = config.adjustInterval().toNanos();
+        this.maxWaitNanos = config.maxWait().toNanos();
+        this.redeemWithinNanos = config.redeemWithin().toNanos();
+        this.rate = config.initialRate();
+        this.lastAdvance = nanoClock.getAsLong();
+        this.lastAdjust = lastAdvance;
+        if (startTicker) {
+            var tickNanos = config.tick().toNanos();
+            this.ticker = new Thread(() -> runTicker(tickNanos), "waiting-room-ticker");
+            ticker.setDaemon(true);
+            ticker.start();
+        } else {
+            this.ticker = null;
+        }
+    }
+
+    /**
+     * @return  The buyer's queue position, which must later be passed to {@link #redeem} or {@link #leave}
+     * @throws InvalidPurchaseException with {@link RejectionReason#QUEUE_FULL} if the estimated wait is over
+     *                                  {@code maxWait}
+     */
+    public long enter() {
+        // The position is only taken once the wait check passes, so a buyer turned away was never queued and leaves
+        // nothing behind for the frontier to skip.
+        while (true) {
+            var last = lastPosition.get();
+            if (estimatedWaitNanos(last + 1) > maxWaitNanos) {
+                rejected.increment();
+                throw reject(RejectionReason.QUEUE_FULL);
+            }
+            if (lastPosition.compareAndSet(last, last + 1)) {
+                return last + 1;
+            }
+        }
+    }
+
+    public boolean isAdmitted(long position) {
+        return frontier >= position;
+    }
+
+    /**
+     * Takes up the admission of {@code position}. Once this returns {@code true} the caller must call
+     * {@link #finished()} when its purchase is over.
+     * @return  {@code false} if the position has not been admitted yet, has already been redeemed, or was not
+     *          redeemed in time
+     */
+    public boolean redeem(long position) {
+        return frontier >= position && unredeemed.remove(position) != null;
+    }
+
+    /**
+     * @return  Time until {@code position} is admitted at the current rate, zero once it has been
+     */
+    public Duration estimatedWait(long position) {
+        return Duration.ofNanos(estimatedWaitNanos(position));
+    }
+
+    /**
+     * Gives up a queue position. A position that had been admitted but not redeemed frees its in-flight place.
+     */
+    public void leave(long position) {
+        if (!abandon(position) && unredeemed.remove(position) != null) {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    /**
+     * Frees the in-flight place of a redeemed purchase for the next advance to fill.
+     */
+    public void finished() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * Called by {@link MeasuredTicketPaymentService} after every payment.
+     */
+    public void recordPayment(long latencyNanos, boolean failed) {
+        payments.increment();
+        if (failed || latencyNanos > targetLatencyNanos) {
+            slowPayments.increment();
+        }
+    }
+
+    /**
+     * Adjusts the rate if an interval has passed, takes back admissions not redeemed in time and admits as many
+     * buyers as the rate and in-flight limit allow. Called by the ticker thread, or by the owner of a room created
+     * without one.
+     */
+    public synchronized void advance() {
+        var now = nanoClock.getAsLong();
+        if (now - lastAdjust >= adjustIntervalNanos) {
+            adjustRate();
+            lastAdjust = now;
+        }
+        sweepUnredeemed(now);
+        // Credit is capped at a tenth of a second of admissions, so an idle room cannot bank a burst.
+        credit = Math.min(Math.max(1, rate / 10), credit + rate * (now - lastAdvance) / 1e9);
+        lastAdvance = now;
+
+        var admitted = frontier;
+        var last = lastPosition.get();
+        while (admitted < last && credit >= 1 && inFlight.get() < config.maxInFlight()) {
+            admitted++;
+            if (abandoned.remove(admitted)) {
+                continue;
+            }
+            credit--;
+            inFlight.incrementAndGet();
+            unredeemed.put(admitted, now);
+        }
+        frontier = admitted;
+    }
+
+    public double currentRate() {
+        return rate;
+    }
+
+    /**
+     * @return  Buyers queued behind the admission frontier, including any that have left but not yet been passed
+     */
+    public long queueLength() {
+        return lastPosition.get() - frontier;
+    }
+
+    /**
+     * @return  Admitted purchases not yet finished, including admissions not yet redeemed
+     */
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * @return  Buyers turned away on arrival because of the estimated wait
+     */
+    public long rejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * @return  Admissions taken back because they were not redeemed within {@code redeemWithin}
+     */
+    public long lapsedAdmissions() {
+        return lapsed.sum();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        if (ticker != null) {
+            LockSupport.unpark(ticker);
+        }
+    }
+
+    /**
+     * @return  {@code false} if the position had already been admitted, so is not abandoned
+     */
+    private synchronized boolean abandon(long position) {
+        if (frontier >= position) {
+            return false;
+        }
+        abandoned.add(position);
+        return true;
+    }
+
+    InvalidPurchaseException reject(RejectionReason reason) {
+        return config.cachedRejections() ? Rejections.cached(reason) : Rejections.create(reason);
+    }
+
+    /**
+     * Positions are admitted in order and each is stamped when admitted, so the sweep walks up from where it last
+     * stopped and stops again at the first admission still within its time.
+     */
+    private void sweepUnredeemed(long now) {
+        while (sweptTo < frontier) {
+            var position = sweptTo + 1;
+            var admittedAt = unredeemed.get(position);
+            if (admittedAt != null) {
+                if (now - admittedAt < redeemWithinNanos) {
+                    return;
+                }
+                if (unredeemed.remove(position) != null) {
+                    inFlight.decrementAndGet();
+                    lapsed.increment();
+                }
+            }
+            sweptTo = position;
+        }
+    }
+
+    private long estimatedWaitNanos(long position) {
+        var ahead = position - frontier;
+        return ahead <= 0 ? 0 : (long) (ahead * 1e9 / rate);
+    }
+
+    private void adjustRate() {
+        var total = payments.sumThenReset();
+        var slow = slowPayments.sumThenReset();
+        if (total == 0) {
+            return;
+        }
+        if (slow * 100 > total * SLOW_SHARE_PERCENT) {
+            rate = Math.max(config.minRate(), rate * config.rateDecrease());
+        } else {
+            rate = Math.min(config.maxRate(), rate + config.rateIncrease());
+        }
+    }
+
+    private void runTicker(long tickNanos) {
+        while (!closed) {
+            LockSupport.parkNanos(this, tickNanos);
+            advance();
+        }
+    }
+}
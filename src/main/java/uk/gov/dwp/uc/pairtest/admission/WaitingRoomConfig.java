@@ -0,0 +1,50 @@
+package uk.gov.dwp.uc.pairtest.admission;
+
+import java.time.Duration;
+
+/**
+ * @param initialRate       Buyers admitted per second before any payment latency has been seen
+ * @param minRate           Lowest admit rate, so the queue keeps moving however slow payments get
+ * @param maxRate           Highest admit rate
+ * @param rateIncrease      Added to the rate after an interval in which payments kept within target
+ * @param rateDecrease      Multiplies the rate after an interval in which they did not, between 0 and 1
+ * @param targetLatency     Payment latency that nine in ten payments should stay within. A failed payment counts as
+ *                          over it.
+ * @param adjustInterval    How often the rate is adjusted
+ * @param maxInFlight       Most admitted purchases still running at once. Nobody else is admitted while it is reached.
+ * @param maxWait           Longest a buyer may wait for admission. Buyers whose estimated wait is longer are turned
+ *                          away on arrival.
+ * @param redeemWithin      How long an admitted buyer has to come back and purchase before its place goes to the
+ *                          next buyer
+ * @param tick              How often the queue is advanced
+ * @param cachedRejections  {@code true} to reject with shared stackless exceptions
+ */
+public record WaitingRoomConfig(int initialRate, int minRate, int maxRate, int rateIncrease, double rateDecrease,
+                                Duration targetLatency, Duration adjustInterval, int maxInFlight, Duration maxWait,
+                                Duration redeemWithin, Duration tick, boolean cachedRejections) {
+
+    public static final WaitingRoomConfig DEFAULT = new WaitingRoomConfig(100, 10, 10_000, 10, 0.7,
+            Duration.ofMillis(250), Duration.ofSeconds(1), 256, Duration.ofMinutes(5), Duration.ofSeconds(30),
+            Duration.ofMillis(10), false);
+
+    public WaitingRoomConfig {
+        if (minRate <= 0 || minRate > initialRate || initialRate > maxRate) {
+            throw new IllegalArgumentException("Rates must satisfy 0 < minRate <= initialRate <= maxRate");
+        }
+        if (rateIncrease < 0 || rateDecrease <= 0 || rateDecrease >= 1) {
+            throw new IllegalArgumentException("rateIncrease cannot be negative and rateDecrease must be in (0, 1)");
+        }
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("maxInFlight must be positive");
+        }
+        if (!isPositive(targetLatency) || !isPositive(adjustInterval) || !isPositive(maxWait)
+                || !isPositive(redeemWithin) || !isPositive(tick)) {
+            throw new IllegalArgumentException(
+                    "targetLatency, adjustInterval, maxWait, redeemWithin and tick must be positive");
+        }
+    }
+
+    private static boolean isPositive(Duration duration) {
+        return !duration.isNegative() && !duration.isZero();
+    }
+}
@@ -0,0 +1,138 @@
+package uk.gov.dwp.uc.pairtest.admission;
+
+import uk.gov.dwp.uc.pairtest.TicketService;
+import uk.gov.dwp.uc.pairtest.domain.TicketPurchaseRequest;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Sits in front of another {@link TicketService} and admits purchases to it through a {@link WaitingRoom}.
+ * <p>
+ * No request thread waits for admission. A buyer {@link #enter}s and gets an {@link AdmissionToken} with its id and
+ * estimated wait, {@link #poll}s with the id until admitted, then {@link #redeem}s it with the purchase. Buyers whose
+ * estimated wait is too long are rejected with {@link RejectionReason#QUEUE_FULL} on arrival, and a purchase redeemed
+ * before admission, after its admission lapsed or with an id this service did not issue, with
+ * {@link RejectionReason#NOT_ADMITTED}. Neither reaches the delegate.
+ * <p>
+ * Queue positions are consecutive and so guessable. A token id is the position with a MAC under a key drawn at random
+ * for each service, so nobody can redeem a place they were not given, and the service keeps no state per token.
+ */
+public class WaitingRoomTicketService {
+
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+    private static final int MAC_LENGTH = 16;
+
+    private final TicketService delegate;
+    private final WaitingRoom waitingRoom;
+    private final ThreadLocal<Mac> macs;
+
+    public WaitingRoomTicketService(TicketService delegate, WaitingRoom waitingRoom) {
+        this.delegate = delegate;
+        this.waitingRoom = waitingRoom;
+        var key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        var secretKey = new SecretKeySpec(key, MAC_ALGORITHM);
+        this.macs = ThreadLocal.withInitial(() -> {
+            try {
+                var mac = Mac.getInstance(MAC_ALGORITHM);
+                mac.init(secretKey);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Cannot create " + MAC_ALGORITHM, e);
+            }
+        });
+    }
+
+    /**
+     * @throws InvalidPurchaseException with {@link RejectionReason#QUEUE_FULL} if the estimated wait is too long
+     */
+    public AdmissionToken enter() {
+        var position = waitingRoom.enter();
+        return token(tokenId(position), position);
+    }
+
+    /**
+     * @throws InvalidPurchaseException with {@link RejectionReason#NOT_ADMITTED} if this service did not issue the id
+     */
+    public AdmissionToken poll(String tokenId) {
+        var position = position(tokenId);
+        if (position < 0) {
+            throw waitingRoom.reject(RejectionReason.NOT_ADMITTED);
+        }
+        return token(tokenId, position);
+    }
+
+    /**
+     * Makes the purchase for an admitted place. Each place can be redeemed once.
+     * @throws InvalidPurchaseException with {@link RejectionReason#NOT_ADMITTED} if this service did not issue the
+     *                                  id, or its place has not been admitted, was already redeemed or was not
+     *                                  redeemed in time, and otherwise whatever the delegate throws
+     */
+    public void redeem(String tokenId, TicketPurchaseRequest ticketPurchaseRequest) throws InvalidPurchaseException {
+        var position = position(tokenId);
+        if (position < 0 || !waitingRoom.redeem(position)) {
+            throw waitingRoom.reject(RejectionReason.NOT_ADMITTED);
+        }
+        try {
+            delegate.purchaseTickets(ticketPurchaseRequest);
+        } finally {
+            waitingRoom.finished();
+        }
+    }
+
+    /**
+     * Gives up the place, e.g. when the buyer stops polling. An id this service did not issue is ignored.
+     */
+    public void leave(String tokenId) {
+        var position = position(tokenId);
+        if (position >= 0) {
+            waitingRoom.leave(position);
+        }
+    }
+
+    private AdmissionToken token(String tokenId, long position) {
+        return new AdmissionToken(tokenId, waitingRoom.isAdmitted(position), waitingRoom.estimatedWait(position));
+    }
+
+    private String tokenId(long position) {
+        var bytes = ByteBuffer.allocate(Long.BYTES + MAC_LENGTH).putLong(position).put(mac(position)).array();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    /**
+     * @return  Position the id was issued for, or -1 if this service did not issue it
+     */
+    private long position(String tokenId) {
+        if (tokenId == null) {
+            return -1;
+        }
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(tokenId);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+        if (bytes.length != Long.BYTES + MAC_LENGTH) {
+            return -1;
+        }
+        var buffer = ByteBuffer.wrap(bytes);
+        var position = buffer.getLong();
+        var tag = new byte[MAC_LENGTH];
+        buffer.get(tag);
+        return position > 0 && MessageDigest.isEqual(tag, mac(position)) ? position : -1;
+    }
+
+    private byte[] mac(long position) {
+        var tag = macs.get().doFinal(ByteBuffer.allocate(Long.BYTES).putLong(position).array());
+        return Arrays.copyOf(tag, MAC_LENGTH);
+    }
+}
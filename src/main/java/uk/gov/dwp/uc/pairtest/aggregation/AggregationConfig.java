@@ -0,0 +1,18 @@
+package uk.gov.dwp.uc.pairtest.aggregation;
+
+import java.time.Duration;
+
+/**
+ * @param bucket    Length of each tumbling window, which is also the step of sliding windows
+ * @param buckets   Windows kept per performance. Sliding windows can span at most {@code bucket * buckets}.
+ */
+public record AggregationConfig(Duration bucket, int buckets) {
+
+    public static final AggregationConfig DEFAULT = new AggregationConfig(Duration.ofMinutes(1), 60);
+
+    public AggregationConfig {
+        if (bucket.toMillis() <= 0 || buckets <= 0) {
+            throw new IllegalArgumentException("bucket must be at least a millisecond and buckets positive");
+        }
+    }
+}
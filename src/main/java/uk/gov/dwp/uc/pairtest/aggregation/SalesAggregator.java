@@ -0,0 +1,169 @@
+package uk.gov.dwp.uc.pairtest.aggregation;
+
+import uk.gov.dwp.uc.pairtest.domain.TicketOrder;
+import uk.gov.dwp.uc.pairtest.events.PurchaseListener;
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Live sales totals per performance and ticket type, kept up to date by every accepted purchase.
+ * <p>
+ * Each performance, and all performances together, has running totals plus a ring of fixed-length time buckets. A
+ * bucket is a tumbling window; a sliding window is the sum of the buckets it covers. Every counter is a
+ * {@link java.util.concurrent.atomic.LongAdder} per ticket type, so concurrent purchases rarely touch the same cache
+ * line, and queries only read counters, so they never hold up a purchase.
+ * <p>
+ * A bucket is replaced by a fresh one when its slot comes round again. A purchase racing with that replacement may
+ * land in the discarded bucket and be missing from the windows, though never from the running totals.
+ */
+public class SalesAggregator implements PurchaseListener {
+
+    private final long bucketMillis;
+    private final int bucketCount;
+    private final LongSupplier millisClock;
+    private final Sales all;
+    private final Sales unsold;
+    private final ConcurrentHashMap<Long, Sales> performances = new ConcurrentHashMap<>();
+
+    public SalesAggregator(AggregationConfig config) {
+        this(config, System::currentTimeMillis);
+    }
+
+    public SalesAggregator(AggregationConfig config, LongSupplier millisClock) {
+        this.bucketMillis = config.bucket().toMillis();
+        this.bucketCount = config.buckets();
+        this.millisClock = millisClock;
+        this.all = new Sales();
+        this.unsold = new Sales();
+    }
+
+    @Override
+    public void accepted(TicketOrder order, int amount, int seats) {
+        var epoch = Math.floorDiv(millisClock.getAsLong(), bucketMillis);
+        all.add(order, amount, seats, epoch);
+        var performance = performances.get(order.getPerformanceId());
+        if (performance == null) {
+            performance = performances.computeIfAbsent(order.getPerformanceId(), id -> new Sales());
+        }
+        performance.add(order, amount, seats, epoch);
+    }
+
+    @Override
+    public void rejected(TicketOrder order, RejectionReason reason) {
+    }
+
+    /**
+     * @return  Performances that have sold anything. Orders without a performance are under 0.
+     */
+    public Set<Long> performanceIds() {
+        return Set.copyOf(performances.keySet());
+    }
+
+    /**
+     * @return  Sales since the aggregator was created, across all performances
+     */
+    public SalesSnapshot totals() {
+        return all.totals.snapshot();
+    }
+
+    public SalesSnapshot totals(long performanceId) {
+        return performances.getOrDefault(performanceId, unsold).totals.snapshot();
+    }
+
+    /**
+     * @param span  Length of the window ending now, rounded up to whole buckets
+     */
+    public WindowedSales sliding(Duration span) {
+        return sliding(all, span);
+    }
+
+    public WindowedSales sliding(long performanceId, Duration span) {
+        return sliding(performances.getOrDefault(performanceId, unsold), span);
+    }
+
+    /**
+     * @return  The last {@code count} completed buckets, most recent first
+     */
+    public List<WindowedSales> tumbling(int count) {
+        return tumbling(all, count);
+    }
+
+    public List<WindowedSales> tumbling(long performanceId, int count) {
+        return tumbling(performances.getOrDefault(performanceId, unsold), count);
+    }
+
+    private WindowedSales sliding(Sales sales, Duration span) {
+        var now = millisClock.getAsLong();
+        var current = Math.floorDiv(now, bucketMillis);
+        var spanBuckets = Math.max(1, (span.toMillis() + bucketMillis - 1) / bucketMillis);
+        if (spanBuckets > bucketCount) {
+            throw new IllegalArgumentException("Window cannot span more than " + bucketCount + " buckets");
+        }
+        var totals = SalesCounters.newTotals();
+        for (var epoch = current - spanBuckets + 1; epoch <= current; epoch++) {
+            sales.sumBucket(epoch, totals);
+        }
+        return new WindowedSales((current - spanBuckets + 1) * bucketMillis, now, SalesCounters.snapshot(totals));
+    }
+
+    private List<WindowedSales> tumbling(Sales sales, int count) {
+        if (count > bucketCount - 1) {
+            throw new IllegalArgumentException("At most " + (bucketCount - 1) + " completed buckets are kept");
+        }
+        var current = Math.floorDiv(millisClock.getAsLong(), bucketMillis);
+        var windows = new ArrayList<WindowedSales>(count);
+        for (var epoch = current - 1; epoch >= current - count; epoch--) {
+            var totals = SalesCounters.newTotals();
+            sales.sumBucket(epoch, totals);
+            windows.add(new WindowedSales(epoch * bucketMillis, (epoch + 1) * bucketMillis,
+                    SalesCounters.snapshot(totals)));
+        }
+        return windows;
+    }
+
+    private final class Sales {
+        private final SalesCounters totals = new SalesCounters();
+        private final AtomicReferenceArray<Bucket> buckets = new AtomicReferenceArray<>(bucketCount);
+
+        private void add(TicketOrder order, int amount, int seats, long epoch) {
+            totals.add(order, amount, seats);
+            bucket(epoch).add(order, amount, seats);
+        }
+
+        private Bucket bucket(long epoch) {
+            var slot = (int) Math.floorMod(epoch, (long) bucketCount);
+            while (true) {
+                var bucket = buckets.get(slot);
+                if (bucket != null && bucket.epoch >= epoch) {
+                    return bucket;
+                }
+                var fresh = new Bucket(epoch);
+                if (buckets.compareAndSet(slot, bucket, fresh)) {
+                    return fresh;
+                }
+            }
+        }
+
+        private void sumBucket(long epoch, long[] totals) {
+            var bucket = buckets.get((int) Math.floorMod(epoch, (long) bucketCount));
+            if (bucket != null && bucket.epoch == epoch) {
+                bucket.sumInto(totals);
+            }
+        }
+    }
+
+    private static final class Bucket extends SalesCounters {
+        private final long epoch;
+
+        private Bucket(long epoch) {
+            this.epoch = epoch;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package uk.gov.dwp.uc.pairtest.aggregation;
+
+import uk.gov.dwp.uc.pairtest.domain.TicketOrder;
+import uk.gov.dwp.uc.pairtest.domain.TicketRequest;
+
+import java.util.EnumMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Striped counters for one slice of sales, one per ticket type plus order, revenue and seat totals.
+ */
+class SalesCounters {
+
+    private static final TicketRequest.Type[] TYPES = TicketRequest.Type.values();
+
+    private final LongAdder orders = new LongAdder();
+    private final LongAdder revenue = new LongAdder();
+    private final LongAdder seats = new LongAdder();
+    private final LongAdder[] tickets = new LongAdder[TYPES.length];
+
+    SalesCounters() {
+        for (int i = 0; i < tickets.length; i++) {
+            tickets[i] = new LongAdder();
+        }
+    }
+
+    void add(TicketOrder order, int amount, int seatCount) {
+        orders.increment();
+        revenue.add(amount);
+        seats.add(seatCount);
+        for (int line = 0, lines = order.getLineCount(); line < lines; line++) {
+            tickets[order.getTicketType(line).ordinal()].add(order.getNoOfTickets(line));
+        }
+    }
+
+    SalesSnapshot snapshot() {
+        var byType = new EnumMap<TicketRequest.Type, Long>(TicketRequest.Type.class);
+        for (var type : TYPES) {
+            byType.put(type, tickets[type.ordinal()].sum());
+        }
+        return new SalesSnapshot(orders.sum(), byType, revenue.sum(), seats.sum());
+    }
+
+    /**
+     * Adds this slice's current counts into {@code totals}, laid out as orders, revenue, seats, then tickets by type.
+     */
+    void sumInto(long[] totals) {
+        totals[0] += orders.sum();
+        totals[1] += revenue.sum();
+        totals[2] += seats.sum();
+        for (int i = 0; i < tickets.length; i++) {
+            totals[3 + i] += tickets[i].sum();
+        }
+    }
+
+    static long[] newTotals() {
+        return new long[3 + TYPES.length];
+    }
+
+    static SalesSnapshot snapshot(long[] totals) {
+        var byType = new EnumMap<TicketRequest.Type, Long>(TicketRequest.Type.class);
+        for (var type : TYPES) {
+            byType.put(type, totals[3 + type.ordinal()]);
+        }
+        return new SalesSnapshot(totals[0], byType, totals[1], totals[2]);
+    }
+}
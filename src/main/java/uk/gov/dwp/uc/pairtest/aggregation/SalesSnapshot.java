@@ -0,0 +1,25 @@
+package uk.gov.dwp.uc.pairtest.aggregation;
+
+import uk.gov.dwp.uc.pairtest.domain.TicketRequest;
+
+import java.util.Map;
+
+/**
+ * Sales over some period. Counters are read one at a time while purchases carry on, so the fields may disagree by
+ * the purchases that landed during the read.
+ *
+ * @param orders    Purchases completed
+ * @param tickets   Tickets sold by type
+ * @param revenue   Amount charged
+ * @param seats     Seats reserved
+ */
+public record SalesSnapshot(long orders, Map<TicketRequest.Type, Long> tickets, long revenue, long seats) {
+
+    public SalesSnapshot {
+        tickets = Map.copyOf(tickets);
+    }
+
+    public long tickets(TicketRequest.Type ticketType) {
+        return tickets.getOrDefault(ticketType, 0L);
+    }
+}
@@ -0,0 +1,8 @@
+package uk.gov.dwp.uc.pairtest.aggregation;
+
+/**
+ * @param startMillis   Start of the window, inclusive, in epoch milliseconds
+ * @param endMillis     End of the window, exclusive, in epoch milliseconds
+ */
+public record WindowedSales(long startMillis, long endMillis, SalesSnapshot sales) {
+}
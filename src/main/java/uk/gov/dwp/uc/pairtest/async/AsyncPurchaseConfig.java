@@ -0,0 +1,26 @@
+package uk.gov.dwp.uc.pairtest.async;
+
+import java.time.Duration;
+
+/**
+ * @param maxConcurrentPurchases    Most purchases allowed between validation and seat reservation at once
+ * @param paymentTimeout            Longest the caller waits for {@code makePayment} before its outcome is reported
+ *                                  as unknown
+ * @param reservationTimeout        Longest the caller waits for {@code reserveSeat} before its outcome is reported
+ *                                  as unknown
+ */
+public record AsyncPurchaseConfig(int maxConcurrentPurchases, Duration paymentTimeout, Duration reservationTimeout) {
+
+    public static final AsyncPurchaseConfig DEFAULT =
+            new AsyncPurchaseConfig(10_000, Duration.ofSeconds(5), Duration.ofSeconds(5));
+
+    public AsyncPurchaseConfig {
+        if (maxConcurrentPurchases <= 0) {
+            throw new IllegalArgumentException("maxConcurrentPurchases must be positive");
+        }
+        if (paymentTimeout.isNegative() || paymentTimeout.isZero()
+                || reservationTimeout.isNegative() || reservationTimeout.isZero()) {
+            throw new IllegalArgumentException("timeouts must be positive");
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package uk.gov.dwp.uc.pairtest.async;
+
+import uk.gov.dwp.uc.pairtest.domain.TicketPurchaseRequest;
+
+import java.util.concurrent.CompletableFuture;
+
+public interface AsyncTicketService {
+
+    /**
+     * Starts a purchase without blocking the caller.
+     * @return  Future completed once seats are reserved, or completed exceptionally with an
+     *          {@link uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException} for an invalid request, a
+     *          {@link java.util.concurrent.RejectedExecutionException} when the concurrency limit is reached, an
+     *          {@link uk.gov.dwp.uc.pairtest.exception.OutcomeUnknownException} when a downstream call overruns and
+     *          may still complete, or whatever the downstream service threw.
+     */
+    CompletableFuture<Void> purchaseTickets(TicketPurchaseRequest ticketPurchaseRequest);
+
+}
@@ -0,0 +1,210 @@
+package uk.gov.dwp.uc.pairtest.async;
+
+import thirdparty.discount.DiscountService;
+import thirdparty.paymentgateway.TicketPaymentService;
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.PurchaseEvaluator;
+import uk.gov.dwp.uc.pairtest.TariffRegistry;
+import uk.gov.dwp.uc.pairtest.domain.TicketPurchaseRequest;
+import uk.gov.dwp.uc.pairtest.exception.OutcomeUnknownException;
+import uk.gov.dwp.uc.pairtest.validation.PurchaseValidator;
+import uk.gov.dwp.uc.pairtest.validation.ValidationRules;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs the payment and seat reservation stages of a purchase on an executor so callers never block on the
+ * downstream services. Validation is cheap and stays on the calling thread.
+ * <p>
+ * Concurrency is bounded by a permit per in-flight purchase rather than by the executor's thread count, so with a
+ * virtual-thread executor the limit is purely {@link AsyncPurchaseConfig#maxConcurrentPurchases()}.
+ * <p>
+ * A timeout only stops the caller waiting. The downstream call carries on, and the purchase keeps its permit until it
+ * really returns, so slow services cannot have more calls outstanding than the limit. A payment that returns after
+ * its timeout still goes on to reserve seats, since the customer may have been charged.
+ */
+public class AsyncTicketServiceImpl implements AsyncTicketService {
+
+    private final PurchaseEvaluator purchaseEvaluator;
+    private final TicketPaymentService ticketPaymentService;
+    private final SeatReservationService seatReservationService;
+    private final Executor executor;
+    private final Semaphore permits;
+    private final long paymentTimeoutNanos;
+    private final long reservationTimeoutNanos;
+
+    public AsyncTicketServiceImpl(TariffRegistry tariffRegistry, TicketPaymentService ticketPaymentService,
+                                  SeatReservationService seatReservationService) {
+        this(builder(tariffRegistry, ticketPaymentService, seatReservationService));
+    }
+
+    public AsyncTicketServiceImpl(TariffRegistry tariffRegistry, TicketPaymentService ticketPaymentService,
+                                  SeatReservationService seatReservationService, Executor executor,
+                                  AsyncPurchaseConfig config) {
+        this(builder(tariffRegistry, ticketPaymentService, seatReservationService).executor(executor).config(config));
+    }
+
+    private AsyncTicketServiceImpl(Builder builder) {
+        this.purchaseEvaluator = new PurchaseEvaluator(builder.tariffRegistry, false, builder.discountService,
+                builder.validator);
+        this.ticketPaymentService = builder.ticketPaymentService;
+        this.seatReservationService = builder.seatReservationService;
+        this.executor = builder.executor == null
+                ? defaultExecutor(builder.config.maxConcurrentPurchases())
+                : builder.executor;
+        this.permits = new Semaphore(builder.config.maxConcurrentPurchases());
+        this.paymentTimeoutNanos = builder.config.paymentTimeout().toNanos();
+        this.reservationTimeoutNanos = builder.config.reservationTimeout().toNanos();
+    }
+
+    /**
+     * @param tariffRegistry            Source of prices and seats per ticket type
+     * @param ticketPaymentService      Gateway used to take payment
+     * @param seatReservationService    Service used to reserve seats
+     * @return                          Builder for a service with optional collaborators
+     */
+    public static Builder builder(TariffRegistry tariffRegistry, TicketPaymentService ticketPaymentService,
+                                  SeatReservationService seatReservationService) {
+        return new Builder(tariffRegistry, ticketPaymentService, seatReservationService);
+    }
+
+
+    @Override
+    public CompletableFuture<Void> purchaseTickets(TicketPurchaseRequest ticketPurchaseRequest) {
+        long totals;
+        try {
+            totals = purchaseEvaluator.evaluate(ticketPurchaseRequest);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        if (!permits.tryAcquire()) {
+            return CompletableFuture.failedFuture(new RejectedExecutionException("Too many purchases in flight"));
+        }
+
+        var accountId = ticketPurchaseRequest.getAccountId();
+        CompletableFuture<Void> payment;
+        CompletableFuture<Void> reservation;
+        try {
+            payment = CompletableFuture.runAsync(
+                    () -> ticketPaymentService.makePayment(accountId, PurchaseEvaluator.amount(totals)), executor);
+            reservation = payment.thenCompose(paid -> CompletableFuture.runAsync(
+                    () -> seatReservationService.reserveSeat(accountId, PurchaseEvaluator.seats(totals)), executor));
+        } catch (RejectedExecutionException e) {
+            permits.release();
+            return CompletableFuture.failedFuture(e);
+        }
+        reservation.whenComplete((ignored, failure) -> permits.release());
+        return withTimeout(payment, paymentTimeoutNanos, "Payment")
+                .thenCompose(paid -> withTimeout(reservation, reservationTimeoutNanos, "Seat reservation"));
+    }
+
+    /**
+     * @return  View of {@code call} that fails with an {@link OutcomeUnknownException} once the timeout passes,
+     *          leaving {@code call} itself to carry on
+     */
+    private static CompletableFuture<Void> withTimeout(CompletableFuture<Void> call, long timeoutNanos, String stage) {
+        return call.copy()
+                .orTimeout(timeoutNanos, TimeUnit.NANOSECONDS)
+                .exceptionallyCompose(failure -> CompletableFuture.failedFuture(failure instanceof TimeoutException
+                        ? new OutcomeUnknownException(stage + " timed out and may still complete", failure)
+                        : failure));
+    }
+
+    /**
+     * @return  {@link #defaultExecutor(int)} sized for {@link AsyncPurchaseConfig#DEFAULT}
+     */
+    public static ExecutorService defaultExecutor() {
+        return defaultExecutor(AsyncPurchaseConfig.DEFAULT.maxConcurrentPurchases());
+    }
+
+    /**
+     * An in-flight purchase runs one downstream call at a time, so {@code maxThreads} equal to
+     * {@link AsyncPurchaseConfig#maxConcurrentPurchases()} never leaves a call waiting for a thread.
+     *
+     * @return  A virtual-thread-per-task executor when running on Java 21 or later, otherwise a pool of at most
+     *          {@code maxThreads} daemon platform threads, which exit after a minute idle
+     */
+    public static ExecutorService defaultExecutor(int maxThreads) {
+        try {
+            var factory = MethodHandles.publicLookup().findStatic(Executors.class,
+                    "newVirtualThreadPerTaskExecutor", MethodType.methodType(ExecutorService.class));
+            return (ExecutorService) factory.invoke();
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            var pool = new ThreadPoolExecutor(maxThreads, maxThreads, 1, TimeUnit.MINUTES,
+                    new LinkedBlockingQueue<>(), runnable -> {
+                        var thread = new Thread(runnable, "async-ticket-service");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            pool.allowCoreThreadTimeOut(true);
+            return pool;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Could not create virtual thread executor", e);
+        }
+    }
+
+    public static final class Builder {
+
+        private final TariffRegistry tariffRegistry;
+        private final TicketPaymentService ticketPaymentService;
+        private final SeatReservationService seatReservationService;
+        private Executor executor;
+        private AsyncPurchaseConfig config = AsyncPurchaseConfig.DEFAULT;
+        private DiscountService discountService;
+        private PurchaseValidator validator = new PurchaseValidator(ValidationRules.DEFAULT);
+
+        private Builder(TariffRegistry tariffRegistry, TicketPaymentService ticketPaymentService,
+                        SeatReservationService seatReservationService) {
+            this.tariffRegistry = tariffRegistry;
+            this.ticketPaymentService = ticketPaymentService;
+            this.seatReservationService = seatReservationService;
+        }
+
+        /**
+         * @param executor  Runs the downstream calls. Without one, {@link #defaultExecutor(int)} is used, sized to
+         *                  the configured limit on concurrent purchases.
+         */
+        public Builder executor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        public Builder config(AsyncPurchaseConfig config) {
+            this.config = config;
+            return this;
+        }
+
+        /**
+         * @param discountService   Resolves discount codes on requests. Without one, requests carrying a code are
+         *                          rejected.
+         */
+        public Builder discountService(DiscountService discountService) {
+            this.discountService = discountService;
+            return this;
+        }
+
+        /**
+         * @param validator Purchase rules per performance. Without one every performance gets
+         *                  {@link uk.gov.dwp.uc.pairtest.validation.ValidationPolicy#DEFAULT}.
+         */
+        public Builder validator(PurchaseValidator validator) {
+            this.validator = validator;
+            return this;
+        }
+
+        public AsyncTicketServiceImpl build() {
+            return new AsyncTicketServiceImpl(this);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package uk.gov.dwp.uc.pairtest.batch;
+
+/**
+ * Outcome of each request in a batch, indexed in the same order as the submitted requests.
+ */
+public final class BatchPurchaseResult {
+
+    private final RuntimeException[] failures;
+    private int failureCount;
+
+    BatchPurchaseResult(int size) {
+        this.failures = new RuntimeException[size];
+    }
+
+    void fail(int index, RuntimeException failure) {
+        if (failures[index] == null) {
+            failureCount++;
+        }
+        failures[index] = failure;
+    }
+
+    public int size() {
+        return failures.length;
+    }
+
+    public boolean isSuccessful(int index) {
+        return failures[index] == null;
+    }
+
+    /**
+     * @return  Why the request at {@code index} failed, or {@code null} if it succeeded. Validation failures are
+     *          {@link uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException}s; anything else came from a downstream
+     *          service.
+     */
+    public RuntimeException getFailure(int index) {
+        return failures[index];
+    }
+
+    public int getSuccessCount() {
+        return failures.length - failureCount;
+    }
+
+    public int getFailureCount() {
+        return failureCount;
+    }
+}
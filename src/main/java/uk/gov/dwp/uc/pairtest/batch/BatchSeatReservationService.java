@@ -0,0 +1,33 @@
+package uk.gov.dwp.uc.pairtest.batch;
+
+import thirdparty.seatbooking.SeatReservationService;
+
+/**
+ * Batch-capable counterpart of {@link SeatReservationService}, reserving seats for many accounts in one round trip.
+ */
+public interface BatchSeatReservationService {
+
+    /**
+     * Makes the first {@code count} reservations, where reservation {@code i} allocates
+     * {@code totalSeatsToAllocate[i]} seats to {@code accountIds[i]}. A reservation that fails is reported in
+     * {@code failures[i]}, which is left {@code null} for each reservation made.
+     * @throws RuntimeException only if the call failed as a whole and no reservation in it was made
+     */
+    void reserveSeats(long[] accountIds, int[] totalSeatsToAllocate, int count, RuntimeException[] failures);
+
+    /**
+     * @param seatReservationService    Service without batch support
+     * @return                          Adapter that falls back to one {@code reserveSeat} call per reservation
+     */
+    static BatchSeatReservationService perCall(SeatReservationService seatReservationService) {
+        return (accountIds, totalSeatsToAllocate, count, failures) -> {
+            for (int i = 0; i < count; i++) {
+                try {
+                    seatReservationService.reserveSeat(accountIds[i], totalSeatsToAllocate[i]);
+                } catch (RuntimeException e) {
+                    failures[i] = e;
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,33 @@
+package uk.gov.dwp.uc.pairtest.batch;
+
+import thirdparty.paymentgateway.TicketPaymentService;
+
+/**
+ * Batch-capable counterpart of {@link TicketPaymentService}, taking many payments in one round trip.
+ */
+public interface BatchTicketPaymentService {
+
+    /**
+     * Takes the first {@code count} payments, where payment {@code i} charges {@code totalAmountsToPay[i]} to
+     * {@code accountIds[i]}. A payment that fails is reported in {@code failures[i]}, which is left {@code null} for
+     * each payment taken.
+     * @throws RuntimeException only if the call failed as a whole and no payment in it was taken
+     */
+    void makePayments(long[] accountIds, int[] totalAmountsToPay, int count, RuntimeException[] failures);
+
+    /**
+     * @param ticketPaymentService  Gateway without batch support
+     * @return                      Adapter that falls back to one {@code makePayment} call per payment
+     */
+    static BatchTicketPaymentService perCall(TicketPaymentService ticketPaymentService) {
+        return (accountIds, totalAmountsToPay, count, failures) -> {
+            for (int i = 0; i < count; i++) {
+                try {
+                    ticketPaymentService.makePayment(accountIds[i], totalAmountsToPay[i]);
+                } catch (RuntimeException e) {
+                    failures[i] = e;
+                }
+            }
+        };
+    }
+}
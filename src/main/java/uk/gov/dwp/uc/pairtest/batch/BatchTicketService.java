@@ -0,0 +1,15 @@
+package uk.gov.dwp.uc.pairtest.batch;
+
+import uk.gov.dwp.uc.pairtest.domain.TicketPurchaseRequest;
+
+import java.util.List;
+
+public interface BatchTicketService {
+
+    /**
+     * Validates every request, then takes payment and reserves seats for the valid ones in batched downstream calls.
+     * Never throws for an individual request; each outcome is reported in the result at the request's index.
+     */
+    BatchPurchaseResult purchaseTickets(List<TicketPurchaseRequest> ticketPurchaseRequests);
+
+}
@@ -0,0 +1,189 @@
+package uk.gov.dwp.uc.pairtest.batch;
+
+import thirdparty.discount.DiscountService;
+import uk.gov.dwp.uc.pairtest.PurchaseEvaluator;
+import uk.gov.dwp.uc.pairtest.TariffRegistry;
+import uk.gov.dwp.uc.pairtest.domain.TicketPurchaseRequest;
+import uk.gov.dwp.uc.pairtest.validation.PurchaseValidator;
+import uk.gov.dwp.uc.pairtest.validation.ValidationRules;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class BatchTicketServiceImpl implements BatchTicketService {
+
+    public static final int DEFAULT_MAX_BATCH_SIZE = 500;
+
+    private final PurchaseEvaluator purchaseEvaluator;
+    private final BatchTicketPaymentService batchTicketPaymentService;
+    private final BatchSeatReservationService batchSeatReservationService;
+    private final int maxBatchSize;
+
+    public BatchTicketServiceImpl(TariffRegistry tariffRegistry, BatchTicketPaymentService batchTicketPaymentService,
+                                  BatchSeatReservationService batchSeatReservationService) {
+        this(builder(tariffRegistry, batchTicketPaymentService, batchSeatReservationService));
+    }
+
+    /**
+     * @param maxBatchSize  Most payments or reservations handed to a downstream service in one call
+     */
+    public BatchTicketServiceImpl(TariffRegistry tariffRegistry, BatchTicketPaymentService batchTicketPaymentService,
+                                  BatchSeatReservationService batchSeatReservationService, int maxBatchSize) {
+        this(builder(tariffRegistry, batchTicketPaymentService, batchSeatReservationService)
+                .maxBatchSize(maxBatchSize));
+    }
+
+    private BatchTicketServiceImpl(Builder builder) {
+        this.purchaseEvaluator = new PurchaseEvaluator(builder.tariffRegistry, false, builder.discountService,
+                builder.validator);
+        this.batchTicketPaymentService = builder.batchTicketPaymentService;
+        this.batchSeatReservationService = builder.batchSeatReservationService;
+        this.maxBatchSize = builder.maxBatchSize;
+    }
+
+    /**
+     * @param tariffRegistry                Source of prices and seats per ticket type
+     * @param batchTicketPaymentService     Gateway used to take payments in batches
+     * @param batchSeatReservationService   Service used to reserve seats in batches
+     * @return                              Builder for a service with optional collaborators
+     */
+    public static Builder builder(TariffRegistry tariffRegistry, BatchTicketPaymentService batchTicketPaymentService,
+                                  BatchSeatReservationService batchSeatReservationService) {
+        return new Builder(tariffRegistry, batchTicketPaymentService, batchSeatReservationService);
+    }
+
+    @Override
+    public BatchPurchaseResult purchaseTickets(List<TicketPurchaseRequest> ticketPurchaseRequests) {
+        var result = new BatchPurchaseResult(ticketPurchaseRequests.size());
+        var chunkSize = Math.min(maxBatchSize, ticketPurchaseRequests.size());
+        var indexes = new int[chunkSize];
+        var accountIds = new long[chunkSize];
+        var amounts = new int[chunkSize];
+        var seats = new int[chunkSize];
+        var failures = new RuntimeException[chunkSize];
+
+        int count = 0;
+        for (int i = 0; i < ticketPurchaseRequests.size(); i++) {
+            var request = ticketPurchaseRequests.get(i);
+            long totals;
+            try {
+                totals = purchaseEvaluator.evaluate(request);
+            } catch (RuntimeException e) {
+                // A rejection, or a discount service failing for this request, fails it alone; earlier chunks may
+                // already have been charged and must still be reported.
+                result.fail(i, e);
+                continue;
+            }
+            indexes[count] = i;
+            accountIds[count] = request.getAccountId();
+            amounts[count] = PurchaseEvaluator.amount(totals);
+            seats[count] = PurchaseEvaluator.seats(totals);
+            if (++count == chunkSize) {
+                submit(result, indexes, accountIds, amounts, seats, failures, count);
+                count = 0;
+            }
+        }
+        if (count > 0) {
+            submit(result, indexes, accountIds, amounts, seats, failures, count);
+        }
+        return result;
+    }
+
+    /**
+     * Each request fails only at the stage where it failed. Seats are reserved for exactly the requests whose payment
+     * was taken, so a request failing at reservation has been charged, as in the single-request path.
+     */
+    private void submit(BatchPurchaseResult result, int[] indexes, long[] accountIds, int[] amounts, int[] seats,
+                        RuntimeException[] failures, int count) {
+        Arrays.fill(failures, 0, count, null);
+        try {
+            batchTicketPaymentService.makePayments(accountIds, amounts, count, failures);
+        } catch (RuntimeException e) {
+            failAll(result, indexes, e, count);
+            return;
+        }
+        var paid = 0;
+        for (int i = 0; i < count; i++) {
+            if (failures[i] != null) {
+                result.fail(indexes[i], failures[i]);
+                continue;
+            }
+            indexes[paid] = indexes[i];
+            accountIds[paid] = accountIds[i];
+            seats[paid] = seats[i];
+            paid++;
+        }
+        if (paid == 0) {
+            return;
+        }
+
+        Arrays.fill(failures, 0, paid, null);
+        try {
+            batchSeatReservationService.reserveSeats(accountIds, seats, paid, failures);
+        } catch (RuntimeException e) {
+            failAll(result, indexes, e, paid);
+            return;
+        }
+        for (int i = 0; i < paid; i++) {
+            if (failures[i] != null) {
+                result.fail(indexes[i], failures[i]);
+            }
+        }
+    }
+
+    private static void failAll(BatchPurchaseResult result, int[] indexes, RuntimeException failure, int count) {
+        for (int i = 0; i < count; i++) {
+            result.fail(indexes[i], failure);
+        }
+    }
+
+    public static final class Builder {
+
+        private final TariffRegistry tariffRegistry;
+        private final BatchTicketPaymentService batchTicketPaymentService;
+        private final BatchSeatReservationService batchSeatReservationService;
+        private int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+        private DiscountService discountService;
+        private PurchaseValidator validator = new PurchaseValidator(ValidationRules.DEFAULT);
+
+        private Builder(TariffRegistry tariffRegistry, BatchTicketPaymentService batchTicketPaymentService,
+                        BatchSeatReservationService batchSeatReservationService) {
+            this.tariffRegistry = tariffRegistry;
+            this.batchTicketPaymentService = batchTicketPaymentService;
+            this.batchSeatReservationService = batchSeatReservationService;
+        }
+
+        /**
+         * @param maxBatchSize  Most payments or reservations handed to a downstream service in one call
+         */
+        public Builder maxBatchSize(int maxBatchSize) {
+            if (maxBatchSize <= 0) {
+                throw new IllegalArgumentException("maxBatchSize must be positive");
+            }
+            this.maxBatchSize = maxBatchSize;
+            return this;
+        }
+
+        /**
+         * @param discountService   Resolves discount codes on requests. Without one, requests carrying a code are
+         *                          rejected.
+         */
+        public Builder discountService(DiscountService discountService) {
+            this.discountService = discountService;
+            return this;
+        }
+
+        /**
+         * @param validator Purchase rules per performance. Without one every performance gets
+         *                  {@link uk.gov.dwp.uc.pairtest.validation.ValidationPolicy#DEFAULT}.
+         */
+        public Builder validator(PurchaseValidator validator) {
+            this.validator = validator;
+            return this;
+        }
+
+        public BatchTicketServiceImpl build() {
+            return new BatchTicketServiceImpl(this);
+        }
+    }
+}
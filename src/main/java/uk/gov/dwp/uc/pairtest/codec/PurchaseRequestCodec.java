@@ -0,0 +1,65 @@
+package uk.gov.dwp.uc.pairtest.codec;
+
+import uk.gov.dwp.uc.pairtest.domain.TicketOrder;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Fixed-layout binary encoding of a purchase, big-endian:
+ * <pre>
+ *   offset 0   uint8   format version, currently {@value #VERSION}
+ *   offset 1   int64   account id
+ *   offset 9   int64   performance id, zero for the default prices
+ *   offset 17  uint8   line count (n)
+ *   offset 18  n x { uint8 ticket type ordinal, int32 number of tickets }
+ * </pre>
+ * Discount codes are not part of the format. Encoded purchases are read back in place with a
+ * {@link PurchaseRequestView}, which refuses any other version.
+ */
+public final class PurchaseRequestCodec {
+
+    public static final int VERSION = 2;
+
+    static final int VERSION_OFFSET = 0;
+    static final int ACCOUNT_ID_OFFSET = 1;
+    static final int PERFORMANCE_ID_OFFSET = 9;
+    static final int LINE_COUNT_OFFSET = 17;
+    static final int HEADER_LENGTH = 18;
+    static final int LINE_LENGTH = 5;
+    static final int MAX_LINES = 0xFF;
+
+    private PurchaseRequestCodec() {
+        throw new RuntimeException("Cannot instantiate this class");
+    }
+
+    public static int encodedLength(int lineCount) {
+        return HEADER_LENGTH + lineCount * LINE_LENGTH;
+    }
+
+    /**
+     * Writes {@code ticketOrder} at {@code offset} using absolute puts, leaving the buffer's position untouched.
+     * @return  Number of bytes written
+     * @throws IllegalArgumentException if the order has more lines than the format can hold or carries a discount
+     *                                  code
+     */
+    public static int encode(TicketOrder ticketOrder, ByteBuffer buffer, int offset) {
+        var lines = ticketOrder.getLineCount();
+        if (lines > MAX_LINES) {
+            throw new IllegalArgumentException("At most " + MAX_LINES + " lines can be encoded");
+        }
+        if (ticketOrder.getDiscountCode() != null) {
+            throw new IllegalArgumentException("Discount codes cannot be encoded");
+        }
+        buffer.put(offset + VERSION_OFFSET, (byte) VERSION);
+        buffer.putLong(offset + ACCOUNT_ID_OFFSET, ticketOrder.getAccountId());
+        buffer.putLong(offset + PERFORMANCE_ID_OFFSET, ticketOrder.getPerformanceId());
+        buffer.put(offset + LINE_COUNT_OFFSET, (byte) lines);
+        var position = offset + HEADER_LENGTH;
+        for (int i = 0; i < lines; i++) {
+            buffer.put(position, (byte) ticketOrder.getTicketType(i).ordinal());
+            buffer.putInt(position + 1, ticketOrder.getNoOfTickets(i));
+            position += LINE_LENGTH;
+        }
+        return position - offset;
+    }
+}
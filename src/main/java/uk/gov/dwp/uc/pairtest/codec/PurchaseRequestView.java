@@ -0,0 +1,95 @@
+package uk.gov.dwp.uc.pairtest.codec;
+
+import uk.gov.dwp.uc.pairtest.domain.TicketOrder;
+import uk.gov.dwp.uc.pairtest.domain.TicketRequest;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Flyweight over a purchase encoded by {@link PurchaseRequestCodec}, in a heap or direct buffer. Every accessor reads
+ * straight from the buffer, so one view can be re-pointed at each message in turn with {@link #wrap} and nothing is
+ * allocated per message.
+ * <p>
+ * A view is not thread safe, and it reflects any later change to the underlying bytes.
+ */
+public final class PurchaseRequestView implements TicketOrder {
+
+    private static final TicketRequest.Type[] TYPES = TicketRequest.Type.values();
+
+    private ByteBuffer buffer;
+    private int offset;
+    private int lineCount;
+
+    /**
+     * Points this view at the message starting at {@code offset}, checking its length and ticket types up front so
+     * the accessors cannot fail part way through a purchase.
+     * @return  This view
+     * @throws InvalidPurchaseException if the message is truncated, is of another format version or names an
+     *                                  unknown ticket type
+     */
+    public PurchaseRequestView wrap(ByteBuffer buffer, int offset) {
+        if (offset < 0 || buffer.limit() - offset < PurchaseRequestCodec.HEADER_LENGTH
+                || buffer.get(offset + PurchaseRequestCodec.VERSION_OFFSET) != PurchaseRequestCodec.VERSION) {
+            throw new InvalidPurchaseException(RejectionReason.INVALID_REQUEST);
+        }
+        var lines = Byte.toUnsignedInt(buffer.get(offset + PurchaseRequestCodec.LINE_COUNT_OFFSET));
+        if (buffer.limit() - offset < PurchaseRequestCodec.encodedLength(lines)) {
+            throw new InvalidPurchaseException(RejectionReason.INVALID_REQUEST);
+        }
+        for (int i = 0; i < lines; i++) {
+            var ordinal = Byte.toUnsignedInt(buffer.get(lineOffset(offset, i)));
+            if (ordinal >= TYPES.length) {
+                throw new InvalidPurchaseException(RejectionReason.INVALID_REQUEST);
+            }
+        }
+        this.buffer = buffer;
+        this.offset = offset;
+        this.lineCount = lines;
+        return this;
+    }
+
+    /**
+     * @return  Bytes taken by the wrapped message, i.e. where the next message in the buffer starts
+     */
+    public int encodedLength() {
+        return PurchaseRequestCodec.encodedLength(lineCount);
+    }
+
+    @Override
+    public long getAccountId() {
+        return buffer.getLong(offset + PurchaseRequestCodec.ACCOUNT_ID_OFFSET);
+    }
+
+    @Override
+    public long getPerformanceId() {
+        return buffer.getLong(offset + PurchaseRequestCodec.PERFORMANCE_ID_OFFSET);
+    }
+
+    @Override
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    @Override
+    public TicketRequest.Type getTicketType(int line) {
+        return TYPES[Byte.toUnsignedInt(buffer.get(lineOffset(offset, checkLine(line))))];
+    }
+
+    @Override
+    public int getNoOfTickets(int line) {
+        return buffer.getInt(lineOffset(offset, checkLine(line)) + 1);
+    }
+
+    private int checkLine(int line) {
+        if (line < 0 || line >= lineCount) {
+            throw new IndexOutOfBoundsException(line);
+        }
+        return line;
+    }
+
+    private static int lineOffset(int offset, int line) {
+        return offset + PurchaseRequestCodec.HEADER_LENGTH + line * PurchaseRequestCodec.LINE_LENGTH;
+    }
+}
@@ -0,0 +1,127 @@
+package uk.gov.dwp.uc.pairtest.discount;
+
+import thirdparty.discount.Discount;
+import thirdparty.discount.DiscountService;
+import thirdparty.discount.exception.InvalidDiscountCodeException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+/**
+ * Size-bounded, expiring cache in front of a {@link DiscountService}.
+ * <p>
+ * Concurrent lookups of the same code share a single call to the underlying service. Valid discounts are kept for
+ * {@link DiscountCacheConfig#ttl()}, and codes the service rejected with {@link InvalidDiscountCodeException} for the
+ * usually shorter {@link DiscountCacheConfig#negativeTtl()}. Any other failure is passed on and not cached.
+ * <p>
+ * When the cache is full, expired entries are dropped first, then arbitrary entries until a tenth of its capacity is
+ * free. That is cruder than LRU but needs no bookkeeping on the read path, and freeing a batch at once means a stream
+ * of misses, such as bots trying random codes, pays for a scan only once every {@code maximumSize / 10} misses. One
+ * thread evicts at a time; misses racing with it may briefly take the cache over its limit.
+ */
+public class CachingDiscountService implements DiscountService {
+
+    private final DiscountService delegate;
+    private final DiscountCacheConfig config;
+    private final LongSupplier nanoClock;
+    private final ConcurrentHashMap<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+    private final int evictTo;
+
+    public CachingDiscountService(DiscountService delegate, DiscountCacheConfig config) {
+        this(delegate, config, System::nanoTime);
+    }
+
+    public CachingDiscountService(DiscountService delegate, DiscountCacheConfig config, LongSupplier nanoClock) {
+        this.delegate = delegate;
+        this.config = config;
+        this.nanoClock = nanoClock;
+        this.evictTo = config.maximumSize() - Math.max(1, config.maximumSize() / 10);
+    }
+
+    @Override
+    public Discount getDiscountPercentage(long accountId, String discountCode) throws InvalidDiscountCodeException {
+        var key = new Key(config.accountScoped() ? accountId : 0, discountCode);
+        var now = nanoClock.getAsLong();
+        while (true) {
+            var entry = entries.get(key);
+            if (entry != null && !entry.isExpired(now)) {
+                return await(entry);
+            }
+
+            var fresh = new Entry();
+            var won = entry == null ? entries.putIfAbsent(key, fresh) == null : entries.replace(key, entry, fresh);
+            if (won) {
+                evictIfFull(now);
+                return load(key, accountId, discountCode, fresh);
+            }
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private Discount load(Key key, long accountId, String discountCode, Entry entry) {
+        try {
+            var discount = delegate.getDiscountPercentage(accountId, discountCode);
+            entry.expiresAt = nanoClock.getAsLong() + config.ttl().toNanos();
+            entry.result.complete(discount);
+            return discount;
+        } catch (InvalidDiscountCodeException e) {
+            entry.expiresAt = nanoClock.getAsLong() + config.negativeTtl().toNanos();
+            entry.result.completeExceptionally(e);
+            throw e;
+        } catch (RuntimeException | Error e) {
+            // Waiters are released whatever went wrong, or they would block on this entry for good.
+            entries.remove(key, entry);
+            entry.result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private static Discount await(Entry entry) {
+        try {
+            return entry.result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private void evictIfFull(long now) {
+        if (entries.size() <= config.maximumSize() || !evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            entries.values().removeIf(entry -> entry.isExpired(now));
+            var iterator = entries.values().iterator();
+            while (entries.size() > evictTo && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    private record Key(long accountId, String discountCode) {
+    }
+
+    private static final class Entry {
+        private final CompletableFuture<Discount> result = new CompletableFuture<>();
+        private volatile long expiresAt = Long.MAX_VALUE;
+
+        private boolean isExpired(long now) {
+            return result.isDone() && expiresAt - now <= 0;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package uk.gov.dwp.uc.pairtest.discount;
+
+import java.time.Duration;
+
+/**
+ * @param maximumSize   Most codes held at once
+ * @param ttl           How long a valid discount is reused
+ * @param negativeTtl   How long a rejected code keeps being rejected without asking the service again
+ * @param accountScoped {@code true}, the default, to cache entries per account, since
+ *                      {@link thirdparty.discount.DiscountService} may answer differently for each account.
+ *                      {@code false} shares each code's entry, and its rejection, between all accounts. That gives a
+ *                      far higher hit rate but is only correct when the service's answer does not depend on the
+ *                      account, as with campaign codes.
+ */
+public record DiscountCacheConfig(int maximumSize, Duration ttl, Duration negativeTtl, boolean accountScoped) {
+
+    public static final DiscountCacheConfig DEFAULT =
+            new DiscountCacheConfig(10_000, Duration.ofMinutes(5), Duration.ofSeconds(30), true);
+
+    public DiscountCacheConfig {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("maximumSize must be positive");
+        }
+        if (ttl.isNegative() || negativeTtl.isNegative()) {
+            throw new IllegalArgumentException("ttl and negativeTtl cannot be negative");
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package uk.gov.dwp.uc.pairtest.dispatch;
+
+/**
+ * @param lanes                 Worker lanes, rounded up to a power of two. One per core suits lanes that do not block;
+ *                              lanes that wait on downstream calls need about target rate times call latency.
+ * @param queueCapacity         Purchases each lane can hold waiting, rounded up to a power of two. A purchase for a
+ *                              full lane is refused rather than blocking the caller.
+ * @param backpressureThreshold Queue depth at which {@link ShardedPurchaseDispatcher#isBackpressured} starts telling
+ *                              callers to slow down, before purchases are actually refused
+ */
+public record DispatchConfig(int lanes, int queueCapacity, int backpressureThreshold) {
+
+    public static final DispatchConfig DEFAULT =
+            new DispatchConfig(Runtime.getRuntime().availableProcessors(), 4096, 3072);
+
+    public DispatchConfig {
+        if (lanes <= 0 || queueCapacity <= 0) {
+            throw new IllegalArgumentException("lanes and queueCapacity must be positive");
+        }
+        if (backpressureThreshold <= 0 || backpressureThreshold > queueCapacity) {
+            throw new IllegalArgumentException("backpressureThreshold must be between 1 and queueCapacity");
+        }
+    }
+}
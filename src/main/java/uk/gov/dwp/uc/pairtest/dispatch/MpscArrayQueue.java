@@ -0,0 +1,67 @@
+package uk.gov.dwp.uc.pairtest.dispatch;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free queue for many producers and a single consumer.
+ * <p>
+ * Producers claim a position with a compare-and-set on the producer index, then publish the element into its slot.
+ * The consumer owns the consumer index outright and clears each slot as it takes the element, which is what tells a
+ * producer one lap later that the slot is free. A slot that is claimed but not yet published reads as empty, so
+ * {@link #poll()} can return {@code null} while {@link #isEmpty()} is {@code false} for a moment.
+ */
+final class MpscArrayQueue<E> {
+
+    private final AtomicReferenceArray<E> slots;
+    private final int mask;
+    private final AtomicLong producerIndex = new AtomicLong();
+    private final AtomicLong consumerIndex = new AtomicLong();
+
+    MpscArrayQueue(int capacity) {
+        var size = Math.max(1, Integer.highestOneBit(capacity - 1) << 1);
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * @return  {@code false} if the queue is full
+     */
+    boolean offer(E element) {
+        long position;
+        do {
+            position = producerIndex.get();
+            if (position - consumerIndex.get() > mask) {
+                return false;
+            }
+        } while (!producerIndex.compareAndSet(position, position + 1));
+        slots.lazySet((int) position & mask, element);
+        return true;
+    }
+
+    /**
+     * Consumer thread only.
+     */
+    E poll() {
+        var position = consumerIndex.get();
+        var index = (int) position & mask;
+        var element = slots.get(index);
+        if (element != null) {
+            slots.lazySet(index, null);
+            consumerIndex.lazySet(position + 1);
+        }
+        return element;
+    }
+
+    boolean isEmpty() {
+        return producerIndex.get() == consumerIndex.get();
+    }
+
+    int size() {
+        return (int) Math.max(0, producerIndex.get() - consumerIndex.get());
+    }
+}
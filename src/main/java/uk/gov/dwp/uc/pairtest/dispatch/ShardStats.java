@@ -0,0 +1,16 @@
+package uk.gov.dwp.uc.pairtest.dispatch;
+
+/**
+ * Point-in-time counters for one lane of a {@link ShardedPurchaseDispatcher}.
+ *
+ * @param lane          Lane number
+ * @param queued        Purchases waiting in the lane's queue
+ * @param capacity      Most purchases the queue can hold
+ * @param highWaterMark Deepest the queue has been
+ * @param completed     Purchases the lane has finished successfully
+ * @param failed        Purchases the lane's ticket service threw for
+ * @param refused       Purchases turned away because the queue was full
+ */
+public record ShardStats(int lane, int queued, int capacity, int highWaterMark, long completed, long failed,
+                         long refused) {
+}
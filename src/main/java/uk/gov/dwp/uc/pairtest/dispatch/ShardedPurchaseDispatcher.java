@@ -0,0 +1,222 @@
+package uk.gov.dwp.uc.pairtest.dispatch;
+
+import uk.gov.dwp.uc.pairtest.TicketService;
+import uk.gov.dwp.uc.pairtest.async.AsyncTicketService;
+import uk.gov.dwp.uc.pairtest.domain.TicketPurchaseRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntFunction;
+
+/**
+ * Partitions purchases by account id across a fixed set of lanes, each with one worker thread.
+ * <p>
+ * Every purchase for an account goes to the same lane, and each lane runs its purchases one at a time in arrival
+ * order, so an account's purchases never overtake each other. Each lane gets its own {@link TicketService} from the
+ * factory, and that service is only ever called from the lane's thread. Anything it keeps per account, such as rate
+ * limits or de-duplication, is therefore confined to one thread and needs no locking.
+ * <p>
+ * The lane's service is called synchronously, payment and seat calls included, so a lane completes at most one
+ * purchase per downstream round trip: with a 50 ms gateway a lane tops out at 20 purchases a second whatever the CPU,
+ * and one slow call holds up every account queued behind it on that lane. The dispatcher suits services whose work
+ * is mostly in-process. When lanes block on downstream I/O, size {@link DispatchConfig#lanes()} by target rate
+ * times downstream latency rather than by cores, and expect ordering per account to cost a slow call's latency to
+ * its lane neighbours.
+ * <p>
+ * Lanes are fed by bounded lock-free queues. When a lane's queue is full, the purchase is refused with a
+ * {@link RejectedExecutionException}. {@link #isBackpressured(long)} warns callers before that point. Futures are
+ * completed on the lane's thread, so callers should not chain blocking work onto them.
+ */
+public class ShardedPurchaseDispatcher implements AsyncTicketService, AutoCloseable {
+
+    private static final int SPINS_BEFORE_PARK = 100;
+
+    private final Lane[] lanes;
+    private final int laneMask;
+    private final int backpressureThreshold;
+    private volatile boolean closed;
+
+    /**
+     * @param laneServices  Creates the ticket service for each lane, given the lane number
+     */
+    public ShardedPurchaseDispatcher(DispatchConfig config, IntFunction<? extends TicketService> laneServices) {
+        var laneCount = Math.max(1, Integer.highestOneBit(config.lanes() - 1) << 1);
+        this.lanes = new Lane[laneCount];
+        this.laneMask = laneCount - 1;
+        this.backpressureThreshold = config.backpressureThreshold();
+        for (int i = 0; i < laneCount; i++) {
+            lanes[i] = new Lane(i, config.queueCapacity(), laneServices.apply(i));
+        }
+        for (var lane : lanes) {
+            lane.thread.start();
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> purchaseTickets(TicketPurchaseRequest ticketPurchaseRequest) {
+        var future = new CompletableFuture<Void>();
+        if (closed) {
+            future.completeExceptionally(new RejectedExecutionException("Dispatcher is closed"));
+            return future;
+        }
+        var lane = laneFor(ticketPurchaseRequest == null ? 0 : ticketPurchaseRequest.getAccountId());
+        if (!lane.queue.offer(new Task(ticketPurchaseRequest, future))) {
+            lane.refused.increment();
+            future.completeExceptionally(new RejectedExecutionException("Lane " + lane.number + " is full"));
+            return future;
+        }
+        if (closed) {
+            // Raced with close(), which may have retired the lane before it saw this purchase.
+            lane.retire();
+        } else {
+            lane.wake();
+        }
+        return future;
+    }
+
+    /**
+     * @return  {@code true} if the account's lane is deep enough in work that callers should slow down
+     */
+    public boolean isBackpressured(long accountId) {
+        return laneFor(accountId).queue.size() >= backpressureThreshold;
+    }
+
+    public int laneCount() {
+        return lanes.length;
+    }
+
+    public List<ShardStats> stats() {
+        var stats = new ArrayList<ShardStats>(lanes.length);
+        for (var lane : lanes) {
+            stats.add(new ShardStats(lane.number, lane.queue.size(), lane.queue.capacity(), lane.highWaterMark,
+                    lane.completed, lane.failed, lane.refused.sum()));
+        }
+        return stats;
+    }
+
+    /**
+     * Stops taking purchases, lets every lane finish what it has queued and waits for the lane threads to exit.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (var lane : lanes) {
+            LockSupport.unpark(lane.thread);
+        }
+        for (var lane : lanes) {
+            lane.retire();
+        }
+    }
+
+    int laneOf(long accountId) {
+        return laneFor(accountId).number;
+    }
+
+    private Lane laneFor(long accountId) {
+        var h = accountId * 0x9E3779B97F4A7C15L;
+        return lanes[(int) (h ^ (h >>> 32)) & laneMask];
+    }
+
+    private record Task(TicketPurchaseRequest request, CompletableFuture<Void> future) {
+    }
+
+    private final class Lane implements Runnable {
+        private final int number;
+        private final MpscArrayQueue<Task> queue;
+        private final TicketService ticketService;
+        private final Thread thread;
+        private final LongAdder refused = new LongAdder();
+        private volatile boolean parked;
+
+        // Written only by the lane's thread
+        private volatile long completed;
+        private volatile long failed;
+        private volatile int highWaterMark;
+
+        private Lane(int number, int queueCapacity, TicketService ticketService) {
+            this.number = number;
+            this.queue = new MpscArrayQueue<>(queueCapacity);
+            this.ticketService = ticketService;
+            this.thread = new Thread(this, "purchase-lane-" + number);
+            thread.setDaemon(true);
+        }
+
+        private void wake() {
+            if (parked) {
+                LockSupport.unpark(thread);
+            }
+        }
+
+        @Override
+        public void run() {
+            var idleSpins = 0;
+            while (true) {
+                var task = queue.poll();
+                if (task != null) {
+                    idleSpins = 0;
+                    process(task);
+                    continue;
+                }
+                if (!queue.isEmpty()) {
+                    // A producer has claimed a slot but not yet published into it.
+                    Thread.onSpinWait();
+                } else if (closed) {
+                    return;
+                } else if (++idleSpins < SPINS_BEFORE_PARK) {
+                    Thread.onSpinWait();
+                } else {
+                    parked = true;
+                    if (queue.isEmpty() && !closed) {
+                        LockSupport.park(this);
+                    }
+                    parked = false;
+                }
+            }
+        }
+
+        /**
+         * Waits for the lane thread to exit, then refuses anything still queued. Synchronized because close() and a
+         * racing producer may both get here, and the queue only supports one consumer at a time.
+         */
+        private synchronized void retire() {
+            var interrupted = false;
+            while (thread.isAlive()) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            while (!queue.isEmpty()) {
+                var task = queue.poll();
+                if (task != null) {
+                    task.future().completeExceptionally(new RejectedExecutionException("Dispatcher is closed"));
+                } else {
+                    Thread.onSpinWait();
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void process(Task task) {
+            var depth = queue.size() + 1;
+            if (depth > highWaterMark) {
+                highWaterMark = depth;
+            }
+            try {
+                ticketService.purchaseTickets(task.request());
+                completed++;
+                task.future().complete(null);
+            } catch (RuntimeException e) {
+                failed++;
+                task.future().completeExceptionally(e);
+            }
+        }
+    }
+}
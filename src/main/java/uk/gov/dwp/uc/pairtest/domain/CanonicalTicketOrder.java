@@ -0,0 +1,149 @@
+package uk.gov.dwp.uc.pairtest.domain;
+
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+import uk.gov.dwp.uc.pairtest.exception.Rejections;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Compact, canonical form of a purchase: one ticket count per type instead of a list of lines, with the hash worked
+ * out once up front.
+ * <p>
+ * Orders for the same tickets are equal however their lines were split or ordered, which makes this the natural key
+ * for de-duplication, and an order of any length takes the same small footprint while it is queued. It prices and
+ * validates exactly like the order it came from, except that rules on the number of lines see one line per type
+ * present.
+ * <p>
+ * A type is present if any line named it, even with no tickets, so the adult rules judge it as they would the
+ * original.
+ */
+public final class CanonicalTicketOrder implements TicketOrder {
+
+    private static final TicketRequest.Type[] TYPES = TicketRequest.Type.values();
+
+    private final long accountId;
+    private final long performanceId;
+    private final String discountCode;
+    private final int[] counts;
+    private final int typesPresent;
+    private final int hash;
+
+    private CanonicalTicketOrder(long accountId, long performanceId, String discountCode, int[] counts,
+                                 int typesPresent) {
+        this.accountId = accountId;
+        this.performanceId = performanceId;
+        this.discountCode = discountCode;
+        this.counts = counts;
+        this.typesPresent = typesPresent;
+        var h = Long.hashCode(accountId);
+        h = 31 * h + Long.hashCode(performanceId);
+        h = 31 * h + Objects.hashCode(discountCode);
+        h = 31 * h + Arrays.hashCode(counts);
+        this.hash = 31 * h + typesPresent;
+    }
+
+    /**
+     * @throws NullPointerException     if a line has no ticket type
+     * @throws InvalidPurchaseException with {@link RejectionReason#EXCESSIVE_TICKETS}, or
+     *                                  {@link RejectionReason#NEGATIVE_TICKETS} if the lines were negative, if a type's
+     *                                  lines add up to more than an {@code int} holds
+     */
+    public static CanonicalTicketOrder of(TicketOrder order) {
+        if (order instanceof CanonicalTicketOrder canonical) {
+            return canonical;
+        }
+        var counts = new int[TYPES.length];
+        var typesPresent = 0;
+        for (int line = 0, lines = order.getLineCount(); line < lines; line++) {
+            var type = order.getTicketType(line).ordinal();
+            var tickets = order.getNoOfTickets(line);
+            try {
+                counts[type] = Math.addExact(counts[type], tickets);
+            } catch (ArithmeticException e) {
+                throw Rejections.create(tickets < 0 ? RejectionReason.NEGATIVE_TICKETS
+                        : RejectionReason.EXCESSIVE_TICKETS);
+            }
+            typesPresent |= 1 << type;
+        }
+        return new CanonicalTicketOrder(order.getAccountId(), order.getPerformanceId(), order.getDiscountCode(),
+                counts, typesPresent);
+    }
+
+    /**
+     * @return  Equivalent request with one line per type present, built from interned {@link TicketRequest}s
+     */
+    public TicketPurchaseRequest toRequest() {
+        var lines = new ArrayList<TicketRequest>(Integer.bitCount(typesPresent));
+        for (int line = 0; line < getLineCount(); line++) {
+            lines.add(TicketRequest.of(getTicketType(line), getNoOfTickets(line)));
+        }
+        return new TicketPurchaseRequest(accountId, List.copyOf(lines), discountCode, performanceId);
+    }
+
+    public int getTickets(TicketRequest.Type ticketType) {
+        return counts[ticketType.ordinal()];
+    }
+
+    @Override
+    public long getAccountId() {
+        return accountId;
+    }
+
+    @Override
+    public int getLineCount() {
+        return Integer.bitCount(typesPresent);
+    }
+
+    @Override
+    public TicketRequest.Type getTicketType(int line) {
+        return TYPES[typeOfLine(line)];
+    }
+
+    @Override
+    public int getNoOfTickets(int line) {
+        return counts[typeOfLine(line)];
+    }
+
+    @Override
+    public long getPerformanceId() {
+        return performanceId;
+    }
+
+    @Override
+    public String getDiscountCode() {
+        return discountCode;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        CanonicalTicketOrder that = (CanonicalTicketOrder) o;
+        return hash == that.hash && accountId == that.accountId && performanceId == that.performanceId
+                && typesPresent == that.typesPresent && Arrays.equals(counts, that.counts)
+                && Objects.equals(discountCode, that.discountCode);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    /**
+     * @return  Ordinal of the type on {@code line}, lines being the present types in ordinal order
+     */
+    private int typeOfLine(int line) {
+        if (line < 0 || line >= getLineCount()) {
+            throw new IndexOutOfBoundsException(line);
+        }
+        var remaining = typesPresent;
+        for (int i = 0; i < line; i++) {
+            remaining &= remaining - 1;
+        }
+        return Integer.numberOfTrailingZeros(remaining);
+    }
+}
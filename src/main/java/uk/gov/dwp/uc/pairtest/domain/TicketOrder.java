@@ -0,0 +1,30 @@
+package uk.gov.dwp.uc.pairtest.domain;
+
+/**
+ * Read-only, index-based view of a purchase, so a purchase can be validated and priced straight from its source
+ * (a {@link TicketPurchaseRequest} or an encoded buffer) without building intermediate objects.
+ */
+public interface TicketOrder {
+
+    long getAccountId();
+
+    int getLineCount();
+
+    TicketRequest.Type getTicketType(int line);
+
+    int getNoOfTickets(int line);
+
+    /**
+     * @return  Performance the tickets are for, or 0 if the order does not say
+     */
+    default long getPerformanceId() {
+        return 0;
+    }
+
+    /**
+     * @return  Promotional code to apply to the total, or {@code null} for none
+     */
+    default String getDiscountCode() {
+        return null;
+    }
+}
@@ -7,16 +7,38 @@ import java.util.Objects;
 /**
  * Should be an Immutable Object
  */
-public final class TicketPurchaseRequest {
+public final class TicketPurchaseRequest implements TicketOrder {
 
     private final long accountId;
     private final List<TicketRequest> ticketRequests;
+    private final String discountCode;
+    private final long performanceId;
+    private int hash;
 
     public TicketPurchaseRequest(long accountId, List<TicketRequest> ticketRequests) {
+        this(accountId, ticketRequests, null);
+    }
+
+    /**
+     * @param discountCode  Promotional code to apply to the total, or {@code null} for none
+     */
+    public TicketPurchaseRequest(long accountId, List<TicketRequest> ticketRequests, String discountCode) {
+        this(accountId, ticketRequests, discountCode, 0);
+    }
+
+    /**
+     * @param discountCode  Promotional code to apply to the total, or {@code null} for none
+     * @param performanceId Performance the tickets are for, or 0 to use the default prices
+     */
+    public TicketPurchaseRequest(long accountId, List<TicketRequest> ticketRequests, String discountCode,
+                                 long performanceId) {
         this.accountId = accountId;
         this.ticketRequests = Collections.unmodifiableList(ticketRequests);
+        this.discountCode = discountCode;
+        this.performanceId = performanceId;
     }
 
+    @Override
     public long getAccountId() {
         return accountId;
     }
@@ -25,16 +47,53 @@ public final class TicketPurchaseRequest {
         return ticketRequests;
     }
 
+    @Override
+    public int getLineCount() {
+        return ticketRequests.size();
+    }
+
+    @Override
+    public TicketRequest.Type getTicketType(int line) {
+        return ticketRequests.get(line).getTicketType();
+    }
+
+    @Override
+    public int getNoOfTickets(int line) {
+        return ticketRequests.get(line).getNoOfTickets();
+    }
+
+    @Override
+    public String getDiscountCode() {
+        return discountCode;
+    }
+
+    @Override
+    public long getPerformanceId() {
+        return performanceId;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         TicketPurchaseRequest that = (TicketPurchaseRequest) o;
-        return accountId == that.accountId && Objects.equals(ticketRequests, that.ticketRequests);
+        return accountId == that.accountId && Objects.equals(ticketRequests, that.ticketRequests)
+                && Objects.equals(discountCode, that.discountCode) && performanceId == that.performanceId;
     }
 
+    /**
+     * Computed on first use and cached, like {@link String#hashCode()}. A racing thread at worst computes it again.
+     */
     @Override
     public int hashCode() {
-        return Objects.hash(accountId, ticketRequests);
+        var h = hash;
+        if (h == 0) {
+            h = Long.hashCode(accountId);
+            h = 31 * h + ticketRequests.hashCode();
+            h = 31 * h + Objects.hashCode(discountCode);
+            h = 31 * h + Long.hashCode(performanceId);
+            hash = h;
+        }
+        return h;
     }
 }
@@ -1,12 +1,17 @@
 package uk.gov.dwp.uc.pairtest.domain;
 
-import java.util.Objects;
-
 /**
  * Should be an Immutable Object
  */
 public final class TicketRequest {
 
+    /**
+     * Largest ticket count with a shared instance per type from {@link #of}.
+     */
+    public static final int MAX_INTERNED_COUNT = 20;
+
+    private static final TicketRequest[] INTERNED = intern();
+
     private final int noOfTickets;
     private final Type type;
 
@@ -15,6 +20,16 @@ public final class TicketRequest {
         this.noOfTickets = noOfTickets;
     }
 
+    /**
+     * @return  A shared instance for counts from 0 to {@value #MAX_INTERNED_COUNT}, otherwise a new one
+     */
+    public static TicketRequest of(Type type, int noOfTickets) {
+        if (type != null && noOfTickets >= 0 && noOfTickets <= MAX_INTERNED_COUNT) {
+            return INTERNED[type.ordinal() * (MAX_INTERNED_COUNT + 1) + noOfTickets];
+        }
+        return new TicketRequest(type, noOfTickets);
+    }
+
     public int getNoOfTickets() {
         return noOfTickets;
     }
@@ -33,7 +48,19 @@ public final class TicketRequest {
 
     @Override
     public int hashCode() {
-        return Objects.hash(noOfTickets, type);
+        // Ordinal rather than the enum's identity hash, so the hash is the same in every JVM and needs no boxing.
+        return 31 * (type == null ? 0 : type.ordinal() + 1) + noOfTickets;
+    }
+
+    private static TicketRequest[] intern() {
+        var types = Type.values();
+        var interned = new TicketRequest[types.length * (MAX_INTERNED_COUNT + 1)];
+        for (var type : types) {
+            for (int count = 0; count <= MAX_INTERNED_COUNT; count++) {
+                interned[type.ordinal() * (MAX_INTERNED_COUNT + 1) + count] = new TicketRequest(type, count);
+            }
+        }
+        return interned;
     }
 
     public enum Type {
@@ -0,0 +1,46 @@
+package uk.gov.dwp.uc.pairtest.events;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Collects copies of events and hands them on in batches, for downstream systems that prefer few large writes. A
+ * batch is passed on once it is full or the sink has caught up with the ring, so a quiet stream is not held back.
+ */
+public class BatchingEventSink implements PurchaseEventSink {
+
+    private final int batchSize;
+    private final Consumer<List<PurchaseEvent>> downstream;
+    private List<PurchaseEvent> batch;
+
+    public BatchingEventSink(int batchSize, Consumer<List<PurchaseEvent>> downstream) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+        this.batchSize = batchSize;
+        this.downstream = downstream;
+        this.batch = new ArrayList<>(batchSize);
+    }
+
+    @Override
+    public void onEvent(PurchaseEvent event, boolean endOfBatch) {
+        batch.add(event.copy());
+        if (batch.size() == batchSize || endOfBatch) {
+            flush();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (!batch.isEmpty()) {
+            flush();
+        }
+    }
+
+    private void flush() {
+        var full = batch;
+        batch = new ArrayList<>(batchSize);
+        downstream.accept(List.copyOf(full));
+    }
+}
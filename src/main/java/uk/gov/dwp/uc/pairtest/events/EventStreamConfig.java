@@ -0,0 +1,17 @@
+package uk.gov.dwp.uc.pairtest.events;
+
+/**
+ * @param capacity          Events the ring holds, rounded up to a power of two
+ * @param overflowPolicy    What to do when a sink falls behind
+ * @param sampleEvery       Keep one event in this many under {@link OverflowPolicy#SAMPLE}
+ */
+public record EventStreamConfig(int capacity, OverflowPolicy overflowPolicy, int sampleEvery) {
+
+    public static final EventStreamConfig DEFAULT = new EventStreamConfig(1 << 16, OverflowPolicy.DROP, 10);
+
+    public EventStreamConfig {
+        if (capacity <= 0 || sampleEvery <= 0) {
+            throw new IllegalArgumentException("capacity and sampleEvery must be positive");
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package uk.gov.dwp.uc.pairtest.events;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends one comma-separated line per event to a file, in the format of {@link PurchaseEvent#toString()}, flushing
+ * whenever the sink catches up with the ring.
+ */
+public class FileEventSink implements PurchaseEventSink {
+
+    public static final String HEADER =
+            "timestamp,outcome,account,performance,adult,child,infant,amount,seats,rejection";
+
+    private final BufferedWriter writer;
+
+    public FileEventSink(Path file) throws IOException {
+        var fresh = !Files.exists(file) || Files.size(file) == 0;
+        this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND);
+        if (fresh) {
+            writer.write(HEADER);
+            writer.newLine();
+        }
+    }
+
+    @Override
+    public void onEvent(PurchaseEvent event, boolean endOfBatch) throws IOException {
+        writer.write(event.toString());
+        writer.newLine();
+        if (endOfBatch) {
+            writer.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
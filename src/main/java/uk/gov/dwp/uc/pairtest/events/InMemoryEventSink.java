@@ -0,0 +1,39 @@
+package uk.gov.dwp.uc.pairtest.events;
+
+import java.util.ArrayDeque;
+import java.util.List;
+
+/**
+ * Keeps copies of the most recent events, e.g. for a diagnostics page or tests.
+ */
+public class InMemoryEventSink implements PurchaseEventSink {
+
+    private final int limit;
+    private final ArrayDeque<PurchaseEvent> events;
+
+    /**
+     * @param limit Most events kept; older ones are discarded
+     */
+    public InMemoryEventSink(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit must be positive");
+        }
+        this.limit = limit;
+        this.events = new ArrayDeque<>(Math.min(limit, 1024));
+    }
+
+    @Override
+    public synchronized void onEvent(PurchaseEvent event, boolean endOfBatch) {
+        if (events.size() == limit) {
+            events.removeFirst();
+        }
+        events.addLast(event.copy());
+    }
+
+    /**
+     * @return  Kept events, oldest first
+     */
+    public synchronized List<PurchaseEvent> events() {
+        return List.copyOf(events);
+    }
+}
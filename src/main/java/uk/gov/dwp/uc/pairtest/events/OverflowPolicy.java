@@ -0,0 +1,20 @@
+package uk.gov.dwp.uc.pairtest.events;
+
+/**
+ * What publishing does when the slowest sink has fallen behind.
+ */
+public enum OverflowPolicy {
+    /**
+     * Drops events while the ring is full. Publishing never waits.
+     */
+    DROP,
+    /**
+     * Keeps one in {@link EventStreamConfig#sampleEvery()} events once the ring is half full, and drops everything
+     * while it is full. Sinks see a thinned but representative stream instead of a gap. Publishing never waits.
+     */
+    SAMPLE,
+    /**
+     * Waits for the slowest sink to free a slot. No event is lost, but a stalled sink stalls purchases.
+     */
+    BLOCK
+}
@@ -0,0 +1,123 @@
+package uk.gov.dwp.uc.pairtest.events;
+
+import uk.gov.dwp.uc.pairtest.domain.TicketRequest;
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+
+import java.util.Arrays;
+
+/**
+ * One purchase outcome. Instances in the ring are reused for later events, so a sink that keeps an event beyond
+ * {@link PurchaseEventSink#onEvent} must keep a {@link #copy()}.
+ */
+public final class PurchaseEvent {
+
+    public enum Outcome {
+        ACCEPTED,
+        REJECTED,
+        FAILED,
+        UNFULFILLED
+    }
+
+    private static final TicketRequest.Type[] TYPES = TicketRequest.Type.values();
+
+    private Outcome outcome;
+    private long timestampMillis;
+    private long accountId;
+    private long performanceId;
+    private final int[] ticketsByType = new int[TYPES.length];
+    private int amount;
+    private int seats;
+    private RejectionReason rejectionReason;
+
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    public long getTimestampMillis() {
+        return timestampMillis;
+    }
+
+    public long getAccountId() {
+        return accountId;
+    }
+
+    public long getPerformanceId() {
+        return performanceId;
+    }
+
+    public int getTickets(TicketRequest.Type ticketType) {
+        return ticketsByType[ticketType.ordinal()];
+    }
+
+    /**
+     * @return  Amount charged, or 0 unless accepted or unfulfilled
+     */
+    public int getAmount() {
+        return amount;
+    }
+
+    /**
+     * @return  Seats reserved, or those that could not be after payment if unfulfilled, otherwise 0
+     */
+    public int getSeats() {
+        return seats;
+    }
+
+    /**
+     * @return  Why the purchase was rejected, or {@code null} unless rejected
+     */
+    public RejectionReason getRejectionReason() {
+        return rejectionReason;
+    }
+
+    public PurchaseEvent copy() {
+        var copy = new PurchaseEvent();
+        copy.set(outcome, timestampMillis, accountId, performanceId, amount, seats, rejectionReason);
+        System.arraycopy(ticketsByType, 0, copy.ticketsByType, 0, ticketsByType.length);
+        return copy;
+    }
+
+    void set(Outcome outcome, long timestampMillis, long accountId, long performanceId, int amount, int seats,
+             RejectionReason rejectionReason) {
+        this.outcome = outcome;
+        this.timestampMillis = timestampMillis;
+        this.accountId = accountId;
+        this.performanceId = performanceId;
+        this.amount = amount;
+        this.seats = seats;
+        this.rejectionReason = rejectionReason;
+    }
+
+    int[] ticketsByType() {
+        return ticketsByType;
+    }
+
+    @Override
+    public String toString() {
+        var line = new StringBuilder();
+        line.append(timestampMillis).append(',').append(outcome).append(',').append(accountId).append(',')
+                .append(performanceId);
+        for (var tickets : ticketsByType) {
+            line.append(',').append(tickets);
+        }
+        line.append(',').append(amount).append(',').append(seats).append(',')
+                .append(rejectionReason == null ? "" : rejectionReason.name());
+        return line.toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        PurchaseEvent that = (PurchaseEvent) o;
+        return timestampMillis == that.timestampMillis && accountId == that.accountId
+                && performanceId == that.performanceId && amount == that.amount && seats == that.seats
+                && outcome == that.outcome && Arrays.equals(ticketsByType, that.ticketsByType)
+                && rejectionReason == that.rejectionReason;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Long.hashCode(accountId) + Arrays.hashCode(ticketsByType);
+    }
+}
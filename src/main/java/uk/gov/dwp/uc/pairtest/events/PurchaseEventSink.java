@@ -0,0 +1,19 @@
+package uk.gov.dwp.uc.pairtest.events;
+
+/**
+ * Consumes purchase events on its own thread. Each sink sees every published event, in publication order.
+ */
+public interface PurchaseEventSink {
+
+    /**
+     * @param event         Event to consume, valid only until this call returns
+     * @param endOfBatch    {@code true} if no further event is ready yet, which is a good time to flush
+     */
+    void onEvent(PurchaseEvent event, boolean endOfBatch) throws Exception;
+
+    /**
+     * Called once after the last event, when the stream is closed.
+     */
+    default void close() throws Exception {
+    }
+}
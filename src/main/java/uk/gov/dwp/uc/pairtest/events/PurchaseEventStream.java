@@ -0,0 +1,252 @@
+package uk.gov.dwp.uc.pairtest.events;
+
+import uk.gov.dwp.uc.pairtest.domain.TicketOrder;
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * {@link PurchaseListener} that publishes each outcome into a preallocated ring of {@link PurchaseEvent}s, from which
+ * every {@link PurchaseEventSink} reads on its own thread.
+ * <p>
+ * Purchasing threads claim a slot with a compare-and-set on a shared cursor, overwrite the event already in it and
+ * mark the slot published. Nothing is allocated and no lock is taken. A slot can only be claimed again once every
+ * sink has moved past it; what happens until then is the {@link OverflowPolicy}. Sinks never signal publishers and
+ * publishers never wake sinks: an idle sink polls, backing off to a short sleep.
+ * <p>
+ * Each sink receives events in ring order, which for purchases on different threads is the order they claimed
+ * their slots.
+ */
+public class PurchaseEventStream implements PurchaseListener, AutoCloseable {
+
+    private static final int SPINS_BEFORE_SLEEP = 200;
+    private static final long IDLE_SLEEP_NANOS = 100_000;
+    private static final long BLOCKED_SLEEP_NANOS = 1_000;
+
+    private final PurchaseEvent[] events;
+    private final AtomicLongArray published;
+    private final int mask;
+    private final OverflowPolicy overflowPolicy;
+    private final int sampleEvery;
+    private final Sequence cursor = new Sequence(-1);
+    private final Sequence gatingCache = new Sequence(-1);
+    private final SinkRunner[] sinks;
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder sinkFailures = new LongAdder();
+    private volatile boolean closed;
+
+    public PurchaseEventStream(EventStreamConfig config, List<? extends PurchaseEventSink> sinks) {
+        var capacity = Math.max(1, Integer.highestOneBit(config.capacity() - 1) << 1);
+        this.events = new PurchaseEvent[capacity];
+        for (int i = 0; i < capacity; i++) {
+            events[i] = new PurchaseEvent();
+        }
+        this.published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            published.set(i, -1);
+        }
+        this.mask = capacity - 1;
+        this.overflowPolicy = config.overflowPolicy();
+        this.sampleEvery = config.sampleEvery();
+        this.sinks = new SinkRunner[sinks.size()];
+        for (int i = 0; i < this.sinks.length; i++) {
+            this.sinks[i] = new SinkRunner(sinks.get(i), i);
+        }
+        for (var sink : this.sinks) {
+            sink.thread.start();
+        }
+    }
+
+    @Override
+    public void accepted(TicketOrder order, int amount, int seats) {
+        publish(PurchaseEvent.Outcome.ACCEPTED, order, amount, seats, null);
+    }
+
+    @Override
+    public void rejected(TicketOrder order, RejectionReason reason) {
+        publish(PurchaseEvent.Outcome.REJECTED, order, 0, 0, reason);
+    }
+
+    @Override
+    public void failed(TicketOrder order) {
+        publish(PurchaseEvent.Outcome.FAILED, order, 0, 0, null);
+    }
+
+    @Override
+    public void unfulfilled(TicketOrder order, int amount, int seats) {
+        publish(PurchaseEvent.Outcome.UNFULFILLED, order, amount, seats, null);
+    }
+
+    /**
+     * @return  Events published so far
+     */
+    public long published() {
+        return cursor.get() + 1;
+    }
+
+    /**
+     * @return  Events dropped or sampled out by the {@link OverflowPolicy}
+     */
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * @return  Events a sink threw for, which that sink has lost
+     */
+    public long sinkFailures() {
+        return sinkFailures.sum();
+    }
+
+    /**
+     * @return  Published events the slowest sink has yet to consume
+     */
+    public long lag() {
+        return cursor.get() - slowestSink(cursor.get());
+    }
+
+    /**
+     * Stops publishing, waits for every sink to consume what was published and closes the sinks. If interrupted it
+     * still waits, then restores the interrupt.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        var interrupted = false;
+        for (var sink : sinks) {
+            while (sink.thread.isAlive()) {
+                try {
+                    sink.thread.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void publish(PurchaseEvent.Outcome outcome, TicketOrder order, int amount, int seats,
+                         RejectionReason reason) {
+        var sequence = claim();
+        if (sequence < 0) {
+            dropped.increment();
+            return;
+        }
+        var index = (int) sequence & mask;
+        var event = events[index];
+        var ticketsByType = event.ticketsByType();
+        Arrays.fill(ticketsByType, 0);
+        long accountId = 0;
+        long performanceId = 0;
+        if (order != null) {
+            accountId = order.getAccountId();
+            performanceId = order.getPerformanceId();
+            for (int line = 0, lines = order.getLineCount(); line < lines; line++) {
+                var type = order.getTicketType(line);
+                if (type != null) {
+                    ticketsByType[type.ordinal()] += order.getNoOfTickets(line);
+                }
+            }
+        }
+        event.set(outcome, System.currentTimeMillis(), accountId, performanceId, amount, seats, reason);
+        published.set(index, sequence);
+    }
+
+    /**
+     * @return  Sequence of the claimed slot, or -1 if the event is to be dropped
+     */
+    private long claim() {
+        var capacity = mask + 1;
+        while (!closed) {
+            var current = cursor.get();
+            var next = current + 1;
+            var gate = gatingCache.get();
+            if (next - capacity > gate || (overflowPolicy == OverflowPolicy.SAMPLE && next - gate > capacity / 2)) {
+                gate = slowestSink(current);
+                gatingCache.setRelease(gate);
+            }
+            if (next - capacity > gate) {
+                if (overflowPolicy != OverflowPolicy.BLOCK) {
+                    return -1;
+                }
+                LockSupport.parkNanos(BLOCKED_SLEEP_NANOS);
+                continue;
+            }
+            if (overflowPolicy == OverflowPolicy.SAMPLE && next - gate > capacity / 2
+                    && ThreadLocalRandom.current().nextInt(sampleEvery) != 0) {
+                return -1;
+            }
+            if (cursor.compareAndSet(current, next)) {
+                return next;
+            }
+        }
+        return -1;
+    }
+
+    private long slowestSink(long fallback) {
+        var slowest = fallback;
+        for (var sink : sinks) {
+            slowest = Math.min(slowest, sink.sequence.get());
+        }
+        return slowest;
+    }
+
+    private final class SinkRunner implements Runnable {
+        private final PurchaseEventSink sink;
+        private final Sequence sequence = new Sequence(-1);
+        private final Thread thread;
+
+        private SinkRunner(PurchaseEventSink sink, int number) {
+            this.sink = sink;
+            this.thread = new Thread(this, "purchase-event-sink-" + number);
+            thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            var next = 0L;
+            var idle = 0;
+            while (true) {
+                var last = next - 1;
+                while (published.get((int) (last + 1) & mask) == last + 1) {
+                    last++;
+                }
+                if (last >= next) {
+                    for (var position = next; position <= last; position++) {
+                        deliver(events[(int) position & mask], position == last);
+                    }
+                    sequence.setRelease(last);
+                    next = last + 1;
+                    idle = 0;
+                } else if (closed && next > cursor.get()) {
+                    break;
+                } else if (++idle < SPINS_BEFORE_SLEEP) {
+                    Thread.onSpinWait();
+                } else {
+                    LockSupport.parkNanos(IDLE_SLEEP_NANOS);
+                }
+            }
+            try {
+                sink.close();
+            } catch (Exception e) {
+                sinkFailures.increment();
+            }
+        }
+
+        private void deliver(PurchaseEvent event, boolean endOfBatch) {
+            try {
+                sink.onEvent(event, endOfBatch);
+            } catch (Exception e) {
+                // A failing sink loses the event but must not stop the ring.
+                sinkFailures.increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package uk.gov.dwp.uc.pairtest.events;
+
+import uk.gov.dwp.uc.pairtest.domain.TicketOrder;
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+
+/**
+ * Told the outcome of every purchase, inline on the purchasing thread. Implementations must be thread safe and
+ * should not block or allocate; the order is only valid for the duration of the call.
+ */
+public interface PurchaseListener {
+
+    /**
+     * @param amount    Amount charged, after group pricing and discounts
+     * @param seats     Seats reserved
+     */
+    void accepted(TicketOrder order, int amount, int seats);
+
+    /**
+     * @param order     The order as submitted, which may be {@code null} or malformed
+     */
+    void rejected(TicketOrder order, RejectionReason reason);
+
+    /**
+     * A downstream service threw something other than an
+     * {@link uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException}, or the payment's outcome is unknown.
+     */
+    default void failed(TicketOrder order) {
+    }
+
+    /**
+     * The customer was charged but the seats could not be secured afterwards, so the purchase is due a refund.
+     * Reported as {@link #failed} unless overridden.
+     * @param amount    Amount charged
+     * @param seats     Seats the purchase was for
+     */
+    default void unfulfilled(TicketOrder order, int amount, int seats) {
+        failed(order);
+    }
+
+    /**
+     * @return  Listener passing every outcome to each of {@code listeners} in turn
+     */
+    static PurchaseListener of(PurchaseListener... listeners) {
+        var copy = listeners.clone();
+        if (copy.length == 1) {
+            return copy[0];
+        }
+        return new PurchaseListener() {
+            @Override
+            public void accepted(TicketOrder order, int amount, int seats) {
+                for (var listener : copy) {
+                    listener.accepted(order, amount, seats);
+                }
+            }
+
+            @Override
+            public void rejected(TicketOrder order, RejectionReason reason) {
+                for (var listener : copy) {
+                    listener.rejected(order, reason);
+                }
+            }
+
+            @Override
+            public void failed(TicketOrder order) {
+                for (var listener : copy) {
+                    listener.failed(order);
+                }
+            }
+
+            @Override
+            public void unfulfilled(TicketOrder order, int amount, int seats) {
+                for (var listener : copy) {
+                    listener.unfulfilled(order, amount, seats);
+                }
+            }
+        };
+    }
+}
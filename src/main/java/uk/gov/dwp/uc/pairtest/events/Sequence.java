@@ -0,0 +1,52 @@
+package uk.gov.dwp.uc.pairtest.events;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * A ring position padded to sit alone on its cache lines, so the publishers' cursor and each sink's progress can be
+ * updated without invalidating each other's lines. The padding lives in superclasses and a subclass because the JVM
+ * may reorder the fields of a single class, but keeps each class's fields together.
+ */
+final class Sequence extends SequenceRightPadding {
+
+    private static final VarHandle VALUE;
+
+    static {
+        try {
+            VALUE = MethodHandles.lookup().findVarHandle(SequenceValue.class, "value", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    Sequence(long initialValue) {
+        VALUE.setRelease(this, initialValue);
+    }
+
+    long get() {
+        return (long) VALUE.getAcquire(this);
+    }
+
+    void setRelease(long newValue) {
+        VALUE.setRelease(this, newValue);
+    }
+
+    boolean compareAndSet(long expected, long newValue) {
+        return VALUE.compareAndSet(this, expected, newValue);
+    }
+}
+
+@SuppressWarnings("unused")
+abstract class SequenceLeftPadding {
+    long p01, p02, p03, p04, p05, p06, p07;
+}
+
+abstract class SequenceValue extends SequenceLeftPadding {
+    volatile long value;
+}
+
+@SuppressWarnings("unused")
+abstract class SequenceRightPadding extends SequenceValue {
+    long p11, p12, p13, p14, p15, p16, p17;
+}
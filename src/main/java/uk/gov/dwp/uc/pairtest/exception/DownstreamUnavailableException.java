@@ -0,0 +1,16 @@
+package uk.gov.dwp.uc.pairtest.exception;
+
+/**
+ * Thrown without calling a downstream service whose circuit is open or whose concurrency limit is reached. A call
+ * that was made but timed out ends in an {@link OutcomeUnknownException} instead.
+ */
+public class DownstreamUnavailableException extends InvalidPurchaseException {
+
+    public DownstreamUnavailableException() {
+        this(true);
+    }
+
+    protected DownstreamUnavailableException(boolean writableStackTrace) {
+        super(RejectionReason.DOWNSTREAM_UNAVAILABLE, writableStackTrace);
+    }
+}
@@ -0,0 +1,12 @@
+package uk.gov.dwp.uc.pairtest.exception;
+
+public class DuplicatePurchaseException extends InvalidPurchaseException {
+
+    public DuplicatePurchaseException() {
+        this(true);
+    }
+
+    protected DuplicatePurchaseException(boolean writableStackTrace) {
+        super(RejectionReason.DUPLICATE_PURCHASE, writableStackTrace);
+    }
+}
@@ -1,4 +1,12 @@
 package uk.gov.dwp.uc.pairtest.exception;
 
 public class ExcessiveTicketException extends InvalidPurchaseException {
+
+    public ExcessiveTicketException() {
+        this(true);
+    }
+
+    protected ExcessiveTicketException(boolean writableStackTrace) {
+        super(RejectionReason.EXCESSIVE_TICKETS, writableStackTrace);
+    }
 }
@@ -0,0 +1,15 @@
+package uk.gov.dwp.uc.pairtest.exception;
+
+/**
+ * Thrown when seats held for a purchase were released, usually because the hold timed out, before it was confirmed.
+ */
+public class HoldExpiredException extends InvalidPurchaseException {
+
+    public HoldExpiredException() {
+        this(true);
+    }
+
+    protected HoldExpiredException(boolean writableStackTrace) {
+        super(RejectionReason.HOLD_EXPIRED, writableStackTrace);
+    }
+}
@@ -0,0 +1,12 @@
+package uk.gov.dwp.uc.pairtest.exception;
+
+public class InvalidDiscountException extends InvalidPurchaseException {
+
+    public InvalidDiscountException() {
+        this(true);
+    }
+
+    protected InvalidDiscountException(boolean writableStackTrace) {
+        super(RejectionReason.INVALID_DISCOUNT_CODE, writableStackTrace);
+    }
+}
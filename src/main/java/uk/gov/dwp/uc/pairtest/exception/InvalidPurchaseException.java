@@ -2,4 +2,27 @@ package uk.gov.dwp.uc.pairtest.exception;
 
 public class InvalidPurchaseException extends RuntimeException {
 
+    private final RejectionReason reason;
+
+    public InvalidPurchaseException() {
+        this(RejectionReason.INVALID_REQUEST);
+    }
+
+    public InvalidPurchaseException(RejectionReason reason) {
+        this(reason, true);
+    }
+
+    /**
+     * @param writableStackTrace    {@code false} to skip capturing a stack trace, for exceptions thrown at high
+     *                              volume or shared between threads
+     */
+    protected InvalidPurchaseException(RejectionReason reason, boolean writableStackTrace) {
+        super(reason.name(), null, writableStackTrace, writableStackTrace);
+        this.reason = reason;
+    }
+
+    public RejectionReason getReason() {
+        return reason;
+    }
+
 }
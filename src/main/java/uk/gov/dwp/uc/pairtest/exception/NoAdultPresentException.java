@@ -1,4 +1,12 @@
 package uk.gov.dwp.uc.pairtest.exception;
 
 public class NoAdultPresentException extends InvalidPurchaseException{
+
+    public NoAdultPresentException() {
+        this(true);
+    }
+
+    protected NoAdultPresentException(boolean writableStackTrace) {
+        super(RejectionReason.NO_ADULT_PRESENT, writableStackTrace);
+    }
 }
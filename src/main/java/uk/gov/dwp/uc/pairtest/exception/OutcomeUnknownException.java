@@ -0,0 +1,17 @@
+package uk.gov.dwp.uc.pairtest.exception;
+
+/**
+ * Thrown when a call to a downstream service outlasts its timeout. The call is still running and may yet succeed, so
+ * whether it took effect is unknown: this is not a rejection, and a purchase that gets it must be reconciled rather
+ * than retried or reported as unpaid.
+ */
+public class OutcomeUnknownException extends RuntimeException {
+
+    public OutcomeUnknownException(String message) {
+        super(message);
+    }
+
+    public OutcomeUnknownException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
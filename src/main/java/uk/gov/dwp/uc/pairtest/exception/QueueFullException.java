@@ -0,0 +1,15 @@
+package uk.gov.dwp.uc.pairtest.exception;
+
+/**
+ * Thrown when a buyer would wait, or has waited, longer than allowed in a waiting room's queue.
+ */
+public class QueueFullException extends InvalidPurchaseException {
+
+    public QueueFullException() {
+        this(true);
+    }
+
+    protected QueueFullException(boolean writableStackTrace) {
+        super(RejectionReason.QUEUE_FULL, writableStackTrace);
+    }
+}
@@ -0,0 +1,12 @@
+package uk.gov.dwp.uc.pairtest.exception;
+
+public class RateLimitedException extends InvalidPurchaseException {
+
+    public RateLimitedException() {
+        this(true);
+    }
+
+    protected RateLimitedException(boolean writableStackTrace) {
+        super(RejectionReason.RATE_LIMITED, writableStackTrace);
+    }
+}
@@ -0,0 +1,22 @@
+package uk.gov.dwp.uc.pairtest.exception;
+
+/**
+ * Why a purchase was rejected. Carried by every {@link InvalidPurchaseException}.
+ */
+public enum RejectionReason {
+    INVALID_REQUEST,
+    INVALID_ACCOUNT,
+    NEGATIVE_TICKETS,
+    EXCESSIVE_TICKETS,
+    NO_ADULT_PRESENT,
+    RATE_LIMITED,
+    DUPLICATE_PURCHASE,
+    INVALID_DISCOUNT_CODE,
+    SOLD_OUT,
+    DOWNSTREAM_UNAVAILABLE,
+    HOLD_EXPIRED,
+    QUEUE_FULL,
+    ADULTS_ONLY,
+    UNKNOWN_PERFORMANCE,
+    NOT_ADMITTED
+}
@@ -0,0 +1,52 @@
+package uk.gov.dwp.uc.pairtest.exception;
+
+/**
+ * Creates the {@link InvalidPurchaseException} subtype for each {@link RejectionReason}.
+ * <p>
+ * {@link #cached(RejectionReason)} hands out one shared, stackless instance per reason. Throwing it costs no
+ * allocation or stack walk, which matters when a large share of traffic is rejected, but the exception carries no
+ * information about where it was thrown.
+ */
+public final class Rejections {
+
+    private static final InvalidPurchaseException[] CACHED = new InvalidPurchaseException[RejectionReason.values().length];
+
+    static {
+        for (var reason : RejectionReason.values()) {
+            CACHED[reason.ordinal()] = create(reason, false);
+        }
+    }
+
+    private Rejections() {
+        throw new RuntimeException("Cannot instantiate this class");
+    }
+
+    /**
+     * @return  A new exception for {@code reason} with a captured stack trace
+     */
+    public static InvalidPurchaseException create(RejectionReason reason) {
+        return create(reason, true);
+    }
+
+    /**
+     * @return  The shared stackless exception for {@code reason}
+     */
+    public static InvalidPurchaseException cached(RejectionReason reason) {
+        return CACHED[reason.ordinal()];
+    }
+
+    private static InvalidPurchaseException create(RejectionReason reason, boolean writableStackTrace) {
+        return switch (reason) {
+            case EXCESSIVE_TICKETS -> new ExcessiveTicketException(writableStackTrace);
+            case NO_ADULT_PRESENT -> new NoAdultPresentException(writableStackTrace);
+            case RATE_LIMITED -> new RateLimitedException(writableStackTrace);
+            case DUPLICATE_PURCHASE -> new DuplicatePurchaseException(writableStackTrace);
+            case INVALID_DISCOUNT_CODE -> new InvalidDiscountException(writableStackTrace);
+            case SOLD_OUT -> new SoldOutException(writableStackTrace);
+            case DOWNSTREAM_UNAVAILABLE -> new DownstreamUnavailableException(writableStackTrace);
+            case HOLD_EXPIRED -> new HoldExpiredException(writableStackTrace);
+            case QUEUE_FULL -> new QueueFullException(writableStackTrace);
+            default -> new InvalidPurchaseException(reason, writableStackTrace);
+        };
+    }
+}
@@ -0,0 +1,12 @@
+package uk.gov.dwp.uc.pairtest.exception;
+
+public class SoldOutException extends InvalidPurchaseException {
+
+    public SoldOutException() {
+        this(true);
+    }
+
+    protected SoldOutException(boolean writableStackTrace) {
+        super(RejectionReason.SOLD_OUT, writableStackTrace);
+    }
+}
@@ -0,0 +1,30 @@
+package uk.gov.dwp.uc.pairtest.exception;
+
+/**
+ * Thrown when a purchase was paid for but its seats could not be secured afterwards, e.g. because the seat hold
+ * lapsed while the payment was in flight or the performance sold out before the reservation. The customer has been
+ * charged, so this is a failure rather than a rejection, and the purchase is journalled as due a refund.
+ */
+public class UnfulfilledPurchaseException extends RuntimeException {
+
+    private final int amount;
+    private final int seats;
+
+    /**
+     * @param amount    Amount the customer was charged
+     * @param seats     Seats the purchase was for
+     */
+    public UnfulfilledPurchaseException(String message, Throwable cause, int amount, int seats) {
+        super(message, cause);
+        this.amount = amount;
+        this.seats = seats;
+    }
+
+    public int getAmount() {
+        return amount;
+    }
+
+    public int getSeats() {
+        return seats;
+    }
+}
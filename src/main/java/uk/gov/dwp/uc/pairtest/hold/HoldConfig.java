@@ -0,0 +1,19 @@
+package uk.gov.dwp.uc.pairtest.hold;
+
+import java.time.Duration;
+
+/**
+ * @param ttl               How long seats stay held without being confirmed
+ * @param tick              How often lapsed holds are swept. A hold may outlive its ttl by up to one tick.
+ * @param cachedRejections  {@code true} to reject with shared stackless exceptions
+ */
+public record HoldConfig(Duration ttl, Duration tick, boolean cachedRejections) {
+
+    public static final HoldConfig DEFAULT = new HoldConfig(Duration.ofMinutes(10), Duration.ofMillis(100), false);
+
+    public HoldConfig {
+        if (ttl.isNegative() || ttl.isZero() || tick.isNegative() || tick.isZero()) {
+            throw new IllegalArgumentException("ttl and tick must be positive");
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package uk.gov.dwp.uc.pairtest.hold;
+
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+import uk.gov.dwp.uc.pairtest.exception.Rejections;
+import uk.gov.dwp.uc.pairtest.inventory.InMemorySeatInventory;
+import uk.gov.dwp.uc.pairtest.inventory.SeatAllocation;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * Seat holds against an {@link InMemorySeatInventory}, expired by a single {@link TimingWheel}.
+ * <p>
+ * A hold claims its seats in the inventory straight away, so nobody else can take them while the customer pays.
+ * Outstanding holds live in one concurrent map, and removing a hold from it is what settles its fate: whichever of
+ * confirm, release or expiry removes it first wins, without any lock per hold. Confirmed and released holds stay in
+ * the wheel until their deadline and are skipped when it comes.
+ * <p>
+ * Holds for every performance in the inventory go through one manager, each for the performance its order names. One
+ * ticker thread sweeps lapsed holds for every performance. Create the manager with a clock instead to sweep by
+ * calling {@link #expireHolds()}.
+ */
+public class SeatHoldManager implements SeatHoldService, AutoCloseable {
+
+    private final InMemorySeatInventory inventory;
+    private final long ttlNanos;
+    private final boolean cachedRejections;
+    private final LongSupplier nanoClock;
+    private final TimingWheel<Hold> wheel;
+    private final ConcurrentHashMap<Long, Hold> holds = new ConcurrentHashMap<>();
+    private final AtomicLong nextHoldId = new AtomicLong();
+    private final LongAdder expired = new LongAdder();
+    private final Thread ticker;
+    private volatile boolean closed;
+
+    public SeatHoldManager(InMemorySeatInventory inventory, HoldConfig config) {
+        this(inventory, config, System::nanoTime, true);
+    }
+
+    /**
+     * Creates a manager without a ticker thread; lapsed holds are only released by {@link #expireHolds()}.
+     */
+    public SeatHoldManager(InMemorySeatInventory inventory, HoldConfig config, LongSupplier nanoClock) {
+        this(inventory, config, nanoClock, false);
+    }
+
+    private SeatHoldManager(InMemorySeatInventory inventory, HoldConfig config, LongSupplier nanoClock,
+                            boolean startTicker) {
+        this.inventory = inventory;
+        this.ttlNanos = config.ttl().toNanos();
+        this.cachedRejections = config.cachedRejections();
+        this.nanoClock = nanoClock;
+        this.wheel = new TimingWheel<>(config.tick().toNanos(), nanoClock.getAsLong(), this::expire);
+        if (startTicker) {
+            var tickNanos = config.tick().toNanos();
+            this.ticker = new Thread(() -> runTicker(tickNanos), "seat-hold-ticker");
+            ticker.setDaemon(true);
+            ticker.start();
+        } else {
+            this.ticker = null;
+        }
+    }
+
+    @Override
+    public long hold(long performanceId, long accountId, int seats) {
+        if (!inventory.hasPerformance(performanceId)) {
+            throw reject(RejectionReason.UNKNOWN_PERFORMANCE);
+        }
+        var allocation = inventory.allocate(performanceId, accountId, seats);
+        var hold = new Hold(nextHoldId.incrementAndGet(), allocation);
+        holds.put(hold.id, hold);
+        wheel.schedule(hold, nanoClock.getAsLong() + ttlNanos);
+        return hold.id;
+    }
+
+    @Override
+    public void confirm(long holdId) {
+        if (holds.remove(holdId) == null) {
+            throw reject(RejectionReason.HOLD_EXPIRED);
+        }
+    }
+
+    @Override
+    public void release(long holdId) {
+        var hold = holds.remove(holdId);
+        if (hold != null) {
+            inventory.release(hold.allocation);
+        }
+    }
+
+    public int outstandingHolds() {
+        return holds.size();
+    }
+
+    public long expiredHolds() {
+        return expired.sum();
+    }
+
+    /**
+     * Releases the seats of every hold past its ttl. Called by the ticker thread, or by the owner of a manager
+     * created without one. Must not be called from more than one thread at a time.
+     */
+    public void expireHolds() {
+        wheel.advanceTo(nanoClock.getAsLong());
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        if (ticker != null) {
+            LockSupport.unpark(ticker);
+        }
+    }
+
+    private void expire(Hold hold) {
+        if (holds.remove(hold.id, hold)) {
+            inventory.release(hold.allocation);
+            expired.increment();
+        }
+    }
+
+    private void runTicker(long tickNanos) {
+        while (!closed) {
+            LockSupport.parkNanos(this, tickNanos);
+            expireHolds();
+        }
+    }
+
+    private InvalidPurchaseException reject(RejectionReason reason) {
+        return cachedRejections ? Rejections.cached(reason) : Rejections.create(reason);
+    }
+
+    private record Hold(long id, SeatAllocation allocation) {
+    }
+}
@@ -0,0 +1,28 @@
+package uk.gov.dwp.uc.pairtest.hold;
+
+/**
+ * Two-phase seat reservation: seats are held while the customer pays, then confirmed or released.
+ */
+public interface SeatHoldService {
+
+    /**
+     * @param performanceId Performance the order is for, as given by the order
+     * @return              Id of the new hold, which lapses and frees its seats unless confirmed in time
+     * @throws uk.gov.dwp.uc.pairtest.exception.SoldOutException            if the seats are not available
+     * @throws uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException    with
+     *         {@link uk.gov.dwp.uc.pairtest.exception.RejectionReason#UNKNOWN_PERFORMANCE} if the performance is not
+     *         on sale
+     */
+    long hold(long performanceId, long accountId, int seats);
+
+    /**
+     * Makes the held seats permanent.
+     * @throws uk.gov.dwp.uc.pairtest.exception.HoldExpiredException if the hold has lapsed or was released
+     */
+    void confirm(long holdId);
+
+    /**
+     * Frees the held seats. Does nothing if the hold has already lapsed.
+     */
+    void release(long holdId);
+}
@@ -0,0 +1,161 @@
+package uk.gov.dwp.uc.pairtest.hold;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel: {@value #LEVELS} wheels of {@value #WHEEL_SIZE} slots, each slot of one wheel spanning a
+ * full turn of the wheel below it.
+ * <p>
+ * A timeout goes into the lowest wheel whose span covers its delay. Whenever a wheel completes a turn, the next slot
+ * of the wheel above is emptied back into the lower wheels, so each timeout is only touched once per level on its
+ * way down. Scheduling and expiring are both constant time however many timeouts are pending, and timeouts need no
+ * thread or task of their own.
+ * <p>
+ * {@link #schedule} may be called from any thread; new timeouts wait in a lock-free queue until the next
+ * {@link #advanceTo}. Everything else belongs to the single thread that advances the wheel. A timeout cannot be
+ * cancelled: the expiry callback should check whether the item is still live.
+ */
+public final class TimingWheel<T> {
+
+    private static final int WHEEL_BITS = 6;
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final int LEVELS = 4;
+
+    private final long tickNanos;
+    private final long startNanos;
+    private final Consumer<? super T> onExpiry;
+    private final ConcurrentLinkedQueue<Entry<T>> incoming = new ConcurrentLinkedQueue<>();
+    @SuppressWarnings("unchecked")
+    private final Entry<T>[][] slots = (Entry<T>[][]) new Entry<?>[LEVELS][WHEEL_SIZE];
+    private long currentTick;
+    private int pending;
+
+    /**
+     * @param tickNanos     Resolution of the wheel. Timeouts fire up to one tick late.
+     * @param startNanos    Clock reading the wheel's first tick counts from
+     * @param onExpiry      Called on the advancing thread for every timeout that fires
+     */
+    public TimingWheel(long tickNanos, long startNanos, Consumer<? super T> onExpiry) {
+        if (tickNanos <= 0) {
+            throw new IllegalArgumentException("tickNanos must be positive");
+        }
+        this.tickNanos = tickNanos;
+        this.startNanos = startNanos;
+        this.onExpiry = onExpiry;
+    }
+
+    public void schedule(T item, long deadlineNanos) {
+        // Round up so a timeout never fires before its deadline.
+        var deadlineTick = Math.floorDiv(deadlineNanos - startNanos + tickNanos - 1, tickNanos);
+        incoming.add(new Entry<>(item, deadlineTick));
+    }
+
+    /**
+     * Fires every timeout whose deadline is at or before {@code nowNanos}. Advancing thread only.
+     * @return  Number of timeouts fired
+     */
+    public int advanceTo(long nowNanos) {
+        var fired = 0;
+        fired += drainIncoming();
+        var targetTick = Math.floorDiv(nowNanos - startNanos, tickNanos);
+        while (currentTick < targetTick) {
+            currentTick++;
+            cascade();
+            fired += fire(WHEEL_MASK & (int) currentTick);
+        }
+        return fired;
+    }
+
+    /**
+     * @return  Timeouts in the wheel that have not fired, as of the last {@link #advanceTo}. Advancing thread only.
+     */
+    public int pending() {
+        return pending;
+    }
+
+    private int drainIncoming() {
+        var fired = 0;
+        Entry<T> entry;
+        while ((entry = incoming.poll()) != null) {
+            if (entry.deadlineTick <= currentTick) {
+                onExpiry.accept(entry.item);
+                fired++;
+            } else {
+                insert(entry);
+                pending++;
+            }
+        }
+        return fired;
+    }
+
+    private void insert(Entry<T> entry) {
+        var delta = entry.deadlineTick - currentTick;
+        for (int level = 0; level < LEVELS; level++) {
+            var shift = WHEEL_BITS * level;
+            if (delta < 1L << (shift + WHEEL_BITS)) {
+                push(level, WHEEL_MASK & (int) (entry.deadlineTick >>> shift), entry);
+                return;
+            }
+        }
+        // Beyond the top wheel's reach: park it in the slot that is emptied last and place it again from there.
+        var shift = WHEEL_BITS * (LEVELS - 1);
+        push(LEVELS - 1, WHEEL_MASK & (int) ((currentTick >>> shift) - 1), entry);
+    }
+
+    private void push(int level, int slot, Entry<T> entry) {
+        entry.next = slots[level][slot];
+        slots[level][slot] = entry;
+    }
+
+    /**
+     * Empties the slot of each upper wheel whose turn has just come round, back into the wheels below.
+     */
+    private void cascade() {
+        for (int level = 1; level < LEVELS; level++) {
+            var shift = WHEEL_BITS * level;
+            if ((currentTick & ((1L << shift) - 1)) != 0) {
+                return;
+            }
+            var slot = WHEEL_MASK & (int) (currentTick >>> shift);
+            var entry = slots[level][slot];
+            slots[level][slot] = null;
+            while (entry != null) {
+                var next = entry.next;
+                insert(entry);
+                entry = next;
+            }
+        }
+    }
+
+    private int fire(int slot) {
+        var entry = slots[0][slot];
+        slots[0][slot] = null;
+        var fired = 0;
+        while (entry != null) {
+            var next = entry.next;
+            if (entry.deadlineTick <= currentTick) {
+                entry.next = null;
+                pending--;
+                fired++;
+                onExpiry.accept(entry.item);
+            } else {
+                insert(entry);
+            }
+            entry = next;
+        }
+        return fired;
+    }
+
+    private static final class Entry<T> {
+        private final T item;
+        private final long deadlineTick;
+        private Entry<T> next;
+
+        private Entry(T item, long deadlineTick) {
+            this.item = item;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package uk.gov.dwp.uc.pairtest.inventory;
+
+/**
+ * Decides how far a group may be broken up when it cannot be seated together in one row. The allocator halves a
+ * group that does not fit and tries each half separately, stopping at the policy's minimum block size.
+ */
+@FunctionalInterface
+public interface GroupSplitPolicy {
+
+    /**
+     * The whole group sits together or the booking fails.
+     */
+    GroupSplitPolicy NEVER = groupSize -> groupSize;
+
+    /**
+     * Nobody is left sitting on their own unless they booked alone.
+     */
+    GroupSplitPolicy PAIRS = groupSize -> Math.min(2, groupSize);
+
+    /**
+     * Any split that seats everyone.
+     */
+    GroupSplitPolicy ANY = groupSize -> 1;
+
+    /**
+     * @return  Smallest contiguous block a group of {@code groupSize} may be split into
+     */
+    int minimumBlockSize(int groupSize);
+}
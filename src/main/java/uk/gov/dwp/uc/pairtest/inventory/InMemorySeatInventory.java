@@ -0,0 +1,129 @@
+package uk.gov.dwp.uc.pairtest.inventory;
+
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+import uk.gov.dwp.uc.pairtest.exception.Rejections;
+import uk.gov.dwp.uc.pairtest.exception.SoldOutException;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-process seat inventory for any number of performances.
+ * <p>
+ * As a {@link SeatInventory} it books each order against the performance the order names. A ticket service selling a
+ * single performance can instead take the {@link SeatReservationService} from {@link #forPerformance(long)}. Each booking starts its row search at a row derived from the account
+ * id, which spreads concurrent bookings across the screen instead of having them all race for the first row.
+ */
+public class InMemorySeatInventory implements SeatInventory {
+
+    private final ConcurrentHashMap<Long, PerformanceSeatMap> performances = new ConcurrentHashMap<>();
+    private final GroupSplitPolicy splitPolicy;
+
+    public InMemorySeatInventory(GroupSplitPolicy splitPolicy) {
+        this.splitPolicy = splitPolicy;
+    }
+
+    /**
+     * @throws IllegalStateException    if the performance is already on sale
+     */
+    public void addPerformance(long performanceId, Screen screen) {
+        if (performances.putIfAbsent(performanceId, new PerformanceSeatMap(performanceId, screen)) != null) {
+            throw new IllegalStateException("Performance " + performanceId + " already exists");
+        }
+    }
+
+    public void removePerformance(long performanceId) {
+        performances.remove(performanceId);
+    }
+
+    public boolean hasPerformance(long performanceId) {
+        return performances.containsKey(performanceId);
+    }
+
+    public Set<Long> performanceIds() {
+        return Set.copyOf(performances.keySet());
+    }
+
+    /**
+     * @throws SoldOutException if the seats cannot be found under the split policy
+     */
+    public SeatAllocation allocate(long performanceId, long accountId, int seats) {
+        var allocation = seatMap(performanceId).allocate(seats, startRowFor(accountId), splitPolicy);
+        if (allocation == null) {
+            throw Rejections.create(RejectionReason.SOLD_OUT);
+        }
+        return allocation;
+    }
+
+    @Override
+    public void reserveSeats(long performanceId, long accountId, int seats) {
+        var allocation = onSale(performanceId).allocate(seats, startRowFor(accountId), splitPolicy);
+        if (allocation == null) {
+            throw Rejections.create(RejectionReason.SOLD_OUT);
+        }
+    }
+
+    @Override
+    public boolean canAllocate(long performanceId, int seats) {
+        return onSale(performanceId).hasFreeSeats(seats);
+    }
+
+    public void release(SeatAllocation allocation) {
+        seatMap(allocation.performanceId()).release(allocation);
+    }
+
+    public int remainingSeats(long performanceId) {
+        return seatMap(performanceId).remainingSeats();
+    }
+
+    public PerformanceSeatMap seatMap(long performanceId) {
+        var seatMap = performances.get(performanceId);
+        if (seatMap == null) {
+            throw new IllegalArgumentException("Unknown performance " + performanceId);
+        }
+        return seatMap;
+    }
+
+    private PerformanceSeatMap onSale(long performanceId) {
+        var seatMap = performances.get(performanceId);
+        if (seatMap == null) {
+            throw Rejections.create(RejectionReason.UNKNOWN_PERFORMANCE);
+        }
+        return seatMap;
+    }
+
+    /**
+     * @return  Reservation service for one performance, which books every order against it whatever the order names.
+     *          It also answers {@link SeatAvailability} so a purchase can fail before payment when the performance is
+     *          sold out
+     */
+    public PerformanceReservationService forPerformance(long performanceId) {
+        seatMap(performanceId);
+        return new PerformanceReservationService(performanceId);
+    }
+
+    private static int startRowFor(long accountId) {
+        var h = accountId * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 33);
+    }
+
+    public final class PerformanceReservationService implements SeatReservationService, SeatAvailability {
+
+        private final long performanceId;
+
+        private PerformanceReservationService(long performanceId) {
+            this.performanceId = performanceId;
+        }
+
+        @Override
+        public void reserveSeat(long accountId, int totalSeatsToAllocate) {
+            allocate(performanceId, accountId, totalSeatsToAllocate);
+        }
+
+        @Override
+        public boolean canAllocate(int seats) {
+            return seatMap(performanceId).hasFreeSeats(seats);
+        }
+    }
+}
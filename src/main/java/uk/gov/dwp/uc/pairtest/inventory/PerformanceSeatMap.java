@@ -0,0 +1,208 @@
+package uk.gov.dwp.uc.pairtest.inventory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Seat map of one performance: one word per row with a bit set for each taken seat.
+ * <p>
+ * Seats are claimed with a compare-and-set on the row's word, and each row's word sits on its own cache line, so
+ * bookings landing on different rows never contend. There is no shared counter of free seats: the count is derived
+ * from the rows, and a booking checks it with {@link #hasFreeSeats}, which stops reading as soon as it has found
+ * enough. A sold-out performance therefore rejects a booking after one read per row, with no writes.
+ */
+public class PerformanceSeatMap {
+
+    /**
+     * Longs between consecutive rows' words, putting each on its own 64-byte cache line.
+     */
+    private static final int ROW_STRIDE = 8;
+
+    private final long performanceId;
+    private final Screen screen;
+    private final long rowMask;
+    private final int rowCount;
+    private final AtomicLongArray rows;
+
+    public PerformanceSeatMap(long performanceId, Screen screen) {
+        this.performanceId = performanceId;
+        this.screen = screen;
+        this.rowMask = screen.seatsPerRow() == Long.SIZE ? -1L : (1L << screen.seatsPerRow()) - 1;
+        this.rowCount = screen.rows();
+        this.rows = new AtomicLongArray(screen.rows() * ROW_STRIDE);
+    }
+
+    public long getPerformanceId() {
+        return performanceId;
+    }
+
+    public Screen getScreen() {
+        return screen;
+    }
+
+    public int remainingSeats() {
+        var taken = 0;
+        for (int row = 0; row < rowCount; row++) {
+            taken += Long.bitCount(row(row));
+        }
+        return screen.capacity() - taken;
+    }
+
+    /**
+     * @return  {@code true} if at least {@code seats} seats are free, reading only as many rows as it takes to find
+     *          them
+     */
+    public boolean hasFreeSeats(int seats) {
+        var free = 0;
+        for (int row = 0; row < rowCount && free < seats; row++) {
+            free += Long.bitCount(~row(row) & rowMask);
+        }
+        return free >= seats;
+    }
+
+    /**
+     * @param seats         Seats wanted
+     * @param startRow      Row to start searching from, used to spread concurrent bookings across the screen
+     * @param splitPolicy   How far the group may be split if it does not fit in one row
+     * @return              Allocated seats, or {@code null} if they could not be found
+     */
+    public SeatAllocation allocate(int seats, int startRow, GroupSplitPolicy splitPolicy) {
+        if (seats <= 0) {
+            return new SeatAllocation(performanceId, List.of());
+        }
+        if (!hasFreeSeats(seats)) {
+            return null;
+        }
+
+        var blocks = new ArrayList<SeatBlock>();
+        if (allocateBlocks(seats, Math.floorMod(startRow, screen.rows()), splitPolicy.minimumBlockSize(seats),
+                blocks)) {
+            return new SeatAllocation(performanceId, blocks);
+        }
+        for (var block : blocks) {
+            freeBlock(block);
+        }
+        return null;
+    }
+
+    public void release(SeatAllocation allocation) {
+        for (var block : allocation.blocks()) {
+            freeBlock(block);
+        }
+    }
+
+    /**
+     * Marks the seats of an allocation made elsewhere as taken, e.g. on a replica of this performance. The seats are
+     * taken whether or not they were free, since the allocation has already been decided, so replaying an allocation
+     * changes nothing.
+     */
+    public void claim(SeatAllocation allocation) {
+        for (var block : allocation.blocks()) {
+            var mask = runMask(block.firstSeat(), block.length());
+            var index = block.row() * ROW_STRIDE;
+            while (true) {
+                var taken = rows.get(index);
+                if (rows.compareAndSet(index, taken, taken | mask)) {
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return  A copy of each row's taken-seat bits
+     */
+    public long[] snapshotRows() {
+        var snapshot = new long[rowCount];
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = row(i);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Marks seats taken from a snapshot, e.g. when a performance moves between nodes. Only valid on a fresh map.
+     */
+    public void restoreRows(long[] snapshot) {
+        for (int i = 0; i < Math.min(snapshot.length, rowCount); i++) {
+            rows.set(i * ROW_STRIDE, snapshot[i] & rowMask);
+        }
+    }
+
+    private long row(int row) {
+        return rows.get(row * ROW_STRIDE);
+    }
+
+    /**
+     * Tries the whole group in one row, then halves it, until the halves are smaller than {@code minimumBlock}.
+     */
+    private boolean allocateBlocks(int seats, int startRow, int minimumBlock, List<SeatBlock> blocks) {
+        if (seats <= screen.seatsPerRow()) {
+            var block = claimInAnyRow(seats, startRow);
+            if (block != null) {
+                blocks.add(block);
+                return true;
+            }
+        }
+        var firstHalf = (seats + 1) / 2;
+        var secondHalf = seats - firstHalf;
+        if (secondHalf < minimumBlock || secondHalf == 0) {
+            return false;
+        }
+        return allocateBlocks(firstHalf, startRow, minimumBlock, blocks)
+                && allocateBlocks(secondHalf, startRow, minimumBlock, blocks);
+    }
+
+    private SeatBlock claimInAnyRow(int seats, int startRow) {
+        for (int i = 0; i < rowCount; i++) {
+            var row = startRow + i < rowCount ? startRow + i : startRow + i - rowCount;
+            var firstSeat = claimInRow(row, seats);
+            if (firstSeat >= 0) {
+                return new SeatBlock(row, firstSeat, seats);
+            }
+        }
+        return null;
+    }
+
+    private int claimInRow(int row, int seats) {
+        var index = row * ROW_STRIDE;
+        while (true) {
+            var taken = rows.get(index);
+            var firstSeat = findFreeRun(~taken & rowMask, seats);
+            if (firstSeat < 0) {
+                return -1;
+            }
+            if (rows.compareAndSet(index, taken, taken | runMask(firstSeat, seats))) {
+                return firstSeat;
+            }
+        }
+    }
+
+    private void freeBlock(SeatBlock block) {
+        var mask = runMask(block.firstSeat(), block.length());
+        var index = block.row() * ROW_STRIDE;
+        while (true) {
+            var taken = rows.get(index);
+            if (rows.compareAndSet(index, taken, taken & ~mask)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return  Lowest seat starting a run of {@code length} free seats, or -1 if there is none
+     */
+    static int findFreeRun(long free, int length) {
+        var starts = free;
+        for (int i = 1; i < length && starts != 0; i++) {
+            starts &= free >>> i;
+        }
+        return starts == 0 ? -1 : Long.numberOfTrailingZeros(starts);
+    }
+
+    private static long runMask(int firstSeat, int length) {
+        var run = length == Long.SIZE ? -1L : (1L << length) - 1;
+        return run << firstSeat;
+    }
+}
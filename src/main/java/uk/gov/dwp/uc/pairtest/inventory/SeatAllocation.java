@@ -0,0 +1,21 @@
+package uk.gov.dwp.uc.pairtest.inventory;
+
+import java.util.List;
+
+/**
+ * Seats allocated to one booking, possibly split across rows by the {@link GroupSplitPolicy}.
+ */
+public record SeatAllocation(long performanceId, List<SeatBlock> blocks) {
+
+    public SeatAllocation {
+        blocks = List.copyOf(blocks);
+    }
+
+    public int seatCount() {
+        var count = 0;
+        for (var block : blocks) {
+            count += block.length();
+        }
+        return count;
+    }
+}
@@ -0,0 +1,13 @@
+package uk.gov.dwp.uc.pairtest.inventory;
+
+/**
+ * Cheap capacity check that lets a purchase fail before payment is taken.
+ */
+@FunctionalInterface
+public interface SeatAvailability {
+
+    /**
+     * A {@code true} answer is advisory: concurrent bookings may still take the seats first.
+     */
+    boolean canAllocate(int seats);
+}
@@ -0,0 +1,7 @@
+package uk.gov.dwp.uc.pairtest.inventory;
+
+/**
+ * Contiguous run of seats in one row. Rows and seats are numbered from zero.
+ */
+public record SeatBlock(int row, int firstSeat, int length) {
+}
@@ -0,0 +1,26 @@
+package uk.gov.dwp.uc.pairtest.inventory;
+
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+
+/**
+ * Seats for many performances, booked by the performance each order names.
+ * <p>
+ * {@link thirdparty.seatbooking.SeatReservationService} carries no performance, so a ticket service selling more than
+ * one performance books through this instead and every order reaches the performance it was priced and validated for.
+ */
+public interface SeatInventory {
+
+    /**
+     * @throws InvalidPurchaseException with {@link RejectionReason#UNKNOWN_PERFORMANCE} if the performance is not on
+     *                                  sale, or {@link RejectionReason#SOLD_OUT} if the seats cannot be found
+     */
+    void reserveSeats(long performanceId, long accountId, int seats);
+
+    /**
+     * A {@code true} answer is advisory: concurrent bookings may still take the seats first.
+     * @throws InvalidPurchaseException with {@link RejectionReason#UNKNOWN_PERFORMANCE} if the performance is not on
+     *                                  sale
+     */
+    boolean canAllocate(long performanceId, int seats);
+}
@@ -0,0 +1,18 @@
+package uk.gov.dwp.uc.pairtest.inventory.cluster;
+
+/**
+ * @param virtualNodes      Points each node takes on the hash ring. More points spread performances more evenly.
+ * @param replicas          Nodes holding each performance, the first being its primary. With 1 a failed node's
+ *                          performances are lost.
+ * @param cachedRejections  {@code true} to reject with shared stackless exceptions
+ */
+public record ClusterConfig(int virtualNodes, int replicas, boolean cachedRejections) {
+
+    public static final ClusterConfig DEFAULT = new ClusterConfig(128, 2, false);
+
+    public ClusterConfig {
+        if (virtualNodes <= 0 || replicas <= 0) {
+            throw new IllegalArgumentException("virtualNodes and replicas must be positive");
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package uk.gov.dwp.uc.pairtest.inventory.cluster;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Immutable consistent-hash ring of node ids, each placed at a number of virtual points.
+ * <p>
+ * A performance belongs to the first nodes found walking clockwise from its hash. Adding a node only moves the
+ * performances that now land on it, and removing one only moves its own, each to the node that was next in line
+ * for it; with replicas that is the performance's first backup.
+ */
+public final class ConsistentHashRing {
+
+    private final int virtualNodes;
+    private final Set<String> nodes;
+    private final long[] points;
+    private final String[] owners;
+
+    public ConsistentHashRing(int virtualNodes) {
+        this(virtualNodes, Set.of());
+    }
+
+    private ConsistentHashRing(int virtualNodes, Set<String> nodes) {
+        this.virtualNodes = virtualNodes;
+        this.nodes = Set.copyOf(nodes);
+        var entries = new ArrayList<Point>(nodes.size() * virtualNodes);
+        for (var node : nodes) {
+            for (int i = 0; i < virtualNodes; i++) {
+                entries.add(new Point(mix(((long) node.hashCode() << 32) | i), node));
+            }
+        }
+        // Ties between nodes are broken by id so every ring with the same nodes is identical.
+        entries.sort((a, b) -> a.hash != b.hash ? Long.compare(a.hash, b.hash) : a.node.compareTo(b.node));
+        this.points = new long[entries.size()];
+        this.owners = new String[entries.size()];
+        for (int i = 0; i < entries.size(); i++) {
+            points[i] = entries.get(i).hash;
+            owners[i] = entries.get(i).node;
+        }
+    }
+
+    public ConsistentHashRing with(String nodeId) {
+        var nodes = new LinkedHashSet<>(this.nodes);
+        nodes.add(nodeId);
+        return new ConsistentHashRing(virtualNodes, nodes);
+    }
+
+    public ConsistentHashRing without(String nodeId) {
+        var nodes = new LinkedHashSet<>(this.nodes);
+        nodes.remove(nodeId);
+        return new ConsistentHashRing(virtualNodes, nodes);
+    }
+
+    public Set<String> nodes() {
+        return nodes;
+    }
+
+    /**
+     * @return  Up to {@code count} distinct nodes for the performance, primary first
+     */
+    public List<String> replicas(long performanceId, int count) {
+        var replicas = new ArrayList<String>(Math.min(count, nodes.size()));
+        if (points.length == 0) {
+            return replicas;
+        }
+        var index = Arrays.binarySearch(points, mix(performanceId));
+        var start = index >= 0 ? index : -index - 1;
+        for (int i = 0; i < points.length && replicas.size() < count; i++) {
+            var owner = owners[(start + i) % points.length];
+            if (!replicas.contains(owner)) {
+                replicas.add(owner);
+            }
+        }
+        return replicas;
+    }
+
+    /**
+     * Stafford variant 13 of the SplitMix64 finaliser, so consecutive performance ids land far apart.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private record Point(long hash, String node) {
+    }
+}
@@ -0,0 +1,46 @@
+package uk.gov.dwp.uc.pairtest.inventory.cluster;
+
+import uk.gov.dwp.uc.pairtest.exception.SoldOutException;
+import uk.gov.dwp.uc.pairtest.inventory.Screen;
+import uk.gov.dwp.uc.pairtest.inventory.SeatAllocation;
+
+import java.util.Set;
+
+/**
+ * One node of a {@link PartitionedSeatInventory}, holding the seat maps of the performances placed on it.
+ * <p>
+ * This is the boundary a transport sits behind: {@link LocalInventoryNode} is the node itself, and a stub for a remote
+ * node implements the same calls over the wire, throwing {@link NodeUnavailableException} when it cannot get through.
+ */
+public interface InventoryNode {
+
+    String id();
+
+    /**
+     * Creates an empty seat map for the performance.
+     */
+    void addPerformance(long performanceId, Screen screen);
+
+    /**
+     * @throws SoldOutException if the seats cannot be found
+     */
+    SeatAllocation allocate(long performanceId, long accountId, int seats);
+
+    /**
+     * Marks seats allocated by the performance's primary as taken on this replica.
+     */
+    void replicate(SeatAllocation allocation);
+
+    int remainingSeats(long performanceId);
+
+    PerformanceSnapshot snapshot(long performanceId);
+
+    /**
+     * Replaces any seat map this node holds for the performance with the snapshot.
+     */
+    void restore(PerformanceSnapshot snapshot);
+
+    void removePerformance(long performanceId);
+
+    Set<Long> performanceIds();
+}
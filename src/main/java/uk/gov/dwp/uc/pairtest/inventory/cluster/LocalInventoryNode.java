@@ -0,0 +1,70 @@
+package uk.gov.dwp.uc.pairtest.inventory.cluster;
+
+import uk.gov.dwp.uc.pairtest.inventory.GroupSplitPolicy;
+import uk.gov.dwp.uc.pairtest.inventory.InMemorySeatInventory;
+import uk.gov.dwp.uc.pairtest.inventory.Screen;
+import uk.gov.dwp.uc.pairtest.inventory.SeatAllocation;
+
+import java.util.Set;
+
+/**
+ * {@link InventoryNode} over an {@link InMemorySeatInventory} in this JVM.
+ */
+public class LocalInventoryNode implements InventoryNode {
+
+    private final String id;
+    private final InMemorySeatInventory inventory;
+
+    public LocalInventoryNode(String id, GroupSplitPolicy splitPolicy) {
+        this.id = id;
+        this.inventory = new InMemorySeatInventory(splitPolicy);
+    }
+
+    @Override
+    public String id() {
+        return id;
+    }
+
+    @Override
+    public void addPerformance(long performanceId, Screen screen) {
+        inventory.addPerformance(performanceId, screen);
+    }
+
+    @Override
+    public SeatAllocation allocate(long performanceId, long accountId, int seats) {
+        return inventory.allocate(performanceId, accountId, seats);
+    }
+
+    @Override
+    public void replicate(SeatAllocation allocation) {
+        inventory.seatMap(allocation.performanceId()).claim(allocation);
+    }
+
+    @Override
+    public int remainingSeats(long performanceId) {
+        return inventory.remainingSeats(performanceId);
+    }
+
+    @Override
+    public PerformanceSnapshot snapshot(long performanceId) {
+        var seatMap = inventory.seatMap(performanceId);
+        return new PerformanceSnapshot(performanceId, seatMap.getScreen(), seatMap.snapshotRows());
+    }
+
+    @Override
+    public void restore(PerformanceSnapshot snapshot) {
+        inventory.removePerformance(snapshot.performanceId());
+        inventory.addPerformance(snapshot.performanceId(), snapshot.screen());
+        inventory.seatMap(snapshot.performanceId()).restoreRows(snapshot.rows());
+    }
+
+    @Override
+    public void removePerformance(long performanceId) {
+        inventory.removePerformance(performanceId);
+    }
+
+    @Override
+    public Set<Long> performanceIds() {
+        return inventory.performanceIds();
+    }
+}
@@ -0,0 +1,15 @@
+package uk.gov.dwp.uc.pairtest.inventory.cluster;
+
+/**
+ * Thrown by an {@link InventoryNode} stub when the node cannot be reached.
+ */
+public class NodeUnavailableException extends RuntimeException {
+
+    public NodeUnavailableException(String nodeId) {
+        super("Inventory node " + nodeId + " is unavailable");
+    }
+
+    public NodeUnavailableException(String nodeId, Throwable cause) {
+        super("Inventory node " + nodeId + " is unavailable", cause);
+    }
+}
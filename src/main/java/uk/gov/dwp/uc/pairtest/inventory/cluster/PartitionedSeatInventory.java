@@ -0,0 +1,359 @@
+package uk.gov.dwp.uc.pairtest.inventory.cluster;
+
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+import uk.gov.dwp.uc.pairtest.exception.Rejections;
+import uk.gov.dwp.uc.pairtest.exception.SoldOutException;
+import uk.gov.dwp.uc.pairtest.inventory.Screen;
+import uk.gov.dwp.uc.pairtest.inventory.SeatAllocation;
+import uk.gov.dwp.uc.pairtest.inventory.SeatAvailability;
+import uk.gov.dwp.uc.pairtest.inventory.SeatInventory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Seat inventory partitioned across {@link InventoryNode}s by a {@link ConsistentHashRing}.
+ * <p>
+ * Each performance lives on {@code replicas} nodes. Bookings go to its primary, and the allocation the primary makes
+ * is copied to the backups before the booking returns, so every replica holds the same seats. When a node joins or
+ * leaves, only the performances whose replicas change are moved, each copied from a node that still holds it.
+ * Performances share 64 lock stripes, so while one moves, bookings wait for it and for the other performances on its
+ * stripe, about one in 64 of the rest.
+ * <p>
+ * As a {@link SeatInventory} it books each order against the performance the order names.
+ * <p>
+ * A node that cannot be reached during a booking is treated as failed: it is dropped from the ring, its performances
+ * are re-replicated from their surviving copies, and the booking is retried on the new primary. A performance whose
+ * every copy is gone is lost, and bookings for it are rejected with {@link RejectionReason#DOWNSTREAM_UNAVAILABLE}.
+ */
+public class PartitionedSeatInventory implements SeatInventory {
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final ClusterConfig config;
+    private final Map<String, InventoryNode> nodes = new ConcurrentHashMap<>();
+    private final Map<Long, List<String>> placements = new ConcurrentHashMap<>();
+    private final Set<Long> lost = ConcurrentHashMap.newKeySet();
+    private final ReentrantReadWriteLock[] locks = new ReentrantReadWriteLock[LOCK_STRIPES];
+    private volatile ConsistentHashRing ring;
+
+    public PartitionedSeatInventory(ClusterConfig config) {
+        this.config = config;
+        this.ring = new ConsistentHashRing(config.virtualNodes());
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantReadWriteLock();
+        }
+    }
+
+    /**
+     * Adds a node to the ring and moves onto it the performances that now belong there.
+     */
+    public synchronized void addNode(InventoryNode node) {
+        if (nodes.putIfAbsent(node.id(), node) != null) {
+            throw new IllegalStateException("Node " + node.id() + " already joined");
+        }
+        ring = ring.with(node.id());
+        rebalance();
+    }
+
+    /**
+     * Moves a node's performances to the rest of the ring, then drops it. The node must still be reachable.
+     */
+    public synchronized void removeNode(String nodeId) {
+        if (!nodes.containsKey(nodeId)) {
+            return;
+        }
+        ring = ring.without(nodeId);
+        rebalance();
+        nodes.remove(nodeId);
+    }
+
+    /**
+     * Drops a node that can no longer be reached and re-replicates its performances from their other copies.
+     */
+    public synchronized void nodeFailed(String nodeId) {
+        if (nodes.remove(nodeId) == null) {
+            return;
+        }
+        ring = ring.without(nodeId);
+        rebalance();
+    }
+
+    /**
+     * @throws IllegalStateException    if the performance is already on sale or there are no nodes
+     */
+    public synchronized void addPerformance(long performanceId, Screen screen) {
+        var lock = lockFor(performanceId).writeLock();
+        lock.lock();
+        try {
+            if (placements.containsKey(performanceId)) {
+                throw new IllegalStateException("Performance " + performanceId + " already exists");
+            }
+            var replicas = ring.replicas(performanceId, config.replicas());
+            if (replicas.isEmpty()) {
+                throw new IllegalStateException("No inventory nodes");
+            }
+            for (var nodeId : replicas) {
+                nodes.get(nodeId).addPerformance(performanceId, screen);
+            }
+            placements.put(performanceId, List.copyOf(replicas));
+            lost.remove(performanceId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @throws SoldOutException if the seats cannot be found
+     */
+    public SeatAllocation allocate(long performanceId, long accountId, int seats) {
+        return route(performanceId, route -> {
+            var allocation = route.primary.allocate(performanceId, accountId, seats);
+            route.replicate(allocation);
+            return allocation;
+        });
+    }
+
+    public int remainingSeats(long performanceId) {
+        return route(performanceId, route -> route.primary.remainingSeats(performanceId));
+    }
+
+    @Override
+    public void reserveSeats(long performanceId, long accountId, int seats) {
+        onSale(performanceId);
+        allocate(performanceId, accountId, seats);
+    }
+
+    @Override
+    public boolean canAllocate(long performanceId, int seats) {
+        onSale(performanceId);
+        return remainingSeats(performanceId) >= seats;
+    }
+
+    /**
+     * @return  Nodes holding the performance, primary first
+     */
+    public List<String> replicasOf(long performanceId) {
+        var replicas = placements.get(performanceId);
+        return replicas == null ? List.of() : replicas;
+    }
+
+    public Set<String> nodeIds() {
+        return Set.copyOf(nodes.keySet());
+    }
+
+    public Set<Long> performanceIds() {
+        return Set.copyOf(placements.keySet());
+    }
+
+    /**
+     * @return  Performances whose every copy was on nodes that failed
+     */
+    public Set<Long> lostPerformances() {
+        return Set.copyOf(lost);
+    }
+
+    /**
+     * @return  Reservation service for one performance, which books every order against it whatever the order names.
+     *          It also answers {@link SeatAvailability}.
+     */
+    public PerformanceReservationService forPerformance(long performanceId) {
+        if (!placements.containsKey(performanceId)) {
+            throw new IllegalArgumentException("Unknown performance " + performanceId);
+        }
+        return new PerformanceReservationService(performanceId);
+    }
+
+    /**
+     * Runs {@code call} against the performance's current replicas, failing over to the next primary while any
+     * replica is left.
+     */
+    private <T> T route(long performanceId, Function<Route, T> call) {
+        for (int attempt = 0; attempt <= config.replicas(); attempt++) {
+            var unreachable = new ArrayList<String>(1);
+            T result = null;
+            var lock = lockFor(performanceId).readLock();
+            lock.lock();
+            try {
+                var replicas = placements.get(performanceId);
+                if (replicas == null) {
+                    if (lost.contains(performanceId)) {
+                        throw unavailable();
+                    }
+                    throw new IllegalArgumentException("Unknown performance " + performanceId);
+                }
+                var primary = nodes.get(replicas.get(0));
+                if (primary == null) {
+                    unreachable.add(replicas.get(0));
+                } else {
+                    try {
+                        result = call.apply(new Route(primary, replicas, unreachable));
+                    } catch (NodeUnavailableException e) {
+                        unreachable.add(primary.id());
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+            // Failover takes the performance's write lock, so it can only run once the read lock is released.
+            for (var nodeId : unreachable) {
+                nodeFailed(nodeId);
+            }
+            if (result != null) {
+                return result;
+            }
+        }
+        throw unavailable();
+    }
+
+    /**
+     * Brings every performance's replicas in line with the ring. Called with the membership lock held.
+     */
+    private void rebalance() {
+        var unreachable = new LinkedHashSet<String>();
+        for (var performanceId : placements.keySet()) {
+            var target = ring.replicas(performanceId, config.replicas());
+            if (target.equals(placements.get(performanceId))) {
+                continue;
+            }
+            var lock = lockFor(performanceId).writeLock();
+            lock.lock();
+            try {
+                move(performanceId, target, unreachable);
+            } finally {
+                lock.unlock();
+            }
+        }
+        for (var nodeId : unreachable) {
+            nodeFailed(nodeId);
+        }
+    }
+
+    private void move(long performanceId, List<String> target, Set<String> unreachable) {
+        var current = placements.get(performanceId);
+        PerformanceSnapshot snapshot = null;
+        for (var nodeId : current) {
+            var node = nodes.get(nodeId);
+            if (node == null) {
+                continue;
+            }
+            try {
+                snapshot = node.snapshot(performanceId);
+                break;
+            } catch (NodeUnavailableException e) {
+                unreachable.add(nodeId);
+            }
+        }
+        if (snapshot == null) {
+            placements.remove(performanceId);
+            lost.add(performanceId);
+            return;
+        }
+
+        var placed = new ArrayList<String>(target.size());
+        for (var nodeId : target) {
+            try {
+                if (!current.contains(nodeId)) {
+                    nodes.get(nodeId).restore(snapshot);
+                }
+                placed.add(nodeId);
+            } catch (NodeUnavailableException e) {
+                unreachable.add(nodeId);
+            }
+        }
+        if (placed.isEmpty()) {
+            // No new replica took a copy, so the old ones keep the only copies until the next rebalance
+            return;
+        }
+        for (var nodeId : current) {
+            var node = nodes.get(nodeId);
+            if (node != null && !target.contains(nodeId)) {
+                try {
+                    node.removePerformance(performanceId);
+                } catch (NodeUnavailableException e) {
+                    unreachable.add(nodeId);
+                }
+            }
+        }
+        placements.put(performanceId, List.copyOf(placed));
+    }
+
+    private ReentrantReadWriteLock lockFor(long performanceId) {
+        return locks[(int) (performanceId ^ (performanceId >>> 32)) & (LOCK_STRIPES - 1)];
+    }
+
+    /**
+     * A lost performance is left to {@link #route}, which rejects it as unavailable.
+     */
+    private void onSale(long performanceId) {
+        if (!placements.containsKey(performanceId) && !lost.contains(performanceId)) {
+            throw config.cachedRejections() ? Rejections.cached(RejectionReason.UNKNOWN_PERFORMANCE)
+                    : Rejections.create(RejectionReason.UNKNOWN_PERFORMANCE);
+        }
+    }
+
+    private RuntimeException unavailable() {
+        return config.cachedRejections() ? Rejections.cached(RejectionReason.DOWNSTREAM_UNAVAILABLE)
+                : Rejections.create(RejectionReason.DOWNSTREAM_UNAVAILABLE);
+    }
+
+    /**
+     * The replicas of one performance for the duration of a call.
+     */
+    private final class Route {
+
+        private final InventoryNode primary;
+        private final List<String> replicas;
+        private final List<String> unreachable;
+
+        private Route(InventoryNode primary, List<String> replicas, List<String> unreachable) {
+            this.primary = primary;
+            this.replicas = replicas;
+            this.unreachable = unreachable;
+        }
+
+        /**
+         * Copies an allocation to every backup. A backup that cannot be reached is failed afterwards rather than
+         * failing the booking, which the primary already holds.
+         */
+        private void replicate(SeatAllocation allocation) {
+            for (int i = 1; i < replicas.size(); i++) {
+                var backup = nodes.get(replicas.get(i));
+                try {
+                    if (backup == null) {
+                        throw new NodeUnavailableException(replicas.get(i));
+                    }
+                    backup.replicate(allocation);
+                } catch (NodeUnavailableException e) {
+                    unreachable.add(replicas.get(i));
+                }
+            }
+        }
+    }
+
+    public final class PerformanceReservationService implements SeatReservationService, SeatAvailability {
+
+        private final long performanceId;
+
+        private PerformanceReservationService(long performanceId) {
+            this.performanceId = performanceId;
+        }
+
+        @Override
+        public void reserveSeat(long accountId, int totalSeatsToAllocate) {
+            allocate(performanceId, accountId, totalSeatsToAllocate);
+        }
+
+        @Override
+        public boolean canAllocate(int seats) {
+            return remainingSeats(performanceId) >= seats;
+        }
+    }
+}
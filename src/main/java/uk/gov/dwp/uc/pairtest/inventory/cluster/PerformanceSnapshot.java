@@ -0,0 +1,20 @@
+package uk.gov.dwp.uc.pairtest.inventory.cluster;
+
+import uk.gov.dwp.uc.pairtest.inventory.Screen;
+
+/**
+ * Everything needed to recreate a performance's seat map on another node.
+ *
+ * @param rows  Taken-seat bits per row, as from {@link uk.gov.dwp.uc.pairtest.inventory.PerformanceSeatMap#snapshotRows()}
+ */
+public record PerformanceSnapshot(long performanceId, Screen screen, long[] rows) {
+
+    public PerformanceSnapshot {
+        rows = rows.clone();
+    }
+
+    @Override
+    public long[] rows() {
+        return rows.clone();
+    }
+}
@@ -0,0 +1,26 @@
+package uk.gov.dwp.uc.pairtest.journal;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * @param directory             Where segment files are kept
+ * @param recordsPerSegment     Records in each memory-mapped segment file before a new one is started
+ * @param groupCommitWindow     How long the flusher waits to gather more writers before each flush. Zero flushes as
+ *                              soon as anyone is waiting; writers arriving during a flush still share the next one.
+ */
+public record JournalConfig(Path directory, int recordsPerSegment, Duration groupCommitWindow) {
+
+    public JournalConfig {
+        if (recordsPerSegment <= 0) {
+            throw new IllegalArgumentException("recordsPerSegment must be positive");
+        }
+        if (groupCommitWindow.isNegative()) {
+            throw new IllegalArgumentException("groupCommitWindow cannot be negative");
+        }
+    }
+
+    public static JournalConfig of(Path directory) {
+        return new JournalConfig(directory, 1 << 20, Duration.ZERO);
+    }
+}
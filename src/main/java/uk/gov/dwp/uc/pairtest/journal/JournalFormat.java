@@ -0,0 +1,123 @@
+package uk.gov.dwp.uc.pairtest.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.regex.Pattern;
+
+/**
+ * On-disk layout of the journal. Each segment file is an array of fixed 40-byte records:
+ * <pre>
+ *   offset 0   int64   purchase id
+ *   offset 8   int64   account id
+ *   offset 16  int64   performance id, zero if the order named none
+ *   offset 24  int32   amount
+ *   offset 28  int32   seats
+ *   offset 32  uint8   {@link PurchaseStage} code, zero for an unwritten slot
+ *   offset 36  int32   checksum of the fields above, written last so a torn record is detected
+ * </pre>
+ * The format version is part of the file name, {@code journal-<index>.v<version>.log}. Version 1 files, named
+ * {@code journal-<index>.log}, held 32-byte records without the performance id.
+ * <p>
+ * Segment indexes prefix every purchase id, so they must never repeat in a directory. The next free index is kept in
+ * {@code journal.next}, which outlives the segments themselves.
+ */
+final class JournalFormat {
+
+    static final int VERSION = 2;
+    static final int RECORD_LENGTH = 40;
+
+    private static final String NEXT_INDEX_FILE = "journal.next";
+    private static final Pattern SEGMENT_NAME = Pattern.compile("journal-(\\d{10})(?:\\.v(\\d+))?\\.log");
+
+    private JournalFormat() {
+        throw new RuntimeException("Cannot instantiate this class");
+    }
+
+    static Path segmentPath(Path directory, long index) {
+        return directory.resolve(String.format("journal-%010d.v%d.log", index, VERSION));
+    }
+
+    /**
+     * @return  Index of the segment file of any format version, or -1 if the file is not a segment
+     */
+    static long segmentIndex(Path file) {
+        var matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+        return matcher.matches() ? Long.parseLong(matcher.group(1)) : -1;
+    }
+
+    /**
+     * @return  Format version of the segment file, or -1 if the file is not a segment
+     */
+    static int segmentVersion(Path file) {
+        var matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+        if (!matcher.matches()) {
+            return -1;
+        }
+        return matcher.group(2) == null ? 1 : Integer.parseInt(matcher.group(2));
+    }
+
+    /**
+     * Reserves {@code count} consecutive segment indexes, none below {@code atLeast} and none handed out before in the
+     * directory. The next free index is on disk before this returns.
+     *
+     * @return  The first reserved index
+     */
+    static long claimSegmentIndexes(Path directory, long atLeast, int count) throws IOException {
+        var file = directory.resolve(NEXT_INDEX_FILE);
+        var next = Files.exists(file) ? Long.parseLong(Files.readString(file, StandardCharsets.US_ASCII).trim()) : 0;
+        var first = Math.max(next, atLeast);
+        var temp = directory.resolve(NEXT_INDEX_FILE + ".tmp");
+        try (var channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(ByteBuffer.wrap(Long.toString(first + count).getBytes(StandardCharsets.US_ASCII)));
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return first;
+    }
+
+    static void write(ByteBuffer buffer, int offset, long purchaseId, long accountId, long performanceId, int amount,
+                      int seats, PurchaseStage stage) {
+        buffer.putLong(offset, purchaseId);
+        buffer.putLong(offset + 8, accountId);
+        buffer.putLong(offset + 16, performanceId);
+        buffer.putInt(offset + 24, amount);
+        buffer.putInt(offset + 28, seats);
+        buffer.put(offset + 32, stage.code());
+        buffer.putInt(offset + 36, checksum(purchaseId, accountId, performanceId, amount, seats, stage.code()));
+    }
+
+    /**
+     * @return  The record at {@code offset}, or {@code null} if the slot is unwritten or torn
+     */
+    static JournalRecord read(ByteBuffer buffer, int offset) {
+        var purchaseId = buffer.getLong(offset);
+        var accountId = buffer.getLong(offset + 8);
+        var performanceId = buffer.getLong(offset + 16);
+        var amount = buffer.getInt(offset + 24);
+        var seats = buffer.getInt(offset + 28);
+        var code = buffer.get(offset + 32);
+        var stage = PurchaseStage.fromCode(code);
+        if (stage == null || buffer.getInt(offset + 36)
+                != checksum(purchaseId, accountId, performanceId, amount, seats, code)) {
+            return null;
+        }
+        return new JournalRecord(purchaseId, accountId, performanceId, amount, seats, stage);
+    }
+
+    private static int checksum(long purchaseId, long accountId, long performanceId, int amount, int seats,
+                                byte stage) {
+        var h = purchaseId * 0x9E3779B97F4A7C15L;
+        h = (h ^ accountId) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ performanceId) * 0x9E3779B97F4A7C15L;
+        h = (h ^ ((long) amount << 32 | (seats & 0xFFFFFFFFL))) * 0x94D049BB133111EBL;
+        h = (h ^ stage) * 0xFF51AFD7ED558CCDL;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,8 @@
+package uk.gov.dwp.uc.pairtest.journal;
+
+/**
+ * Latest known state of one purchase, as read back during recovery.
+ */
+public record JournalRecord(long purchaseId, long accountId, long performanceId, int amount, int seats,
+                            PurchaseStage stage) {
+}
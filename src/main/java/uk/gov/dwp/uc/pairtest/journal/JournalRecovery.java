@@ -0,0 +1,185 @@
+package uk.gov.dwp.uc.pairtest.journal;
+
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.inventory.SeatInventory;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Startup pass over the segments a previous {@link MappedPurchaseJournal} left behind.
+ * <p>
+ * A purchase recorded as paid but not completed has its seats reserved now, for the performance it was bought for. A
+ * purchase recorded only as started may or may not have been charged, so it goes to the {@link RefundHandler}, as does
+ * one marked as due a refund that was never handed over. The segments are deleted afterwards, leaving the directory
+ * ready for {@link MappedPurchaseJournal#open}.
+ * <p>
+ * Each purchase is marked finished in a recovery segment of its own as soon as it has been dealt with, and that
+ * record is forced to disk before the next purchase. A recovery that fails part way can then simply be run again:
+ * it picks up where the last one stopped, and only a purchase in hand at the moment of failure is dealt with twice.
+ */
+public final class JournalRecovery {
+
+    private JournalRecovery() {
+        throw new RuntimeException("Cannot instantiate this class");
+    }
+
+    /**
+     * Recovers a journal written by a service booking through a {@link SeatReservationService}, which is bound to one
+     * performance, so every paid purchase is booked there whatever performance it recorded.
+     */
+    public static RecoveryReport recover(Path directory, SeatReservationService seatReservationService,
+                                         RefundHandler refundHandler) throws IOException {
+        return recover(directory, (performanceId, accountId, seats) ->
+                seatReservationService.reserveSeat(accountId, seats), refundHandler);
+    }
+
+    /**
+     * Recovers a journal written by a service booking through a {@link SeatInventory}, booking each paid purchase for
+     * the performance it recorded.
+     */
+    public static RecoveryReport recover(Path directory, SeatInventory seatInventory, RefundHandler refundHandler)
+            throws IOException {
+        return recover(directory, seatInventory::reserveSeats, refundHandler);
+    }
+
+    /**
+     * @throws IllegalStateException    if a segment was written in another format version
+     */
+    private static RecoveryReport recover(Path directory, SeatBooking seatBooking, RefundHandler refundHandler)
+            throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return new RecoveryReport(0, 0, 0);
+        }
+        var segmentFiles = listSegments(directory);
+        var purchases = new HashMap<Long, JournalRecord>();
+        for (var file : segmentFiles) {
+            readSegment(file, purchases);
+        }
+        var unfinished = (int) purchases.values().stream().filter(purchase -> !purchase.stage().isFinal()).count();
+        var finished = purchases.size() - unfinished;
+        if (unfinished == 0) {
+            deleteSegments(segmentFiles);
+            return new RecoveryReport(0, 0, finished);
+        }
+
+        // Records are folded in segment order, so the recovery segment must sort after every segment it finishes.
+        var lastIndex = JournalFormat.segmentIndex(segmentFiles.get(segmentFiles.size() - 1));
+        var progressIndex = JournalFormat.claimSegmentIndexes(directory, lastIndex + 1, 1);
+        var progress = JournalSegment.create(directory, progressIndex, unfinished);
+        segmentFiles.add(JournalFormat.segmentPath(directory, progressIndex));
+        int replayed = 0;
+        int flagged = 0;
+        int slot = 0;
+        try {
+            for (var purchase : purchases.values()) {
+                if (purchase.stage().isFinal()) {
+                    continue;
+                }
+                if (replay(purchase, seatBooking)) {
+                    replayed++;
+                    markFinished(progress, slot++, purchase, PurchaseStage.COMPLETED);
+                } else {
+                    refundHandler.flagForRefund(purchase);
+                    flagged++;
+                    markFinished(progress, slot++, purchase, PurchaseStage.REFUND_FLAGGED);
+                }
+            }
+        } finally {
+            progress.close();
+        }
+
+        deleteSegments(segmentFiles);
+        return new RecoveryReport(replayed, flagged, finished);
+    }
+
+    /**
+     * @return  {@code true} if the purchase was paid and its seats are now reserved, {@code false} if it must go for
+     *          a refund instead
+     */
+    private static boolean replay(JournalRecord purchase, SeatBooking seatBooking) {
+        // Without its started record there is nothing to replay against.
+        if (purchase.stage() != PurchaseStage.PAID || purchase.accountId() <= 0) {
+            return false;
+        }
+        try {
+            seatBooking.reserve(purchase.performanceId(), purchase.accountId(), purchase.seats());
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private static void markFinished(JournalSegment progress, int slot, JournalRecord purchase, PurchaseStage stage) {
+        progress.write(slot, purchase.purchaseId(), 0, 0, 0, 0, stage);
+        progress.force();
+    }
+
+    /**
+     * Deletes oldest first, so a failure part way leaves the recovery segment, and with it every purchase already
+     * dealt with marked finished.
+     */
+    private static void deleteSegments(List<Path> segmentFiles) throws IOException {
+        for (var file : segmentFiles) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static List<Path> listSegments(Path directory) throws IOException {
+        var segments = new ArrayList<Path>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(file -> JournalFormat.segmentIndex(file) >= 0)
+                    .sorted(Comparator.comparingLong(JournalFormat::segmentIndex))
+                    .forEach(segments::add);
+        }
+        for (var segment : segments) {
+            var version = JournalFormat.segmentVersion(segment);
+            if (version != JournalFormat.VERSION) {
+                throw new IllegalStateException("Journal segment " + segment + " is in format version " + version
+                        + " and must be recovered by the release that wrote it");
+            }
+        }
+        return segments;
+    }
+
+    /**
+     * Folds each record into the latest known state of its purchase. Only the started record carries the account,
+     * performance and totals, so later stages keep those and replace just the stage.
+     */
+    private static void readSegment(Path file, Map<Long, JournalRecord> purchases) throws IOException {
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            for (int offset = 0; offset + JournalFormat.RECORD_LENGTH <= buffer.limit();
+                 offset += JournalFormat.RECORD_LENGTH) {
+                var record = JournalFormat.read(buffer, offset);
+                if (record == null) {
+                    continue;
+                }
+                purchases.merge(record.purchaseId(), record, JournalRecovery::latest);
+            }
+        }
+    }
+
+    private static JournalRecord latest(JournalRecord known, JournalRecord update) {
+        var started = known.stage() == PurchaseStage.STARTED ? known
+                : update.stage() == PurchaseStage.STARTED ? update : known;
+        var stage = known.stage().compareTo(update.stage()) >= 0 ? known.stage() : update.stage();
+        return new JournalRecord(started.purchaseId(), started.accountId(), started.performanceId(), started.amount(),
+                started.seats(), stage);
+    }
+
+    @FunctionalInterface
+    private interface SeatBooking {
+
+        void reserve(long performanceId, long accountId, int seats);
+    }
+}
@@ -0,0 +1,88 @@
+package uk.gov.dwp.uc.pairtest.journal;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One memory-mapped segment file. Slots are claimed with an atomic counter and written with absolute puts, so
+ * writers never share a slot and need no lock.
+ */
+final class JournalSegment {
+
+    private final long index;
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private final AtomicInteger nextSlot = new AtomicInteger();
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private final AtomicBoolean dirty = new AtomicBoolean();
+
+    private JournalSegment(long index, Path path, FileChannel channel, MappedByteBuffer buffer, int capacity) {
+        this.index = index;
+        this.path = path;
+        this.channel = channel;
+        this.buffer = buffer;
+        this.capacity = capacity;
+    }
+
+    static JournalSegment create(Path directory, long index, int capacity) throws IOException {
+        var path = JournalFormat.segmentPath(directory, index);
+        var channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        var buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) capacity * JournalFormat.RECORD_LENGTH);
+        return new JournalSegment(index, path, channel, buffer, capacity);
+    }
+
+    long index() {
+        return index;
+    }
+
+    /**
+     * @return  Claimed slot, or -1 if the segment is full
+     */
+    int claimSlot() {
+        var slot = nextSlot.getAndIncrement();
+        return slot < capacity ? slot : -1;
+    }
+
+    void write(int slot, long purchaseId, long accountId, long performanceId, int amount, int seats,
+               PurchaseStage stage) {
+        JournalFormat.write(buffer, slot * JournalFormat.RECORD_LENGTH, purchaseId, accountId, performanceId, amount,
+                seats, stage);
+        dirty.set(true);
+    }
+
+    /**
+     * @return  The record in {@code slot}, or {@code null} if it is unwritten
+     */
+    JournalRecord read(int slot) {
+        return JournalFormat.read(buffer, slot * JournalFormat.RECORD_LENGTH);
+    }
+
+    AtomicInteger outstanding() {
+        return outstanding;
+    }
+
+    void force() {
+        if (dirty.getAndSet(false)) {
+            buffer.force();
+        }
+    }
+
+    void delete() throws IOException {
+        channel.close();
+        Files.deleteIfExists(path);
+    }
+
+    void close() throws IOException {
+        force();
+        channel.close();
+    }
+}
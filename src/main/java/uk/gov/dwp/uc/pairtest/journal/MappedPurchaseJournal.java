@@ -0,0 +1,296 @@
+package uk.gov.dwp.uc.pairtest.journal;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Append-only {@link PurchaseJournal} over memory-mapped segment files, with group commit.
+ * <p>
+ * Writers claim a slot and write their record straight into the mapping without locking. A writer that needs
+ * durability then waits for the next flush to <em>start</em> after its write. A single flusher thread forces the
+ * mapping and wakes every writer covered by it, so under load one {@code force} serves many purchases.
+ * <p>
+ * A purchase id is its segment index in the high word and its slot in the low word. A segment is deleted once every
+ * purchase started in it and in all older segments has completed or been abandoned. Anything still in flight at a
+ * crash stays on disk for {@link JournalRecovery}.
+ * <p>
+ * {@link #completed} and {@link #refundDue} wait for a flush like the earlier stages, so recovery never reserves a
+ * completed purchase's seats again. {@link #abandoned} does not, since a lost abandoned record only makes recovery
+ * flag an uncharged purchase for a refund check.
+ * <p>
+ * A purchase due a refund is passed to the journal's {@link RefundHandler} once its record is durable, then recorded
+ * as {@link PurchaseStage#REFUND_FLAGGED} and counted as finished. That last record does not wait for a flush, so a
+ * crash just after it can hand the purchase over once more at recovery. Without a handler the purchase keeps its
+ * segment on disk for {@link JournalRecovery} instead.
+ */
+public class MappedPurchaseJournal implements PurchaseJournal, AutoCloseable {
+
+    private static final long IDLE_FLUSH_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final JournalConfig config;
+    private final RefundHandler refundHandler;
+    private final ConcurrentSkipListMap<Long, JournalSegment> segments = new ConcurrentSkipListMap<>();
+    private final Object flushLock = new Object();
+    private final Thread flusher;
+    private volatile JournalSegment current;
+
+    // Guarded by flushLock
+    private long flushesStarted;
+    private long flushesCompleted;
+    private boolean flushRequested;
+    private boolean closed;
+    private IOException flushFailure;
+
+    private MappedPurchaseJournal(JournalConfig config, RefundHandler refundHandler, long firstSegmentIndex)
+            throws IOException {
+        this.config = config;
+        this.refundHandler = refundHandler;
+        this.current = JournalSegment.create(config.directory(), firstSegmentIndex, config.recordsPerSegment());
+        segments.put(current.index(), current);
+        this.flusher = new Thread(this::runFlusher, "purchase-journal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Opens a new journal in {@code config.directory()} that leaves purchases due a refund for
+     * {@link JournalRecovery}.
+     * @throws IllegalStateException    if the directory still holds segments, which must go through
+     *                                  {@link JournalRecovery#recover} first
+     */
+    public static MappedPurchaseJournal open(JournalConfig config) throws IOException {
+        return open(config, null);
+    }
+
+    /**
+     * Opens a new journal in {@code config.directory()}.
+     * @param refundHandler             Given each purchase due a refund on the thread that records it, so it should
+     *                                  hand the purchase off rather than refund inline
+     * @throws IllegalStateException    if the directory still holds segments, which must go through
+     *                                  {@link JournalRecovery#recover} first
+     */
+    public static MappedPurchaseJournal open(JournalConfig config, RefundHandler refundHandler) throws IOException {
+        Files.createDirectories(config.directory());
+        try (Stream<Path> files = Files.list(config.directory())) {
+            if (files.anyMatch(file -> JournalFormat.segmentIndex(file) >= 0)) {
+                throw new IllegalStateException("Journal in " + config.directory() + " has not been recovered");
+            }
+        }
+        // Indexes carry on from the last ones used here, so purchase ids never repeat across restarts. Seeding from
+        // the clock as well keeps them apart from ids issued before the directory was last wiped.
+        var firstSegmentIndex = JournalFormat.claimSegmentIndexes(config.directory(),
+                TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis()), 1);
+        return new MappedPurchaseJournal(config, refundHandler, firstSegmentIndex);
+    }
+
+    @Override
+    public long started(long accountId, long performanceId, int amount, int seats) {
+        while (true) {
+            var segment = current;
+            segment.outstanding().incrementAndGet();
+            var slot = segment.claimSlot();
+            if (slot >= 0) {
+                var purchaseId = segment.index() << 32 | slot;
+                segment.write(slot, purchaseId, accountId, performanceId, amount, seats, PurchaseStage.STARTED);
+                awaitDurable();
+                return purchaseId;
+            }
+            segment.outstanding().decrementAndGet();
+            roll(segment);
+        }
+    }
+
+    @Override
+    public void paid(long purchaseId) {
+        append(purchaseId, PurchaseStage.PAID);
+        awaitDurable();
+    }
+
+    @Override
+    public void completed(long purchaseId) {
+        append(purchaseId, PurchaseStage.COMPLETED);
+        awaitDurable();
+        finish(purchaseId);
+    }
+
+    @Override
+    public void abandoned(long purchaseId) {
+        append(purchaseId, PurchaseStage.ABANDONED);
+        finish(purchaseId);
+    }
+
+    @Override
+    public void refundDue(long purchaseId) {
+        append(purchaseId, PurchaseStage.REFUND_DUE);
+        awaitDurable();
+        if (refundHandler == null) {
+            return;
+        }
+        var origin = segments.get(purchaseId >>> 32);
+        var started = origin == null ? null : origin.read((int) purchaseId);
+        refundHandler.flagForRefund(started == null
+                ? new JournalRecord(purchaseId, 0, 0, 0, 0, PurchaseStage.REFUND_DUE)
+                : new JournalRecord(purchaseId, started.accountId(), started.performanceId(), started.amount(),
+                        started.seats(), PurchaseStage.REFUND_DUE));
+        append(purchaseId, PurchaseStage.REFUND_FLAGGED);
+        finish(purchaseId);
+    }
+
+    /**
+     * @return  Number of segment files currently on disk
+     */
+    public int segmentCount() {
+        return segments.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (flushLock) {
+            closed = true;
+            flushLock.notifyAll();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (var segment : segments.values()) {
+            segment.close();
+        }
+    }
+
+    /**
+     * Stage records after the first carry only the purchase id; recovery takes the account, performance and
+     * totals from the {@link PurchaseStage#STARTED} record.
+     */
+    private void append(long purchaseId, PurchaseStage stage) {
+        while (true) {
+            var segment = current;
+            var slot = segment.claimSlot();
+            if (slot >= 0) {
+                segment.write(slot, purchaseId, 0, 0, 0, 0, stage);
+                return;
+            }
+            roll(segment);
+        }
+    }
+
+    private void finish(long purchaseId) {
+        var origin = segments.get(purchaseId >>> 32);
+        if (origin != null && origin.outstanding().decrementAndGet() == 0) {
+            retireSegments();
+        }
+    }
+
+    private synchronized void roll(JournalSegment full) {
+        if (current != full) {
+            return;
+        }
+        try {
+            var nextIndex = JournalFormat.claimSegmentIndexes(config.directory(), full.index() + 1, 1);
+            var next = JournalSegment.create(config.directory(), nextIndex, config.recordsPerSegment());
+            segments.put(next.index(), next);
+            current = next;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        retireSegments();
+    }
+
+    /**
+     * Deletes segments oldest first, stopping at the first with a purchase still in flight. A later segment may hold
+     * stage records for purchases started earlier, so it is only safe once everything before it is finished too.
+     */
+    private synchronized void retireSegments() {
+        for (var segment : segments.values()) {
+            if (segment == current || segment.outstanding().get() > 0) {
+                return;
+            }
+            segments.remove(segment.index());
+            try {
+                segment.delete();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private void awaitDurable() {
+        synchronized (flushLock) {
+            var target = flushesStarted + 1;
+            flushRequested = true;
+            flushLock.notifyAll();
+            var interrupted = false;
+            while (flushesCompleted < target && flushFailure == null && !closed) {
+                try {
+                    flushLock.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            if (flushFailure != null) {
+                throw new UncheckedIOException("Journal flush failed", flushFailure);
+            }
+            if (flushesCompleted < target) {
+                throw new IllegalStateException("Journal is closed");
+            }
+        }
+    }
+
+    private void runFlusher() {
+        while (true) {
+            long number;
+            synchronized (flushLock) {
+                var deadline = System.nanoTime() + IDLE_FLUSH_NANOS;
+                while (!flushRequested && !closed) {
+                    var remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    try {
+                        TimeUnit.NANOSECONDS.timedWait(flushLock, remaining);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (closed && !flushRequested) {
+                    return;
+                }
+            }
+            if (!config.groupCommitWindow().isZero()) {
+                try {
+                    Thread.sleep(config.groupCommitWindow().toMillis(), config.groupCommitWindow().toNanosPart() % 1_000_000);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+            synchronized (flushLock) {
+                flushRequested = false;
+                number = ++flushesStarted;
+            }
+            IOException failure = null;
+            try {
+                for (var segment : segments.values()) {
+                    segment.force();
+                }
+            } catch (UncheckedIOException e) {
+                failure = e.getCause();
+            }
+            synchronized (flushLock) {
+                flushesCompleted = number;
+                if (failure != null) {
+                    flushFailure = failure;
+                }
+                flushLock.notifyAll();
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package uk.gov.dwp.uc.pairtest.journal;
+
+/**
+ * Records each stage of a purchase so that a purchase interrupted between payment and seat reservation can be found
+ * and finished after a restart.
+ */
+public interface PurchaseJournal {
+
+    /**
+     * Records a purchase about to take payment. Returns once the record is durable.
+     * @param performanceId Performance the seats are for, so recovery books them there
+     * @return              Id of the purchase, passed to the later stages
+     */
+    long started(long accountId, long performanceId, int amount, int seats);
+
+    /**
+     * Records that payment was taken. Returns once the record is durable, so recovery knows to reserve the seats.
+     */
+    void paid(long purchaseId);
+
+    /**
+     * Records that the seats were reserved and the purchase is finished. Returns once the record is durable, so
+     * recovery never reserves the seats a second time.
+     */
+    void completed(long purchaseId);
+
+    /**
+     * Records that payment was refused, so the purchase needs no recovery. Does not wait for durability: if the
+     * record is lost, recovery only flags an uncharged purchase for a refund check.
+     */
+    void abandoned(long purchaseId);
+
+    /**
+     * Records that the purchase may have been charged but will not be finished, e.g. because its seats could not be
+     * reserved after payment or the payment's outcome is unknown. Returns once the record is durable; the purchase
+     * is then passed on for a refund and needs no recovery.
+     */
+    void refundDue(long purchaseId);
+}
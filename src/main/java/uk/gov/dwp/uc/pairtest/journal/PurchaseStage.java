@@ -0,0 +1,36 @@
+package uk.gov.dwp.uc.pairtest.journal;
+
+/**
+ * Stage of a purchase as recorded in the journal. The code is what is written to disk; zero marks an unwritten slot.
+ */
+public enum PurchaseStage {
+    STARTED(1),
+    PAID(2),
+    COMPLETED(3),
+    ABANDONED(4),
+    REFUND_DUE(5),
+    REFUND_FLAGGED(6);
+
+    private final byte code;
+
+    PurchaseStage(int code) {
+        this.code = (byte) code;
+    }
+
+    byte code() {
+        return code;
+    }
+
+    static PurchaseStage fromCode(byte code) {
+        for (var stage : values()) {
+            if (stage.code == code) {
+                return stage;
+            }
+        }
+        return null;
+    }
+
+    boolean isFinal() {
+        return this == COMPLETED || this == ABANDONED || this == REFUND_FLAGGED;
+    }
+}
@@ -0,0 +1,10 @@
+package uk.gov.dwp.uc.pairtest.journal;
+
+/**
+ * @param replayed          Paid purchases whose seats were reserved during recovery
+ * @param flaggedForRefund  Purchases passed to the {@link RefundHandler}, including any already marked
+ *                          {@link PurchaseStage#REFUND_DUE}
+ * @param finished          Purchases that had already completed or been abandoned
+ */
+public record RecoveryReport(int replayed, int flaggedForRefund, int finished) {
+}
@@ -0,0 +1,12 @@
+package uk.gov.dwp.uc.pairtest.journal;
+
+/**
+ * Receives purchases whose payment may have been taken but which cannot safely be finished, either found at recovery
+ * or recorded as {@link PurchaseStage#REFUND_DUE} while running. A purchase handed over while running may be handed
+ * over again by recovery after a crash, so handlers must treat the purchase id as an idempotency key.
+ */
+@FunctionalInterface
+public interface RefundHandler {
+
+    void flagForRefund(JournalRecord record);
+}
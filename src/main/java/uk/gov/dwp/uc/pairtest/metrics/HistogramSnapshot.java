@@ -0,0 +1,48 @@
+package uk.gov.dwp.uc.pairtest.metrics;
+
+import java.util.Arrays;
+
+/**
+ * Point in time copy of a {@link LatencyHistogram}. Buckets are read one by one while writers carry on, so the copy
+ * is not an atomic cut: values recorded during the copy may or may not be counted.
+ */
+public final class HistogramSnapshot {
+
+    private final long[] counts;
+    private final long total;
+
+    HistogramSnapshot(long[] counts) {
+        this.counts = counts;
+        this.total = Arrays.stream(counts).sum();
+    }
+
+    public long getCount() {
+        return total;
+    }
+
+    /**
+     * @param percentile    Between 0 and 100
+     * @return              Upper bound, in nanoseconds, of the bucket holding that percentile, or 0 if empty
+     */
+    public long getPercentile(double percentile) {
+        if (total == 0) {
+            return 0;
+        }
+        var rank = (long) Math.ceil(total * percentile / 100);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= Math.max(1, rank)) {
+                return LatencyHistogram.upperBoundOf(i);
+            }
+        }
+        return LatencyHistogram.upperBoundOf(counts.length - 1);
+    }
+
+    /**
+     * @return  Count of values in each power-of-two bucket
+     */
+    public long[] getBucketCounts() {
+        return counts.clone();
+    }
+}
@@ -0,0 +1,57 @@
+package uk.gov.dwp.uc.pairtest.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram with one bucket per power of two nanoseconds. Bucket {@code i} counts values in
+ * {@code [2^(i-1), 2^i)}, so any recorded value is reported to within a factor of two.
+ * <p>
+ * Like a {@link java.util.concurrent.atomic.LongAdder}, the counts are striped: each thread records into one of
+ * several bucket arrays, picked by hashing the thread, and a snapshot sums them. Threads on different stripes never
+ * write the same cache line.
+ */
+public class LatencyHistogram {
+
+    static final int BUCKETS = 64;
+
+    private static final int STRIPES =
+            Math.min(64, Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() - 1)) << 1);
+
+    private final AtomicLongArray[] stripes = new AtomicLongArray[STRIPES];
+
+    public LatencyHistogram() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new AtomicLongArray(BUCKETS);
+        }
+    }
+
+    public void record(long nanos) {
+        stripe().incrementAndGet(bucketOf(nanos));
+    }
+
+    public HistogramSnapshot snapshot() {
+        var snapshot = new long[BUCKETS];
+        for (var stripe : stripes) {
+            for (int i = 0; i < BUCKETS; i++) {
+                snapshot[i] += stripe.get(i);
+            }
+        }
+        return new HistogramSnapshot(snapshot);
+    }
+
+    private AtomicLongArray stripe() {
+        var h = System.identityHashCode(Thread.currentThread()) * 0x9E3779B9;
+        return stripes[(h ^ (h >>> 16)) & (STRIPES - 1)];
+    }
+
+    static int bucketOf(long nanos) {
+        return nanos <= 0 ? 0 : Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(nanos));
+    }
+
+    /**
+     * @return  Largest value that falls into {@code bucket}
+     */
+    static long upperBoundOf(int bucket) {
+        return bucket == 0 ? 0 : bucket >= BUCKETS - 1 ? Long.MAX_VALUE : (1L << bucket) - 1;
+    }
+}
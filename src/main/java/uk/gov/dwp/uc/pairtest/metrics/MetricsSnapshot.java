@@ -0,0 +1,27 @@
+package uk.gov.dwp.uc.pairtest.metrics;
+
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+
+import java.util.Map;
+
+/**
+ * Scrapeable copy of {@link StripedPurchaseMetrics}.
+ *
+ * @param accepted          Purchases that completed
+ * @param rejected          Purchases rejected, by reason
+ * @param failed            Purchases where a downstream service threw, by stage
+ * @param latency           Time spent in each stage
+ */
+public record MetricsSnapshot(long accepted, Map<RejectionReason, Long> rejected, Map<Stage, Long> failed,
+                              Map<Stage, HistogramSnapshot> latency) {
+
+    public MetricsSnapshot {
+        rejected = Map.copyOf(rejected);
+        failed = Map.copyOf(failed);
+        latency = Map.copyOf(latency);
+    }
+
+    public long totalRejected() {
+        return rejected.values().stream().mapToLong(Long::longValue).sum();
+    }
+}
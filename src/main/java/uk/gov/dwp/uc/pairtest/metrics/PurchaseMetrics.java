@@ -0,0 +1,51 @@
+package uk.gov.dwp.uc.pairtest.metrics;
+
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+
+/**
+ * Receives counts and stage timings from the purchase path. Implementations must be thread safe and cheap, as every
+ * call is made inline on the purchasing thread.
+ */
+public interface PurchaseMetrics {
+
+    /**
+     * Does nothing. The purchase path checks {@link #isEnabled()} once and skips even reading the clock.
+     */
+    PurchaseMetrics NOOP = new PurchaseMetrics() {
+        @Override
+        public boolean isEnabled() {
+            return false;
+        }
+
+        @Override
+        public void accepted() {
+        }
+
+        @Override
+        public void rejected(RejectionReason reason) {
+        }
+
+        @Override
+        public void failed(Stage stage) {
+        }
+
+        @Override
+        public void recordLatency(Stage stage, long nanos) {
+        }
+    };
+
+    default boolean isEnabled() {
+        return true;
+    }
+
+    void accepted();
+
+    void rejected(RejectionReason reason);
+
+    /**
+     * A downstream service threw during {@code stage}.
+     */
+    void failed(Stage stage);
+
+    void recordLatency(Stage stage, long nanos);
+}
@@ -0,0 +1,10 @@
+package uk.gov.dwp.uc.pairtest.metrics;
+
+/**
+ * Timed stages of a purchase.
+ */
+public enum Stage {
+    VALIDATION,
+    PAYMENT,
+    RESERVATION
+}
@@ -0,0 +1,65 @@
+package uk.gov.dwp.uc.pairtest.metrics;
+
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+
+import java.util.EnumMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory {@link PurchaseMetrics} built on {@link LongAdder} counters, which stripe their cells across threads so
+ * concurrent purchases do not contend on a single counter, and a {@link LatencyHistogram} per {@link Stage}.
+ */
+public class StripedPurchaseMetrics implements PurchaseMetrics {
+
+    private static final RejectionReason[] REASONS = RejectionReason.values();
+    private static final Stage[] STAGES = Stage.values();
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder[] rejected = new LongAdder[REASONS.length];
+    private final LongAdder[] failed = new LongAdder[STAGES.length];
+    private final LatencyHistogram[] latencies = new LatencyHistogram[STAGES.length];
+
+    public StripedPurchaseMetrics() {
+        for (int i = 0; i < REASONS.length; i++) {
+            rejected[i] = new LongAdder();
+        }
+        for (int i = 0; i < STAGES.length; i++) {
+            failed[i] = new LongAdder();
+            latencies[i] = new LatencyHistogram();
+        }
+    }
+
+    @Override
+    public void accepted() {
+        accepted.increment();
+    }
+
+    @Override
+    public void rejected(RejectionReason reason) {
+        rejected[reason.ordinal()].increment();
+    }
+
+    @Override
+    public void failed(Stage stage) {
+        failed[stage.ordinal()].increment();
+    }
+
+    @Override
+    public void recordLatency(Stage stage, long nanos) {
+        latencies[stage.ordinal()].record(nanos);
+    }
+
+    public MetricsSnapshot snapshot() {
+        var rejectedByReason = new EnumMap<RejectionReason, Long>(RejectionReason.class);
+        for (var reason : REASONS) {
+            rejectedByReason.put(reason, rejected[reason.ordinal()].sum());
+        }
+        var failedByStage = new EnumMap<Stage, Long>(Stage.class);
+        var latencyByStage = new EnumMap<Stage, HistogramSnapshot>(Stage.class);
+        for (var stage : STAGES) {
+            failedByStage.put(stage, failed[stage.ordinal()].sum());
+            latencyByStage.put(stage, latencies[stage.ordinal()].snapshot());
+        }
+        return new MetricsSnapshot(accepted.sum(), rejectedByReason, failedByStage, latencyByStage);
+    }
+}
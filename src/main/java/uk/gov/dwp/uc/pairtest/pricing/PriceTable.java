@@ -0,0 +1,106 @@
+package uk.gov.dwp.uc.pairtest.pricing;
+
+import uk.gov.dwp.uc.pairtest.domain.TicketRequest;
+
+import java.util.Arrays;
+
+/**
+ * Compiled form of a set of {@link PricingRules}: one row of prices per performance with its own pricing, plus a
+ * default row for every other performance, and a group discount per basket size.
+ * <p>
+ * Every rule has already been resolved into these arrays, so a quote is a hash probe to find the row once per order,
+ * then an array load per ticket line.
+ */
+public final class PriceTable {
+
+    private static final int TYPE_COUNT = TicketRequest.Type.values().length;
+    private static final int DEFAULT_ROW = 0;
+    private static final int[] NO_GROUP_DISCOUNT = {0};
+
+    private final long[] performanceIds;
+    private final int[] performanceRows;
+    private final int mask;
+    private final int[] prices;
+    private final int[] groupPercentOff;
+
+    /**
+     * @param performanceIds    Performances with their own row, in row order starting at row 1. None may be 0.
+     * @param prices            Prices by {@code row * types + type ordinal}, row 0 being the default
+     * @param groupPercentOff   Percentage off by ticket count; counts past the end use the last entry
+     */
+    PriceTable(long[] performanceIds, int[] prices, int[] groupPercentOff) {
+        var size = Math.max(1, Integer.highestOneBit(Math.max(1, performanceIds.length * 2) - 1) << 1);
+        this.performanceIds = new long[size];
+        this.performanceRows = new int[size];
+        this.mask = size - 1;
+        this.prices = prices;
+        this.groupPercentOff = groupPercentOff.length == 0 ? NO_GROUP_DISCOUNT : groupPercentOff;
+        for (int row = 1; row <= performanceIds.length; row++) {
+            var slot = slot(performanceIds[row - 1]);
+            while (this.performanceIds[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            this.performanceIds[slot] = performanceIds[row - 1];
+            this.performanceRows[slot] = row;
+        }
+    }
+
+    /**
+     * @param pricesByType  Price for every performance, indexed by {@link TicketRequest.Type#ordinal()}
+     * @return              Table with only a default row and no group discounts
+     */
+    public static PriceTable flat(int[] pricesByType) {
+        return new PriceTable(new long[0], pricesByType.clone(), NO_GROUP_DISCOUNT);
+    }
+
+    /**
+     * @return  Row holding {@code performanceId}'s prices, or the default row
+     */
+    public int row(long performanceId) {
+        if (performanceId == 0) {
+            return DEFAULT_ROW;
+        }
+        var slot = slot(performanceId);
+        while (true) {
+            var id = performanceIds[slot];
+            if (id == performanceId) {
+                return performanceRows[slot];
+            }
+            if (id == 0) {
+                return DEFAULT_ROW;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    public int price(int row, TicketRequest.Type ticketType) {
+        return prices[row * TYPE_COUNT + ticketType.ordinal()];
+    }
+
+    /**
+     * @return  {@code amount} less the group discount for a basket of {@code ticketCount} tickets, rounded down
+     */
+    public int applyGroupPricing(int amount, int ticketCount) {
+        var percentOff = groupPercentOff[Math.min(ticketCount, groupPercentOff.length - 1)];
+        return percentOff == 0 ? amount : (int) ((long) amount * (100 - percentOff) / 100);
+    }
+
+    private int slot(long performanceId) {
+        var h = performanceId * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        PriceTable that = (PriceTable) o;
+        return Arrays.equals(performanceIds, that.performanceIds) && Arrays.equals(performanceRows, that.performanceRows)
+                && Arrays.equals(prices, that.prices) && Arrays.equals(groupPercentOff, that.groupPercentOff);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(prices) + Arrays.hashCode(performanceIds);
+    }
+}
@@ -0,0 +1,13 @@
+package uk.gov.dwp.uc.pairtest.pricing;
+
+import uk.gov.dwp.uc.pairtest.PricingService;
+
+/**
+ * A {@link PricingService} whose prices vary by performance or basket size, and so hands a
+ * {@link uk.gov.dwp.uc.pairtest.Tariff} its whole {@link PriceTable} rather than one price per ticket type. A decorator
+ * around such a service implements this too, passing the table through.
+ */
+public interface PriceTableSource extends PricingService {
+
+    PriceTable getPriceTable();
+}
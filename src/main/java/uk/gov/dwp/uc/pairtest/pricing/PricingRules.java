@@ -0,0 +1,171 @@
+package uk.gov.dwp.uc.pairtest.pricing;
+
+import uk.gov.dwp.uc.pairtest.domain.TicketRequest;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Prices as a hierarchy of rules, from most to least specific:
+ * <ol>
+ *     <li>a price for one performance</li>
+ *     <li>a price for performances starting in a time band, such as an evening peak</li>
+ *     <li>the base price</li>
+ * </ol>
+ * The most specific rule for a ticket type wins. A group discount then takes a percentage off the whole basket once
+ * it reaches a number of tickets. Rules are resolved once by {@link #compile()}, never while quoting.
+ */
+public final class PricingRules {
+
+    private static final TicketRequest.Type[] TYPES = TicketRequest.Type.values();
+
+    private final Map<TicketRequest.Type, Integer> basePrices;
+    private final List<BandRule> bandRules;
+    private final Map<Long, LocalTime> performanceStarts;
+    private final Map<Long, Map<TicketRequest.Type, Integer>> performancePrices;
+    private final TreeMap<Integer, Integer> groupDiscounts;
+
+    private PricingRules(Builder builder) {
+        this.basePrices = new EnumMap<>(builder.basePrices);
+        this.bandRules = List.copyOf(builder.bandRules);
+        this.performanceStarts = new LinkedHashMap<>(builder.performanceStarts);
+        this.performancePrices = new LinkedHashMap<>(builder.performancePrices);
+        this.groupDiscounts = new TreeMap<>(builder.groupDiscounts);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @throws IllegalStateException    if a ticket type has no base price
+     */
+    public PriceTable compile() {
+        for (var type : TYPES) {
+            if (!basePrices.containsKey(type)) {
+                throw new IllegalStateException("No base price for " + type);
+            }
+        }
+        var performances = new ArrayList<Long>(performanceStarts.keySet());
+        for (var performanceId : performancePrices.keySet()) {
+            if (!performanceStarts.containsKey(performanceId)) {
+                performances.add(performanceId);
+            }
+        }
+
+        var prices = new int[(performances.size() + 1) * TYPES.length];
+        for (var type : TYPES) {
+            prices[type.ordinal()] = basePrices.get(type);
+        }
+        var performanceIds = new long[performances.size()];
+        for (int i = 0; i < performances.size(); i++) {
+            var performanceId = performances.get(i);
+            performanceIds[i] = performanceId;
+            var start = performanceStarts.get(performanceId);
+            var overrides = performancePrices.getOrDefault(performanceId, Map.of());
+            for (var type : TYPES) {
+                prices[(i + 1) * TYPES.length + type.ordinal()] = resolve(type, start, overrides);
+            }
+        }
+
+        var groupPercentOff = new int[groupDiscounts.isEmpty() ? 1 : groupDiscounts.lastKey() + 1];
+        for (var discount : groupDiscounts.entrySet()) {
+            for (int tickets = discount.getKey(); tickets < groupPercentOff.length; tickets++) {
+                groupPercentOff[tickets] = discount.getValue();
+            }
+        }
+        return new PriceTable(performanceIds, prices, groupPercentOff);
+    }
+
+    private int resolve(TicketRequest.Type type, LocalTime start, Map<TicketRequest.Type, Integer> overrides) {
+        var price = overrides.get(type);
+        if (price != null) {
+            return price;
+        }
+        if (start != null) {
+            for (var rule : bandRules) {
+                if (rule.type() == type && rule.band().contains(start)) {
+                    return rule.price();
+                }
+            }
+        }
+        return basePrices.get(type);
+    }
+
+    private record BandRule(TimeBand band, TicketRequest.Type type, int price) {
+    }
+
+    public static final class Builder {
+        private final Map<TicketRequest.Type, Integer> basePrices = new EnumMap<>(TicketRequest.Type.class);
+        private final List<BandRule> bandRules = new ArrayList<>();
+        private final Map<Long, LocalTime> performanceStarts = new LinkedHashMap<>();
+        private final Map<Long, Map<TicketRequest.Type, Integer>> performancePrices = new LinkedHashMap<>();
+        private final TreeMap<Integer, Integer> groupDiscounts = new TreeMap<>();
+
+        private Builder() {
+        }
+
+        public Builder basePrice(TicketRequest.Type ticketType, int price) {
+            basePrices.put(ticketType, requireNonNegative(price));
+            return this;
+        }
+
+        /**
+         * Prices {@code ticketType} for performances starting within {@code band}. Where bands overlap, the one added
+         * first wins.
+         */
+        public Builder bandPrice(TimeBand band, TicketRequest.Type ticketType, int price) {
+            bandRules.add(new BandRule(band, ticketType, requireNonNegative(price)));
+            return this;
+        }
+
+        /**
+         * Tells the rules when a performance starts, so time band prices can apply to it.
+         */
+        public Builder performance(long performanceId, LocalTime start) {
+            performanceStarts.put(requireId(performanceId), start);
+            return this;
+        }
+
+        public Builder performancePrice(long performanceId, TicketRequest.Type ticketType, int price) {
+            performancePrices.computeIfAbsent(requireId(performanceId), id -> new EnumMap<>(TicketRequest.Type.class))
+                    .put(ticketType, requireNonNegative(price));
+            return this;
+        }
+
+        /**
+         * Takes {@code percentOff} off baskets of at least {@code minimumTickets}. Larger baskets get the discount of
+         * the largest threshold they reach.
+         */
+        public Builder groupDiscount(int minimumTickets, int percentOff) {
+            if (minimumTickets <= 0 || percentOff < 0 || percentOff > 100) {
+                throw new IllegalArgumentException("minimumTickets must be positive and percentOff within [0, 100]");
+            }
+            groupDiscounts.put(minimumTickets, percentOff);
+            return this;
+        }
+
+        public PricingRules build() {
+            return new PricingRules(this);
+        }
+
+        private static int requireNonNegative(int price) {
+            if (price < 0) {
+                throw new IllegalArgumentException("Prices cannot be negative");
+            }
+            return price;
+        }
+
+        private static long requireId(long performanceId) {
+            if (performanceId == 0) {
+                throw new IllegalArgumentException("Performance id 0 means no performance");
+            }
+            return performanceId;
+        }
+    }
+}
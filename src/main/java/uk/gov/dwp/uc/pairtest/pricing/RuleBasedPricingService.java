@@ -0,0 +1,37 @@
+package uk.gov.dwp.uc.pairtest.pricing;
+
+import uk.gov.dwp.uc.pairtest.PricingService;
+import uk.gov.dwp.uc.pairtest.domain.TicketRequest;
+
+/**
+ * {@link PricingService} backed by {@link PricingRules}, compiled to a {@link PriceTable} as soon as they are loaded.
+ * <p>
+ * {@link #getPrice} answers with the base prices. A {@link uk.gov.dwp.uc.pairtest.Tariff} compiled from this service
+ * takes the whole table instead, so purchases are priced per performance and basket. After {@link #load}, call
+ * {@link uk.gov.dwp.uc.pairtest.TariffRegistry#reload()} to put the new rules in force.
+ */
+public class RuleBasedPricingService implements PriceTableSource {
+
+    private volatile PriceTable priceTable;
+
+    public RuleBasedPricingService(PricingRules rules) {
+        load(rules);
+    }
+
+    /**
+     * @throws IllegalStateException    if the rules do not compile, in which case the previous rules stay loaded
+     */
+    public void load(PricingRules rules) {
+        priceTable = rules.compile();
+    }
+
+    @Override
+    public PriceTable getPriceTable() {
+        return priceTable;
+    }
+
+    @Override
+    public int getPrice(TicketRequest.Type ticketType) {
+        return priceTable.price(0, ticketType);
+    }
+}
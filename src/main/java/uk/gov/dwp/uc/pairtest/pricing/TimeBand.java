@@ -0,0 +1,23 @@
+package uk.gov.dwp.uc.pairtest.pricing;
+
+import java.time.LocalTime;
+
+/**
+ * Part of the day, from {@code from} inclusive to {@code until} exclusive. A band whose end is before its start runs
+ * past midnight.
+ */
+public record TimeBand(String name, LocalTime from, LocalTime until) {
+
+    public TimeBand {
+        if (from.equals(until)) {
+            throw new IllegalArgumentException("Time band " + name + " is empty");
+        }
+    }
+
+    public boolean contains(LocalTime time) {
+        if (from.isBefore(until)) {
+            return !time.isBefore(from) && time.isBefore(until);
+        }
+        return !time.isBefore(from) || time.isBefore(until);
+    }
+}
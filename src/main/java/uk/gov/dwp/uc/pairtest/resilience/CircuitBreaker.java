@@ -0,0 +1,164 @@
+package uk.gov.dwp.uc.pairtest.resilience;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker over a sliding window of call outcomes, with no locks on any path.
+ * <p>
+ * The window is a ring of time buckets, each packed into one word: the bucket's epoch in the top 16 bits, then call
+ * and failure counts of 24 bits each. Recording an outcome is a single compare-and-set on the current bucket, and a
+ * bucket left over from an earlier lap of the ring is reset by the same compare-and-set. The window is only summed
+ * when a failure is recorded, so successful calls never read more than one word.
+ * <p>
+ * Once open, every call is refused until {@link CircuitBreakerConfig#openDuration()} has passed. Then a fixed number
+ * of trial calls are let through: a failure among them reopens the circuit and all of them succeeding closes it.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private static final int COUNT_BITS = 24;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+    private static final int EPOCH_SHIFT = 2 * COUNT_BITS;
+    private static final long EPOCH_MASK = 0xFFFF;
+
+    private final AtomicLongArray buckets;
+    private final long bucketNanos;
+    private final int minimumCalls;
+    private final int failureRatePercent;
+    private final long slowCallNanos;
+    private final long openNanos;
+    private final int halfOpenCalls;
+    private final LongSupplier nanoClock;
+    private final AtomicReference<Phase> phase;
+
+    public CircuitBreaker(CircuitBreakerConfig config) {
+        this(config, System::nanoTime);
+    }
+
+    public CircuitBreaker(CircuitBreakerConfig config, LongSupplier nanoClock) {
+        this.buckets = new AtomicLongArray(config.buckets());
+        this.bucketNanos = config.window().toNanos() / config.buckets();
+        this.minimumCalls = config.minimumCalls();
+        this.failureRatePercent = config.failureRatePercent();
+        this.slowCallNanos = config.slowCallThreshold().isZero() ? Long.MAX_VALUE : config.slowCallThreshold().toNanos();
+        this.openNanos = config.openDuration().toNanos();
+        this.halfOpenCalls = config.halfOpenCalls();
+        this.nanoClock = nanoClock;
+        this.phase = new AtomicReference<>(new Phase(State.CLOSED, nanoClock.getAsLong()));
+    }
+
+    public State state() {
+        return phase.get().state;
+    }
+
+    /**
+     * @return  {@code true} if a call may go ahead, in which case its outcome must be passed to {@link #onSuccess}
+     *          or {@link #onFailure}
+     */
+    public boolean tryAcquirePermission() {
+        while (true) {
+            var current = phase.get();
+            switch (current.state) {
+                case CLOSED:
+                    return true;
+                case OPEN:
+                    if (nanoClock.getAsLong() - current.since < openNanos) {
+                        return false;
+                    }
+                    phase.compareAndSet(current, new Phase(State.HALF_OPEN, nanoClock.getAsLong()));
+                    break;
+                default:
+                    return current.trialsIssued.getAndIncrement() < halfOpenCalls;
+            }
+        }
+    }
+
+    public void onSuccess(long durationNanos) {
+        if (durationNanos >= slowCallNanos) {
+            onFailure();
+            return;
+        }
+        var current = phase.get();
+        if (current.state == State.CLOSED) {
+            record(false);
+        } else if (current.state == State.HALF_OPEN && current.trialsSucceeded.incrementAndGet() == halfOpenCalls) {
+            close(current);
+        }
+    }
+
+    public void onFailure() {
+        var current = phase.get();
+        if (current.state == State.HALF_OPEN) {
+            phase.compareAndSet(current, new Phase(State.OPEN, nanoClock.getAsLong()));
+        } else if (current.state == State.CLOSED && record(true)) {
+            phase.compareAndSet(current, new Phase(State.OPEN, nanoClock.getAsLong()));
+        }
+    }
+
+    /**
+     * @return  {@code true} if the failure rate over the window now calls for the circuit to open
+     */
+    private boolean record(boolean failed) {
+        var epoch = nanoClock.getAsLong() / bucketNanos;
+        var index = (int) Math.floorMod(epoch, (long) buckets.length());
+        var tag = epoch & EPOCH_MASK;
+        while (true) {
+            var word = buckets.get(index);
+            var calls = (word >>> EPOCH_SHIFT) == tag ? (word >>> COUNT_BITS) & COUNT_MASK : 0;
+            var failures = (word >>> EPOCH_SHIFT) == tag ? word & COUNT_MASK : 0;
+            if (calls == COUNT_MASK) {
+                // Saturated: the bucket already has more calls than any failure rate needs.
+                break;
+            }
+            var updated = tag << EPOCH_SHIFT | (calls + 1) << COUNT_BITS | (failed ? failures + 1 : failures);
+            if (buckets.compareAndSet(index, word, updated)) {
+                break;
+            }
+        }
+        return failed && isFailureRateExceeded(tag);
+    }
+
+    private boolean isFailureRateExceeded(long currentTag) {
+        long calls = 0;
+        long failures = 0;
+        for (int i = 0; i < buckets.length(); i++) {
+            var word = buckets.get(i);
+            if (((currentTag - (word >>> EPOCH_SHIFT)) & EPOCH_MASK) < buckets.length()) {
+                calls += (word >>> COUNT_BITS) & COUNT_MASK;
+                failures += word & COUNT_MASK;
+            }
+        }
+        return calls >= minimumCalls && failures * 100 >= calls * failureRatePercent;
+    }
+
+    private void close(Phase halfOpen) {
+        if (phase.compareAndSet(halfOpen, new Phase(State.CLOSED, nanoClock.getAsLong()))) {
+            for (int i = 0; i < buckets.length(); i++) {
+                buckets.set(i, 0);
+            }
+        }
+    }
+
+    /**
+     * Replaced as a whole on every transition, so trial counters from one half-open period never leak into the next.
+     */
+    private static final class Phase {
+        private final State state;
+        private final long since;
+        private final AtomicInteger trialsIssued = new AtomicInteger();
+        private final AtomicInteger trialsSucceeded = new AtomicInteger();
+
+        private Phase(State state, long since) {
+            this.state = state;
+            this.since = since;
+        }
+    }
+}
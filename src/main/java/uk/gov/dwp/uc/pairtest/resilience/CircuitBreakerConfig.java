@@ -0,0 +1,32 @@
+package uk.gov.dwp.uc.pairtest.resilience;
+
+import java.time.Duration;
+
+/**
+ * @param window                Span of recent calls the failure rate is measured over
+ * @param buckets               Slices the window is divided into. The oldest slice drops out as a whole, so more
+ *                              buckets make the window slide more smoothly.
+ * @param minimumCalls          Calls needed in the window before the failure rate can open the circuit
+ * @param failureRatePercent    Share of failed calls in the window that opens the circuit
+ * @param slowCallThreshold     Calls taking at least this long count as failures. Zero counts only errors.
+ * @param openDuration          How long the circuit rejects every call before letting trial calls through
+ * @param halfOpenCalls         Trial calls that must all succeed for the circuit to close again
+ */
+public record CircuitBreakerConfig(Duration window, int buckets, int minimumCalls, int failureRatePercent,
+                                   Duration slowCallThreshold, Duration openDuration, int halfOpenCalls) {
+
+    public static final CircuitBreakerConfig DEFAULT = new CircuitBreakerConfig(Duration.ofSeconds(10), 10, 20, 50,
+            Duration.ofSeconds(2), Duration.ofSeconds(5), 3);
+
+    public CircuitBreakerConfig {
+        if (buckets <= 0 || minimumCalls <= 0 || halfOpenCalls <= 0) {
+            throw new IllegalArgumentException("buckets, minimumCalls and halfOpenCalls must be positive");
+        }
+        if (failureRatePercent <= 0 || failureRatePercent > 100) {
+            throw new IllegalArgumentException("failureRatePercent must be between 1 and 100");
+        }
+        if (window.toNanos() < buckets || openDuration.isNegative() || slowCallThreshold.isNegative()) {
+            throw new IllegalArgumentException("window must cover every bucket and durations cannot be negative");
+        }
+    }
+}
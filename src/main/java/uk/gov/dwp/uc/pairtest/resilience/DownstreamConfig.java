@@ -0,0 +1,27 @@
+package uk.gov.dwp.uc.pairtest.resilience;
+
+import java.time.Duration;
+
+/**
+ * @param circuitBreaker        When to stop calling the service altogether
+ * @param maxConcurrentCalls    Most calls to the service in flight at once. Callers beyond it are rejected rather
+ *                              than queued.
+ * @param callTimeout           Longest a caller waits for the service. Zero calls it on the caller's thread with no
+ *                              timeout, so a hung service holds the caller for as long as it hangs.
+ * @param cachedRejections      {@code true} to reject with shared stackless exceptions
+ */
+public record DownstreamConfig(CircuitBreakerConfig circuitBreaker, int maxConcurrentCalls, Duration callTimeout,
+                               boolean cachedRejections) {
+
+    public static final DownstreamConfig DEFAULT =
+            new DownstreamConfig(CircuitBreakerConfig.DEFAULT, 256, Duration.ofSeconds(5), true);
+
+    public DownstreamConfig {
+        if (maxConcurrentCalls <= 0) {
+            throw new IllegalArgumentException("maxConcurrentCalls must be positive");
+        }
+        if (callTimeout.isNegative()) {
+            throw new IllegalArgumentException("callTimeout cannot be negative");
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package uk.gov.dwp.uc.pairtest.resilience;
+
+import uk.gov.dwp.uc.pairtest.async.AsyncTicketServiceImpl;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.exception.OutcomeUnknownException;
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+import uk.gov.dwp.uc.pairtest.exception.Rejections;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.LongSupplier;
+
+/**
+ * Bulkhead, timeout and {@link CircuitBreaker} around calls to one downstream service.
+ * <p>
+ * A call is refused with {@link RejectionReason#DOWNSTREAM_UNAVAILABLE} straight away if the service already has
+ * {@link DownstreamConfig#maxConcurrentCalls()} calls in flight or its circuit is open, so callers never pile up
+ * behind a struggling service. An {@link InvalidPurchaseException} from the service is a business answer, not a
+ * fault, and counts as a successful call.
+ * <p>
+ * With a timeout the call runs on the executor and the caller stops waiting when it expires. The call keeps its
+ * bulkhead slot until it really returns, so a hung service cannot have more calls outstanding than the bulkhead
+ * allows. Since it may still succeed, the caller gets an {@link OutcomeUnknownException} rather than a rejection.
+ */
+public class DownstreamGuard {
+
+    private final CircuitBreaker circuitBreaker;
+    private final Semaphore bulkhead;
+    private final int maxConcurrentCalls;
+    private final long timeoutNanos;
+    private final Executor executor;
+    private final boolean cachedRejections;
+    private final LongSupplier nanoClock;
+
+    public DownstreamGuard(DownstreamConfig config) {
+        this(config, config.callTimeout().isZero() ? null : AsyncTicketServiceImpl.defaultExecutor(), System::nanoTime);
+    }
+
+    public DownstreamGuard(DownstreamConfig config, Executor executor, LongSupplier nanoClock) {
+        this.circuitBreaker = new CircuitBreaker(config.circuitBreaker(), nanoClock);
+        this.bulkhead = new Semaphore(config.maxConcurrentCalls());
+        this.maxConcurrentCalls = config.maxConcurrentCalls();
+        this.timeoutNanos = config.callTimeout().toNanos();
+        this.executor = executor;
+        this.cachedRejections = config.cachedRejections();
+        this.nanoClock = nanoClock;
+    }
+
+    public CircuitBreaker circuitBreaker() {
+        return circuitBreaker;
+    }
+
+    /**
+     * @return  Calls currently in flight, including any the caller has stopped waiting for
+     */
+    public int callsInFlight() {
+        return maxConcurrentCalls - bulkhead.availablePermits();
+    }
+
+    public void run(Runnable call) {
+        if (!bulkhead.tryAcquire()) {
+            throw reject();
+        }
+        if (!circuitBreaker.tryAcquirePermission()) {
+            bulkhead.release();
+            throw reject();
+        }
+        if (timeoutNanos == 0) {
+            runInline(call);
+        } else {
+            runWithTimeout(call);
+        }
+    }
+
+    private void runInline(Runnable call) {
+        var started = nanoClock.getAsLong();
+        try {
+            call.run();
+        } catch (InvalidPurchaseException e) {
+            circuitBreaker.onSuccess(nanoClock.getAsLong() - started);
+            throw e;
+        } catch (RuntimeException | Error e) {
+            circuitBreaker.onFailure();
+            throw e;
+        } finally {
+            bulkhead.release();
+        }
+        circuitBreaker.onSuccess(nanoClock.getAsLong() - started);
+    }
+
+    private void runWithTimeout(Runnable call) {
+        var started = nanoClock.getAsLong();
+        CompletableFuture<Void> future;
+        try {
+            future = CompletableFuture.runAsync(call, executor);
+        } catch (RuntimeException e) {
+            bulkhead.release();
+            circuitBreaker.onFailure();
+            throw e;
+        }
+        future.whenComplete((ignored, failure) -> bulkhead.release());
+        try {
+            future.get(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            circuitBreaker.onFailure();
+            throw new OutcomeUnknownException("Downstream call timed out and may still complete", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            circuitBreaker.onFailure();
+            throw new OutcomeUnknownException("Interrupted waiting for a downstream call that may still complete", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof InvalidPurchaseException cause) {
+                circuitBreaker.onSuccess(nanoClock.getAsLong() - started);
+                throw cause;
+            }
+            circuitBreaker.onFailure();
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+        circuitBreaker.onSuccess(nanoClock.getAsLong() - started);
+    }
+
+    private InvalidPurchaseException reject() {
+        return cachedRejections ? Rejections.cached(RejectionReason.DOWNSTREAM_UNAVAILABLE)
+                : Rejections.create(RejectionReason.DOWNSTREAM_UNAVAILABLE);
+    }
+}
@@ -0,0 +1,30 @@
+package uk.gov.dwp.uc.pairtest.resilience;
+
+import thirdparty.seatbooking.SeatReservationService;
+
+/**
+ * {@link SeatReservationService} that calls the booking system through a {@link DownstreamGuard}.
+ */
+public class ResilientSeatReservationService implements SeatReservationService {
+
+    private final SeatReservationService delegate;
+    private final DownstreamGuard guard;
+
+    public ResilientSeatReservationService(SeatReservationService delegate, DownstreamConfig config) {
+        this(delegate, new DownstreamGuard(config));
+    }
+
+    public ResilientSeatReservationService(SeatReservationService delegate, DownstreamGuard guard) {
+        this.delegate = delegate;
+        this.guard = guard;
+    }
+
+    @Override
+    public void reserveSeat(long accountId, int totalSeatsToAllocate) {
+        guard.run(() -> delegate.reserveSeat(accountId, totalSeatsToAllocate));
+    }
+
+    public DownstreamGuard guard() {
+        return guard;
+    }
+}
@@ -0,0 +1,30 @@
+package uk.gov.dwp.uc.pairtest.resilience;
+
+import thirdparty.paymentgateway.TicketPaymentService;
+
+/**
+ * {@link TicketPaymentService} that calls the payment gateway through a {@link DownstreamGuard}.
+ */
+public class ResilientTicketPaymentService implements TicketPaymentService {
+
+    private final TicketPaymentService delegate;
+    private final DownstreamGuard guard;
+
+    public ResilientTicketPaymentService(TicketPaymentService delegate, DownstreamConfig config) {
+        this(delegate, new DownstreamGuard(config));
+    }
+
+    public ResilientTicketPaymentService(TicketPaymentService delegate, DownstreamGuard guard) {
+        this.delegate = delegate;
+        this.guard = guard;
+    }
+
+    @Override
+    public void makePayment(long accountId, int totalAmountToPay) {
+        guard.run(() -> delegate.makePayment(accountId, totalAmountToPay));
+    }
+
+    public DownstreamGuard guard() {
+        return guard;
+    }
+}
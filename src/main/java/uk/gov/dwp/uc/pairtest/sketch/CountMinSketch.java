@@ -0,0 +1,81 @@
+package uk.gov.dwp.uc.pairtest.sketch;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Count-Min sketch of counts per key in fixed memory. An estimate is never below the true count, and overshoots only
+ * by what colliding keys add.
+ * <p>
+ * Each row hashes the key to one counter, and an update adds to one counter per row with an atomic add, so writers
+ * never wait on each other. The estimate is the smallest of the key's counters.
+ * <p>
+ * Counters are ints, half the size of longs, so the same memory buys twice the width and so half the error. A counter
+ * holds all the counts hashed to it, which for tickets or rejections at one performance stays far below
+ * {@code Integer.MAX_VALUE}.
+ */
+public final class CountMinSketch {
+
+    private final int depth;
+    private final int mask;
+    private final AtomicIntegerArray counters;
+
+    public CountMinSketch(int depth, int width) {
+        var size = Math.max(1, Integer.highestOneBit(width - 1) << 1);
+        this.depth = depth;
+        this.mask = size - 1;
+        this.counters = new AtomicIntegerArray(depth * size);
+    }
+
+    /**
+     * @return  Estimated count of {@code key} after adding {@code count}
+     */
+    public long add(long key, int count) {
+        var estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.addAndGet(index(key, row), count));
+        }
+        return estimate;
+    }
+
+    public long estimate(long key) {
+        var estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.get(index(key, row)));
+        }
+        return estimate;
+    }
+
+    /**
+     * Adds every count in {@code other}, e.g. from another node, as if its updates had been made here.
+     *
+     * @throws IllegalArgumentException if the sketches differ in size
+     */
+    public void merge(CountMinSketch other) {
+        if (other.depth != depth || other.mask != mask) {
+            throw new IllegalArgumentException("Sketches differ in size");
+        }
+        for (int i = 0; i < counters.length(); i++) {
+            var count = other.counters.get(i);
+            if (count != 0) {
+                counters.addAndGet(i, count);
+            }
+        }
+    }
+
+    /**
+     * @return  Independent copy. Updates made during the copy may be only partly included.
+     */
+    public CountMinSketch copy() {
+        var copy = new CountMinSketch(depth, mask + 1);
+        copy.merge(this);
+        return copy;
+    }
+
+    /**
+     * Each row hashes the key afresh. Deriving every row from one hash leaves narrow rows so few independent bits that
+     * some pairs of keys collide in all of them.
+     */
+    private int index(long key, int row) {
+        return row * (mask + 1) + ((int) Hashing.mix(key + (row + 1) * 0x9E3779B97F4A7C15L) & mask);
+    }
+}
@@ -0,0 +1,17 @@
+package uk.gov.dwp.uc.pairtest.sketch;
+
+final class Hashing {
+
+    private Hashing() {
+        throw new RuntimeException("Cannot instantiate this class");
+    }
+
+    /**
+     * Stafford variant 13 of the SplitMix64 finaliser. Fixed, so sketches built on different nodes can be merged.
+     */
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
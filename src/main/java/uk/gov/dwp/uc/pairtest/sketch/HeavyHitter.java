@@ -0,0 +1,7 @@
+package uk.gov.dwp.uc.pairtest.sketch;
+
+/**
+ * @param count Estimated count, which may overshoot but never undershoot
+ */
+public record HeavyHitter(long accountId, long count) {
+}
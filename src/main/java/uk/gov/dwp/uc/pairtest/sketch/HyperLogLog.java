@@ -0,0 +1,100 @@
+package uk.gov.dwp.uc.pairtest.sketch;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * HyperLogLog count of distinct keys in {@code 2^precision} one-byte registers.
+ * <p>
+ * Registers are packed eight to a long and raised with a compare-and-set, so concurrent updates never lock and a
+ * key already seen writes nothing.
+ */
+public final class HyperLogLog {
+
+    private static final int REGISTERS_PER_WORD = 8;
+
+    private final int precision;
+    private final int registerCount;
+    private final AtomicLongArray words;
+
+    public HyperLogLog(int precision) {
+        this.precision = precision;
+        this.registerCount = 1 << precision;
+        this.words = new AtomicLongArray(Math.max(1, registerCount / REGISTERS_PER_WORD));
+    }
+
+    public void add(long key) {
+        var h = Hashing.mix(key);
+        var register = (int) (h >>> (Long.SIZE - precision));
+        // The remaining bits, with a stop bit so the run of zeros is at most 64 - precision long.
+        var rank = Long.numberOfLeadingZeros((h << precision) | (1L << (precision - 1))) + 1;
+        raise(register, rank);
+    }
+
+    public long estimate() {
+        var sum = 0.0;
+        var zeros = 0;
+        for (int register = 0; register < registerCount; register++) {
+            var rank = rank(register);
+            sum += 1.0 / (1L << rank);
+            if (rank == 0) {
+                zeros++;
+            }
+        }
+        var m = (double) registerCount;
+        var estimate = alpha(registerCount) * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0) {
+            // Linear counting is more accurate while many registers are still empty.
+            estimate = m * Math.log(m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * Takes the larger of each pair of registers, as if {@code other}'s keys had been added here.
+     *
+     * @throws IllegalArgumentException if the precisions differ
+     */
+    public void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("Sketches differ in precision");
+        }
+        for (int register = 0; register < registerCount; register++) {
+            raise(register, other.rank(register));
+        }
+    }
+
+    public HyperLogLog copy() {
+        var copy = new HyperLogLog(precision);
+        copy.merge(this);
+        return copy;
+    }
+
+    private int rank(int register) {
+        var shift = (register % REGISTERS_PER_WORD) * Byte.SIZE;
+        return (int) (words.get(register / REGISTERS_PER_WORD) >>> shift) & 0xFF;
+    }
+
+    private void raise(int register, int rank) {
+        var word = register / REGISTERS_PER_WORD;
+        var shift = (register % REGISTERS_PER_WORD) * Byte.SIZE;
+        while (true) {
+            var current = words.get(word);
+            if (((current >>> shift) & 0xFF) >= rank) {
+                return;
+            }
+            var updated = (current & ~(0xFFL << shift)) | ((long) rank << shift);
+            if (words.compareAndSet(word, current, updated)) {
+                return;
+            }
+        }
+    }
+
+    private static double alpha(int registers) {
+        return switch (registers) {
+            case 16 -> 0.673;
+            case 32 -> 0.697;
+            case 64 -> 0.709;
+            default -> 0.7213 / (1 + 1.079 / registers);
+        };
+    }
+}
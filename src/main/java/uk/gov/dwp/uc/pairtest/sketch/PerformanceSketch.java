@@ -0,0 +1,115 @@
+package uk.gov.dwp.uc.pairtest.sketch;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Fixed-size summary of who is buying for one performance: tickets bought and purchases rejected per account, the
+ * accounts with most of each, and how many distinct accounts have bought.
+ * <p>
+ * Updates are lock-free. Sketches of the same size from different nodes or periods can be {@link #merge merged} into
+ * the summary of everything they saw between them.
+ */
+public final class PerformanceSketch {
+
+    private final SketchConfig config;
+    private final CountMinSketch tickets;
+    private final CountMinSketch rejections;
+    private final TopK topBuyers;
+    private final TopK topRejected;
+    private final HyperLogLog buyers;
+
+    public PerformanceSketch(SketchConfig config) {
+        this.config = config;
+        this.tickets = new CountMinSketch(config.depth(), config.width());
+        this.rejections = new CountMinSketch(config.depth(), config.width());
+        this.topBuyers = new TopK(config.topK());
+        this.topRejected = new TopK(config.topK());
+        this.buyers = new HyperLogLog(config.precision());
+    }
+
+    public void purchased(long accountId, int ticketCount) {
+        topBuyers.offer(accountId, tickets.add(accountId, ticketCount));
+        buyers.add(accountId);
+    }
+
+    public void rejected(long accountId) {
+        topRejected.offer(accountId, rejections.add(accountId, 1));
+    }
+
+    /**
+     * @return  Accounts with the most tickets bought, most first, with estimated ticket counts
+     */
+    public List<HeavyHitter> topBuyers() {
+        return ranked(topBuyers, tickets);
+    }
+
+    /**
+     * @return  Accounts with the most rejected purchases, most first, with estimated rejection counts
+     */
+    public List<HeavyHitter> topRejected() {
+        return ranked(topRejected, rejections);
+    }
+
+    public long estimatedTickets(long accountId) {
+        return tickets.estimate(accountId);
+    }
+
+    public long estimatedRejections(long accountId) {
+        return rejections.estimate(accountId);
+    }
+
+    /**
+     * @return  Estimated number of distinct accounts that have bought tickets
+     */
+    public long distinctBuyers() {
+        return buyers.estimate();
+    }
+
+    /**
+     * Adds everything {@code other} has seen. Accounts in either heavy-hitter list are re-ranked on their combined
+     * estimates, so an account just below the cut on every node can still be missed.
+     *
+     * @throws IllegalArgumentException if the sketches were made with different configs
+     */
+    public void merge(PerformanceSketch other) {
+        if (!other.config.equals(config)) {
+            throw new IllegalArgumentException("Sketches differ in config");
+        }
+        tickets.merge(other.tickets);
+        rejections.merge(other.rejections);
+        buyers.merge(other.buyers);
+        rerank(topBuyers, other.topBuyers, tickets);
+        rerank(topRejected, other.topRejected, rejections);
+    }
+
+    /**
+     * @return  Independent copy, e.g. to merge with other nodes' sketches without disturbing this one
+     */
+    public PerformanceSketch copy() {
+        var copy = new PerformanceSketch(config);
+        copy.merge(this);
+        return copy;
+    }
+
+    /**
+     * A list entry holds the estimate from when the account last moved up, which collisions may since have raised,
+     * so candidates are ranked on their current estimates.
+     */
+    private static List<HeavyHitter> ranked(TopK candidates, CountMinSketch counts) {
+        return candidates.top().stream()
+                .map(hitter -> new HeavyHitter(hitter.accountId(), counts.estimate(hitter.accountId())))
+                .sorted(Comparator.comparingLong(HeavyHitter::count).reversed()
+                        .thenComparingLong(HeavyHitter::accountId))
+                .toList();
+    }
+
+    private static void rerank(TopK target, TopK other, CountMinSketch counts) {
+        for (var hitter : target.top()) {
+            target.offer(hitter.accountId(), counts.estimate(hitter.accountId()));
+        }
+        for (var hitter : other.top()) {
+            target.offer(hitter.accountId(), counts.estimate(hitter.accountId()));
+        }
+    }
+}
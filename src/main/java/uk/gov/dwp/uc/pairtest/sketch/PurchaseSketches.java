@@ -0,0 +1,134 @@
+package uk.gov.dwp.uc.pairtest.sketch;
+
+import uk.gov.dwp.uc.pairtest.domain.TicketOrder;
+import uk.gov.dwp.uc.pairtest.events.PurchaseListener;
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Heavy-hitter and distinct-buyer tracking per performance, fed by every purchase, for spotting accounts that buy or
+ * retry far more than anyone else.
+ * <p>
+ * Each performance gets a {@link PerformanceSketch} of fixed size, about 7 KB with {@link SketchConfig#DEFAULT},
+ * however many accounts buy. Accepted purchases count their tickets against the account; rejected ones count once.
+ * Updates are lock-free and allocate only when an account enters or moves up a heavy-hitter list.
+ * <p>
+ * The performance id comes from the client, so only an accepted purchase, which names a performance on sale, or a
+ * merged sketch gives a performance a sketch of its own, and the number of sketches is capped. Orders rejected as
+ * {@link RejectionReason#UNKNOWN_PERFORMANCE}, other rejected orders for a performance without a sketch, and orders
+ * for any performance beyond the cap, are counted together under {@link #OTHER_PERFORMANCES}, so made-up ids cannot
+ * use up the cap.
+ */
+public class PurchaseSketches implements PurchaseListener {
+
+    /**
+     * Key of the sketch shared by rejected orders for performances without a sketch and by performances beyond the
+     * cap.
+     */
+    public static final long OTHER_PERFORMANCES = -1;
+
+    private static final int DEFAULT_MAX_PERFORMANCES = 1_024;
+
+    private final SketchConfig config;
+    private final int maxPerformances;
+    private final ConcurrentHashMap<Long, PerformanceSketch> performances = new ConcurrentHashMap<>();
+    private final AtomicInteger sketched = new AtomicInteger();
+    private final PerformanceSketch other;
+    private final PerformanceSketch empty;
+
+    public PurchaseSketches(SketchConfig config) {
+        this(config, DEFAULT_MAX_PERFORMANCES);
+    }
+
+    /**
+     * @param maxPerformances   Performances given a sketch of their own, first come first served
+     */
+    public PurchaseSketches(SketchConfig config, int maxPerformances) {
+        if (maxPerformances < 0) {
+            throw new IllegalArgumentException("maxPerformances must not be negative");
+        }
+        this.config = config;
+        this.maxPerformances = maxPerformances;
+        this.other = new PerformanceSketch(config);
+        this.empty = new PerformanceSketch(config);
+        performances.put(OTHER_PERFORMANCES, other);
+    }
+
+    @Override
+    public void accepted(TicketOrder order, int amount, int seats) {
+        var ticketCount = 0;
+        for (int line = 0; line < order.getLineCount(); line++) {
+            ticketCount += order.getNoOfTickets(line);
+        }
+        sketch(order.getPerformanceId()).purchased(order.getAccountId(), ticketCount);
+    }
+
+    @Override
+    public void rejected(TicketOrder order, RejectionReason reason) {
+        if (order == null) {
+            return;
+        }
+        var sketch = reason == RejectionReason.UNKNOWN_PERFORMANCE ? null : performances.get(order.getPerformanceId());
+        (sketch == null ? other : sketch).rejected(order.getAccountId());
+    }
+
+    /**
+     * @return  Performances with a sketch of their own, and {@link #OTHER_PERFORMANCES}. Orders without a
+     *          performance are under 0.
+     */
+    public Set<Long> performanceIds() {
+        return Set.copyOf(performances.keySet());
+    }
+
+    public List<HeavyHitter> topBuyers(long performanceId) {
+        return performances.getOrDefault(performanceId, empty).topBuyers();
+    }
+
+    public List<HeavyHitter> topRejected(long performanceId) {
+        return performances.getOrDefault(performanceId, empty).topRejected();
+    }
+
+    public long distinctBuyers(long performanceId) {
+        return performances.getOrDefault(performanceId, empty).distinctBuyers();
+    }
+
+    /**
+     * @return  Copy of the performance's sketch, which can be merged with the same performance's sketches from
+     *          other nodes
+     */
+    public PerformanceSketch snapshot(long performanceId) {
+        return performances.getOrDefault(performanceId, empty).copy();
+    }
+
+    /**
+     * Folds in a sketch taken elsewhere, e.g. from another node selling the same performance.
+     */
+    public void merge(long performanceId, PerformanceSketch other) {
+        sketch(performanceId).merge(other);
+    }
+
+    private PerformanceSketch sketch(long performanceId) {
+        var sketch = performances.get(performanceId);
+        if (sketch == null) {
+            sketch = performances.computeIfAbsent(performanceId,
+                    id -> claimSketch() ? new PerformanceSketch(config) : null);
+        }
+        return sketch == null ? other : sketch;
+    }
+
+    private boolean claimSketch() {
+        while (true) {
+            var count = sketched.get();
+            if (count >= maxPerformances) {
+                return false;
+            }
+            if (sketched.compareAndSet(count, count + 1)) {
+                return true;
+            }
+        }
+    }
+}
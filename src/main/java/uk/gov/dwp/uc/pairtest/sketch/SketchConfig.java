@@ -0,0 +1,26 @@
+package uk.gov.dwp.uc.pairtest.sketch;
+
+/**
+ * Sizes of the sketches kept per performance. The defaults take about 7 KB per performance, and the Count-Min
+ * sketches overshoot by at most about 1% of all tickets counted.
+ *
+ * @param depth     Rows of each Count-Min sketch. Each row lowers the chance of an estimate being far off.
+ * @param width     Four-byte counters per row, rounded up to a power of two. An estimate overshoots by at most about
+ *                  {@code e / width} of all tickets counted, with high probability.
+ * @param topK      Accounts kept in each heavy-hitter list
+ * @param precision Bits of each HyperLogLog register index, giving {@code 2^precision} one-byte registers and a
+ *                  standard error of about {@code 1.04 / sqrt(2^precision)}
+ */
+public record SketchConfig(int depth, int width, int topK, int precision) {
+
+    public static final SketchConfig DEFAULT = new SketchConfig(3, 256, 16, 10);
+
+    public SketchConfig {
+        if (depth <= 0 || width <= 0 || topK <= 0) {
+            throw new IllegalArgumentException("depth, width and topK must be positive");
+        }
+        if (precision < 4 || precision > 16) {
+            throw new IllegalArgumentException("precision must be between 4 and 16");
+        }
+    }
+}
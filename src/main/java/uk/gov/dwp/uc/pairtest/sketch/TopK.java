@@ -0,0 +1,79 @@
+package uk.gov.dwp.uc.pairtest.sketch;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The {@code k} keys with the highest counts seen so far, fed with estimates from a {@link CountMinSketch}.
+ * <p>
+ * Entries sit in a small array of slots rather than a heap, since a heap cannot be reordered without a lock. An offer
+ * scans the slots, raises the key's entry if present, and otherwise replaces the lowest entry if the new count beats
+ * it, each with a compare-and-set on one slot. A count below the lowest entry is turned away after reading one field.
+ * Two threads offering the same new key at once may both insert it; {@link #top()} keeps the higher.
+ */
+public final class TopK {
+
+    private final AtomicReferenceArray<HeavyHitter> slots;
+    private volatile long floor;
+
+    public TopK(int k) {
+        this.slots = new AtomicReferenceArray<>(k);
+    }
+
+    public void offer(long key, long count) {
+        if (count <= floor) {
+            return;
+        }
+        retry:
+        while (true) {
+            var lowestSlot = -1;
+            var lowest = Long.MAX_VALUE;
+            HeavyHitter lowestEntry = null;
+            for (int i = 0; i < slots.length(); i++) {
+                var entry = slots.get(i);
+                if (entry != null && entry.accountId() == key) {
+                    if (entry.count() >= count || slots.compareAndSet(i, entry, new HeavyHitter(key, count))) {
+                        return;
+                    }
+                    continue retry;
+                }
+                var entryCount = entry == null ? 0 : entry.count();
+                if (entryCount < lowest) {
+                    lowest = entryCount;
+                    lowestSlot = i;
+                    lowestEntry = entry;
+                }
+            }
+            if (count <= lowest) {
+                floor = lowest;
+                return;
+            }
+            if (slots.compareAndSet(lowestSlot, lowestEntry, new HeavyHitter(key, count))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return  Entries by count, highest first
+     */
+    public List<HeavyHitter> top() {
+        var best = new HashMap<Long, HeavyHitter>();
+        for (int i = 0; i < slots.length(); i++) {
+            var entry = slots.get(i);
+            if (entry != null) {
+                best.merge(entry.accountId(), entry, (a, b) -> a.count() >= b.count() ? a : b);
+            }
+        }
+        var top = new ArrayList<>(best.values());
+        top.sort(Comparator.comparingLong(HeavyHitter::count).reversed().thenComparingLong(HeavyHitter::accountId));
+        return top;
+    }
+
+    public int capacity() {
+        return slots.length();
+    }
+}
@@ -0,0 +1,27 @@
+package uk.gov.dwp.uc.pairtest.validation;
+
+/**
+ * Holds the {@link RuleTable} in force, compiled as soon as its {@link ValidationRules} are loaded.
+ * <p>
+ * A purchase looks up its program once, so loading new rules never leaves a purchase checked against a mix of old
+ * and new ones.
+ */
+public class PurchaseValidator {
+
+    private volatile RuleTable ruleTable;
+
+    public PurchaseValidator(ValidationRules rules) {
+        load(rules);
+    }
+
+    public void load(ValidationRules rules) {
+        ruleTable = rules.compile();
+    }
+
+    /**
+     * @return  Program checking orders for {@code performanceId}
+     */
+    public RuleProgram program(long performanceId) {
+        return ruleTable.program(performanceId);
+    }
+}
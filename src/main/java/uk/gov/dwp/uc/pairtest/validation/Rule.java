@@ -0,0 +1,45 @@
+package uk.gov.dwp.uc.pairtest.validation;
+
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+
+/**
+ * A purchase rule that a {@link ValidationPolicy} can switch on.
+ */
+public enum Rule {
+    /**
+     * No more ticket lines than the limit. Checked before the lines are read, so an oversized order costs nothing
+     * more.
+     */
+    MAX_LINES(true, RejectionReason.EXCESSIVE_TICKETS),
+    /**
+     * No more tickets in total than the limit.
+     */
+    MAX_TICKETS(false, RejectionReason.EXCESSIVE_TICKETS),
+    /**
+     * Child and infant tickets only alongside an adult ticket.
+     */
+    ADULT_REQUIRED(false, RejectionReason.NO_ADULT_PRESENT),
+    /**
+     * Adult tickets only.
+     */
+    ADULTS_ONLY(false, RejectionReason.ADULTS_ONLY);
+
+    private final boolean beforeScan;
+    private final RejectionReason reason;
+
+    Rule(boolean beforeScan, RejectionReason reason) {
+        this.beforeScan = beforeScan;
+        this.reason = reason;
+    }
+
+    /**
+     * @return  {@code true} if the rule only needs the number of lines, so runs before they are read
+     */
+    public boolean isBeforeScan() {
+        return beforeScan;
+    }
+
+    public RejectionReason getReason() {
+        return reason;
+    }
+}
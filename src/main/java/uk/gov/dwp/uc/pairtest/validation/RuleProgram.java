@@ -0,0 +1,138 @@
+package uk.gov.dwp.uc.pairtest.validation;
+
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * One {@link ValidationPolicy} compiled to a flat program: pairs of {@link Rule} ordinal and limit, with the rules
+ * that run before the lines are read first.
+ * <p>
+ * Rejections are counted per rule. Roughly every {@value #REORDER_EVERY} rejections the program is rebuilt with the
+ * rules that reject most moving to the front of their phase, so the check that turns away most invalid traffic runs
+ * first. Accepted purchases pass every rule whatever the order, so they pay nothing for this. A purchase breaking
+ * several rules may be rejected for any of them.
+ */
+public final class RuleProgram {
+
+    private static final Rule[] RULES = Rule.values();
+    private static final int REORDER_EVERY = 1024;
+
+    private final int beforeScan;
+    private final LongAdder[] rejections = new LongAdder[RULES.length];
+    private volatile int[] code;
+
+    RuleProgram(ValidationPolicy policy) {
+        var rules = policy.rules();
+        var code = new int[rules.size() * 2];
+        var pc = emit(code, 0, rules, true);
+        this.beforeScan = pc;
+        emit(code, pc, rules, false);
+        for (int i = 0; i < rejections.length; i++) {
+            rejections[i] = new LongAdder();
+        }
+        this.code = code;
+    }
+
+    /**
+     * @return  Why an order of {@code lines} lines is rejected, or {@code null} if it passes the rules checked
+     *          before reading them
+     */
+    public RejectionReason checkLines(int lines) {
+        var code = this.code;
+        for (int pc = 0; pc < beforeScan; pc += 2) {
+            if (RULES[code[pc]] == Rule.MAX_LINES && lines > code[pc + 1]) {
+                return rejected(code[pc]);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param adultFound    Whether any line is for adult tickets
+     * @param underageFound Whether any line is for child or infant tickets
+     * @return              Why the order is rejected, or {@code null} if it passes the rest of the rules
+     */
+    public RejectionReason checkTotals(int ticketCount, boolean adultFound, boolean underageFound) {
+        var code = this.code;
+        for (int pc = beforeScan; pc < code.length; pc += 2) {
+            var failed = switch (RULES[code[pc]]) {
+                case MAX_TICKETS -> ticketCount > code[pc + 1];
+                case ADULT_REQUIRED -> underageFound && !adultFound;
+                case ADULTS_ONLY -> underageFound;
+                case MAX_LINES -> false;
+            };
+            if (failed) {
+                return rejected(code[pc]);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return  The rules in the order they are currently checked
+     */
+    public List<Rule> order() {
+        var code = this.code;
+        var order = new ArrayList<Rule>(code.length / 2);
+        for (int pc = 0; pc < code.length; pc += 2) {
+            order.add(RULES[code[pc]]);
+        }
+        return order;
+    }
+
+    public long rejections(Rule rule) {
+        return rejections[rule.ordinal()].sum();
+    }
+
+    /**
+     * Sorts each phase by rejections, most first, keeping the current order between rules with equal counts.
+     */
+    synchronized void reorder() {
+        var current = code;
+        var reordered = current.clone();
+        sortPhase(reordered, 0, beforeScan);
+        sortPhase(reordered, beforeScan, reordered.length);
+        if (!Arrays.equals(current, reordered)) {
+            code = reordered;
+        }
+    }
+
+    private RejectionReason rejected(int rule) {
+        rejections[rule].increment();
+        // Sampling rather than counting keeps a shared counter off the rejection path.
+        if (ThreadLocalRandom.current().nextInt(REORDER_EVERY) == 0) {
+            reorder();
+        }
+        return RULES[rule].getReason();
+    }
+
+    private static int emit(int[] code, int pc, Map<Rule, Integer> rules, boolean beforeScan) {
+        for (var rule : rules.entrySet()) {
+            if (rule.getKey().isBeforeScan() == beforeScan) {
+                code[pc++] = rule.getKey().ordinal();
+                code[pc++] = rule.getValue();
+            }
+        }
+        return pc;
+    }
+
+    private void sortPhase(int[] code, int from, int to) {
+        var pairs = new ArrayList<int[]>();
+        for (int pc = from; pc < to; pc += 2) {
+            pairs.add(new int[]{code[pc], code[pc + 1]});
+        }
+        pairs.sort(Comparator.comparingLong((int[] pair) -> rejections[pair[0]].sum()).reversed());
+        var pc = from;
+        for (var pair : pairs) {
+            code[pc++] = pair[0];
+            code[pc++] = pair[1];
+        }
+    }
+}
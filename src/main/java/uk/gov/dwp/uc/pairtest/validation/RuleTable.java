@@ -0,0 +1,58 @@
+package uk.gov.dwp.uc.pairtest.validation;
+
+/**
+ * Compiled form of a set of {@link ValidationRules}: a {@link RuleProgram} per performance with its own policy, plus
+ * the default program for every other performance. Finding the program is a hash probe once per order.
+ */
+public final class RuleTable {
+
+    private final long[] performanceIds;
+    private final RuleProgram[] performancePrograms;
+    private final int mask;
+    private final RuleProgram defaultProgram;
+
+    /**
+     * @param performanceIds    Performances with their own program. None may be 0.
+     * @param programs          Program for each of {@code performanceIds}, in the same order
+     */
+    RuleTable(RuleProgram defaultProgram, long[] performanceIds, RuleProgram[] programs) {
+        var size = Math.max(1, Integer.highestOneBit(Math.max(1, performanceIds.length * 2) - 1) << 1);
+        this.performanceIds = new long[size];
+        this.performancePrograms = new RuleProgram[size];
+        this.mask = size - 1;
+        this.defaultProgram = defaultProgram;
+        for (int i = 0; i < performanceIds.length; i++) {
+            var slot = slot(performanceIds[i]);
+            while (this.performanceIds[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            this.performanceIds[slot] = performanceIds[i];
+            this.performancePrograms[slot] = programs[i];
+        }
+    }
+
+    /**
+     * @return  Program checking orders for {@code performanceId}
+     */
+    public RuleProgram program(long performanceId) {
+        if (performanceId == 0) {
+            return defaultProgram;
+        }
+        var slot = slot(performanceId);
+        while (true) {
+            var id = performanceIds[slot];
+            if (id == performanceId) {
+                return performancePrograms[slot];
+            }
+            if (id == 0) {
+                return defaultProgram;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private int slot(long performanceId) {
+        var h = performanceId * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
@@ -0,0 +1,76 @@
+package uk.gov.dwp.uc.pairtest.validation;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * The rules a purchase for one performance must pass, each with its limit where it takes one.
+ */
+public final class ValidationPolicy {
+
+    public static final int DEFAULT_MAX_TICKETS = 20;
+
+    /**
+     * At most {@value #DEFAULT_MAX_TICKETS} tickets, on at most as many lines, with an adult for any child or infant.
+     */
+    public static final ValidationPolicy DEFAULT = builder()
+            .maxLines(DEFAULT_MAX_TICKETS)
+            .maxTickets(DEFAULT_MAX_TICKETS)
+            .adultRequired()
+            .build();
+
+    private final Map<Rule, Integer> limits;
+
+    private ValidationPolicy(Builder builder) {
+        this.limits = new EnumMap<>(builder.limits);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return  The rules switched on and their limits, in {@link Rule} order. Rules without a limit map to 0.
+     */
+    public Map<Rule, Integer> rules() {
+        return new EnumMap<>(limits);
+    }
+
+    public static final class Builder {
+        private final Map<Rule, Integer> limits = new EnumMap<>(Rule.class);
+
+        private Builder() {
+        }
+
+        public Builder maxLines(int limit) {
+            limits.put(Rule.MAX_LINES, requirePositive(limit));
+            return this;
+        }
+
+        public Builder maxTickets(int limit) {
+            limits.put(Rule.MAX_TICKETS, requirePositive(limit));
+            return this;
+        }
+
+        public Builder adultRequired() {
+            limits.put(Rule.ADULT_REQUIRED, 0);
+            return this;
+        }
+
+        public Builder adultsOnly() {
+            limits.put(Rule.ADULTS_ONLY, 0);
+            return this;
+        }
+
+        public ValidationPolicy build() {
+            return new ValidationPolicy(this);
+        }
+
+        private static int requirePositive(int limit) {
+            if (limit <= 0) {
+                throw new IllegalArgumentException("Limits must be positive");
+            }
+            return limit;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package uk.gov.dwp.uc.pairtest.validation;
+
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Which {@link ValidationPolicy} applies to each performance, with a default for the rest. Resolved by
+ * {@link #compile()} into a {@link RuleTable}, never while validating.
+ */
+public final class ValidationRules {
+
+    public static final ValidationRules DEFAULT = builder().build();
+
+    private final ValidationPolicy defaultPolicy;
+    private final Map<Long, ValidationPolicy> performancePolicies;
+
+    private ValidationRules(Builder builder) {
+        this.defaultPolicy = builder.defaultPolicy;
+        this.performancePolicies = new LinkedHashMap<>(builder.performancePolicies);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Performances sharing a policy instance share one program, so they also share its rejection counts and order.
+     */
+    public RuleTable compile() {
+        var programs = new IdentityHashMap<ValidationPolicy, RuleProgram>();
+        var defaultProgram = programs.computeIfAbsent(defaultPolicy, RuleProgram::new);
+        var performanceIds = new long[performancePolicies.size()];
+        var performancePrograms = new RuleProgram[performancePolicies.size()];
+        var i = 0;
+        for (var policy : performancePolicies.entrySet()) {
+            performanceIds[i] = policy.getKey();
+            performancePrograms[i++] = programs.computeIfAbsent(policy.getValue(), RuleProgram::new);
+        }
+        return new RuleTable(defaultProgram, performanceIds, performancePrograms);
+    }
+
+    public static final class Builder {
+        private ValidationPolicy defaultPolicy = ValidationPolicy.DEFAULT;
+        private final Map<Long, ValidationPolicy> performancePolicies = new LinkedHashMap<>();
+
+        private Builder() {
+        }
+
+        /**
+         * @param policy    Policy for performances without their own, {@link ValidationPolicy#DEFAULT} if not set
+         */
+        public Builder defaultPolicy(ValidationPolicy policy) {
+            this.defaultPolicy = policy;
+            return this;
+        }
+
+        public Builder performance(long performanceId, ValidationPolicy policy) {
+            if (performanceId == 0) {
+                throw new IllegalArgumentException("Performance id 0 means no performance");
+            }
+            performancePolicies.put(performanceId, policy);
+            return this;
+        }
+
+        public ValidationRules build() {
+            return new ValidationRules(this);
+        }
+    }
+}
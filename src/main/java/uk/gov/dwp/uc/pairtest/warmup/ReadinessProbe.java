@@ -0,0 +1,38 @@
+package uk.gov.dwp.uc.pairtest.warmup;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reports an instance ready to take traffic once its {@link WarmUp} has finished, for a load balancer health check or
+ * orchestrator readiness endpoint to poll.
+ */
+public class ReadinessProbe {
+
+    private final CountDownLatch ready = new CountDownLatch(1);
+    private volatile WarmUpResult result;
+
+    public boolean isReady() {
+        return ready.getCount() == 0;
+    }
+
+    /**
+     * @return  {@code true} if ready within the timeout
+     */
+    public boolean awaitReady(Duration timeout) throws InterruptedException {
+        return ready.await(timeout.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return  How warm-up went, or {@code null} until ready or if warm-up failed
+     */
+    public WarmUpResult result() {
+        return result;
+    }
+
+    void markReady(WarmUpResult result) {
+        this.result = result;
+        ready.countDown();
+    }
+}
@@ -0,0 +1,165 @@
+package uk.gov.dwp.uc.pairtest.warmup;
+
+import thirdparty.paymentgateway.TicketPaymentService;
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.PricingServiceImpl;
+import uk.gov.dwp.uc.pairtest.SeatingCalculatorServiceImpl;
+import uk.gov.dwp.uc.pairtest.TariffRegistry;
+import uk.gov.dwp.uc.pairtest.TicketService;
+import uk.gov.dwp.uc.pairtest.TicketServiceImpl;
+import uk.gov.dwp.uc.pairtest.domain.TicketPurchaseRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketRequest;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.function.BiFunction;
+
+/**
+ * Drives synthetic purchases through validation and pricing until the JIT compiler has settled, so a new instance
+ * serves its first real customer with compiled code.
+ * <p>
+ * Purchases run in rounds. After each round the JVM's total compilation time is checked, and once a round adds less
+ * than {@code settledBelow} the hot path is taken to be compiled. On a JVM that does not report compilation time,
+ * every round up to {@code maxRounds} is run.
+ * <p>
+ * The JIT compiles methods, not instances, but it compiles each call site for the receiver types it has seen. So the
+ * service to warm is built by the caller the same way the real one is, with the same options and the same
+ * decorators around its downstream services, over stub payment and seat services that do nothing. The service and
+ * its decorators then see the receiver types they will see in production. Only the innermost calls, from the
+ * decorators into the stubs, see a different type, and those few sites are recompiled once real traffic reaches them.
+ * <p>
+ * Warm-up purchases are fake but run the whole pipeline, so every stateful collaborator the service is built with must
+ * be a throwaway instance of the same class: listeners, event streams, sales aggregators, sketches, metrics,
+ * idempotency windows and rate limiters, journals, seat inventories and hold managers. Sharing any of them with the
+ * real service would count warm-up traffic as sales, dedupe or throttle real accounts, or journal purchases that
+ * recovery would later replay.
+ */
+public class WarmUp {
+
+    private static final TicketPaymentService STUB_PAYMENT = (accountId, totalAmountToPay) -> {
+    };
+    private static final SeatReservationService STUB_SEATS = (accountId, totalSeatsToAllocate) -> {
+    };
+    private static final int DISTINCT_REQUESTS = 256;
+
+    private final WarmUpConfig config;
+    private final TicketService target;
+    private final TicketPurchaseRequest[] requests;
+
+    /**
+     * @param serviceFactory    Builds the service over the given stub payment and seat services exactly as the real
+     *                          service is built over the real ones, with a new instance of every other stateful
+     *                          collaborator. Nothing the real service uses may be passed in.
+     */
+    public WarmUp(WarmUpConfig config,
+                  BiFunction<TicketPaymentService, SeatReservationService, ? extends TicketService> serviceFactory) {
+        this(config, serviceFactory.apply(STUB_PAYMENT, STUB_SEATS));
+    }
+
+    /**
+     * @param target    Service to drive, which must not take real payments or seats nor share any stateful
+     *                  collaborator with the real service
+     */
+    public WarmUp(WarmUpConfig config, TicketService target) {
+        this.config = config;
+        this.target = target;
+        this.requests = syntheticRequests(new SplittableRandom(DISTINCT_REQUESTS));
+    }
+
+    public WarmUpResult run() {
+        var compiler = ManagementFactory.getCompilationMXBean();
+        var monitored = compiler != null && compiler.isCompilationTimeMonitoringSupported();
+        var settledBelowMillis = config.settledBelow().toMillis();
+        var started = System.nanoTime();
+        var deadline = started + config.maxDuration().toNanos();
+        var compileMillis = monitored ? compiler.getTotalCompilationTime() : 0;
+
+        var next = 0;
+        var rounds = 0;
+        var settled = false;
+        while (rounds < config.maxRounds() && System.nanoTime() - deadline < 0) {
+            for (int i = 0; i < config.requestsPerRound(); i++) {
+                try {
+                    target.purchaseTickets(requests[next]);
+                } catch (InvalidPurchaseException ignored) {
+                }
+                next = next + 1 == requests.length ? 0 : next + 1;
+            }
+            rounds++;
+            if (monitored) {
+                var total = compiler.getTotalCompilationTime();
+                var roundMillis = total - compileMillis;
+                compileMillis = total;
+                if (rounds >= config.minRounds() && roundMillis <= settledBelowMillis) {
+                    settled = true;
+                    break;
+                }
+            }
+        }
+        return new WarmUpResult(rounds, (long) rounds * config.requestsPerRound(),
+                Duration.ofNanos(System.nanoTime() - started), settled);
+    }
+
+    /**
+     * Runs warm-up on a background thread.
+     *
+     * @return  Probe that turns ready when warm-up finishes. A failed warm-up still turns it ready, since a slow
+     *          instance is better than one that never serves.
+     */
+    public ReadinessProbe start() {
+        var probe = new ReadinessProbe();
+        var thread = new Thread(() -> {
+            WarmUpResult result = null;
+            try {
+                result = run();
+            } finally {
+                probe.markReady(result);
+            }
+        }, "warm-up");
+        thread.setDaemon(true);
+        thread.start();
+        return probe;
+    }
+
+    /**
+     * Warms up a default {@link TicketServiceImpl}. This is the training run of the {@code cds} build profile, which
+     * only needs the classes it loads.
+     */
+    public static void main(String[] args) {
+        var registry = new TariffRegistry(new PricingServiceImpl(), new SeatingCalculatorServiceImpl());
+        new WarmUp(WarmUpConfig.DEFAULT,
+                (payment, seats) -> TicketServiceImpl.builder(registry, payment, seats).build()).run();
+    }
+
+    /**
+     * A mix of valid orders of one to four lines, and one in eight broken in one of the ways real traffic is, so the
+     * rejection paths are compiled too.
+     */
+    private static TicketPurchaseRequest[] syntheticRequests(SplittableRandom random) {
+        var types = TicketRequest.Type.values();
+        var requests = new TicketPurchaseRequest[DISTINCT_REQUESTS];
+        for (int i = 0; i < requests.length; i++) {
+            var lines = new ArrayList<TicketRequest>();
+            lines.add(TicketRequest.of(TicketRequest.Type.ADULT, random.nextInt(1, 4)));
+            for (int line = random.nextInt(4); line > 0; line--) {
+                lines.add(TicketRequest.of(types[random.nextInt(types.length)], random.nextInt(1, 4)));
+            }
+            long accountId = i + 1;
+            if (i % 8 == 7) {
+                switch (random.nextInt(3)) {
+                    case 0 -> accountId = 0;
+                    case 1 -> {
+                        lines.clear();
+                        lines.add(TicketRequest.of(TicketRequest.Type.CHILD, 1));
+                    }
+                    default -> lines.add(TicketRequest.of(TicketRequest.Type.ADULT, 20));
+                }
+            }
+            requests[i] = new TicketPurchaseRequest(accountId, lines);
+        }
+        return requests;
+    }
+}
@@ -0,0 +1,26 @@
+package uk.gov.dwp.uc.pairtest.warmup;
+
+import java.time.Duration;
+
+/**
+ * @param requestsPerRound  Synthetic purchases between checks on the JIT compiler
+ * @param minRounds         Rounds always run, however quiet the compiler
+ * @param maxRounds         Rounds after which warm-up stops even if compilation has not settled
+ * @param settledBelow      Compilation time in a round below which compilation counts as settled
+ * @param maxDuration       Longest warm-up may take
+ */
+public record WarmUpConfig(int requestsPerRound, int minRounds, int maxRounds, Duration settledBelow,
+                           Duration maxDuration) {
+
+    public static final WarmUpConfig DEFAULT =
+            new WarmUpConfig(10_000, 5, 200, Duration.ofMillis(5), Duration.ofSeconds(30));
+
+    public WarmUpConfig {
+        if (requestsPerRound <= 0 || minRounds <= 0 || maxRounds < minRounds) {
+            throw new IllegalArgumentException("requestsPerRound and minRounds must be positive and maxRounds at least minRounds");
+        }
+        if (settledBelow.isNegative() || maxDuration.isNegative() || maxDuration.isZero()) {
+            throw new IllegalArgumentException("settledBelow cannot be negative and maxDuration must be positive");
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package uk.gov.dwp.uc.pairtest.warmup;
+
+import java.time.Duration;
+
+/**
+ * @param settled   {@code true} if warm-up stopped because compilation settled, rather than at a limit
+ */
+public record WarmUpResult(int rounds, long requests, Duration elapsed, boolean settled) {
+}
@@ -0,0 +1,91 @@
+package uk.gov.dwp.uc.pairtest.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import thirdparty.paymentgateway.TicketPaymentService;
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.PricingServiceImpl;
+import uk.gov.dwp.uc.pairtest.SeatingCalculatorServiceImpl;
+import uk.gov.dwp.uc.pairtest.TicketService;
+import uk.gov.dwp.uc.pairtest.TicketServiceImpl;
+import uk.gov.dwp.uc.pairtest.domain.TicketPurchaseRequest;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End to end throughput and latency of {@link TicketServiceImpl#purchaseTickets(TicketPurchaseRequest)} across the
+ * request shapes in {@link RequestShape}. Run with {@code -prof gc} to get allocation rates per operation.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class PurchaseTicketsBenchmark {
+
+    @Param
+    private RequestShape shape;
+
+    private TicketService ticketService;
+    private TicketPurchaseRequest request;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        ticketService = new TicketServiceImpl(new PricingServiceImpl(), new SeatingCalculatorServiceImpl(),
+                new BlackholePaymentService(blackhole), new BlackholeSeatReservationService(blackhole));
+        request = shape.makeRequest();
+    }
+
+    @Benchmark
+    public boolean singleThreaded() {
+        return purchase();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean fourThreads() {
+        return purchase();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public boolean allCores() {
+        return purchase();
+    }
+
+    private boolean purchase() {
+        try {
+            ticketService.purchaseTickets(request);
+            return true;
+        } catch (InvalidPurchaseException e) {
+            return false;
+        }
+    }
+
+    private record BlackholePaymentService(Blackhole blackhole) implements TicketPaymentService {
+        @Override
+        public void makePayment(long accountId, int totalAmountToPay) {
+            blackhole.consume(totalAmountToPay);
+        }
+    }
+
+    private record BlackholeSeatReservationService(Blackhole blackhole) implements SeatReservationService {
+        @Override
+        public void reserveSeat(long accountId, int totalSeatsToAllocate) {
+            blackhole.consume(totalSeatsToAllocate);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package uk.gov.dwp.uc.pairtest.benchmark;
+
+import uk.gov.dwp.uc.pairtest.domain.TicketPurchaseRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Request shapes exercised by the benchmarks. Anything prefixed {@code REJECTED_} is expected to throw an
+ * {@link uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException}.
+ */
+public enum RequestShape {
+    ONE_LINE_ADULT(1, TicketRequest.Type.ADULT),
+    TWENTY_LINES_ADULT(20, TicketRequest.Type.ADULT),
+    THREE_LINES_MIXED(3, TicketRequest.Type.ADULT, TicketRequest.Type.CHILD, TicketRequest.Type.INFANT),
+    TWENTY_LINES_MIXED(20, TicketRequest.Type.ADULT, TicketRequest.Type.CHILD, TicketRequest.Type.INFANT),
+    REJECTED_INVALID_ACCOUNT(1, TicketRequest.Type.ADULT) {
+        @Override
+        long accountId() {
+            return 0;
+        }
+    },
+    REJECTED_NO_ADULT(3, TicketRequest.Type.CHILD, TicketRequest.Type.INFANT),
+    REJECTED_EXCESSIVE_LINES(21, TicketRequest.Type.ADULT);
+
+    private static final long ACCOUNT_ID = 1234;
+
+    private final int lines;
+    private final TicketRequest.Type[] types;
+
+    RequestShape(int lines, TicketRequest.Type... types) {
+        this.lines = lines;
+        this.types = types;
+    }
+
+    long accountId() {
+        return ACCOUNT_ID;
+    }
+
+    /**
+     * @return  A request of {@code lines} single-ticket lines, cycling through this shape's ticket types
+     */
+    public TicketPurchaseRequest makeRequest() {
+        var tickets = new ArrayList<TicketRequest>(lines);
+        for (int i = 0; i < lines; i++) {
+            tickets.add(new TicketRequest(types[i % types.length], 1));
+        }
+        return new TicketPurchaseRequest(accountId(), List.copyOf(tickets));
+    }
+}
@@ -0,0 +1,38 @@
+package uk.gov.dwp.uc.pairtest.loadtest;
+
+import java.time.Duration;
+import java.util.SplittableRandom;
+
+/**
+ * Distribution of response times for a simulated downstream service.
+ */
+@FunctionalInterface
+public interface LatencyModel {
+
+    LatencyModel NONE = random -> 0;
+
+    long sampleNanos(SplittableRandom random);
+
+    static LatencyModel fixed(Duration latency) {
+        var nanos = latency.toNanos();
+        return random -> nanos;
+    }
+
+    /**
+     * Most calls close to {@code median}, with a long right tail whose weight grows with {@code sigma}. Around 0.5 is
+     * typical of a healthy payment gateway.
+     */
+    static LatencyModel logNormal(Duration median, double sigma) {
+        var mu = Math.log(median.toNanos());
+        return random -> (long) Math.exp(mu + sigma * random.nextGaussian());
+    }
+
+    /**
+     * @return  This model, except that a share of calls take {@code spike} instead, as in a gateway's GC pause or
+     *          failover
+     */
+    default LatencyModel withSpikes(double probability, Duration spike) {
+        var spikeNanos = spike.toNanos();
+        return random -> random.nextDouble() < probability ? spikeNanos : sampleNanos(random);
+    }
+}
@@ -0,0 +1,147 @@
+package uk.gov.dwp.uc.pairtest.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import uk.gov.dwp.uc.pairtest.TicketService;
+import uk.gov.dwp.uc.pairtest.domain.TicketPurchaseRequest;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load generator for a {@link TicketService}.
+ * <p>
+ * Purchases are scheduled at the profile's arrival rate whether or not earlier ones have finished, the way real
+ * customers arrive. Response time is measured from when a purchase was <em>due</em> to start, so time spent queued
+ * behind a slow call is counted instead of hidden. A closed loop that waits for each call before sending the next
+ * slows down with the service and under-reports exactly the stalls capacity planning needs to see.
+ */
+public class LoadGenerator {
+
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final TicketService ticketService;
+    private final OrderMix orderMix;
+    private final LoadProfile profile;
+    private final PrintStream out;
+
+    private final Recorder responseTime = new Recorder(SIGNIFICANT_DIGITS);
+    private final Recorder serviceTime = new Recorder(SIGNIFICANT_DIGITS);
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    public LoadGenerator(TicketService ticketService, OrderMix orderMix, LoadProfile profile, PrintStream out) {
+        this.ticketService = ticketService;
+        this.orderMix = orderMix;
+        this.profile = profile;
+        this.out = out;
+    }
+
+    public LoadReport run() throws InterruptedException {
+        var workers = Executors.newFixedThreadPool(profile.workers(), runnable -> {
+            var thread = new Thread(runnable, "load-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        var random = new SplittableRandom(profile.seed());
+        var meanGapNanos = 1e9 / profile.ratePerSecond();
+        var start = System.nanoTime();
+        var measureFrom = start + profile.warmup().toNanos();
+        var end = measureFrom + profile.duration().toNanos();
+        var reportIntervalNanos = profile.reportInterval().toNanos();
+
+        var totalResponse = new Histogram(SIGNIFICANT_DIGITS);
+        var totalService = new Histogram(SIGNIFICANT_DIGITS);
+        var nextReport = measureFrom + (reportIntervalNanos == 0 ? Long.MAX_VALUE / 2 : reportIntervalNanos);
+        long offered = 0;
+        long maxLagNanos = 0;
+        double due = start;
+        var measuring = false;
+
+        while ((long) due < end) {
+            var dueNanos = (long) due;
+            var now = System.nanoTime();
+            if (now < dueNanos) {
+                LockSupport.parkNanos(dueNanos - now);
+                now = System.nanoTime();
+            } else {
+                maxLagNanos = Math.max(maxLagNanos, measuring ? now - dueNanos : 0);
+            }
+            if (!measuring && dueNanos >= measureFrom) {
+                measuring = true;
+            }
+            if (measuring) {
+                offered++;
+            }
+            submit(workers, orderMix.next(random), dueNanos, measuring);
+            if (now >= nextReport) {
+                interim(totalResponse, totalService, now - measureFrom);
+                nextReport += reportIntervalNanos;
+            }
+            due += profile.poissonArrivals() ? -Math.log(1.0 - random.nextDouble()) * meanGapNanos : meanGapNanos;
+        }
+
+        drain(workers);
+        // Read once, so purchases still finishing after the drain gave up cannot make the outcomes outnumber offered
+        var acceptedCount = accepted.sum();
+        var rejectedCount = rejected.sum();
+        var failedCount = failed.sum();
+        totalResponse.add(responseTime.getIntervalHistogram());
+        totalService.add(serviceTime.getIntervalHistogram());
+        var elapsed = Duration.ofNanos(Math.max(end, System.nanoTime()) - measureFrom);
+        return new LoadReport(offered, acceptedCount, rejectedCount, failedCount,
+                offered - acceptedCount - rejectedCount - failedCount, elapsed, totalResponse, totalService,
+                maxLagNanos);
+    }
+
+    private void submit(ExecutorService workers, TicketPurchaseRequest request, long dueNanos, boolean measured) {
+        workers.execute(() -> {
+            var startedAt = System.nanoTime();
+            LongAdder outcome;
+            try {
+                ticketService.purchaseTickets(request);
+                outcome = accepted;
+            } catch (InvalidPurchaseException e) {
+                outcome = rejected;
+            } catch (RuntimeException e) {
+                outcome = failed;
+            }
+            var finishedAt = System.nanoTime();
+            // Warm-up purchases still queued when measurement starts count towards nothing.
+            if (measured) {
+                outcome.increment();
+                responseTime.recordValue(finishedAt - dueNanos);
+                serviceTime.recordValue(finishedAt - startedAt);
+            }
+        });
+    }
+
+    private void interim(Histogram totalResponse, Histogram totalService, long elapsedNanos) {
+        var response = responseTime.getIntervalHistogram();
+        var service = serviceTime.getIntervalHistogram();
+        totalResponse.add(response);
+        totalService.add(service);
+        out.printf("[%6.1fs] %d completed%n", elapsedNanos / 1e9, response.getTotalCount());
+        LoadReport.printHistogram(out, "response time", response);
+        LoadReport.printHistogram(out, "service time", service);
+    }
+
+    /**
+     * Waits up to a minute for queued purchases. Any still queued or running after that are abandoned and reported
+     * as unfinished.
+     */
+    private static void drain(ExecutorService workers) throws InterruptedException {
+        workers.shutdown();
+        if (!workers.awaitTermination(1, TimeUnit.MINUTES)) {
+            workers.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package uk.gov.dwp.uc.pairtest.loadtest;
+
+import java.time.Duration;
+
+/**
+ * @param ratePerSecond     Purchases offered per second, regardless of how quickly earlier ones complete
+ * @param duration          How long purchases are measured for
+ * @param warmup            How long purchases are offered before measuring starts
+ * @param workers           Threads calling the ticket service. Arrivals beyond what they can serve queue up, and
+ *                          the wait counts towards response time.
+ * @param poissonArrivals   {@code true} for exponentially distributed gaps between arrivals, {@code false} for
+ *                          evenly spaced ones
+ * @param reportInterval    How often a line of interim results is printed. Zero prints only the final report.
+ * @param seed              Seed for arrivals, orders and simulated latencies
+ */
+public record LoadProfile(int ratePerSecond, Duration duration, Duration warmup, int workers, boolean poissonArrivals,
+                          Duration reportInterval, long seed) {
+
+    public static final LoadProfile DEFAULT = new LoadProfile(1_000, Duration.ofSeconds(30), Duration.ofSeconds(10),
+            64, true, Duration.ofSeconds(5), 42);
+
+    public LoadProfile {
+        if (ratePerSecond <= 0 || workers <= 0) {
+            throw new IllegalArgumentException("ratePerSecond and workers must be positive");
+        }
+        if (duration.isNegative() || duration.isZero() || warmup.isNegative() || reportInterval.isNegative()) {
+            throw new IllegalArgumentException("duration must be positive, warmup and reportInterval non-negative");
+        }
+    }
+}
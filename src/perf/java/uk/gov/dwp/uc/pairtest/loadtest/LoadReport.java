@@ -0,0 +1,54 @@
+package uk.gov.dwp.uc.pairtest.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.PrintStream;
+import java.time.Duration;
+
+/**
+ * Outcome of a measured load run. Latencies are recorded in nanoseconds and printed in microseconds.
+ *
+ * @param offered       Purchases due to start within the measured period
+ * @param accepted      Purchases that completed
+ * @param rejected      Purchases refused with an {@link uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException}
+ * @param failed        Purchases that failed with any other exception
+ * @param unfinished    Purchases still queued or running when the generator stopped waiting for them. Their response
+ *                      times are missing from {@code responseTime}, so a run with any is overloaded whatever its
+ *                      percentiles say.
+ * @param elapsed       Length of the measured period
+ * @param responseTime  Time from when each purchase was due to start until it finished, including any queueing
+ * @param serviceTime   Time each purchase spent in the ticket service once a worker picked it up
+ * @param maxDispatchLagNanos   Furthest the generator fell behind its own schedule. If this is large the generator,
+ *                              not the service, was the bottleneck and the run should be repeated on a bigger box.
+ */
+public record LoadReport(long offered, long accepted, long rejected, long failed, long unfinished, Duration elapsed,
+                         Histogram responseTime, Histogram serviceTime, long maxDispatchLagNanos) {
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9, 99.99};
+
+    public double throughputPerSecond() {
+        return (accepted + rejected + failed) / (elapsed.toNanos() / 1e9);
+    }
+
+    public void print(PrintStream out) {
+        out.printf("offered %d, accepted %d, rejected %d, failed %d, unfinished %d in %.1fs (%.0f/s)%n", offered,
+                accepted, rejected, failed, unfinished, elapsed.toMillis() / 1e3, throughputPerSecond());
+        printHistogram(out, "response time", responseTime);
+        printHistogram(out, "service time", serviceTime);
+        out.printf("max dispatch lag %.1f us%n", maxDispatchLagNanos / 1e3);
+    }
+
+    static void printHistogram(PrintStream out, String name, Histogram histogram) {
+        var line = new StringBuilder(String.format("%-14s", name));
+        for (var percentile : PERCENTILES) {
+            line.append(String.format(" p%s=%.1f", formatPercentile(percentile),
+                    histogram.getValueAtPercentile(percentile) / 1e3));
+        }
+        line.append(String.format(" max=%.1f us", histogram.getMaxValue() / 1e3));
+        out.println(line);
+    }
+
+    private static String formatPercentile(double percentile) {
+        return percentile == Math.rint(percentile) ? Integer.toString((int) percentile) : Double.toString(percentile);
+    }
+}
@@ -0,0 +1,104 @@
+package uk.gov.dwp.uc.pairtest.loadtest;
+
+import uk.gov.dwp.uc.pairtest.PricingServiceImpl;
+import uk.gov.dwp.uc.pairtest.SeatingCalculatorServiceImpl;
+import uk.gov.dwp.uc.pairtest.TariffRegistry;
+import uk.gov.dwp.uc.pairtest.TicketServiceImpl;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Command line entry point. Arguments are {@code name=value} pairs, each overriding a default:
+ * <pre>
+ *   rate=1000 duration=30s warmup=10s workers=64 poisson=true interval=5s seed=42
+ *   invalid=0.05 maxLines=4 accounts=100000
+ *   paymentMedian=2ms paymentSigma=0.5 paymentFailure=0.001 spikeRate=0.001 spike=200ms
+ *   seatMedian=1ms seatSigma=0.3 seatFailure=0
+ * </pre>
+ * Durations take an {@code ms}, {@code s} or {@code m} suffix. For a soak test use a long duration and read the
+ * interim lines for drift.
+ */
+public final class LoadTest {
+
+    private LoadTest() {
+        throw new RuntimeException("Cannot instantiate this class");
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        var options = parse(args);
+        var defaults = LoadProfile.DEFAULT;
+        var profile = new LoadProfile(
+                intOption(options, "rate", defaults.ratePerSecond()),
+                durationOption(options, "duration", defaults.duration()),
+                durationOption(options, "warmup", defaults.warmup()),
+                intOption(options, "workers", defaults.workers()),
+                Boolean.parseBoolean(options.getOrDefault("poisson", Boolean.toString(defaults.poissonArrivals()))),
+                durationOption(options, "interval", defaults.reportInterval()),
+                Long.parseLong(options.getOrDefault("seed", Long.toString(defaults.seed()))));
+        var mix = new OrderMix(OrderMix.DEFAULT.adultWeight(), OrderMix.DEFAULT.childWeight(),
+                OrderMix.DEFAULT.infantWeight(), intOption(options, "maxLines", OrderMix.DEFAULT.maxLines()),
+                doubleOption(options, "invalid", OrderMix.DEFAULT.invalidShare()),
+                intOption(options, "accounts", OrderMix.DEFAULT.accounts()));
+
+        var paymentLatency = LatencyModel.logNormal(durationOption(options, "paymentMedian", Duration.ofMillis(2)),
+                        doubleOption(options, "paymentSigma", 0.5))
+                .withSpikes(doubleOption(options, "spikeRate", 0.001), durationOption(options, "spike",
+                        Duration.ofMillis(200)));
+        var seatLatency = LatencyModel.logNormal(durationOption(options, "seatMedian", Duration.ofMillis(1)),
+                doubleOption(options, "seatSigma", 0.3));
+        var payments = new SimulatedDownstream(paymentLatency, doubleOption(options, "paymentFailure", 0.001),
+                profile.seed());
+        var seats = new SimulatedDownstream(seatLatency, doubleOption(options, "seatFailure", 0), profile.seed() + 1);
+
+        var ticketService = TicketServiceImpl.builder(
+                new TariffRegistry(new PricingServiceImpl(), new SeatingCalculatorServiceImpl()), payments, seats)
+                .build();
+        System.out.printf("Offering %d purchases/s for %s after %s warm-up on %d workers%n",
+                profile.ratePerSecond(), profile.duration(), profile.warmup(), profile.workers());
+        var report = new LoadGenerator(ticketService, mix, profile, System.out).run();
+        report.print(System.out);
+        System.out.printf("payment calls %d (%d failed), seat calls %d (%d failed)%n", payments.calls(),
+                payments.failures(), seats.calls(), seats.failures());
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        var options = new HashMap<String, String>();
+        for (var arg : args) {
+            var separator = arg.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Expected name=value but got " + arg);
+            }
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        return options;
+    }
+
+    private static int intOption(Map<String, String> options, String name, int defaultValue) {
+        var value = options.get(name);
+        return value == null ? defaultValue : Integer.parseInt(value);
+    }
+
+    private static double doubleOption(Map<String, String> options, String name, double defaultValue) {
+        var value = options.get(name);
+        return value == null ? defaultValue : Double.parseDouble(value);
+    }
+
+    private static Duration durationOption(Map<String, String> options, String name, Duration defaultValue) {
+        var value = options.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        if (value.endsWith("s")) {
+            return Duration.ofSeconds(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        if (value.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        throw new IllegalArgumentException("Expected a duration such as 500ms, 30s or 5m for " + name);
+    }
+}
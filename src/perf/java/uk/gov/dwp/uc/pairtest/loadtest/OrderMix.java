@@ -0,0 +1,73 @@
+package uk.gov.dwp.uc.pairtest.loadtest;
+
+import uk.gov.dwp.uc.pairtest.domain.TicketPurchaseRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Generates purchase requests resembling real traffic.
+ * <p>
+ * A valid order has one adult line followed by up to {@code maxLines - 1} further lines drawn by weight from the
+ * ticket types, trimmed so it never exceeds the 20 ticket limit. An invalid order is one of the ways real clients get
+ * it wrong: a bad account id, no adult, or too many tickets.
+ *
+ * @param adultWeight   Relative share of extra lines that are adult tickets
+ * @param childWeight   Relative share of extra lines that are child tickets
+ * @param infantWeight  Relative share of extra lines that are infant tickets
+ * @param maxLines      Most lines in a valid order
+ * @param invalidShare  Share of orders, between 0 and 1, that should be rejected
+ * @param accounts      Distinct account ids to spread orders over
+ */
+public record OrderMix(int adultWeight, int childWeight, int infantWeight, int maxLines, double invalidShare,
+                       int accounts) {
+
+    private static final int MAX_TICKETS = 20;
+
+    public static final OrderMix DEFAULT = new OrderMix(6, 3, 1, 4, 0.05, 100_000);
+
+    public OrderMix {
+        if (adultWeight < 0 || childWeight < 0 || infantWeight < 0 || adultWeight + childWeight + infantWeight == 0) {
+            throw new IllegalArgumentException("ticket type weights must be non-negative and not all zero");
+        }
+        if (maxLines <= 0 || accounts <= 0 || invalidShare < 0 || invalidShare > 1) {
+            throw new IllegalArgumentException("maxLines and accounts must be positive, invalidShare within [0, 1]");
+        }
+    }
+
+    public TicketPurchaseRequest next(SplittableRandom random) {
+        var accountId = 1 + random.nextInt(accounts);
+        if (random.nextDouble() < invalidShare) {
+            return invalid(random, accountId);
+        }
+        var lines = 1 + random.nextInt(maxLines);
+        var tickets = new ArrayList<TicketRequest>(lines);
+        var remaining = MAX_TICKETS;
+        for (int i = 0; i < lines && remaining > 0; i++) {
+            var type = i == 0 ? TicketRequest.Type.ADULT : nextType(random);
+            var count = Math.min(remaining, 1 + random.nextInt(3));
+            tickets.add(TicketRequest.of(type, count));
+            remaining -= count;
+        }
+        return new TicketPurchaseRequest(accountId, List.copyOf(tickets));
+    }
+
+    private TicketPurchaseRequest invalid(SplittableRandom random, long accountId) {
+        return switch (random.nextInt(3)) {
+            case 0 -> new TicketPurchaseRequest(0, List.of(new TicketRequest(TicketRequest.Type.ADULT, 1)));
+            case 1 -> new TicketPurchaseRequest(accountId, List.of(new TicketRequest(TicketRequest.Type.CHILD, 2)));
+            default -> new TicketPurchaseRequest(accountId,
+                    List.of(new TicketRequest(TicketRequest.Type.ADULT, MAX_TICKETS + 1)));
+        };
+    }
+
+    private TicketRequest.Type nextType(SplittableRandom random) {
+        var pick = random.nextInt(adultWeight + childWeight + infantWeight);
+        if (pick < adultWeight) {
+            return TicketRequest.Type.ADULT;
+        }
+        return pick < adultWeight + childWeight ? TicketRequest.Type.CHILD : TicketRequest.Type.INFANT;
+    }
+}
@@ -0,0 +1,65 @@
+package uk.gov.dwp.uc.pairtest.loadtest;
+
+import thirdparty.paymentgateway.TicketPaymentService;
+import thirdparty.seatbooking.SeatReservationService;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Stand-in for the payment gateway or booking system that takes a sampled time to answer and fails a share of calls.
+ * <p>
+ * Each calling thread draws from its own random stream, split from one seed, so runs are repeatable for a given
+ * thread count without the threads contending on a shared generator.
+ */
+public class SimulatedDownstream implements TicketPaymentService, SeatReservationService {
+
+    private final LatencyModel latency;
+    private final double failureRate;
+    private final ThreadLocal<SplittableRandom> random;
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    public SimulatedDownstream(LatencyModel latency, double failureRate, long seed) {
+        this.latency = latency;
+        this.failureRate = failureRate;
+        var seeds = new SplittableRandom(seed);
+        this.random = ThreadLocal.withInitial(() -> {
+            synchronized (seeds) {
+                return seeds.split();
+            }
+        });
+    }
+
+    @Override
+    public void makePayment(long accountId, int totalAmountToPay) {
+        call();
+    }
+
+    @Override
+    public void reserveSeat(long accountId, int totalSeatsToAllocate) {
+        call();
+    }
+
+    public long calls() {
+        return calls.sum();
+    }
+
+    public long failures() {
+        return failures.sum();
+    }
+
+    private void call() {
+        calls.increment();
+        var threadRandom = random.get();
+        var nanos = latency.sampleNanos(threadRandom);
+        if (nanos > 0) {
+            LockSupport.parkNanos(nanos);
+        }
+        if (failureRate > 0 && threadRandom.nextDouble() < failureRate) {
+            failures.increment();
+            throw new IllegalStateException("Simulated downstream failure");
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package uk.gov.dwp.uc.pairtest;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import thirdparty.paymentgateway.TicketPaymentService;
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.exception.ExcessiveTicketException;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.exception.NoAdultPresentException;
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+import uk.gov.dwp.uc.pairtest.exception.Rejections;
+
+import java.util.List;
+
+import static org.mockito.Mockito.mock;
+import static uk.gov.dwp.uc.pairtest.TicketServiceHelper.*;
+
+public class NonThrowingTicketServiceTest {
+
+    private TicketServiceImpl impl;
+    private NonThrowingTicketService nonThrowing;
+
+    @BeforeEach
+    void setUp() {
+        impl = TicketServiceImpl.builder(new TariffRegistry(new PricingServiceImpl(), new SeatingCalculatorServiceImpl()),
+                        mock(TicketPaymentService.class), mock(SeatReservationService.class))
+                .cachedRejections(true)
+                .build();
+        nonThrowing = NonThrowingTicketService.of(impl);
+    }
+
+    @Test
+    void acceptsValidPurchase() {
+        Assertions.assertSame(PurchaseOutcome.ACCEPTED,
+                nonThrowing.tryPurchaseTickets(makeRequestWithId(1, List.of(makeOneAdultTicket()))));
+    }
+
+    @Test
+    void reportsRejectionReasons() {
+        Assertions.assertEquals(RejectionReason.INVALID_REQUEST,
+                nonThrowing.tryPurchaseTickets(null).getRejectionReason());
+        Assertions.assertEquals(RejectionReason.INVALID_ACCOUNT,
+                nonThrowing.tryPurchaseTickets(makeRequestWithId(0, List.of(makeOneAdultTicket())))
+                        .getRejectionReason());
+        Assertions.assertEquals(RejectionReason.NEGATIVE_TICKETS,
+                nonThrowing.tryPurchaseTickets(makeValidRequest(List.of(makeOneInvalidAdultTicket())))
+                        .getRejectionReason());
+        Assertions.assertEquals(RejectionReason.EXCESSIVE_TICKETS,
+                nonThrowing.tryPurchaseTickets(makeValidRequest(List.of(makeMultiAdultTicket(21))))
+                        .getRejectionReason());
+        Assertions.assertEquals(RejectionReason.NO_ADULT_PRESENT,
+                nonThrowing.tryPurchaseTickets(makeValidRequest(List.of(makeOneChildTicket())))
+                        .getRejectionReason());
+    }
+
+    @Test
+    void cachedRejectionsAreSharedAndStackless() {
+        var first = Assertions.assertThrows(NoAdultPresentException.class,
+                () -> impl.purchaseTickets(makeValidRequest(List.of(makeOneChildTicket()))));
+        var second = Assertions.assertThrows(NoAdultPresentException.class,
+                () -> impl.purchaseTickets(makeValidRequest(List.of(makeOneInfantTicket()))));
+
+        Assertions.assertSame(first, second);
+        Assertions.assertEquals(0, first.getStackTrace().length);
+    }
+
+    @Test
+    void createdRejectionsKeepTheirSubtypeAndStackTrace() {
+        InvalidPurchaseException excessive = Rejections.create(RejectionReason.EXCESSIVE_TICKETS);
+
+        Assertions.assertInstanceOf(ExcessiveTicketException.class, excessive);
+        Assertions.assertNotSame(excessive, Rejections.create(RejectionReason.EXCESSIVE_TICKETS));
+        Assertions.assertTrue(excessive.getStackTrace().length > 0);
+    }
+}
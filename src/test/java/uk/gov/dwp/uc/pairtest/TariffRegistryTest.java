@@ -0,0 +1,74 @@
+package uk.gov.dwp.uc.pairtest;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import thirdparty.paymentgateway.TicketPaymentService;
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.domain.TicketRequest;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static uk.gov.dwp.uc.pairtest.TicketServiceHelper.*;
+
+public class TariffRegistryTest {
+
+    private static final int ACCOUNT_ID = 1234;
+
+    private PricingService pricingService;
+    private TicketPaymentService ticketPaymentService;
+    private TariffRegistry tariffRegistry;
+    private TicketServiceImpl impl;
+
+    @BeforeEach
+    void setUp() {
+        pricingService = mock(PricingService.class);
+        when(pricingService.getPrice(any())).thenAnswer(i -> new PricingServiceImpl().getPrice(i.getArgument(0)));
+        ticketPaymentService = mock(TicketPaymentService.class);
+        tariffRegistry = new TariffRegistry(pricingService, new SeatingCalculatorServiceImpl());
+        impl = TicketServiceImpl.builder(tariffRegistry, ticketPaymentService, mock(SeatReservationService.class))
+                .build();
+    }
+
+    @Test
+    void compilesPricesAndSeatsForEveryType() {
+        var tariff = tariffRegistry.current();
+        Assertions.assertEquals(20, tariff.getPrice(TicketRequest.Type.ADULT));
+        Assertions.assertEquals(10, tariff.getPrice(TicketRequest.Type.CHILD));
+        Assertions.assertEquals(0, tariff.getPrice(TicketRequest.Type.INFANT));
+        Assertions.assertEquals(1, tariff.getSeatReservationCount(TicketRequest.Type.ADULT));
+        Assertions.assertEquals(0, tariff.getSeatReservationCount(TicketRequest.Type.INFANT));
+    }
+
+    @Test
+    void consultsPricingServiceOnlyWhenCompiling() {
+        impl.purchaseTickets(makeRequestWithId(ACCOUNT_ID, List.of(makeOneAdultTicket(), makeOneChildTicket())));
+        impl.purchaseTickets(makeRequestWithId(ACCOUNT_ID, List.of(makeOneAdultTicket(), makeOneChildTicket())));
+        verify(pricingService, times(TicketRequest.Type.values().length)).getPrice(any());
+    }
+
+    @Test
+    void reloadPicksUpNewPrices() {
+        impl.purchaseTickets(makeRequestWithId(ACCOUNT_ID, List.of(makeOneAdultTicket())));
+        when(pricingService.getPrice(TicketRequest.Type.ADULT)).thenReturn(25);
+        tariffRegistry.reload();
+        impl.purchaseTickets(makeRequestWithId(ACCOUNT_ID, List.of(makeOneAdultTicket())));
+
+        var order = inOrder(ticketPaymentService);
+        order.verify(ticketPaymentService).makePayment(ACCOUNT_ID, 20);
+        order.verify(ticketPaymentService).makePayment(ACCOUNT_ID, 25);
+    }
+
+    @Test
+    void publishReplacesTariffWithoutConsultingServices() {
+        var flatPricing = mock(PricingService.class);
+        when(flatPricing.getPrice(any())).thenReturn(5);
+        tariffRegistry.publish(Tariff.compile(flatPricing, new SeatingCalculatorServiceImpl()));
+        impl.purchaseTickets(makeRequestWithId(ACCOUNT_ID, List.of(makeMultiAdultTicket(2))));
+
+        verify(ticketPaymentService).makePayment(ACCOUNT_ID, 10);
+        verifyNoInteractions(pricingService);
+    }
+}
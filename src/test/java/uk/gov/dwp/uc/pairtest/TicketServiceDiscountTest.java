@@ -0,0 +1,73 @@
+package uk.gov.dwp.uc.pairtest;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import thirdparty.discount.Discount;
+import thirdparty.discount.DiscountService;
+import thirdparty.discount.exception.InvalidDiscountCodeException;
+import thirdparty.paymentgateway.TicketPaymentService;
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.domain.TicketPurchaseRequest;
+import uk.gov.dwp.uc.pairtest.exception.InvalidDiscountException;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+import static uk.gov.dwp.uc.pairtest.TicketServiceHelper.*;
+
+public class TicketServiceDiscountTest {
+
+    private static final int ACCOUNT_ID = 1234;
+
+    private final TariffRegistry tariffRegistry =
+            new TariffRegistry(new PricingServiceImpl(), new SeatingCalculatorServiceImpl());
+
+    private TicketPaymentService ticketPaymentService;
+    private DiscountService discountService;
+    private TicketServiceImpl impl;
+
+    @BeforeEach
+    void setUp() {
+        ticketPaymentService = mock(TicketPaymentService.class);
+        discountService = mock(DiscountService.class);
+        impl = TicketServiceImpl.builder(tariffRegistry, ticketPaymentService, mock(SeatReservationService.class))
+                .discountService(discountService)
+                .build();
+    }
+
+    @Test
+    void appliesDiscountToTotal() {
+        when(discountService.getDiscountPercentage(ACCOUNT_ID, "SUMMER")).thenReturn(new Discount(25));
+        impl.purchaseTickets(new TicketPurchaseRequest(ACCOUNT_ID,
+                List.of(makeMultiAdultTicket(2), makeOneChildTicket()), "SUMMER"));
+        verify(ticketPaymentService).makePayment(ACCOUNT_ID, 37);
+    }
+
+    @Test
+    void rejectsInvalidCodeBeforePayment() {
+        when(discountService.getDiscountPercentage(anyLong(), eq("BOGUS")))
+                .thenThrow(new InvalidDiscountCodeException("BOGUS"));
+        Assertions.assertThrows(InvalidDiscountException.class,
+                () -> impl.purchaseTickets(new TicketPurchaseRequest(ACCOUNT_ID, List.of(makeOneAdultTicket()),
+                        "BOGUS")));
+        verifyNoInteractions(ticketPaymentService);
+    }
+
+    @Test
+    void rejectsCodeWhenDiscountsAreNotConfigured() {
+        var withoutDiscounts = TicketServiceImpl.builder(tariffRegistry, ticketPaymentService,
+                mock(SeatReservationService.class)).build();
+        Assertions.assertThrows(InvalidDiscountException.class,
+                () -> withoutDiscounts.purchaseTickets(new TicketPurchaseRequest(ACCOUNT_ID,
+                        List.of(makeOneAdultTicket()), "SUMMER")));
+    }
+
+    @Test
+    void ignoresDiscountServiceWithoutCode() {
+        impl.purchaseTickets(makeRequestWithId(ACCOUNT_ID, List.of(makeOneAdultTicket())));
+        verify(ticketPaymentService).makePayment(ACCOUNT_ID, 20);
+        verifyNoInteractions(discountService);
+    }
+}
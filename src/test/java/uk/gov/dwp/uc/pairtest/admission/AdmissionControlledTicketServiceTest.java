@@ -0,0 +1,128 @@
+package uk.gov.dwp.uc.pairtest.admission;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import uk.gov.dwp.uc.pairtest.TicketService;
+import uk.gov.dwp.uc.pairtest.exception.DuplicatePurchaseException;
+import uk.gov.dwp.uc.pairtest.exception.NoAdultPresentException;
+import uk.gov.dwp.uc.pairtest.exception.OutcomeUnknownException;
+import uk.gov.dwp.uc.pairtest.exception.RateLimitedException;
+import uk.gov.dwp.uc.pairtest.exception.UnfulfilledPurchaseException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static uk.gov.dwp.uc.pairtest.TicketServiceHelper.*;
+
+public class AdmissionControlledTicketServiceTest {
+
+    private long now;
+    private TicketService delegate;
+    private AdmissionControlledTicketService impl;
+
+    @BeforeEach
+    void setUp() {
+        delegate = mock(TicketService.class);
+        impl = new AdmissionControlledTicketService(delegate,
+                new AdmissionConfig(2, 1, Duration.ofSeconds(10), 16, false), () -> now);
+    }
+
+    @Test
+    void rejectsIdenticalRequestWithinWindow() {
+        impl.purchaseTickets(makeRequestWithId(1, List.of(makeOneAdultTicket())));
+        Assertions.assertThrows(DuplicatePurchaseException.class,
+                () -> impl.purchaseTickets(makeRequestWithId(1, List.of(makeOneAdultTicket()))));
+        verify(delegate, times(1)).purchaseTickets(any());
+    }
+
+    @Test
+    void admitsIdenticalRequestAfterWindow() {
+        impl.purchaseTickets(makeRequestWithId(1, List.of(makeOneAdultTicket())));
+        now += TimeUnit.SECONDS.toNanos(11);
+        impl.purchaseTickets(makeRequestWithId(1, List.of(makeOneAdultTicket())));
+        verify(delegate, times(2)).purchaseTickets(any());
+    }
+
+    @Test
+    void admitsRetryOfFailedRequest() {
+        doThrow(new NoAdultPresentException()).doNothing().when(delegate).purchaseTickets(any());
+        Assertions.assertThrows(NoAdultPresentException.class,
+                () -> impl.purchaseTickets(makeRequestWithId(1, List.of(makeOneAdultTicket()))));
+        impl.purchaseTickets(makeRequestWithId(1, List.of(makeOneAdultTicket())));
+        verify(delegate, times(2)).purchaseTickets(any());
+    }
+
+    @Test
+    void turnsAwayRetriesOfPurchasesThatMayHaveBeenCharged() {
+        doThrow(new OutcomeUnknownException("timed out")).when(delegate).purchaseTickets(any());
+        Assertions.assertThrows(OutcomeUnknownException.class,
+                () -> impl.purchaseTickets(makeRequestWithId(1, List.of(makeOneAdultTicket()))));
+        Assertions.assertThrows(DuplicatePurchaseException.class,
+                () -> impl.purchaseTickets(makeRequestWithId(1, List.of(makeOneAdultTicket()))));
+
+        doThrow(new UnfulfilledPurchaseException("hold lapsed", null, 20, 1)).when(delegate).purchaseTickets(any());
+        Assertions.assertThrows(UnfulfilledPurchaseException.class,
+                () -> impl.purchaseTickets(makeRequestWithId(2, List.of(makeOneAdultTicket()))));
+        Assertions.assertThrows(DuplicatePurchaseException.class,
+                () -> impl.purchaseTickets(makeRequestWithId(2, List.of(makeOneAdultTicket()))));
+        verify(delegate, times(2)).purchaseTickets(any());
+    }
+
+    @Test
+    void rateLimitsBurstsAndRefillsOverTime() {
+        impl.purchaseTickets(makeRequestWithId(1, List.of(makeOneAdultTicket())));
+        impl.purchaseTickets(makeRequestWithId(1, List.of(makeMultiAdultTicket(2))));
+        Assertions.assertThrows(RateLimitedException.class,
+                () -> impl.purchaseTickets(makeRequestWithId(1, List.of(makeMultiAdultTicket(3)))));
+
+        impl.purchaseTickets(makeRequestWithId(2, List.of(makeMultiAdultTicket(3))));
+
+        now += TimeUnit.SECONDS.toNanos(1);
+        impl.purchaseTickets(makeRequestWithId(1, List.of(makeMultiAdultTicket(3))));
+        verify(delegate, times(4)).purchaseTickets(any());
+    }
+
+    @Test
+    void collidingAccountsCannotResetAnExhaustedBucket() {
+        var colliding = new AdmissionControlledTicketService(delegate,
+                new AdmissionConfig(2, 1, Duration.ofSeconds(10), 1, false), () -> now);
+        colliding.purchaseTickets(makeRequestWithId(1, List.of(makeOneAdultTicket())));
+        colliding.purchaseTickets(makeRequestWithId(1, List.of(makeMultiAdultTicket(2))));
+
+        for (long accountId = 2; accountId <= 20; accountId++) {
+            var request = makeRequestWithId(accountId, List.of(makeOneAdultTicket()));
+            try {
+                colliding.purchaseTickets(request);
+                colliding.purchaseTickets(makeRequestWithId(accountId, List.of(makeMultiAdultTicket(2))));
+            } catch (RateLimitedException ignored) {
+            }
+        }
+
+        Assertions.assertThrows(RateLimitedException.class,
+                () -> colliding.purchaseTickets(makeRequestWithId(1, List.of(makeMultiAdultTicket(3)))));
+        now += TimeUnit.SECONDS.toNanos(1);
+        colliding.purchaseTickets(makeRequestWithId(1, List.of(makeMultiAdultTicket(3))));
+    }
+
+    @Test
+    void keepsInFlightRequestsThroughASweepWhateverTheClockReads() {
+        now = -TimeUnit.DAYS.toNanos(1);
+        var request = makeRequestWithId(1, List.of(makeOneAdultTicket()));
+        doAnswer(invocation -> {
+            impl.sweep();
+            Assertions.assertThrows(DuplicatePurchaseException.class, () -> impl.purchaseTickets(request));
+            return null;
+        }).doNothing().when(delegate).purchaseTickets(any());
+
+        impl.purchaseTickets(request);
+
+        now += TimeUnit.SECONDS.toNanos(11);
+        impl.sweep();
+        impl.purchaseTickets(request);
+        verify(delegate, times(2)).purchaseTickets(any());
+    }
+}
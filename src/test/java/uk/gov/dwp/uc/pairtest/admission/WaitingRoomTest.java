@@ -0,0 +1,203 @@
+package uk.gov.dwp.uc.pairtest.admission;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import thirdparty.paymentgateway.TicketPaymentService;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.exception.QueueFullException;
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static uk.gov.dwp.uc.pairtest.TicketServiceHelper.*;
+
+public class WaitingRoomTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    void admitsBuyersInArrivalOrderAtTheRate() throws Exception {
+        var room = new WaitingRoom(config(10, 100, Duration.ofSeconds(10)), clock::get);
+        var positions = new ArrayList<Long>();
+        for (int i = 0; i < 5; i++) {
+            positions.add(room.enter());
+        }
+        Assertions.assertEquals(List.of(1L, 2L, 3L, 4L, 5L), positions);
+        Assertions.assertEquals(Duration.ofMillis(500), room.estimatedWait(5));
+
+        tick(room, 100);
+        Assertions.assertTrue(room.isAdmitted(1));
+        Assertions.assertFalse(room.isAdmitted(2));
+        tick(room, 100);
+        Assertions.assertTrue(room.isAdmitted(2));
+        Assertions.assertFalse(room.isAdmitted(3));
+        Assertions.assertEquals(Duration.ZERO, room.estimatedWait(2));
+        Assertions.assertEquals(3, room.queueLength());
+        Assertions.assertEquals(2, room.inFlight());
+    }
+
+    @Test
+    void admitsNoMoreThanTheInFlightLimit() {
+        var room = new WaitingRoom(config(100, 2, Duration.ofSeconds(10)), clock::get);
+        for (int i = 0; i < 3; i++) {
+            room.enter();
+        }
+
+        tick(room, 1_000);
+        Assertions.assertTrue(room.isAdmitted(2));
+        Assertions.assertFalse(room.isAdmitted(3));
+
+        Assertions.assertTrue(room.redeem(1));
+        room.finished();
+        Assertions.assertFalse(room.isAdmitted(3));
+        tick(room, 0);
+        Assertions.assertTrue(room.isAdmitted(3));
+        Assertions.assertEquals(2, room.inFlight());
+    }
+
+    @Test
+    void takesBackAdmissionsThatAreNotRedeemedInTime() {
+        var room = new WaitingRoom(config(100, 1, Duration.ofSeconds(10)), clock::get);
+        var service = new WaitingRoomTicketService(request -> { }, room);
+        var first = service.enter();
+        var second = service.enter();
+        Assertions.assertFalse(first.admitted());
+
+        var thrown = Assertions.assertThrows(InvalidPurchaseException.class,
+                () -> service.redeem(first.id(), makeRequestWithId(1, List.of(makeOneAdultTicket()))));
+        Assertions.assertEquals(RejectionReason.NOT_ADMITTED, thrown.getReason());
+        tick(room, 100);
+        Assertions.assertTrue(service.poll(first.id()).admitted());
+        Assertions.assertFalse(service.poll(second.id()).admitted());
+
+        tick(room, 30_000);
+        Assertions.assertEquals(1, room.lapsedAdmissions());
+        Assertions.assertTrue(service.poll(second.id()).admitted());
+        Assertions.assertThrows(InvalidPurchaseException.class,
+                () -> service.redeem(first.id(), makeRequestWithId(1, List.of(makeOneAdultTicket()))));
+        service.redeem(second.id(), makeRequestWithId(2, List.of(makeOneAdultTicket())));
+        Assertions.assertEquals(0, room.inFlight());
+    }
+
+    @Test
+    void onlyRedeemsTokensTheServiceIssued() {
+        var room = new WaitingRoom(config(100, 10, Duration.ofSeconds(10)), clock::get);
+        var service = new WaitingRoomTicketService(request -> { }, room);
+        var other = new WaitingRoomTicketService(request -> { }, room);
+        var first = service.enter();
+        var second = service.enter();
+        tick(room, 100);
+        Assertions.assertTrue(service.poll(first.id()).admitted());
+
+        for (var forged : List.of("1", first.id().substring(1), other.enter().id(), second.id() + "A")) {
+            var thrown = Assertions.assertThrows(InvalidPurchaseException.class,
+                    () -> service.redeem(forged, makeRequestWithId(3, List.of(makeOneAdultTicket()))));
+            Assertions.assertEquals(RejectionReason.NOT_ADMITTED, thrown.getReason());
+        }
+        Assertions.assertThrows(InvalidPurchaseException.class, () -> service.poll("not-a-token"));
+        service.redeem(first.id(), makeRequestWithId(1, List.of(makeOneAdultTicket())));
+        service.redeem(second.id(), makeRequestWithId(2, List.of(makeOneAdultTicket())));
+        Assertions.assertEquals(0, room.inFlight());
+    }
+
+    @Test
+    void turnsAwayBuyersWhoseWaitWouldBeTooLong() {
+        var room = new WaitingRoom(config(10, 100, Duration.ofSeconds(1)), clock::get);
+        for (int i = 0; i < 10; i++) {
+            room.enter();
+        }
+
+        Assertions.assertThrows(QueueFullException.class, room::enter);
+        Assertions.assertEquals(1, room.rejected());
+        Assertions.assertEquals(10, room.queueLength());
+        tick(room, 100);
+        tick(room, 100);
+        var late = room.enter();
+        Assertions.assertEquals(11, late);
+        for (int i = 0; i < 8; i++) {
+            tick(room, 100);
+        }
+        Assertions.assertFalse(room.isAdmitted(late));
+        tick(room, 100);
+        Assertions.assertTrue(room.isAdmitted(late));
+        Assertions.assertEquals(11, room.inFlight());
+    }
+
+    @Test
+    void raisesTheRateWhilePaymentsAreFastAndCutsItWhenTheyAreNot() {
+        var room = new WaitingRoom(config(100, 100, Duration.ofSeconds(10)), clock::get);
+        var latency = new AtomicLong(TimeUnit.MILLISECONDS.toNanos(10));
+        TicketPaymentService gateway = (accountId, amount) -> clock.addAndGet(latency.get());
+        var payments = new MeasuredTicketPaymentService(gateway, room, clock::get);
+
+        payments.makePayment(1, 20);
+        tick(room, 1_000);
+        Assertions.assertEquals(110, room.currentRate());
+
+        latency.set(TimeUnit.SECONDS.toNanos(1));
+        payments.makePayment(1, 20);
+        tick(room, 1_000);
+        Assertions.assertEquals(77, room.currentRate(), 0.001);
+
+        tick(room, 1_000);
+        Assertions.assertEquals(77, room.currentRate(), 0.001);
+        for (int i = 0; i < 10; i++) {
+            payments.makePayment(1, 20);
+            tick(room, 1_000);
+        }
+        Assertions.assertEquals(10, room.currentRate());
+    }
+
+    @Test
+    void keepsPurchasesWithinTheInFlightLimitUnderLoad() throws Exception {
+        var config = new WaitingRoomConfig(1_000, 100, 10_000, 100, 0.7, Duration.ofMillis(250),
+                Duration.ofMillis(100), 4, Duration.ofSeconds(10), Duration.ofSeconds(10), Duration.ofMillis(1), false);
+        var running = new AtomicInteger();
+        var mostRunning = new AtomicInteger();
+        var completed = new AtomicInteger();
+        try (var room = new WaitingRoom(config)) {
+            var service = new WaitingRoomTicketService(request -> {
+                mostRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                Thread.onSpinWait();
+                running.decrementAndGet();
+                completed.incrementAndGet();
+            }, room);
+            ExecutorService executor = Executors.newFixedThreadPool(16);
+            for (int i = 0; i < 200; i++) {
+                long accountId = i + 1;
+                executor.execute(() -> {
+                    var token = service.enter();
+                    while (!token.admitted()) {
+                        LockSupport.parkNanos(token.estimatedWait().toNanos() + 100_000);
+                        token = service.poll(token.id());
+                    }
+                    service.redeem(token.id(), makeRequestWithId(accountId, List.of(makeOneAdultTicket())));
+                });
+            }
+            executor.shutdown();
+            Assertions.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+            Assertions.assertEquals(200, completed.get());
+            Assertions.assertTrue(mostRunning.get() <= 4);
+            Assertions.assertEquals(0, room.inFlight());
+        }
+    }
+
+    private void tick(WaitingRoom room, long millis) {
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+        room.advance();
+    }
+
+    private static WaitingRoomConfig config(int rate, int maxInFlight, Duration maxWait) {
+        return new WaitingRoomConfig(rate, 10, 1_000, 10, 0.7, Duration.ofMillis(250), Duration.ofSeconds(1),
+                maxInFlight, maxWait, Duration.ofSeconds(30), Duration.ofMillis(10), false);
+    }
+}
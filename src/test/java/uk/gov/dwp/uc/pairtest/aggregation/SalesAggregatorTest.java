@@ -0,0 +1,110 @@
+package uk.gov.dwp.uc.pairtest.aggregation;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import thirdparty.paymentgateway.TicketPaymentService;
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.PricingServiceImpl;
+import uk.gov.dwp.uc.pairtest.SeatingCalculatorServiceImpl;
+import uk.gov.dwp.uc.pairtest.TariffRegistry;
+import uk.gov.dwp.uc.pairtest.TicketServiceImpl;
+import uk.gov.dwp.uc.pairtest.domain.TicketPurchaseRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketRequest;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.Mockito.mock;
+import static uk.gov.dwp.uc.pairtest.TicketServiceHelper.*;
+
+public class SalesAggregatorTest {
+
+    private final AtomicLong clock = new AtomicLong(1_000_000);
+    private final SalesAggregator aggregator = new SalesAggregator(new AggregationConfig(Duration.ofSeconds(10), 6),
+            clock::get);
+    private final TicketServiceImpl ticketService = TicketServiceImpl.builder(
+                    new TariffRegistry(new PricingServiceImpl(), new SeatingCalculatorServiceImpl()),
+                    mock(TicketPaymentService.class), mock(SeatReservationService.class))
+            .listener(aggregator)
+            .build();
+
+    @Test
+    void countsAcceptedPurchasesByPerformanceAndType() {
+        purchase(1, List.of(makeMultiAdultTicket(2), makeOneChildTicket(), makeOneInfantTicket()));
+        purchase(2, List.of(makeOneAdultTicket()));
+        Assertions.assertThrows(InvalidPurchaseException.class,
+                () -> purchase(1, List.of(makeOneChildTicket())));
+
+        var first = aggregator.totals(1);
+        Assertions.assertEquals(1, first.orders());
+        Assertions.assertEquals(2, first.tickets(TicketRequest.Type.ADULT));
+        Assertions.assertEquals(1, first.tickets(TicketRequest.Type.CHILD));
+        Assertions.assertEquals(1, first.tickets(TicketRequest.Type.INFANT));
+        Assertions.assertEquals(50, first.revenue());
+        Assertions.assertEquals(3, first.seats());
+
+        var all = aggregator.totals();
+        Assertions.assertEquals(2, all.orders());
+        Assertions.assertEquals(3, all.tickets(TicketRequest.Type.ADULT));
+        Assertions.assertEquals(70, all.revenue());
+        Assertions.assertEquals(Set.of(1L, 2L), aggregator.performanceIds());
+        Assertions.assertEquals(0, aggregator.totals(3).orders());
+    }
+
+    @Test
+    void slidingWindowDropsBucketsThatHaveAgedOut() {
+        purchase(1, List.of(makeOneAdultTicket()));
+        clock.addAndGet(20_000);
+        purchase(1, List.of(makeMultiAdultTicket(2)));
+
+        Assertions.assertEquals(2, aggregator.sliding(1, Duration.ofSeconds(10)).sales().tickets(TicketRequest.Type.ADULT));
+        Assertions.assertEquals(3, aggregator.sliding(1, Duration.ofSeconds(30)).sales().tickets(TicketRequest.Type.ADULT));
+
+        clock.addAndGet(60_000);
+        Assertions.assertEquals(0, aggregator.sliding(Duration.ofMinutes(1)).sales().orders());
+        Assertions.assertEquals(2, aggregator.totals().orders());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> aggregator.sliding(Duration.ofMinutes(2)));
+    }
+
+    @Test
+    void tumblingWindowsListCompletedBucketsMostRecentFirst() {
+        purchase(1, List.of(makeOneAdultTicket()));
+        clock.addAndGet(10_000);
+        purchase(1, List.of(makeMultiAdultTicket(3)));
+        clock.addAndGet(10_000);
+
+        var windows = aggregator.tumbling(1, 3);
+
+        Assertions.assertEquals(3, windows.size());
+        Assertions.assertEquals(3, windows.get(0).sales().tickets(TicketRequest.Type.ADULT));
+        Assertions.assertEquals(1, windows.get(1).sales().tickets(TicketRequest.Type.ADULT));
+        Assertions.assertEquals(0, windows.get(2).sales().orders());
+        Assertions.assertEquals(1_010_000, windows.get(0).startMillis());
+        Assertions.assertEquals(1_020_000, windows.get(0).endMillis());
+    }
+
+    @Test
+    void keepsEveryPurchaseUnderConcurrentWriters() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 4_000; i++) {
+            long performanceId = i % 4;
+            executor.execute(() -> purchase(performanceId, List.of(makeOneAdultTicket(), makeOneChildTicket())));
+        }
+        executor.shutdown();
+        Assertions.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        Assertions.assertEquals(4_000, aggregator.totals().tickets(TicketRequest.Type.CHILD));
+        Assertions.assertEquals(4_000, aggregator.sliding(Duration.ofSeconds(10)).sales().orders());
+        Assertions.assertEquals(1_000, aggregator.totals(3).orders());
+    }
+
+    private void purchase(long performanceId, List<TicketRequest> tickets) {
+        ticketService.purchaseTickets(new TicketPurchaseRequest(7, tickets, null, performanceId));
+    }
+}
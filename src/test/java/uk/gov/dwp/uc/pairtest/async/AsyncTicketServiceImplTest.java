@@ -0,0 +1,198 @@
+package uk.gov.dwp.uc.pairtest.async;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import thirdparty.discount.DiscountService;
+import thirdparty.paymentgateway.TicketPaymentService;
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.PricingServiceImpl;
+import uk.gov.dwp.uc.pairtest.SeatingCalculatorServiceImpl;
+import uk.gov.dwp.uc.pairtest.TariffRegistry;
+import uk.gov.dwp.uc.pairtest.domain.TicketPurchaseRequest;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.exception.OutcomeUnknownException;
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+import uk.gov.dwp.uc.pairtest.validation.PurchaseValidator;
+import uk.gov.dwp.uc.pairtest.validation.ValidationPolicy;
+import uk.gov.dwp.uc.pairtest.validation.ValidationRules;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+import static uk.gov.dwp.uc.pairtest.TicketServiceHelper.*;
+
+public class AsyncTicketServiceImplTest {
+
+    private final TariffRegistry tariffRegistry =
+            new TariffRegistry(new PricingServiceImpl(), new SeatingCalculatorServiceImpl());
+    private final CountDownLatch gatewayRelease = new CountDownLatch(1);
+
+    private ExecutorService executor;
+    private TicketPaymentService ticketPaymentService;
+    private SeatReservationService seatReservationService;
+
+    @BeforeEach
+    void setUp() {
+        executor = AsyncTicketServiceImpl.defaultExecutor();
+        ticketPaymentService = mock(TicketPaymentService.class);
+        seatReservationService = mock(SeatReservationService.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        gatewayRelease.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void paysThenReservesSeats() {
+        var impl = new AsyncTicketServiceImpl(tariffRegistry, ticketPaymentService, seatReservationService, executor,
+                AsyncPurchaseConfig.DEFAULT);
+
+        impl.purchaseTickets(makeRequestWithId(1, List.of(makeOneAdultTicket(), makeOneChildTicket()))).join();
+
+        var order = inOrder(ticketPaymentService, seatReservationService);
+        order.verify(ticketPaymentService).makePayment(1, 30);
+        order.verify(seatReservationService).reserveSeat(1, 2);
+    }
+
+    @Test
+    void failsInvalidRequestsWithoutCallingDownstream() {
+        var impl = new AsyncTicketServiceImpl(tariffRegistry, ticketPaymentService, seatReservationService, executor,
+                AsyncPurchaseConfig.DEFAULT);
+
+        var future = impl.purchaseTickets(makeRequestWithId(1, List.of(makeOneChildTicket())));
+
+        var thrown = Assertions.assertThrows(CompletionException.class, future::join);
+        Assertions.assertInstanceOf(InvalidPurchaseException.class, thrown.getCause());
+        verifyNoInteractions(ticketPaymentService, seatReservationService);
+    }
+
+    @Test
+    void failsTheFutureWhenTheDiscountServiceFails() {
+        var outage = new IllegalStateException("discounts down");
+        var discountService = mock(DiscountService.class);
+        when(discountService.getDiscountPercentage(anyLong(), any())).thenThrow(outage);
+        var impl = AsyncTicketServiceImpl.builder(tariffRegistry, ticketPaymentService, seatReservationService)
+                .executor(executor)
+                .discountService(discountService)
+                .build();
+
+        var future = impl.purchaseTickets(new TicketPurchaseRequest(1, List.of(makeOneAdultTicket()), "SPRING"));
+
+        var thrown = Assertions.assertThrows(CompletionException.class, future::join);
+        Assertions.assertSame(outage, thrown.getCause());
+        verifyNoInteractions(ticketPaymentService, seatReservationService);
+    }
+
+    @Test
+    void appliesTheConfiguredPolicyForEachPerformance() {
+        var impl = AsyncTicketServiceImpl.builder(tariffRegistry, ticketPaymentService, seatReservationService)
+                .executor(executor)
+                .validator(new PurchaseValidator(ValidationRules.builder()
+                        .performance(7, ValidationPolicy.builder().maxTickets(20).adultsOnly().build())
+                        .build()))
+                .build();
+
+        var future = impl.purchaseTickets(
+                new TicketPurchaseRequest(1, List.of(makeOneAdultTicket(), makeOneChildTicket()), null, 7));
+
+        var thrown = Assertions.assertThrows(CompletionException.class, future::join);
+        Assertions.assertEquals(RejectionReason.ADULTS_ONLY,
+                ((InvalidPurchaseException) thrown.getCause()).getReason());
+        verifyNoInteractions(ticketPaymentService, seatReservationService);
+    }
+
+    @Test
+    void reportsSlowPaymentAsUnknownAndFinishesItWhenItReturns() throws Exception {
+        doAnswer(i -> {
+            gatewayRelease.await();
+            return null;
+        }).when(ticketPaymentService).makePayment(anyLong(), anyInt());
+        var impl = new AsyncTicketServiceImpl(tariffRegistry, ticketPaymentService, seatReservationService, executor,
+                new AsyncPurchaseConfig(1, Duration.ofMillis(50), Duration.ofSeconds(1)));
+
+        var future = impl.purchaseTickets(makeRequestWithId(1, List.of(makeOneAdultTicket())));
+
+        var thrown = Assertions.assertThrows(CompletionException.class, future::join);
+        Assertions.assertInstanceOf(OutcomeUnknownException.class, thrown.getCause());
+        verifyNoInteractions(seatReservationService);
+        // The payment is still running, so it still holds the only permit.
+        var refused = impl.purchaseTickets(makeRequestWithId(2, List.of(makeOneAdultTicket())));
+        thrown = Assertions.assertThrows(CompletionException.class, refused::join);
+        Assertions.assertInstanceOf(RejectedExecutionException.class, thrown.getCause());
+
+        gatewayRelease.countDown();
+        verify(seatReservationService, timeout(5_000)).reserveSeat(1, 1);
+        var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (true) {
+            try {
+                impl.purchaseTickets(makeRequestWithId(3, List.of(makeOneAdultTicket()))).join();
+                break;
+            } catch (CompletionException e) {
+                Assertions.assertInstanceOf(RejectedExecutionException.class, e.getCause());
+                Assertions.assertTrue(System.nanoTime() < deadline, "permit never released");
+                Thread.sleep(10);
+            }
+        }
+    }
+
+    @Test
+    void rejectsPurchasesBeyondConcurrencyLimit() {
+        doAnswer(i -> {
+            gatewayRelease.await();
+            return null;
+        }).when(ticketPaymentService).makePayment(anyLong(), anyInt());
+        var impl = new AsyncTicketServiceImpl(tariffRegistry, ticketPaymentService, seatReservationService, executor,
+                new AsyncPurchaseConfig(1, Duration.ofSeconds(5), Duration.ofSeconds(5)));
+
+        var first = impl.purchaseTickets(makeRequestWithId(1, List.of(makeOneAdultTicket())));
+        var second = impl.purchaseTickets(makeRequestWithId(2, List.of(makeOneAdultTicket())));
+
+        var thrown = Assertions.assertThrows(CompletionException.class, second::join);
+        Assertions.assertInstanceOf(RejectedExecutionException.class, thrown.getCause());
+
+        gatewayRelease.countDown();
+        first.join();
+        impl.purchaseTickets(makeRequestWithId(3, List.of(makeOneAdultTicket()))).join();
+    }
+
+    @Test
+    void boundsTheDefaultPlatformThreadPoolToTheConcurrencyLimit() throws Exception {
+        Assumptions.assumeTrue(Runtime.version().feature() < 21, "virtual threads need no bound");
+        var pool = AsyncTicketServiceImpl.defaultExecutor(2);
+        try {
+            var running = new AtomicInteger();
+            var mostRunning = new AtomicInteger();
+            var done = new CountDownLatch(10);
+            for (int i = 0; i < 10; i++) {
+                pool.execute(() -> {
+                    mostRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    try {
+                        Thread.sleep(10);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    running.decrementAndGet();
+                    done.countDown();
+                });
+            }
+            Assertions.assertTrue(done.await(5, TimeUnit.SECONDS));
+            Assertions.assertEquals(2, mostRunning.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package uk.gov.dwp.uc.pairtest.batch;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import thirdparty.discount.DiscountService;
+import thirdparty.paymentgateway.TicketPaymentService;
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.PricingServiceImpl;
+import uk.gov.dwp.uc.pairtest.SeatingCalculatorServiceImpl;
+import uk.gov.dwp.uc.pairtest.TariffRegistry;
+import uk.gov.dwp.uc.pairtest.domain.TicketPurchaseRequest;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.exception.NoAdultPresentException;
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+import uk.gov.dwp.uc.pairtest.validation.PurchaseValidator;
+import uk.gov.dwp.uc.pairtest.validation.ValidationPolicy;
+import uk.gov.dwp.uc.pairtest.validation.ValidationRules;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+import static uk.gov.dwp.uc.pairtest.TicketServiceHelper.*;
+
+public class BatchTicketServiceImplTest {
+
+    private BatchTicketPaymentService batchTicketPaymentService;
+    private BatchSeatReservationService batchSeatReservationService;
+    private BatchTicketServiceImpl impl;
+
+    @BeforeEach
+    void setUp() {
+        batchTicketPaymentService = mock(BatchTicketPaymentService.class);
+        batchSeatReservationService = mock(BatchSeatReservationService.class);
+        impl = new BatchTicketServiceImpl(new TariffRegistry(new PricingServiceImpl(), new SeatingCalculatorServiceImpl()),
+                batchTicketPaymentService, batchSeatReservationService, 2);
+    }
+
+    @Test
+    void reportsValidationFailuresPerRequest() {
+        var result = impl.purchaseTickets(List.of(
+                makeRequestWithId(1, List.of(makeOneAdultTicket())),
+                makeRequestWithId(2, List.of(makeOneChildTicket())),
+                makeRequestWithId(0, List.of(makeOneAdultTicket()))));
+
+        Assertions.assertTrue(result.isSuccessful(0));
+        Assertions.assertInstanceOf(NoAdultPresentException.class, result.getFailure(1));
+        Assertions.assertFalse(result.isSuccessful(2));
+        Assertions.assertEquals(1, result.getSuccessCount());
+        Assertions.assertEquals(2, result.getFailureCount());
+    }
+
+    @Test
+    void appliesTheConfiguredPolicyForEachPerformance() {
+        var validator = new PurchaseValidator(ValidationRules.builder()
+                .performance(7, ValidationPolicy.builder().maxTickets(20).adultsOnly().build())
+                .build());
+        var adultsOnly = BatchTicketServiceImpl.builder(
+                        new TariffRegistry(new PricingServiceImpl(), new SeatingCalculatorServiceImpl()),
+                        batchTicketPaymentService, batchSeatReservationService)
+                .validator(validator)
+                .build();
+
+        var result = adultsOnly.purchaseTickets(List.of(
+                new TicketPurchaseRequest(1, List.of(makeOneAdultTicket(), makeOneChildTicket()), null, 7),
+                makeRequestWithId(2, List.of(makeOneAdultTicket(), makeOneChildTicket()))));
+
+        Assertions.assertEquals(RejectionReason.ADULTS_ONLY,
+                ((InvalidPurchaseException) result.getFailure(0)).getReason());
+        Assertions.assertTrue(result.isSuccessful(1));
+    }
+
+    @Test
+    void reportsEveryRequestWhenTheDiscountServiceFailsPartWayThrough() {
+        var outage = new IllegalStateException("discounts down");
+        var discountService = mock(DiscountService.class);
+        when(discountService.getDiscountPercentage(anyLong(), any())).thenThrow(outage);
+        var discounted = BatchTicketServiceImpl.builder(
+                        new TariffRegistry(new PricingServiceImpl(), new SeatingCalculatorServiceImpl()),
+                        batchTicketPaymentService, batchSeatReservationService)
+                .maxBatchSize(2)
+                .discountService(discountService)
+                .build();
+
+        var result = discounted.purchaseTickets(List.of(
+                makeRequestWithId(1, List.of(makeOneAdultTicket())),
+                makeRequestWithId(2, List.of(makeOneAdultTicket())),
+                new TicketPurchaseRequest(3, List.of(makeOneAdultTicket()), "SPRING"),
+                makeRequestWithId(4, List.of(makeOneAdultTicket()))));
+
+        Assertions.assertTrue(result.isSuccessful(0));
+        Assertions.assertTrue(result.isSuccessful(1));
+        Assertions.assertSame(outage, result.getFailure(2));
+        Assertions.assertTrue(result.isSuccessful(3));
+        verify(batchTicketPaymentService, times(2)).makePayments(any(), any(), anyInt(), any());
+    }
+
+    @Test
+    void coalescesValidRequestsIntoChunkedCalls() {
+        impl.purchaseTickets(List.of(
+                makeRequestWithId(1, List.of(makeOneAdultTicket())),
+                makeRequestWithId(2, List.of(makeMultiAdultTicket(2), makeOneChildTicket())),
+                makeRequestWithId(3, List.of(makeOneAdultTicket(), makeOneInfantTicket()))));
+
+        verify(batchTicketPaymentService).makePayments(any(), any(), eq(2), any());
+        verify(batchTicketPaymentService).makePayments(any(), any(), eq(1), any());
+        verify(batchSeatReservationService, times(2)).reserveSeats(any(), any(), anyInt(), any());
+    }
+
+    @Test
+    void failsWholeChunkWhenDownstreamFails() {
+        var outage = new IllegalStateException("gateway down");
+        doThrow(outage).when(batchTicketPaymentService).makePayments(any(), any(), anyInt(), any());
+
+        var result = impl.purchaseTickets(List.of(
+                makeRequestWithId(1, List.of(makeOneAdultTicket())),
+                makeRequestWithId(2, List.of(makeOneAdultTicket()))));
+
+        Assertions.assertSame(outage, result.getFailure(0));
+        Assertions.assertSame(outage, result.getFailure(1));
+        verifyNoInteractions(batchSeatReservationService);
+    }
+
+    @Test
+    void failsOnlyTheRequestsThatFailedDownstream() {
+        var ticketPaymentService = mock(TicketPaymentService.class);
+        var seatReservationService = mock(SeatReservationService.class);
+        var declined = new IllegalStateException("card declined");
+        var noSeats = new IllegalStateException("no seats");
+        doThrow(declined).when(ticketPaymentService).makePayment(eq(2L), anyInt());
+        doThrow(noSeats).when(seatReservationService).reserveSeat(eq(3L), anyInt());
+        var adapted = new BatchTicketServiceImpl(
+                new TariffRegistry(new PricingServiceImpl(), new SeatingCalculatorServiceImpl()),
+                BatchTicketPaymentService.perCall(ticketPaymentService),
+                BatchSeatReservationService.perCall(seatReservationService));
+
+        var result = adapted.purchaseTickets(List.of(
+                makeRequestWithId(1, List.of(makeOneAdultTicket())),
+                makeRequestWithId(2, List.of(makeOneAdultTicket())),
+                makeRequestWithId(3, List.of(makeOneAdultTicket()))));
+
+        Assertions.assertTrue(result.isSuccessful(0));
+        Assertions.assertSame(declined, result.getFailure(1));
+        Assertions.assertSame(noSeats, result.getFailure(2));
+        verify(seatReservationService).reserveSeat(1, 1);
+        verify(seatReservationService, never()).reserveSeat(eq(2L), anyInt());
+    }
+
+    @Test
+    void perCallAdaptersFallBackToSingleCalls() {
+        var ticketPaymentService = mock(TicketPaymentService.class);
+        var seatReservationService = mock(SeatReservationService.class);
+        var adapted = new BatchTicketServiceImpl(
+                new TariffRegistry(new PricingServiceImpl(), new SeatingCalculatorServiceImpl()),
+                BatchTicketPaymentService.perCall(ticketPaymentService),
+                BatchSeatReservationService.perCall(seatReservationService));
+
+        adapted.purchaseTickets(List.of(
+                makeRequestWithId(1, List.of(makeOneAdultTicket())),
+                makeRequestWithId(2, List.of(makeOneAdultTicket(), makeOneChildTicket()))));
+
+        verify(ticketPaymentService).makePayment(1, 20);
+        verify(ticketPaymentService).makePayment(2, 30);
+        verify(seatReservationService).reserveSeat(1, 1);
+        verify(seatReservationService).reserveSeat(2, 2);
+    }
+}
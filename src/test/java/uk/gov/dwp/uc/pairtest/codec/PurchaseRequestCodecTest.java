@@ -0,0 +1,107 @@
+package uk.gov.dwp.uc.pairtest.codec;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import thirdparty.paymentgateway.TicketPaymentService;
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.PricingServiceImpl;
+import uk.gov.dwp.uc.pairtest.SeatingCalculatorServiceImpl;
+import uk.gov.dwp.uc.pairtest.TariffRegistry;
+import uk.gov.dwp.uc.pairtest.TicketServiceImpl;
+import uk.gov.dwp.uc.pairtest.domain.TicketPurchaseRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketRequest;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.exception.NoAdultPresentException;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+import static uk.gov.dwp.uc.pairtest.TicketServiceHelper.*;
+
+public class PurchaseRequestCodecTest {
+
+    @Test
+    void roundTripsThroughHeapAndDirectBuffers() {
+        var request = makeRequestWithId(1234, List.of(makeMultiAdultTicket(2), makeOneChildTicket(),
+                makeOneInfantTicket()));
+        for (var buffer : List.of(ByteBuffer.allocate(64), ByteBuffer.allocateDirect(64))) {
+            var written = PurchaseRequestCodec.encode(request, buffer, 3);
+            var view = new PurchaseRequestView().wrap(buffer, 3);
+
+            Assertions.assertEquals(PurchaseRequestCodec.encodedLength(3), written);
+            Assertions.assertEquals(written, view.encodedLength());
+            Assertions.assertEquals(1234, view.getAccountId());
+            Assertions.assertEquals(0, view.getPerformanceId());
+            Assertions.assertEquals(3, view.getLineCount());
+            Assertions.assertEquals(TicketRequest.Type.ADULT, view.getTicketType(0));
+            Assertions.assertEquals(2, view.getNoOfTickets(0));
+            Assertions.assertEquals(TicketRequest.Type.INFANT, view.getTicketType(2));
+        }
+    }
+
+    @Test
+    void oneViewReadsConsecutiveMessages() {
+        var buffer = ByteBuffer.allocate(128);
+        var next = PurchaseRequestCodec.encode(makeRequestWithId(1, List.of(makeOneAdultTicket())), buffer, 0);
+        PurchaseRequestCodec.encode(makeRequestWithId(2, List.of(makeOneAdultTicket(), makeOneChildTicket())),
+                buffer, next);
+
+        var view = new PurchaseRequestView().wrap(buffer, 0);
+        Assertions.assertEquals(1, view.getAccountId());
+        view.wrap(buffer, view.encodedLength());
+        Assertions.assertEquals(2, view.getAccountId());
+        Assertions.assertEquals(2, view.getLineCount());
+    }
+
+    @Test
+    void carriesThePerformanceId() {
+        var buffer = ByteBuffer.allocate(64);
+        PurchaseRequestCodec.encode(new TicketPurchaseRequest(5, List.of(makeOneAdultTicket()), null, 9_000_000_001L),
+                buffer, 0);
+
+        var view = new PurchaseRequestView().wrap(buffer, 0);
+        Assertions.assertEquals(5, view.getAccountId());
+        Assertions.assertEquals(9_000_000_001L, view.getPerformanceId());
+    }
+
+    @Test
+    void rejectsOtherFormatVersions() {
+        var buffer = ByteBuffer.allocate(64);
+        PurchaseRequestCodec.encode(makeRequestWithId(1, List.of(makeOneAdultTicket())), buffer, 0);
+
+        buffer.put(0, (byte) 1);
+        Assertions.assertThrows(InvalidPurchaseException.class, () -> new PurchaseRequestView().wrap(buffer, 0));
+    }
+
+    @Test
+    void rejectsTruncatedAndUnknownTypes() {
+        var buffer = ByteBuffer.allocate(64);
+        PurchaseRequestCodec.encode(makeRequestWithId(1, List.of(makeOneAdultTicket())), buffer, 0);
+
+        Assertions.assertThrows(InvalidPurchaseException.class,
+                () -> new PurchaseRequestView().wrap(buffer.duplicate().limit(PurchaseRequestCodec.HEADER_LENGTH + 1), 0));
+        buffer.put(PurchaseRequestCodec.HEADER_LENGTH, (byte) 7);
+        Assertions.assertThrows(InvalidPurchaseException.class, () -> new PurchaseRequestView().wrap(buffer, 0));
+    }
+
+    @Test
+    void ticketServicePricesAndValidatesViews() {
+        var ticketPaymentService = mock(TicketPaymentService.class);
+        var seatReservationService = mock(SeatReservationService.class);
+        var impl = TicketServiceImpl.builder(
+                new TariffRegistry(new PricingServiceImpl(), new SeatingCalculatorServiceImpl()),
+                ticketPaymentService, seatReservationService).build();
+        var buffer = ByteBuffer.allocateDirect(64);
+        var view = new PurchaseRequestView();
+
+        PurchaseRequestCodec.encode(makeRequestWithId(7, List.of(makeMultiAdultTicket(2), makeOneChildTicket())),
+                buffer, 0);
+        impl.purchaseTickets(view.wrap(buffer, 0));
+        verify(ticketPaymentService).makePayment(7, 50);
+        verify(seatReservationService).reserveSeat(7, 3);
+
+        PurchaseRequestCodec.encode(makeRequestWithId(8, List.of(makeOneChildTicket())), buffer, 0);
+        Assertions.assertThrows(NoAdultPresentException.class, () -> impl.purchaseTickets(view.wrap(buffer, 0)));
+    }
+}
@@ -0,0 +1,154 @@
+package uk.gov.dwp.uc.pairtest.discount;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import thirdparty.discount.Discount;
+import thirdparty.discount.DiscountService;
+import thirdparty.discount.exception.InvalidDiscountCodeException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class CachingDiscountServiceTest {
+
+    private static final DiscountCacheConfig CONFIG =
+            new DiscountCacheConfig(2, Duration.ofSeconds(60), Duration.ofSeconds(5), true);
+
+    private long now;
+    private DiscountService delegate;
+    private CachingDiscountService cache;
+
+    @BeforeEach
+    void setUp() {
+        delegate = mock(DiscountService.class);
+        cache = new CachingDiscountService(delegate, CONFIG, () -> now);
+    }
+
+    @Test
+    void reusesDiscountUntilExpiry() {
+        when(delegate.getDiscountPercentage(1, "SUMMER")).thenReturn(new Discount(10));
+
+        cache.getDiscountPercentage(1, "SUMMER");
+        cache.getDiscountPercentage(1, "SUMMER");
+        verify(delegate, times(1)).getDiscountPercentage(1, "SUMMER");
+
+        now += TimeUnit.SECONDS.toNanos(61);
+        cache.getDiscountPercentage(1, "SUMMER");
+        verify(delegate, times(2)).getDiscountPercentage(1, "SUMMER");
+    }
+
+    @Test
+    void cachesInvalidCodesForNegativeTtl() {
+        when(delegate.getDiscountPercentage(anyLong(), eq("BOGUS"))).thenThrow(new InvalidDiscountCodeException("BOGUS"));
+
+        Assertions.assertThrows(InvalidDiscountCodeException.class, () -> cache.getDiscountPercentage(1, "BOGUS"));
+        Assertions.assertThrows(InvalidDiscountCodeException.class, () -> cache.getDiscountPercentage(1, "BOGUS"));
+        verify(delegate, times(1)).getDiscountPercentage(1, "BOGUS");
+
+        now += TimeUnit.SECONDS.toNanos(6);
+        Assertions.assertThrows(InvalidDiscountCodeException.class, () -> cache.getDiscountPercentage(1, "BOGUS"));
+        verify(delegate, times(2)).getDiscountPercentage(1, "BOGUS");
+    }
+
+    @Test
+    void doesNotCacheOtherFailures() {
+        when(delegate.getDiscountPercentage(1, "SUMMER"))
+                .thenThrow(new IllegalStateException("timeout"))
+                .thenReturn(new Discount(10));
+
+        Assertions.assertThrows(IllegalStateException.class, () -> cache.getDiscountPercentage(1, "SUMMER"));
+        Assertions.assertEquals(10, cache.getDiscountPercentage(1, "SUMMER").percentage());
+    }
+
+    @Test
+    void releasesTheEntryWhenTheServiceThrowsAnError() {
+        when(delegate.getDiscountPercentage(1, "SUMMER"))
+                .thenThrow(new StackOverflowError())
+                .thenReturn(new Discount(10));
+
+        Assertions.assertThrows(StackOverflowError.class, () -> cache.getDiscountPercentage(1, "SUMMER"));
+        Assertions.assertEquals(10, cache.getDiscountPercentage(1, "SUMMER").percentage());
+    }
+
+    @Test
+    void keepsEachAccountsAnswerApartByDefault() {
+        when(delegate.getDiscountPercentage(1, "STAFF")).thenReturn(new Discount(50));
+        when(delegate.getDiscountPercentage(2, "STAFF")).thenThrow(new InvalidDiscountCodeException("STAFF"));
+        var defaults = new CachingDiscountService(delegate, DiscountCacheConfig.DEFAULT, () -> now);
+
+        Assertions.assertEquals(50, defaults.getDiscountPercentage(1, "STAFF").percentage());
+        Assertions.assertThrows(InvalidDiscountCodeException.class, () -> defaults.getDiscountPercentage(2, "STAFF"));
+        Assertions.assertEquals(50, defaults.getDiscountPercentage(1, "STAFF").percentage());
+    }
+
+    @Test
+    void staysWithinMaximumSize() {
+        when(delegate.getDiscountPercentage(anyLong(), anyString())).thenReturn(new Discount(5));
+        for (int i = 0; i < 10; i++) {
+            cache.getDiscountPercentage(i, "SUMMER");
+        }
+        Assertions.assertTrue(cache.size() <= CONFIG.maximumSize());
+    }
+
+    @Test
+    void evictsInBatchesOnceFull() {
+        var calls = new AtomicInteger();
+        var large = new CachingDiscountService((accountId, code) -> {
+            calls.incrementAndGet();
+            throw new InvalidDiscountCodeException(code);
+        }, new DiscountCacheConfig(100, Duration.ofSeconds(60), Duration.ofSeconds(5), false), () -> now);
+
+        for (int i = 0; i <= 100; i++) {
+            var code = "RANDOM" + i;
+            Assertions.assertThrows(InvalidDiscountCodeException.class, () -> large.getDiscountPercentage(1, code));
+        }
+        Assertions.assertEquals(90, large.size());
+        for (int i = 101; i < 111; i++) {
+            var code = "RANDOM" + i;
+            Assertions.assertThrows(InvalidDiscountCodeException.class, () -> large.getDiscountPercentage(1, code));
+        }
+        Assertions.assertEquals(100, large.size());
+        Assertions.assertEquals(111, calls.get());
+    }
+
+    @Test
+    void collapsesConcurrentLookupsIntoOneCall() throws Exception {
+        var calls = new AtomicInteger();
+        var release = new CountDownLatch(1);
+        var shared = new CachingDiscountService((accountId, code) -> {
+            calls.incrementAndGet();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new Discount(15);
+        }, new DiscountCacheConfig(10, Duration.ofSeconds(60), Duration.ofSeconds(5), false));
+
+        var executor = Executors.newFixedThreadPool(8);
+        try {
+            var futures = new ArrayList<Future<Discount>>();
+            for (int i = 0; i < 8; i++) {
+                long accountId = i + 1;
+                futures.add(executor.submit(() -> shared.getDiscountPercentage(accountId, "LAUNCH")));
+            }
+            Thread.sleep(100);
+            release.countDown();
+            for (var future : futures) {
+                Assertions.assertEquals(15, future.get(5, TimeUnit.SECONDS).percentage());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        Assertions.assertEquals(1, calls.get());
+    }
+}
@@ -0,0 +1,117 @@
+package uk.gov.dwp.uc.pairtest.dispatch;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import uk.gov.dwp.uc.pairtest.TicketService;
+import uk.gov.dwp.uc.pairtest.domain.TicketPurchaseRequest;
+import uk.gov.dwp.uc.pairtest.exception.NoAdultPresentException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static uk.gov.dwp.uc.pairtest.TicketServiceHelper.*;
+
+public class ShardedPurchaseDispatcherTest {
+
+    @Test
+    void keepsEachAccountsPurchasesInOrderOnOneThread() throws Exception {
+        var seen = new ArrayList<Map<Long, List<Integer>>>();
+        var threads = new ArrayList<Set<Thread>>();
+        var dispatcher = new ShardedPurchaseDispatcher(new DispatchConfig(4, 1024, 512), lane -> {
+            Map<Long, List<Integer>> orders = new HashMap<>();
+            var laneThreads = new HashSet<Thread>();
+            synchronized (seen) {
+                seen.add(orders);
+                threads.add(laneThreads);
+            }
+            return request -> {
+                laneThreads.add(Thread.currentThread());
+                orders.computeIfAbsent(request.getAccountId(), id -> new ArrayList<>())
+                        .add(request.getTicketTypeRequests().get(0).getNoOfTickets());
+            };
+        });
+
+        var futures = new ArrayList<CompletableFuture<Void>>();
+        for (int ticket = 1; ticket <= 10; ticket++) {
+            for (long account = 1; account <= 50; account++) {
+                var request = makeRequestWithId(account, List.of(makeMultiAdultTicket(ticket)));
+                futures.add(dispatcher.purchaseTickets(request));
+            }
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+        dispatcher.close();
+
+        var accounts = 0;
+        for (var orders : seen) {
+            for (var tickets : orders.values()) {
+                Assertions.assertEquals(List.of(1, 2, 3, 4, 5, 6, 7, 8, 9, 10), tickets);
+                accounts++;
+            }
+        }
+        Assertions.assertEquals(50, accounts);
+        threads.forEach(laneThreads -> Assertions.assertTrue(laneThreads.size() <= 1));
+        Assertions.assertEquals(500, dispatcher.stats().stream().mapToLong(ShardStats::completed).sum());
+    }
+
+    @Test
+    void refusesPurchasesWhenTheLaneIsFull() throws Exception {
+        var entered = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        TicketService blocking = request -> {
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        var dispatcher = new ShardedPurchaseDispatcher(new DispatchConfig(1, 2, 1), lane -> blocking);
+        var request = makeRequestWithId(7, List.of(makeOneAdultTicket()));
+
+        var first = dispatcher.purchaseTickets(request);
+        Assertions.assertTrue(entered.await(5, TimeUnit.SECONDS));
+        Assertions.assertFalse(dispatcher.isBackpressured(7));
+        var queued = List.of(dispatcher.purchaseTickets(request), dispatcher.purchaseTickets(request));
+        Assertions.assertTrue(dispatcher.isBackpressured(7));
+        var refused = dispatcher.purchaseTickets(request);
+
+        var exception = Assertions.assertThrows(CompletionException.class, refused::join);
+        Assertions.assertInstanceOf(RejectedExecutionException.class, exception.getCause());
+        var stats = dispatcher.stats().get(0);
+        Assertions.assertEquals(2, stats.queued());
+        Assertions.assertEquals(1, stats.refused());
+
+        release.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        CompletableFuture.allOf(queued.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+        dispatcher.close();
+        Assertions.assertEquals(3, dispatcher.stats().get(0).completed());
+    }
+
+    @Test
+    void passesOnTheLaneServicesFailureAndRefusesAfterClose() {
+        var dispatcher = new ShardedPurchaseDispatcher(new DispatchConfig(2, 16, 8), lane -> request -> {
+            throw new NoAdultPresentException();
+        });
+        var request = makeRequestWithId(3, List.of(makeOneChildTicket()));
+
+        var exception = Assertions.assertThrows(CompletionException.class,
+                () -> dispatcher.purchaseTickets(request).join());
+        Assertions.assertInstanceOf(NoAdultPresentException.class, exception.getCause());
+        dispatcher.close();
+
+        exception = Assertions.assertThrows(CompletionException.class,
+                () -> dispatcher.purchaseTickets(request).join());
+        Assertions.assertInstanceOf(RejectedExecutionException.class, exception.getCause());
+        Assertions.assertEquals(1, dispatcher.stats().stream().mapToLong(ShardStats::failed).sum());
+    }
+}
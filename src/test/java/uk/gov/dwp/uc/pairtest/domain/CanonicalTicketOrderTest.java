@@ -0,0 +1,102 @@
+package uk.gov.dwp.uc.pairtest.domain;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import uk.gov.dwp.uc.pairtest.PricingServiceImpl;
+import uk.gov.dwp.uc.pairtest.PurchaseEvaluator;
+import uk.gov.dwp.uc.pairtest.SeatingCalculatorServiceImpl;
+import uk.gov.dwp.uc.pairtest.TariffRegistry;
+import uk.gov.dwp.uc.pairtest.admission.AdmissionConfig;
+import uk.gov.dwp.uc.pairtest.admission.AdmissionControlledTicketService;
+import uk.gov.dwp.uc.pairtest.exception.DuplicatePurchaseException;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+
+import java.util.List;
+
+import static uk.gov.dwp.uc.pairtest.TicketServiceHelper.*;
+
+public class CanonicalTicketOrderTest {
+
+    private final PurchaseEvaluator evaluator = new PurchaseEvaluator(
+            new TariffRegistry(new PricingServiceImpl(), new SeatingCalculatorServiceImpl()));
+
+    @Test
+    void collapsesLinesIntoOneCountPerType() {
+        var order = CanonicalTicketOrder.of(new TicketPurchaseRequest(3, List.of(makeOneChildTicket(),
+                makeMultiAdultTicket(2), makeOneChildTicket(), makeOneAdultTicket()), "CODE", 9));
+
+        Assertions.assertEquals(2, order.getLineCount());
+        Assertions.assertEquals(TicketRequest.Type.ADULT, order.getTicketType(0));
+        Assertions.assertEquals(3, order.getNoOfTickets(0));
+        Assertions.assertEquals(TicketRequest.Type.CHILD, order.getTicketType(1));
+        Assertions.assertEquals(2, order.getTickets(TicketRequest.Type.CHILD));
+        Assertions.assertEquals(0, order.getTickets(TicketRequest.Type.INFANT));
+        Assertions.assertEquals("CODE", order.getDiscountCode());
+        Assertions.assertEquals(9, order.getPerformanceId());
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> order.getTicketType(2));
+    }
+
+    @Test
+    void ordersForTheSameTicketsAreEqualHoweverTheirLinesAreSplit() {
+        var split = CanonicalTicketOrder.of(makeRequestWithId(1, List.of(makeOneAdultTicket(), makeOneChildTicket(),
+                makeOneAdultTicket())));
+        var merged = CanonicalTicketOrder.of(makeRequestWithId(1, List.of(makeMultiAdultTicket(2),
+                makeOneChildTicket())));
+
+        Assertions.assertEquals(split, merged);
+        Assertions.assertEquals(split.hashCode(), merged.hashCode());
+        Assertions.assertNotEquals(split, CanonicalTicketOrder.of(makeRequestWithId(2, List.of(
+                makeMultiAdultTicket(2), makeOneChildTicket()))));
+        Assertions.assertEquals(merged.toRequest(), CanonicalTicketOrder.of(merged.toRequest()).toRequest());
+        Assertions.assertSame(merged.toRequest().getTicketTypeRequests().get(0),
+                TicketRequest.of(TicketRequest.Type.ADULT, 2));
+    }
+
+    @Test
+    void pricesAndValidatesLikeTheOriginalRequest() {
+        var request = makeRequestWithId(1, List.of(makeOneChildTicket(), makeMultiAdultTicket(3),
+                makeOneInfantTicket(), makeMultiChildTicket(2)));
+        Assertions.assertEquals(evaluator.evaluate(request), evaluator.evaluate(CanonicalTicketOrder.of(request)));
+
+        var noAdult = CanonicalTicketOrder.of(makeRequestWithId(1, List.of(makeMultiAdultTicket(0),
+                makeOneChildTicket())));
+        Assertions.assertEquals(2, noAdult.getLineCount());
+        Assertions.assertEquals(evaluator.evaluate(makeRequestWithId(1, List.of(makeMultiAdultTicket(0),
+                makeOneChildTicket()))), evaluator.evaluate(noAdult));
+
+        var tooMany = CanonicalTicketOrder.of(makeRequestWithId(1, List.of(makeMultiAdultTicket(15),
+                makeMultiAdultTicket(6))));
+        Assertions.assertEquals(RejectionReason.EXCESSIVE_TICKETS,
+                Assertions.assertThrows(InvalidPurchaseException.class, () -> evaluator.evaluate(tooMany)).getReason());
+    }
+
+    @Test
+    void rejectsCountsThatOverflowInsteadOfWrappingAround() {
+        var tooMany = makeRequestWithId(1, List.of(makeMultiAdultTicket(Integer.MAX_VALUE), makeOneAdultTicket()));
+        var tooFew = makeRequestWithId(1, List.of(makeMultiAdultTicket(Integer.MIN_VALUE),
+                makeMultiAdultTicket(-1)));
+
+        Assertions.assertEquals(RejectionReason.EXCESSIVE_TICKETS, Assertions.assertThrows(
+                InvalidPurchaseException.class, () -> CanonicalTicketOrder.of(tooMany)).getReason());
+        Assertions.assertEquals(RejectionReason.NEGATIVE_TICKETS, Assertions.assertThrows(
+                InvalidPurchaseException.class, () -> CanonicalTicketOrder.of(tooFew)).getReason());
+    }
+
+    @Test
+    void internsCommonTicketRequests() {
+        Assertions.assertSame(TicketRequest.of(TicketRequest.Type.CHILD, 4), TicketRequest.of(TicketRequest.Type.CHILD, 4));
+        Assertions.assertNotSame(TicketRequest.of(TicketRequest.Type.CHILD, 21),
+                TicketRequest.of(TicketRequest.Type.CHILD, 21));
+        Assertions.assertEquals(new TicketRequest(TicketRequest.Type.INFANT, 1), TicketRequest.of(TicketRequest.Type.INFANT, 1));
+    }
+
+    @Test
+    void duplicateCheckTreatsSplitLinesAsTheSamePurchase() {
+        var service = new AdmissionControlledTicketService(request -> { }, AdmissionConfig.DEFAULT);
+        service.purchaseTickets(makeRequestWithId(1, List.of(makeMultiAdultTicket(2))));
+
+        Assertions.assertThrows(DuplicatePurchaseException.class, () -> service.purchaseTickets(
+                makeRequestWithId(1, List.of(makeOneAdultTicket(), makeOneAdultTicket()))));
+    }
+}
@@ -0,0 +1,153 @@
+package uk.gov.dwp.uc.pairtest.events;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import thirdparty.paymentgateway.TicketPaymentService;
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.PricingServiceImpl;
+import uk.gov.dwp.uc.pairtest.SeatingCalculatorServiceImpl;
+import uk.gov.dwp.uc.pairtest.TariffRegistry;
+import uk.gov.dwp.uc.pairtest.TicketServiceImpl;
+import uk.gov.dwp.uc.pairtest.domain.TicketRequest;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+import uk.gov.dwp.uc.pairtest.exception.SoldOutException;
+import uk.gov.dwp.uc.pairtest.exception.UnfulfilledPurchaseException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.*;
+import static uk.gov.dwp.uc.pairtest.TicketServiceHelper.*;
+
+public class PurchaseEventStreamTest {
+
+    @Test
+    void publishesEveryOutcomeToEverySink() throws Exception {
+        var recent = new InMemoryEventSink(10);
+        var batches = new ArrayList<List<PurchaseEvent>>();
+        var stream = new PurchaseEventStream(EventStreamConfig.DEFAULT,
+                List.of(recent, new BatchingEventSink(2, batches::add)));
+        var ticketService = TicketServiceImpl.builder(
+                        new TariffRegistry(new PricingServiceImpl(), new SeatingCalculatorServiceImpl()),
+                        mock(TicketPaymentService.class), mock(SeatReservationService.class))
+                .listener(stream)
+                .build();
+
+        ticketService.purchaseTickets(makeRequestWithId(5, List.of(makeMultiAdultTicket(2), makeOneChildTicket(),
+                makeOneInfantTicket())));
+        Assertions.assertThrows(InvalidPurchaseException.class,
+                () -> ticketService.purchaseTickets(makeRequestWithId(6, List.of(makeOneChildTicket()))));
+        stream.close();
+
+        var events = recent.events();
+        Assertions.assertEquals(2, events.size());
+        var accepted = events.get(0);
+        Assertions.assertEquals(PurchaseEvent.Outcome.ACCEPTED, accepted.getOutcome());
+        Assertions.assertEquals(5, accepted.getAccountId());
+        Assertions.assertEquals(2, accepted.getTickets(TicketRequest.Type.ADULT));
+        Assertions.assertEquals(1, accepted.getTickets(TicketRequest.Type.INFANT));
+        Assertions.assertEquals(50, accepted.getAmount());
+        Assertions.assertEquals(3, accepted.getSeats());
+        Assertions.assertEquals(RejectionReason.NO_ADULT_PRESENT, events.get(1).getRejectionReason());
+        Assertions.assertEquals(events, batches.stream().flatMap(List::stream).toList());
+        Assertions.assertEquals(2, stream.published());
+    }
+
+    @Test
+    void reportsRejectionsAfterPaymentAsUnfulfilled() {
+        var recent = new InMemoryEventSink(10);
+        var stream = new PurchaseEventStream(EventStreamConfig.DEFAULT, List.of(recent));
+        var seatReservationService = mock(SeatReservationService.class);
+        doThrow(new SoldOutException()).when(seatReservationService).reserveSeat(anyLong(), anyInt());
+        var ticketService = TicketServiceImpl.builder(
+                        new TariffRegistry(new PricingServiceImpl(), new SeatingCalculatorServiceImpl()),
+                        mock(TicketPaymentService.class), seatReservationService)
+                .listener(stream)
+                .build();
+
+        Assertions.assertThrows(UnfulfilledPurchaseException.class,
+                () -> ticketService.purchaseTickets(makeRequestWithId(5, List.of(makeMultiAdultTicket(2)))));
+        stream.close();
+
+        var event = recent.events().get(0);
+        Assertions.assertEquals(PurchaseEvent.Outcome.UNFULFILLED, event.getOutcome());
+        Assertions.assertEquals(40, event.getAmount());
+        Assertions.assertEquals(2, event.getSeats());
+        Assertions.assertNull(event.getRejectionReason());
+    }
+
+    @Test
+    void dropsEventsWhileASinkIsStalled() throws Exception {
+        var release = new CountDownLatch(1);
+        var stalled = new StalledSink(release);
+        var stream = new PurchaseEventStream(new EventStreamConfig(4, OverflowPolicy.DROP, 1), List.of(stalled));
+
+        for (int i = 0; i < 10; i++) {
+            stream.accepted(makeRequestWithId(i + 1, List.of(makeOneAdultTicket())), 20, 1);
+        }
+        Assertions.assertEquals(4, stream.published());
+        Assertions.assertEquals(6, stream.dropped());
+
+        release.countDown();
+        stream.close();
+        Assertions.assertEquals(List.of(1L, 2L, 3L, 4L), stalled.accountIds);
+    }
+
+    @Test
+    void blockingPolicyWaitsForTheSink() throws Exception {
+        var release = new CountDownLatch(1);
+        var stalled = new StalledSink(release);
+        var stream = new PurchaseEventStream(new EventStreamConfig(4, OverflowPolicy.BLOCK, 1), List.of(stalled));
+        var publisher = new Thread(() -> {
+            for (int i = 0; i < 6; i++) {
+                stream.accepted(makeRequestWithId(i + 1, List.of(makeOneAdultTicket())), 20, 1);
+            }
+        });
+
+        publisher.start();
+        publisher.join(200);
+        Assertions.assertTrue(publisher.isAlive());
+        release.countDown();
+        publisher.join(TimeUnit.SECONDS.toMillis(5));
+        stream.close();
+
+        Assertions.assertEquals(0, stream.dropped());
+        Assertions.assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L), stalled.accountIds);
+    }
+
+    @Test
+    void fileSinkWritesOneLinePerEvent(@TempDir Path directory) throws Exception {
+        var file = directory.resolve("purchases.csv");
+        var stream = new PurchaseEventStream(EventStreamConfig.DEFAULT, List.of(new FileEventSink(file)));
+
+        stream.accepted(makeRequestWithId(9, List.of(makeMultiAdultTicket(3))), 60, 3);
+        stream.rejected(null, RejectionReason.INVALID_REQUEST);
+        stream.close();
+
+        var lines = Files.readAllLines(file);
+        Assertions.assertEquals(FileEventSink.HEADER, lines.get(0));
+        Assertions.assertTrue(lines.get(1).endsWith(",ACCEPTED,9,0,3,0,0,60,3,"));
+        Assertions.assertTrue(lines.get(2).endsWith(",REJECTED,0,0,0,0,0,0,0,INVALID_REQUEST"));
+    }
+
+    private static final class StalledSink implements PurchaseEventSink {
+        private final CountDownLatch release;
+        private final List<Long> accountIds = new ArrayList<>();
+
+        private StalledSink(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void onEvent(PurchaseEvent event, boolean endOfBatch) throws InterruptedException {
+            release.await();
+            accountIds.add(event.getAccountId());
+        }
+    }
+}
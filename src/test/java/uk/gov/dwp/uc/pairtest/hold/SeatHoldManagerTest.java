@@ -0,0 +1,184 @@
+package uk.gov.dwp.uc.pairtest.hold;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import thirdparty.paymentgateway.TicketPaymentService;
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.PricingServiceImpl;
+import uk.gov.dwp.uc.pairtest.SeatingCalculatorServiceImpl;
+import uk.gov.dwp.uc.pairtest.TariffRegistry;
+import uk.gov.dwp.uc.pairtest.TicketServiceImpl;
+import uk.gov.dwp.uc.pairtest.domain.TicketPurchaseRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketRequest;
+import uk.gov.dwp.uc.pairtest.exception.HoldExpiredException;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.exception.OutcomeUnknownException;
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+import uk.gov.dwp.uc.pairtest.exception.UnfulfilledPurchaseException;
+import uk.gov.dwp.uc.pairtest.inventory.GroupSplitPolicy;
+import uk.gov.dwp.uc.pairtest.inventory.InMemorySeatInventory;
+import uk.gov.dwp.uc.pairtest.inventory.Screen;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.Mockito.*;
+import static uk.gov.dwp.uc.pairtest.TicketServiceHelper.*;
+
+public class SeatHoldManagerTest {
+
+    private static final long PERFORMANCE_ID = 42;
+    private static final long TICK = 10;
+
+    private final AtomicLong clock = new AtomicLong(1_000);
+
+    @Test
+    void wheelFiresEveryTimeoutOnceAndNeverEarly() {
+        var firedAt = new ArrayList<long[]>();
+        var wheel = new TimingWheel<Long>(TICK, clock.get(),
+                deadline -> firedAt.add(new long[]{deadline, clock.get()}));
+        var random = new Random(7);
+        var deadlines = new ArrayList<Long>();
+        // Spread across every level of the wheel and past its horizon of 64^4 ticks.
+        for (int i = 0; i < 2_000; i++) {
+            var delay = (long) Math.pow(2, random.nextDouble() * 26) * TICK;
+            deadlines.add(clock.get() + delay + random.nextInt((int) TICK));
+        }
+        deadlines.forEach(deadline -> wheel.schedule(deadline, deadline));
+
+        var latest = deadlines.stream().mapToLong(Long::longValue).max().orElseThrow();
+        while (clock.get() <= latest + TICK) {
+            clock.addAndGet(TICK * 37);
+            wheel.advanceTo(clock.get());
+        }
+
+        Assertions.assertEquals(deadlines.size(), firedAt.size());
+        Assertions.assertEquals(0, wheel.pending());
+        for (var fired : firedAt) {
+            Assertions.assertTrue(fired[1] >= fired[0]);
+            Assertions.assertTrue(fired[1] < fired[0] + TICK * 38);
+        }
+    }
+
+    @Test
+    void lapsedHoldsReleaseTheirSeats() {
+        var inventory = inventory();
+        var manager = new SeatHoldManager(inventory, new HoldConfig(Duration.ofNanos(1_000), Duration.ofNanos(TICK),
+                false), clock::get);
+        var lapsing = manager.hold(PERFORMANCE_ID, 1, 4);
+        var confirmed = manager.hold(PERFORMANCE_ID, 2, 2);
+        var released = manager.hold(PERFORMANCE_ID, 3, 2);
+        Assertions.assertEquals(2, inventory.remainingSeats(PERFORMANCE_ID));
+
+        manager.confirm(confirmed);
+        manager.release(released);
+        Assertions.assertEquals(4, inventory.remainingSeats(PERFORMANCE_ID));
+
+        clock.addAndGet(1_000 + TICK);
+        manager.expireHolds();
+
+        Assertions.assertEquals(8, inventory.remainingSeats(PERFORMANCE_ID));
+        Assertions.assertEquals(1, manager.expiredHolds());
+        Assertions.assertEquals(0, manager.outstandingHolds());
+        Assertions.assertThrows(HoldExpiredException.class, () -> manager.confirm(lapsing));
+    }
+
+    @Test
+    void ticketServiceHoldsBeforePaymentAndReleasesOnFailure() {
+        var inventory = inventory();
+        var manager = new SeatHoldManager(inventory, HoldConfig.DEFAULT, clock::get);
+        var ticketPaymentService = mock(TicketPaymentService.class);
+        var seatReservationService = mock(SeatReservationService.class);
+        doAnswer(invocation -> {
+            Assertions.assertEquals(7, inventory.remainingSeats(PERFORMANCE_ID));
+            return null;
+        }).when(ticketPaymentService).makePayment(eq(1L), anyInt());
+        doThrow(new IllegalStateException("declined")).when(ticketPaymentService).makePayment(eq(2L), anyInt());
+        var ticketService = TicketServiceImpl.builder(
+                        new TariffRegistry(new PricingServiceImpl(), new SeatingCalculatorServiceImpl()),
+                        ticketPaymentService, seatReservationService)
+                .seatHolds(manager)
+                .build();
+
+        ticketService.purchaseTickets(request(1, makeMultiAdultTicket(3)));
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> ticketService.purchaseTickets(request(2, makeMultiAdultTicket(4))));
+
+        Assertions.assertEquals(7, inventory.remainingSeats(PERFORMANCE_ID));
+        Assertions.assertEquals(0, manager.outstandingHolds());
+        verifyNoInteractions(seatReservationService);
+    }
+
+    @Test
+    void ticketServiceKeepsTheHoldWhenThePaymentOutcomeIsUnknown() {
+        var inventory = inventory();
+        var manager = new SeatHoldManager(inventory, HoldConfig.DEFAULT, clock::get);
+        var ticketPaymentService = mock(TicketPaymentService.class);
+        doThrow(new OutcomeUnknownException("timed out")).when(ticketPaymentService).makePayment(anyLong(), anyInt());
+        var ticketService = TicketServiceImpl.builder(
+                        new TariffRegistry(new PricingServiceImpl(), new SeatingCalculatorServiceImpl()),
+                        ticketPaymentService, mock(SeatReservationService.class))
+                .seatHolds(manager)
+                .build();
+
+        Assertions.assertThrows(OutcomeUnknownException.class,
+                () -> ticketService.purchaseTickets(request(1, makeMultiAdultTicket(3))));
+
+        Assertions.assertEquals(7, inventory.remainingSeats(PERFORMANCE_ID));
+        Assertions.assertEquals(1, manager.outstandingHolds());
+    }
+
+    @Test
+    void holdLapsingDuringPaymentIsAFailureNotARejection() {
+        var inventory = inventory();
+        var manager = new SeatHoldManager(inventory, new HoldConfig(Duration.ofNanos(1_000), Duration.ofNanos(TICK),
+                false), clock::get);
+        var ticketPaymentService = mock(TicketPaymentService.class);
+        doAnswer(invocation -> {
+            clock.addAndGet(1_000 + TICK);
+            manager.expireHolds();
+            return null;
+        }).when(ticketPaymentService).makePayment(anyLong(), anyInt());
+        var ticketService = TicketServiceImpl.builder(
+                        new TariffRegistry(new PricingServiceImpl(), new SeatingCalculatorServiceImpl()),
+                        ticketPaymentService, mock(SeatReservationService.class))
+                .seatHolds(manager)
+                .build();
+
+        var thrown = Assertions.assertThrows(UnfulfilledPurchaseException.class,
+                () -> ticketService.purchaseTickets(request(1, makeMultiAdultTicket(3))));
+
+        Assertions.assertInstanceOf(HoldExpiredException.class, thrown.getCause());
+        Assertions.assertEquals(10, inventory.remainingSeats(PERFORMANCE_ID));
+    }
+
+    @Test
+    void rejectsOrdersForPerformancesNotOnSale() {
+        var manager = new SeatHoldManager(inventory(), HoldConfig.DEFAULT, clock::get);
+        var ticketPaymentService = mock(TicketPaymentService.class);
+        var ticketService = TicketServiceImpl.builder(
+                        new TariffRegistry(new PricingServiceImpl(), new SeatingCalculatorServiceImpl()),
+                        ticketPaymentService, mock(SeatReservationService.class))
+                .seatHolds(manager)
+                .build();
+
+        var thrown = Assertions.assertThrows(InvalidPurchaseException.class,
+                () -> ticketService.purchaseTickets(makeRequestWithId(1, List.of(makeOneAdultTicket()))));
+
+        Assertions.assertEquals(RejectionReason.UNKNOWN_PERFORMANCE, thrown.getReason());
+        verifyNoInteractions(ticketPaymentService);
+    }
+
+    private static TicketPurchaseRequest request(long accountId, TicketRequest ticketRequest) {
+        return new TicketPurchaseRequest(accountId, List.of(ticketRequest), null, PERFORMANCE_ID);
+    }
+
+    private static InMemorySeatInventory inventory() {
+        var inventory = new InMemorySeatInventory(GroupSplitPolicy.ANY);
+        inventory.addPerformance(PERFORMANCE_ID, new Screen("1", 1, 10));
+        return inventory;
+    }
+}
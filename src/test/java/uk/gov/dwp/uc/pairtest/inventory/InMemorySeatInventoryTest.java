@@ -0,0 +1,153 @@
+package uk.gov.dwp.uc.pairtest.inventory;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import thirdparty.paymentgateway.TicketPaymentService;
+import uk.gov.dwp.uc.pairtest.PricingServiceImpl;
+import uk.gov.dwp.uc.pairtest.SeatingCalculatorServiceImpl;
+import uk.gov.dwp.uc.pairtest.TariffRegistry;
+import uk.gov.dwp.uc.pairtest.TicketServiceImpl;
+import uk.gov.dwp.uc.pairtest.domain.TicketPurchaseRequest;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+import uk.gov.dwp.uc.pairtest.exception.SoldOutException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static uk.gov.dwp.uc.pairtest.TicketServiceHelper.*;
+
+public class InMemorySeatInventoryTest {
+
+    private static final long PERFORMANCE_ID = 42;
+
+    @Test
+    void allocatesContiguousSeatsInOneRow() {
+        var inventory = inventory(new Screen("1", 2, 10), GroupSplitPolicy.NEVER);
+
+        var allocation = inventory.allocate(PERFORMANCE_ID, 1, 4);
+
+        Assertions.assertEquals(1, allocation.blocks().size());
+        Assertions.assertEquals(4, allocation.blocks().get(0).length());
+        Assertions.assertEquals(16, inventory.remainingSeats(PERFORMANCE_ID));
+    }
+
+    @Test
+    void neverPolicyRejectsGroupThatOnlyFitsSplit() {
+        var inventory = inventory(new Screen("1", 2, 4), GroupSplitPolicy.NEVER);
+        inventory.allocate(PERFORMANCE_ID, 1, 2);
+        inventory.allocate(PERFORMANCE_ID, 2, 2);
+
+        Assertions.assertThrows(SoldOutException.class, () -> inventory.allocate(PERFORMANCE_ID, 3, 4));
+        Assertions.assertEquals(4, inventory.remainingSeats(PERFORMANCE_ID));
+    }
+
+    @Test
+    void splitPolicySeatsGroupAcrossRows() {
+        var inventory = inventory(new Screen("1", 2, 4), GroupSplitPolicy.PAIRS);
+        inventory.allocate(PERFORMANCE_ID, 1, 2);
+        inventory.allocate(PERFORMANCE_ID, 2, 2);
+
+        var allocation = inventory.allocate(PERFORMANCE_ID, 3, 4);
+
+        Assertions.assertEquals(2, allocation.blocks().size());
+        Assertions.assertEquals(0, inventory.remainingSeats(PERFORMANCE_ID));
+    }
+
+    @Test
+    void releaseReturnsSeats() {
+        var inventory = inventory(new Screen("1", 1, 4), GroupSplitPolicy.NEVER);
+        var allocation = inventory.allocate(PERFORMANCE_ID, 1, 4);
+        inventory.release(allocation);
+
+        Assertions.assertEquals(4, inventory.allocate(PERFORMANCE_ID, 2, 4).seatCount());
+    }
+
+    @Test
+    void replayingAnAllocationLeavesTheCountAlone() {
+        var inventory = inventory(new Screen("1", 2, 10), GroupSplitPolicy.NEVER);
+        var allocation = inventory.allocate(PERFORMANCE_ID, 1, 4);
+
+        var replica = new PerformanceSeatMap(PERFORMANCE_ID, new Screen("1", 2, 10));
+        replica.claim(allocation);
+        replica.claim(allocation);
+
+        Assertions.assertEquals(16, replica.remainingSeats());
+        Assertions.assertTrue(replica.hasFreeSeats(16));
+        Assertions.assertFalse(replica.hasFreeSeats(17));
+        Assertions.assertArrayEquals(inventory.seatMap(PERFORMANCE_ID).snapshotRows(), replica.snapshotRows());
+    }
+
+    @Test
+    void neverOversellsUnderConcurrentBookings() throws Exception {
+        var inventory = inventory(new Screen("1", 20, 50), GroupSplitPolicy.ANY);
+        var seatsSold = new AtomicInteger();
+        var allocations = Collections.synchronizedList(new ArrayList<SeatAllocation>());
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 2_000; i++) {
+            long accountId = i + 1;
+            executor.execute(() -> {
+                try {
+                    var allocation = inventory.allocate(PERFORMANCE_ID, accountId, (int) (accountId % 3) + 1);
+                    seatsSold.addAndGet(allocation.seatCount());
+                    allocations.add(allocation);
+                } catch (SoldOutException ignored) {
+                }
+            });
+        }
+        executor.shutdown();
+        Assertions.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        Assertions.assertEquals(1_000, seatsSold.get());
+        var rows = inventory.seatMap(PERFORMANCE_ID).snapshotRows();
+        Assertions.assertEquals(1_000, Arrays.stream(rows).map(Long::bitCount).sum());
+    }
+
+    @Test
+    void soldOutPerformanceFailsBeforePayment() {
+        var inventory = inventory(new Screen("1", 1, 2), GroupSplitPolicy.NEVER);
+        var reservations = inventory.forPerformance(PERFORMANCE_ID);
+        var ticketPaymentService = mock(TicketPaymentService.class);
+        var impl = TicketServiceImpl.builder(
+                        new TariffRegistry(new PricingServiceImpl(), new SeatingCalculatorServiceImpl()),
+                        ticketPaymentService, reservations)
+                .seatAvailability(reservations)
+                .build();
+
+        Assertions.assertThrows(SoldOutException.class,
+                () -> impl.purchaseTickets(makeRequestWithId(1, List.of(makeMultiAdultTicket(3)))));
+        verifyNoInteractions(ticketPaymentService);
+    }
+
+    @Test
+    void orderForAPerformanceNotOnSaleIsRejectedBeforePayment() {
+        var inventory = inventory(new Screen("1", 1, 2), GroupSplitPolicy.NEVER);
+        var ticketPaymentService = mock(TicketPaymentService.class);
+        var impl = TicketServiceImpl.builder(
+                        new TariffRegistry(new PricingServiceImpl(), new SeatingCalculatorServiceImpl()),
+                        ticketPaymentService, null)
+                .seatInventory(inventory)
+                .build();
+
+        var e = Assertions.assertThrows(InvalidPurchaseException.class, () -> impl.purchaseTickets(
+                new TicketPurchaseRequest(1, List.of(makeOneAdultTicket()), null, PERFORMANCE_ID + 1)));
+        Assertions.assertEquals(RejectionReason.UNKNOWN_PERFORMANCE, e.getReason());
+        verifyNoInteractions(ticketPaymentService);
+        impl.purchaseTickets(new TicketPurchaseRequest(1, List.of(makeOneAdultTicket()), null, PERFORMANCE_ID));
+        Assertions.assertEquals(1, inventory.remainingSeats(PERFORMANCE_ID));
+    }
+
+    private static InMemorySeatInventory inventory(Screen screen, GroupSplitPolicy splitPolicy) {
+        var inventory = new InMemorySeatInventory(splitPolicy);
+        inventory.addPerformance(PERFORMANCE_ID, screen);
+        return inventory;
+    }
+}
@@ -0,0 +1,142 @@
+package uk.gov.dwp.uc.pairtest.inventory.cluster;
+
+import uk.gov.dwp.uc.pairtest.inventory.GroupSplitPolicy;
+import uk.gov.dwp.uc.pairtest.inventory.Screen;
+import uk.gov.dwp.uc.pairtest.inventory.SeatAllocation;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs a {@link PartitionedSeatInventory} over several {@link LocalInventoryNode}s in this JVM, each reached through a
+ * loopback stub that can be cut off to simulate a crashed or partitioned node.
+ */
+class ClusterSimulator {
+
+    private final Map<String, LoopbackNode> nodes = new LinkedHashMap<>();
+    private final PartitionedSeatInventory inventory;
+
+    ClusterSimulator(ClusterConfig config, int nodeCount) {
+        this.inventory = new PartitionedSeatInventory(config);
+        for (int i = 0; i < nodeCount; i++) {
+            startNode("node-" + i);
+        }
+    }
+
+    PartitionedSeatInventory inventory() {
+        return inventory;
+    }
+
+    LoopbackNode startNode(String id) {
+        var node = new LoopbackNode(new LocalInventoryNode(id, GroupSplitPolicy.ANY));
+        nodes.put(id, node);
+        inventory.addNode(node);
+        return node;
+    }
+
+    /**
+     * Adds a node that cannot be reached from the start, like one that crashes while joining.
+     */
+    LoopbackNode startUnreachableNode(String id) {
+        var node = new LoopbackNode(new LocalInventoryNode(id, GroupSplitPolicy.ANY));
+        node.reachable = false;
+        nodes.put(id, node);
+        inventory.addNode(node);
+        return node;
+    }
+
+    /**
+     * Makes the node unreachable without telling the inventory, which finds out on its next call to it.
+     */
+    void crash(String id) {
+        nodes.get(id).reachable = false;
+    }
+
+    LoopbackNode node(String id) {
+        return nodes.get(id);
+    }
+
+    static final class LoopbackNode implements InventoryNode {
+
+        private final LocalInventoryNode target;
+        private final AtomicLong calls = new AtomicLong();
+        private volatile boolean reachable = true;
+
+        private LoopbackNode(LocalInventoryNode target) {
+            this.target = target;
+        }
+
+        long calls() {
+            return calls.get();
+        }
+
+        /**
+         * @return  Performances held by the node itself, reachable or not
+         */
+        Set<Long> heldPerformances() {
+            return target.performanceIds();
+        }
+
+        @Override
+        public String id() {
+            return target.id();
+        }
+
+        @Override
+        public void addPerformance(long performanceId, Screen screen) {
+            send();
+            target.addPerformance(performanceId, screen);
+        }
+
+        @Override
+        public SeatAllocation allocate(long performanceId, long accountId, int seats) {
+            send();
+            return target.allocate(performanceId, accountId, seats);
+        }
+
+        @Override
+        public void replicate(SeatAllocation allocation) {
+            send();
+            target.replicate(allocation);
+        }
+
+        @Override
+        public int remainingSeats(long performanceId) {
+            send();
+            return target.remainingSeats(performanceId);
+        }
+
+        @Override
+        public PerformanceSnapshot snapshot(long performanceId) {
+            send();
+            return target.snapshot(performanceId);
+        }
+
+        @Override
+        public void restore(PerformanceSnapshot snapshot) {
+            send();
+            target.restore(snapshot);
+        }
+
+        @Override
+        public void removePerformance(long performanceId) {
+            send();
+            target.removePerformance(performanceId);
+        }
+
+        @Override
+        public Set<Long> performanceIds() {
+            send();
+            return target.performanceIds();
+        }
+
+        private void send() {
+            if (!reachable) {
+                throw new NodeUnavailableException(target.id());
+            }
+            calls.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package uk.gov.dwp.uc.pairtest.inventory.cluster;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import thirdparty.paymentgateway.TicketPaymentService;
+import uk.gov.dwp.uc.pairtest.PricingServiceImpl;
+import uk.gov.dwp.uc.pairtest.SeatingCalculatorServiceImpl;
+import uk.gov.dwp.uc.pairtest.TariffRegistry;
+import uk.gov.dwp.uc.pairtest.TicketServiceImpl;
+import uk.gov.dwp.uc.pairtest.domain.TicketPurchaseRequest;
+import uk.gov.dwp.uc.pairtest.exception.DownstreamUnavailableException;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+import uk.gov.dwp.uc.pairtest.exception.SoldOutException;
+import uk.gov.dwp.uc.pairtest.inventory.Screen;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static uk.gov.dwp.uc.pairtest.TicketServiceHelper.*;
+
+public class PartitionedSeatInventoryTest {
+
+    private static final Screen SCREEN = new Screen("1", 10, 20);
+    private static final int PERFORMANCES = 200;
+
+    @Test
+    void spreadsPerformancesAcrossNodesWithEveryReplicaHoldingTheSameSeats() {
+        var cluster = new ClusterSimulator(new ClusterConfig(128, 2, false), 4);
+        var inventory = cluster.inventory();
+        addPerformances(inventory);
+
+        for (int i = 0; i < 4; i++) {
+            var held = cluster.node("node-" + i).heldPerformances().size();
+            Assertions.assertTrue(held > PERFORMANCES / 4 && held < PERFORMANCES, "node-" + i + " holds " + held);
+        }
+        var allocation = inventory.allocate(7, 1, 4);
+        for (var nodeId : inventory.replicasOf(7)) {
+            var copy = cluster.node(nodeId).snapshot(7);
+            Assertions.assertEquals(4, Arrays.stream(copy.rows()).map(Long::bitCount).sum());
+        }
+        Assertions.assertEquals(4, allocation.seatCount());
+        Assertions.assertEquals(196, inventory.remainingSeats(7));
+    }
+
+    @Test
+    void joiningNodeTakesOnlyItsShareAndKeepsSoldSeats() {
+        var cluster = new ClusterSimulator(new ClusterConfig(128, 1, false), 3);
+        var inventory = cluster.inventory();
+        addPerformances(inventory);
+        var remaining = sellSomeSeats(inventory);
+        Map<Long, String> before = new HashMap<>();
+        inventory.performanceIds().forEach(id -> before.put(id, inventory.replicasOf(id).get(0)));
+
+        cluster.startNode("node-3");
+
+        var moved = 0;
+        for (var id : inventory.performanceIds()) {
+            var owner = inventory.replicasOf(id).get(0);
+            if (!owner.equals(before.get(id))) {
+                Assertions.assertEquals("node-3", owner);
+                moved++;
+            }
+            Assertions.assertEquals(remaining.get(id), inventory.remainingSeats(id));
+        }
+        Assertions.assertTrue(moved > PERFORMANCES / 8 && moved < PERFORMANCES / 2, "moved " + moved);
+        Assertions.assertEquals(moved, cluster.node("node-3").heldPerformances().size());
+    }
+
+    @Test
+    void leavingNodeHandsItsPerformancesOn() {
+        var cluster = new ClusterSimulator(new ClusterConfig(128, 2, false), 3);
+        var inventory = cluster.inventory();
+        addPerformances(inventory);
+        var remaining = sellSomeSeats(inventory);
+
+        inventory.removeNode("node-1");
+
+        Assertions.assertTrue(cluster.node("node-1").heldPerformances().isEmpty());
+        for (var id : inventory.performanceIds()) {
+            Assertions.assertEquals(List.of("node-0", "node-2"), inventory.replicasOf(id).stream().sorted().toList());
+            Assertions.assertEquals(remaining.get(id), inventory.remainingSeats(id));
+        }
+    }
+
+    @Test
+    void failsOverToABackupWithoutLosingSoldSeats() throws Exception {
+        var cluster = new ClusterSimulator(new ClusterConfig(128, 2, false), 4);
+        var inventory = cluster.inventory();
+        addPerformances(inventory);
+        var remaining = sellSomeSeats(inventory);
+        var victim = inventory.replicasOf(7).get(0);
+
+        cluster.crash(victim);
+        var reservations = inventory.forPerformance(7);
+        var ticketService = TicketServiceImpl.builder(
+                        new TariffRegistry(new PricingServiceImpl(), new SeatingCalculatorServiceImpl()),
+                        mock(TicketPaymentService.class), reservations)
+                .seatAvailability(reservations)
+                .build();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int i = 0; i < 20; i++) {
+            long accountId = i + 1;
+            executor.execute(() -> ticketService.purchaseTickets(makeRequestWithId(accountId,
+                    List.of(makeMultiAdultTicket(2)))));
+        }
+        executor.shutdown();
+        Assertions.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        Assertions.assertFalse(inventory.nodeIds().contains(victim));
+        Assertions.assertEquals(remaining.get(7L) - 40, inventory.remainingSeats(7));
+        for (var id : inventory.performanceIds()) {
+            Assertions.assertEquals(2, inventory.replicasOf(id).size());
+            Assertions.assertFalse(inventory.replicasOf(id).contains(victim));
+        }
+        Assertions.assertTrue(inventory.lostPerformances().isEmpty());
+        Assertions.assertThrows(SoldOutException.class, () -> inventory.allocate(7, 99, 1_000));
+    }
+
+    @Test
+    void ticketServiceBooksEachOrderAgainstThePerformanceItNames() {
+        var cluster = new ClusterSimulator(new ClusterConfig(128, 2, false), 3);
+        var inventory = cluster.inventory();
+        addPerformances(inventory);
+        var remaining = sellSomeSeats(inventory);
+        var ticketPaymentService = mock(TicketPaymentService.class);
+        var ticketService = TicketServiceImpl.builder(
+                        new TariffRegistry(new PricingServiceImpl(), new SeatingCalculatorServiceImpl()),
+                        ticketPaymentService, null)
+                .seatInventory(inventory)
+                .build();
+
+        ticketService.purchaseTickets(new TicketPurchaseRequest(1, List.of(makeMultiAdultTicket(3)), null, 7));
+        ticketService.purchaseTickets(new TicketPurchaseRequest(2, List.of(makeMultiAdultTicket(2)), null, 8));
+
+        Assertions.assertEquals(remaining.get(7L) - 3, inventory.remainingSeats(7));
+        Assertions.assertEquals(remaining.get(8L) - 2, inventory.remainingSeats(8));
+        var unknown = new TicketPurchaseRequest(3, List.of(makeOneAdultTicket()), null, PERFORMANCES + 1);
+        var e = Assertions.assertThrows(InvalidPurchaseException.class, () -> ticketService.purchaseTickets(unknown));
+        Assertions.assertEquals(RejectionReason.UNKNOWN_PERFORMANCE, e.getReason());
+    }
+
+    @Test
+    void performancesWithoutASurvivingCopyAreLost() {
+        var cluster = new ClusterSimulator(new ClusterConfig(128, 1, false), 2);
+        var inventory = cluster.inventory();
+        addPerformances(inventory);
+        var victim = inventory.replicasOf(7).get(0);
+
+        cluster.crash(victim);
+
+        Assertions.assertThrows(DownstreamUnavailableException.class, () -> inventory.allocate(7, 1, 2));
+        Assertions.assertTrue(inventory.lostPerformances().contains(7L));
+        var survivor = victim.equals("node-0") ? "node-1" : "node-0";
+        for (var id : inventory.performanceIds()) {
+            Assertions.assertEquals(List.of(survivor), inventory.replicasOf(id));
+        }
+    }
+
+    @Test
+    void keepsTheOldCopyWhenNoNewReplicaCanTakeIt() {
+        var cluster = new ClusterSimulator(new ClusterConfig(128, 1, false), 1);
+        var inventory = cluster.inventory();
+        addPerformances(inventory);
+        var remaining = sellSomeSeats(inventory);
+
+        cluster.startUnreachableNode("node-1");
+
+        Assertions.assertEquals(Set.of("node-0"), inventory.nodeIds());
+        Assertions.assertEquals(PERFORMANCES, cluster.node("node-0").heldPerformances().size());
+        Assertions.assertTrue(inventory.lostPerformances().isEmpty());
+        for (var id : inventory.performanceIds()) {
+            Assertions.assertEquals(List.of("node-0"), inventory.replicasOf(id));
+            Assertions.assertEquals(remaining.get(id), inventory.remainingSeats(id));
+        }
+    }
+
+    private static void addPerformances(PartitionedSeatInventory inventory) {
+        for (long id = 1; id <= PERFORMANCES; id++) {
+            inventory.addPerformance(id, SCREEN);
+        }
+    }
+
+    private static Map<Long, Integer> sellSomeSeats(PartitionedSeatInventory inventory) {
+        Map<Long, Integer> remaining = new HashMap<>();
+        for (long id = 1; id <= PERFORMANCES; id++) {
+            inventory.allocate(id, id, (int) (id % 5) + 1);
+            remaining.put(id, inventory.remainingSeats(id));
+        }
+        return remaining;
+    }
+}
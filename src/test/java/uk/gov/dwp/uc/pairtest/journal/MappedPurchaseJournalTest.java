@@ -0,0 +1,196 @@
+package uk.gov.dwp.uc.pairtest.journal;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import thirdparty.paymentgateway.TicketPaymentService;
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.PricingServiceImpl;
+import uk.gov.dwp.uc.pairtest.SeatingCalculatorServiceImpl;
+import uk.gov.dwp.uc.pairtest.TariffRegistry;
+import uk.gov.dwp.uc.pairtest.TicketServiceImpl;
+import uk.gov.dwp.uc.pairtest.exception.OutcomeUnknownException;
+import uk.gov.dwp.uc.pairtest.inventory.SeatInventory;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+import static uk.gov.dwp.uc.pairtest.TicketServiceHelper.*;
+
+public class MappedPurchaseJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void deletesSegmentsOnceEveryPurchaseInThemHasFinished() throws Exception {
+        try (var journal = MappedPurchaseJournal.open(new JournalConfig(directory, 4, Duration.ZERO))) {
+            var first = journal.started(1, 0, 25, 1);
+            journal.paid(first);
+            var second = journal.started(2, 0, 25, 1);
+            var third = journal.started(3, 0, 25, 1);
+            Assertions.assertEquals(1, journal.segmentCount());
+
+            journal.completed(first);
+            journal.abandoned(second);
+            Assertions.assertEquals(2, journal.segmentCount());
+
+            journal.completed(third);
+            Assertions.assertEquals(1, journal.segmentCount());
+            Assertions.assertNotEquals(first >>> 32, journal.started(4, 0, 25, 1) >>> 32);
+        }
+    }
+
+    @Test
+    void recoveryReplaysPaidPurchasesAndFlagsUnpaidOnes() throws Exception {
+        try (var journal = MappedPurchaseJournal.open(JournalConfig.of(directory))) {
+            journal.paid(journal.started(10, 0, 50, 2));
+            journal.started(11, 0, 25, 1);
+            journal.completed(journal.started(12, 0, 25, 1));
+        }
+        var seatReservationService = mock(SeatReservationService.class);
+        var flagged = new ArrayList<JournalRecord>();
+
+        var report = JournalRecovery.recover(directory, seatReservationService, flagged::add);
+
+        Assertions.assertEquals(new RecoveryReport(1, 1, 1), report);
+        verify(seatReservationService).reserveSeat(10, 2);
+        verifyNoMoreInteractions(seatReservationService);
+        Assertions.assertEquals(11, flagged.get(0).accountId());
+        Assertions.assertEquals(PurchaseStage.STARTED, flagged.get(0).stage());
+        MappedPurchaseJournal.open(JournalConfig.of(directory)).close();
+    }
+
+    @Test
+    void handsPurchasesDueARefundOverAndRetiresTheirSegments() throws Exception {
+        var flagged = new ArrayList<JournalRecord>();
+        try (var journal = MappedPurchaseJournal.open(new JournalConfig(directory, 4, Duration.ZERO), flagged::add)) {
+            var first = journal.started(1, 0, 25, 1);
+            journal.paid(first);
+            journal.refundDue(first);
+            journal.completed(journal.started(2, 0, 25, 1));
+
+            Assertions.assertEquals(1, journal.segmentCount());
+            Assertions.assertEquals(List.of(new JournalRecord(first, 1, 0, 25, 1, PurchaseStage.REFUND_DUE)), flagged);
+        }
+    }
+
+    @Test
+    void recoveryFlagsPurchasesDueARefundThatWereNotHandedOver() throws Exception {
+        try (var journal = MappedPurchaseJournal.open(JournalConfig.of(directory))) {
+            var purchaseId = journal.started(10, 0, 50, 2);
+            journal.paid(purchaseId);
+            journal.refundDue(purchaseId);
+        }
+        var seatReservationService = mock(SeatReservationService.class);
+        var flagged = new ArrayList<JournalRecord>();
+
+        var report = JournalRecovery.recover(directory, seatReservationService, flagged::add);
+
+        Assertions.assertEquals(new RecoveryReport(0, 1, 0), report);
+        verifyNoInteractions(seatReservationService);
+        Assertions.assertEquals(PurchaseStage.REFUND_DUE, flagged.get(0).stage());
+        Assertions.assertEquals(50, flagged.get(0).amount());
+    }
+
+    @Test
+    void recoveryBooksPaidPurchasesForThePerformanceTheyWereFor() throws Exception {
+        try (var journal = MappedPurchaseJournal.open(JournalConfig.of(directory))) {
+            journal.paid(journal.started(10, 7, 50, 2));
+            journal.paid(journal.started(11, 8, 25, 1));
+        }
+        var seatInventory = mock(SeatInventory.class);
+
+        var report = JournalRecovery.recover(directory, seatInventory, record -> Assertions.fail());
+
+        Assertions.assertEquals(new RecoveryReport(2, 0, 0), report);
+        verify(seatInventory).reserveSeats(7, 10, 2);
+        verify(seatInventory).reserveSeats(8, 11, 1);
+    }
+
+    @Test
+    void recoveryThatFailsPartWayCanBeRunAgainWithoutReplayingTwice() throws Exception {
+        try (var journal = MappedPurchaseJournal.open(JournalConfig.of(directory))) {
+            journal.paid(journal.started(10, 7, 50, 2));
+            journal.started(11, 7, 25, 1);
+        }
+        var seatInventory = mock(SeatInventory.class);
+
+        Assertions.assertThrows(IllegalStateException.class, () -> JournalRecovery.recover(directory, seatInventory,
+                record -> {
+                    throw new IllegalStateException("refunds down");
+                }));
+        var flagged = new ArrayList<JournalRecord>();
+        var report = JournalRecovery.recover(directory, seatInventory, flagged::add);
+
+        verify(seatInventory, times(1)).reserveSeats(7, 10, 2);
+        Assertions.assertEquals(List.of(11L), flagged.stream().map(JournalRecord::accountId).toList());
+        Assertions.assertEquals(1, report.flaggedForRefund());
+        MappedPurchaseJournal.open(JournalConfig.of(directory)).close();
+    }
+
+    @Test
+    void purchaseIdsNeverRepeatAcrossRestarts() throws Exception {
+        long first;
+        try (var journal = MappedPurchaseJournal.open(new JournalConfig(directory, 1, Duration.ZERO))) {
+            first = journal.started(1, 0, 25, 1);
+            journal.completed(journal.started(2, 0, 25, 1));
+        }
+        JournalRecovery.recover(directory, mock(SeatInventory.class), record -> { });
+
+        try (var journal = MappedPurchaseJournal.open(new JournalConfig(directory, 1, Duration.ZERO))) {
+            Assertions.assertTrue(journal.started(3, 0, 25, 1) >>> 32 > (first >>> 32) + 1);
+        }
+    }
+
+    @Test
+    void recoveryRefusesSegmentsOfAnEarlierFormat() throws Exception {
+        Files.write(directory.resolve("journal-0000000001.log"), new byte[32]);
+
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> JournalRecovery.recover(directory, mock(SeatInventory.class), record -> { }));
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> MappedPurchaseJournal.open(JournalConfig.of(directory)));
+    }
+
+    @Test
+    void refusesToOpenOverUnrecoveredSegments() throws Exception {
+        MappedPurchaseJournal.open(JournalConfig.of(directory)).close();
+
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> MappedPurchaseJournal.open(JournalConfig.of(directory)));
+    }
+
+    @Test
+    void ticketServiceJournalsEachStage() throws Exception {
+        var ticketPaymentService = mock(TicketPaymentService.class);
+        var seatReservationService = mock(SeatReservationService.class);
+        var tariffRegistry = new TariffRegistry(new PricingServiceImpl(), new SeatingCalculatorServiceImpl());
+        doThrow(new IllegalStateException("declined")).when(ticketPaymentService).makePayment(eq(2L), anyInt());
+        doThrow(new IllegalStateException("no seats")).when(seatReservationService).reserveSeat(eq(3L), anyInt());
+        doThrow(new OutcomeUnknownException("timed out")).when(ticketPaymentService).makePayment(eq(4L), anyInt());
+        var refunds = new ArrayList<JournalRecord>();
+
+        try (var journal = MappedPurchaseJournal.open(JournalConfig.of(directory), refunds::add)) {
+            var ticketService = TicketServiceImpl.builder(tariffRegistry, ticketPaymentService, seatReservationService)
+                    .journal(journal)
+                    .build();
+            ticketService.purchaseTickets(makeRequestWithId(1, List.of(makeOneAdultTicket())));
+            Assertions.assertThrows(IllegalStateException.class,
+                    () -> ticketService.purchaseTickets(makeRequestWithId(2, List.of(makeOneAdultTicket()))));
+            Assertions.assertThrows(IllegalStateException.class,
+                    () -> ticketService.purchaseTickets(makeRequestWithId(3, List.of(makeOneAdultTicket()))));
+            Assertions.assertThrows(OutcomeUnknownException.class,
+                    () -> ticketService.purchaseTickets(makeRequestWithId(4, List.of(makeOneAdultTicket()))));
+        }
+
+        Assertions.assertEquals(List.of(3L, 4L), refunds.stream().map(JournalRecord::accountId).toList());
+        var report = JournalRecovery.recover(directory, mock(SeatReservationService.class), refunds::add);
+        Assertions.assertEquals(2, refunds.size());
+        Assertions.assertEquals(new RecoveryReport(0, 0, 4), report);
+    }
+}
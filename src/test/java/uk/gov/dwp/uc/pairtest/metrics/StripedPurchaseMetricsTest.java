@@ -0,0 +1,137 @@
+package uk.gov.dwp.uc.pairtest.metrics;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.stubbing.Answer;
+import thirdparty.paymentgateway.TicketPaymentService;
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.PricingServiceImpl;
+import uk.gov.dwp.uc.pairtest.SeatingCalculatorServiceImpl;
+import uk.gov.dwp.uc.pairtest.TariffRegistry;
+import uk.gov.dwp.uc.pairtest.TicketServiceImpl;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+import uk.gov.dwp.uc.pairtest.journal.PurchaseJournal;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+import static uk.gov.dwp.uc.pairtest.TicketServiceHelper.*;
+
+public class StripedPurchaseMetricsTest {
+
+    private StripedPurchaseMetrics metrics;
+    private SeatReservationService seatReservationService;
+    private TicketServiceImpl impl;
+
+    @BeforeEach
+    void setUp() {
+        metrics = new StripedPurchaseMetrics();
+        seatReservationService = mock(SeatReservationService.class);
+        impl = TicketServiceImpl.builder(new TariffRegistry(new PricingServiceImpl(), new SeatingCalculatorServiceImpl()),
+                        mock(TicketPaymentService.class), seatReservationService)
+                .metrics(metrics)
+                .build();
+    }
+
+    @Test
+    void countsAcceptedAndRejectedPurchases() {
+        impl.purchaseTickets(makeRequestWithId(1, List.of(makeOneAdultTicket())));
+        impl.purchaseTickets(makeRequestWithId(2, List.of(makeOneAdultTicket(), makeOneChildTicket())));
+        Assertions.assertThrows(InvalidPurchaseException.class,
+                () -> impl.purchaseTickets(makeRequestWithId(3, List.of(makeOneChildTicket()))));
+        Assertions.assertThrows(InvalidPurchaseException.class, () -> impl.purchaseTickets(null));
+
+        var snapshot = metrics.snapshot();
+        Assertions.assertEquals(2, snapshot.accepted());
+        Assertions.assertEquals(1, snapshot.rejected().get(RejectionReason.NO_ADULT_PRESENT));
+        Assertions.assertEquals(1, snapshot.rejected().get(RejectionReason.INVALID_REQUEST));
+        Assertions.assertEquals(2, snapshot.totalRejected());
+    }
+
+    @Test
+    void timesEveryStageOfAcceptedPurchases() {
+        impl.purchaseTickets(makeRequestWithId(1, List.of(makeOneAdultTicket())));
+
+        var latency = metrics.snapshot().latency();
+        for (var stage : Stage.values()) {
+            Assertions.assertEquals(1, latency.get(stage).getCount());
+        }
+    }
+
+    @Test
+    void leavesJournalWritesOutOfPaymentAndReservationTimes() {
+        var journal = mock(PurchaseJournal.class);
+        Answer<Object> slowWrite = invocation -> {
+            Thread.sleep(50);
+            return 1L;
+        };
+        doAnswer(slowWrite).when(journal).started(anyLong(), anyLong(), anyInt(), anyInt());
+        doAnswer(slowWrite).when(journal).paid(anyLong());
+        doAnswer(slowWrite).when(journal).completed(anyLong());
+        var journalled = TicketServiceImpl.builder(
+                        new TariffRegistry(new PricingServiceImpl(), new SeatingCalculatorServiceImpl()),
+                        mock(TicketPaymentService.class), seatReservationService)
+                .metrics(metrics)
+                .journal(journal)
+                .build();
+
+        journalled.purchaseTickets(makeRequestWithId(1, List.of(makeOneAdultTicket())));
+
+        var latency = metrics.snapshot().latency();
+        Assertions.assertTrue(latency.get(Stage.PAYMENT).getPercentile(100) < 50_000_000L);
+        Assertions.assertTrue(latency.get(Stage.RESERVATION).getPercentile(100) < 50_000_000L);
+    }
+
+    @Test
+    void countsDownstreamFailuresByStage() {
+        doThrow(new IllegalStateException()).when(seatReservationService).reserveSeat(anyLong(), anyInt());
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> impl.purchaseTickets(makeRequestWithId(1, List.of(makeOneAdultTicket()))));
+
+        var snapshot = metrics.snapshot();
+        Assertions.assertEquals(1, snapshot.failed().get(Stage.RESERVATION));
+        Assertions.assertEquals(0, snapshot.failed().get(Stage.PAYMENT));
+        Assertions.assertEquals(0, snapshot.accepted());
+    }
+
+    @Test
+    void histogramReportsPercentilesWithinAFactorOfTwo() {
+        var histogram = new LatencyHistogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i * 1_000L);
+        }
+        var snapshot = histogram.snapshot();
+
+        Assertions.assertEquals(100, snapshot.getCount());
+        var p50 = snapshot.getPercentile(50);
+        Assertions.assertTrue(p50 >= 50_000 && p50 < 100_000, "p50 was " + p50);
+        var p99 = snapshot.getPercentile(99);
+        Assertions.assertTrue(p99 >= 99_000 && p99 < 198_000, "p99 was " + p99);
+    }
+
+    @Test
+    void histogramCountsEveryValueRecordedFromManyThreads() throws Exception {
+        var histogram = new LatencyHistogram();
+        var threads = new ArrayList<Thread>();
+        for (int t = 0; t < 8; t++) {
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    histogram.record(1_000);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (var thread : threads) {
+            thread.join();
+        }
+
+        var snapshot = histogram.snapshot();
+        Assertions.assertEquals(80_000, snapshot.getCount());
+        Assertions.assertEquals(80_000, snapshot.getBucketCounts()[LatencyHistogram.bucketOf(1_000)]);
+    }
+}
@@ -0,0 +1,122 @@
+package uk.gov.dwp.uc.pairtest.pricing;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import thirdparty.paymentgateway.TicketPaymentService;
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.PricingService;
+import uk.gov.dwp.uc.pairtest.SeatingCalculatorServiceImpl;
+import uk.gov.dwp.uc.pairtest.Tariff;
+import uk.gov.dwp.uc.pairtest.TariffRegistry;
+import uk.gov.dwp.uc.pairtest.TicketServiceImpl;
+import uk.gov.dwp.uc.pairtest.domain.TicketPurchaseRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketRequest;
+
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+import static uk.gov.dwp.uc.pairtest.TicketServiceHelper.*;
+
+public class RuleBasedPricingServiceTest {
+
+    private static final TimeBand EVENING = new TimeBand("evening", LocalTime.of(17, 0), LocalTime.of(23, 0));
+    private static final TimeBand LATE = new TimeBand("late", LocalTime.of(23, 0), LocalTime.of(2, 0));
+
+    private static PricingRules.Builder baseRules() {
+        return PricingRules.builder()
+                .basePrice(TicketRequest.Type.ADULT, 20)
+                .basePrice(TicketRequest.Type.CHILD, 10)
+                .basePrice(TicketRequest.Type.INFANT, 0);
+    }
+
+    @Test
+    void mostSpecificRuleWins() {
+        var table = baseRules()
+                .bandPrice(EVENING, TicketRequest.Type.ADULT, 25)
+                .bandPrice(LATE, TicketRequest.Type.ADULT, 15)
+                .performance(1, LocalTime.of(19, 30))
+                .performance(2, LocalTime.of(0, 30))
+                .performance(3, LocalTime.of(14, 0))
+                .performance(4, LocalTime.of(20, 0))
+                .performancePrice(4, TicketRequest.Type.ADULT, 40)
+                .performancePrice(5, TicketRequest.Type.CHILD, 5)
+                .build()
+                .compile();
+
+        Assertions.assertEquals(25, table.price(table.row(1), TicketRequest.Type.ADULT));
+        Assertions.assertEquals(10, table.price(table.row(1), TicketRequest.Type.CHILD));
+        Assertions.assertEquals(15, table.price(table.row(2), TicketRequest.Type.ADULT));
+        Assertions.assertEquals(20, table.price(table.row(3), TicketRequest.Type.ADULT));
+        Assertions.assertEquals(40, table.price(table.row(4), TicketRequest.Type.ADULT));
+        Assertions.assertEquals(5, table.price(table.row(5), TicketRequest.Type.CHILD));
+        Assertions.assertEquals(20, table.price(table.row(99), TicketRequest.Type.ADULT));
+        Assertions.assertEquals(table.row(0), table.row(99));
+    }
+
+    @Test
+    void appliesLargestGroupDiscountReached() {
+        var table = baseRules().groupDiscount(5, 10).groupDiscount(10, 20).build().compile();
+
+        Assertions.assertEquals(80, table.applyGroupPricing(80, 4));
+        Assertions.assertEquals(90, table.applyGroupPricing(100, 5));
+        Assertions.assertEquals(160, table.applyGroupPricing(200, 10));
+        Assertions.assertEquals(320, table.applyGroupPricing(400, 20));
+    }
+
+    @Test
+    void refusesRulesWithoutABasePriceForEveryType() {
+        var rules = PricingRules.builder().basePrice(TicketRequest.Type.ADULT, 20).build();
+        Assertions.assertThrows(IllegalStateException.class, rules::compile);
+    }
+
+    @Test
+    void purchasesArePricedByPerformanceAndBasket() {
+        var pricingService = new RuleBasedPricingService(baseRules()
+                .performance(7, LocalTime.of(19, 0))
+                .bandPrice(EVENING, TicketRequest.Type.ADULT, 30)
+                .groupDiscount(6, 50)
+                .build());
+        var tariffRegistry = new TariffRegistry(pricingService, new SeatingCalculatorServiceImpl());
+        var ticketPaymentService = mock(TicketPaymentService.class);
+        var ticketService = TicketServiceImpl.builder(tariffRegistry, ticketPaymentService,
+                mock(SeatReservationService.class)).build();
+
+        ticketService.purchaseTickets(new TicketPurchaseRequest(1, List.of(makeOneAdultTicket()), null, 7));
+        ticketService.purchaseTickets(new TicketPurchaseRequest(2, List.of(makeOneAdultTicket()), null, 8));
+        ticketService.purchaseTickets(new TicketPurchaseRequest(3, List.of(makeMultiAdultTicket(6)), null, 7));
+        pricingService.load(baseRules().basePrice(TicketRequest.Type.ADULT, 22).build());
+        tariffRegistry.reload();
+        ticketService.purchaseTickets(new TicketPurchaseRequest(4, List.of(makeOneAdultTicket()), null, 7));
+
+        verify(ticketPaymentService).makePayment(1, 30);
+        verify(ticketPaymentService).makePayment(2, 20);
+        verify(ticketPaymentService).makePayment(3, 90);
+        verify(ticketPaymentService).makePayment(4, 22);
+    }
+
+    @Test
+    void tariffTakesTheWholeTableThroughADecorator() {
+        var ruleBased = new RuleBasedPricingService(baseRules()
+                .performancePrice(7, TicketRequest.Type.ADULT, 35)
+                .groupDiscount(5, 10)
+                .build());
+        PricingService decorated = new PriceTableSource() {
+            @Override
+            public int getPrice(TicketRequest.Type ticketType) {
+                return ruleBased.getPrice(ticketType);
+            }
+
+            @Override
+            public PriceTable getPriceTable() {
+                return ruleBased.getPriceTable();
+            }
+        };
+
+        var tariff = Tariff.compile(decorated, new SeatingCalculatorServiceImpl());
+
+        Assertions.assertEquals(35, tariff.getPrice(tariff.priceRow(7), TicketRequest.Type.ADULT));
+        Assertions.assertEquals(90, tariff.applyGroupPricing(100, 5));
+        Assertions.assertEquals(Tariff.compile(ruleBased, new SeatingCalculatorServiceImpl()), tariff);
+    }
+}
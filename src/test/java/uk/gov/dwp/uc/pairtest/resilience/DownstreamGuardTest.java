@@ -0,0 +1,110 @@
+package uk.gov.dwp.uc.pairtest.resilience;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import thirdparty.paymentgateway.TicketPaymentService;
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.exception.DownstreamUnavailableException;
+import uk.gov.dwp.uc.pairtest.exception.OutcomeUnknownException;
+import uk.gov.dwp.uc.pairtest.exception.SoldOutException;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.Mockito.*;
+
+public class DownstreamGuardTest {
+
+    private static final CircuitBreakerConfig BREAKER = new CircuitBreakerConfig(Duration.ofSeconds(10), 10, 4, 50,
+            Duration.ofSeconds(1), Duration.ofSeconds(5), 2);
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    void opensAfterFailureRateIsReachedAndRejectsWithoutCalling() {
+        var gateway = mock(TicketPaymentService.class);
+        var paymentService = new ResilientTicketPaymentService(gateway, guard(8, Duration.ZERO));
+        doThrow(new IllegalStateException("gateway down")).when(gateway).makePayment(eq(2L), anyInt());
+
+        paymentService.makePayment(1, 10);
+        paymentService.makePayment(1, 10);
+        Assertions.assertThrows(IllegalStateException.class, () -> paymentService.makePayment(2, 10));
+        Assertions.assertEquals(CircuitBreaker.State.CLOSED, paymentService.guard().circuitBreaker().state());
+        Assertions.assertThrows(IllegalStateException.class, () -> paymentService.makePayment(2, 10));
+
+        Assertions.assertEquals(CircuitBreaker.State.OPEN, paymentService.guard().circuitBreaker().state());
+        Assertions.assertThrows(DownstreamUnavailableException.class, () -> paymentService.makePayment(1, 10));
+        verify(gateway, times(2)).makePayment(1, 10);
+    }
+
+    @Test
+    void closesAgainAfterTrialCallsSucceed() {
+        var gateway = mock(TicketPaymentService.class);
+        var paymentService = new ResilientTicketPaymentService(gateway, guard(8, Duration.ZERO));
+        doThrow(new IllegalStateException("gateway down")).when(gateway).makePayment(eq(2L), anyInt());
+        for (int i = 0; i < 4; i++) {
+            Assertions.assertThrows(IllegalStateException.class, () -> paymentService.makePayment(2, 10));
+        }
+        var breaker = paymentService.guard().circuitBreaker();
+        Assertions.assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(5));
+        Assertions.assertThrows(IllegalStateException.class, () -> paymentService.makePayment(2, 10));
+        Assertions.assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(5));
+        paymentService.makePayment(1, 10);
+        Assertions.assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.state());
+        paymentService.makePayment(1, 10);
+        Assertions.assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+    }
+
+    @Test
+    void businessRejectionsDoNotOpenTheCircuit() {
+        var booking = mock(SeatReservationService.class);
+        var seatService = new ResilientSeatReservationService(booking, guard(8, Duration.ZERO));
+        doThrow(new SoldOutException()).when(booking).reserveSeat(anyLong(), anyInt());
+
+        for (int i = 0; i < 10; i++) {
+            Assertions.assertThrows(SoldOutException.class, () -> seatService.reserveSeat(1, 2));
+        }
+        Assertions.assertEquals(CircuitBreaker.State.CLOSED, seatService.guard().circuitBreaker().state());
+    }
+
+    @Test
+    void timeoutIsReportedAsUnknownAndKeepsSlotUntilCallReturns() throws Exception {
+        var executor = Executors.newCachedThreadPool();
+        var release = new CountDownLatch(1);
+        var gateway = mock(TicketPaymentService.class);
+        doAnswer(invocation -> {
+            release.await();
+            return null;
+        }).when(gateway).makePayment(anyLong(), anyInt());
+        var guard = new DownstreamGuard(new DownstreamConfig(BREAKER, 1, Duration.ofMillis(50), false), executor,
+                clock::get);
+        var paymentService = new ResilientTicketPaymentService(gateway, guard);
+        try {
+            Assertions.assertThrows(OutcomeUnknownException.class, () -> paymentService.makePayment(1, 10));
+            Assertions.assertEquals(1, guard.callsInFlight());
+            Assertions.assertThrows(DownstreamUnavailableException.class, () -> paymentService.makePayment(1, 10));
+            verify(gateway, times(1)).makePayment(1, 10);
+
+            release.countDown();
+            verify(gateway, timeout(1000).times(1)).makePayment(1, 10);
+            for (int i = 0; i < 100 && guard.callsInFlight() > 0; i++) {
+                Thread.sleep(10);
+            }
+            Assertions.assertEquals(0, guard.callsInFlight());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private DownstreamGuard guard(int maxConcurrentCalls, Duration callTimeout) {
+        return new DownstreamGuard(new DownstreamConfig(BREAKER, maxConcurrentCalls, callTimeout, false), null,
+                clock::get);
+    }
+}
@@ -0,0 +1,142 @@
+package uk.gov.dwp.uc.pairtest.sketch;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import thirdparty.paymentgateway.TicketPaymentService;
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.PricingServiceImpl;
+import uk.gov.dwp.uc.pairtest.SeatingCalculatorServiceImpl;
+import uk.gov.dwp.uc.pairtest.TariffRegistry;
+import uk.gov.dwp.uc.pairtest.TicketServiceImpl;
+import uk.gov.dwp.uc.pairtest.domain.TicketPurchaseRequest;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static uk.gov.dwp.uc.pairtest.TicketServiceHelper.*;
+
+public class PurchaseSketchesTest {
+
+    @Test
+    void findsTheHeaviestBuyersAmongMany() throws Exception {
+        var sketches = new PurchaseSketches(SketchConfig.DEFAULT);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int thread = 0; thread < 8; thread++) {
+            var offset = thread;
+            executor.execute(() -> {
+                for (long account = 1 + offset; account <= 5_000; account += 8) {
+                    sketches.accepted(makeRequestWithId(account, List.of(makeOneAdultTicket())), 20, 1);
+                }
+                for (int i = 0; i < 100; i++) {
+                    sketches.accepted(makeRequestWithId(900_001 + offset % 3, List.of(makeMultiAdultTicket(5))),
+                            100, 5);
+                }
+            });
+        }
+        executor.shutdown();
+        Assertions.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        // Never below the true 1,500 or 1,000 tickets, and overshooting by no more than a few percent of all sold. A
+        // light buyer colliding with the heavy ones in every row could rank among them, but never above the heaviest.
+        var top = sketches.topBuyers(0);
+        Assertions.assertTrue(List.of(900_001L, 900_002L).contains(top.get(0).accountId()));
+        for (var account : List.of(900_001L, 900_002L, 900_003L)) {
+            var actual = account == 900_003L ? 1_000 : 1_500;
+            var hitter = top.stream().filter(entry -> entry.accountId() == account).findFirst().orElseThrow();
+            Assertions.assertTrue(hitter.count() >= actual && hitter.count() < actual + 1_000, hitter.toString());
+        }
+        var distinct = sketches.distinctBuyers(0);
+        Assertions.assertTrue(Math.abs(distinct - 5_003) < 5_003 * 0.1, "estimated " + distinct);
+    }
+
+    @Test
+    void countsRejectionsFromTheTicketService() {
+        var sketches = new PurchaseSketches(SketchConfig.DEFAULT);
+        var service = TicketServiceImpl.builder(
+                        new TariffRegistry(new PricingServiceImpl(), new SeatingCalculatorServiceImpl()),
+                        mock(TicketPaymentService.class), mock(SeatReservationService.class))
+                .listener(sketches)
+                .build();
+
+        service.purchaseTickets(makeRequestWithId(7, List.of(makeMultiAdultTicket(2))));
+        for (int i = 0; i < 30; i++) {
+            Assertions.assertThrows(InvalidPurchaseException.class,
+                    () -> service.purchaseTickets(makeRequestWithId(66, List.of(makeOneChildTicket()))));
+        }
+        Assertions.assertThrows(InvalidPurchaseException.class, () -> service.purchaseTickets(null));
+
+        Assertions.assertEquals(new HeavyHitter(66, 30), sketches.topRejected(0).get(0));
+        Assertions.assertEquals(List.of(new HeavyHitter(7, 2)), sketches.topBuyers(0));
+        Assertions.assertEquals(1, sketches.distinctBuyers(0));
+        Assertions.assertEquals(0, sketches.distinctBuyers(99));
+    }
+
+    @Test
+    void foldsUnknownAndExcessPerformancesIntoOneSketch() {
+        var sketches = new PurchaseSketches(SketchConfig.DEFAULT, 2);
+        for (long performanceId = 1; performanceId <= 1_000; performanceId++) {
+            var order = new TicketPurchaseRequest(performanceId, List.of(makeOneAdultTicket()), null, performanceId);
+            sketches.accepted(order, 20, 1);
+            sketches.rejected(order, RejectionReason.UNKNOWN_PERFORMANCE);
+        }
+
+        Assertions.assertEquals(Set.of(1L, 2L, PurchaseSketches.OTHER_PERFORMANCES), sketches.performanceIds());
+        Assertions.assertEquals(List.of(new HeavyHitter(1, 1)), sketches.topBuyers(1));
+        Assertions.assertTrue(sketches.topRejected(1).isEmpty());
+        Assertions.assertEquals(0, sketches.distinctBuyers(3));
+        var other = sketches.snapshot(PurchaseSketches.OTHER_PERFORMANCES);
+        Assertions.assertTrue(other.estimatedTickets(3) >= 1);
+        Assertions.assertTrue(other.estimatedRejections(1) >= 1);
+        Assertions.assertTrue(Math.abs(other.distinctBuyers() - 998) < 998 * 0.1, "estimated " + other.distinctBuyers());
+    }
+
+    @Test
+    void rejectionsDoNotClaimSketches() {
+        var sketches = new PurchaseSketches(SketchConfig.DEFAULT, 2);
+        for (long performanceId = 1; performanceId <= 1_000; performanceId++) {
+            var order = new TicketPurchaseRequest(7, List.of(makeOneChildTicket()), null, performanceId);
+            sketches.rejected(order, RejectionReason.NO_ADULT_PRESENT);
+        }
+        sketches.accepted(new TicketPurchaseRequest(8, List.of(makeOneAdultTicket()), null, 5), 20, 1);
+        sketches.rejected(new TicketPurchaseRequest(9, List.of(makeOneChildTicket()), null, 5),
+                RejectionReason.NO_ADULT_PRESENT);
+
+        Assertions.assertEquals(Set.of(5L, PurchaseSketches.OTHER_PERFORMANCES), sketches.performanceIds());
+        Assertions.assertEquals(new HeavyHitter(7, 1_000),
+                sketches.topRejected(PurchaseSketches.OTHER_PERFORMANCES).get(0));
+        Assertions.assertEquals(List.of(new HeavyHitter(9, 1)), sketches.topRejected(5));
+    }
+
+    @Test
+    void mergedSketchesMatchOneThatSawEverything() {
+        var config = SketchConfig.DEFAULT;
+        var whole = new PerformanceSketch(config);
+        var first = new PerformanceSketch(config);
+        var second = new PerformanceSketch(config);
+        for (long account = 1; account <= 2_000; account++) {
+            var tickets = account % 200 == 0 ? 100 : 1;
+            whole.purchased(account, tickets);
+            (account % 2 == 0 ? first : second).purchased(account, tickets);
+        }
+        whole.rejected(5);
+        second.rejected(5);
+
+        var merged = first.copy();
+        merged.merge(second);
+
+        Assertions.assertEquals(whole.distinctBuyers(), merged.distinctBuyers());
+        Assertions.assertEquals(whole.topBuyers().subList(0, 10), merged.topBuyers().subList(0, 10));
+        Assertions.assertTrue(merged.topBuyers().subList(0, 10).stream()
+                .allMatch(hitter -> hitter.accountId() % 200 == 0));
+        Assertions.assertEquals(whole.topRejected(), merged.topRejected());
+        Assertions.assertEquals(first.distinctBuyers(), first.copy().distinctBuyers());
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> merged.merge(new PerformanceSketch(new SketchConfig(4, 128, 16, 10))));
+    }
+}
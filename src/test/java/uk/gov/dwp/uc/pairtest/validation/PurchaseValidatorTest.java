@@ -0,0 +1,115 @@
+package uk.gov.dwp.uc.pairtest.validation;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import thirdparty.paymentgateway.TicketPaymentService;
+import thirdparty.seatbooking.SeatReservationService;
+import uk.gov.dwp.uc.pairtest.PricingServiceImpl;
+import uk.gov.dwp.uc.pairtest.SeatingCalculatorServiceImpl;
+import uk.gov.dwp.uc.pairtest.TariffRegistry;
+import uk.gov.dwp.uc.pairtest.TicketServiceImpl;
+import uk.gov.dwp.uc.pairtest.domain.TicketPurchaseRequest;
+import uk.gov.dwp.uc.pairtest.domain.TicketRequest;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+
+import java.util.List;
+
+import static org.mockito.Mockito.mock;
+import static uk.gov.dwp.uc.pairtest.TicketServiceHelper.*;
+
+public class PurchaseValidatorTest {
+
+    private static final long PREMIERE = 7;
+    private static final long ADULT_SCREENING = 8;
+    private static final long UNCAPPED = 9;
+
+    private static final ValidationPolicy PREMIERE_POLICY = ValidationPolicy.builder()
+            .maxLines(10)
+            .maxTickets(10)
+            .adultRequired()
+            .build();
+
+    private final PurchaseValidator validator = new PurchaseValidator(ValidationRules.builder()
+            .performance(PREMIERE, PREMIERE_POLICY)
+            .performance(ADULT_SCREENING, ValidationPolicy.builder().maxTickets(20).adultsOnly().build())
+            .performance(UNCAPPED, ValidationPolicy.builder().adultsOnly().build())
+            .build());
+    private final TicketServiceImpl ticketService = TicketServiceImpl.builder(
+                    new TariffRegistry(new PricingServiceImpl(), new SeatingCalculatorServiceImpl()),
+                    mock(TicketPaymentService.class), mock(SeatReservationService.class))
+            .validator(validator)
+            .build();
+
+    @Test
+    void appliesEachPerformancesOwnPolicy() {
+        purchase(0, List.of(makeMultiAdultTicket(15)));
+        Assertions.assertEquals(RejectionReason.EXCESSIVE_TICKETS,
+                rejection(PREMIERE, List.of(makeMultiAdultTicket(15))));
+        Assertions.assertEquals(RejectionReason.EXCESSIVE_TICKETS,
+                rejection(99, List.of(makeMultiAdultTicket(21))));
+
+        purchase(PREMIERE, List.of(makeOneAdultTicket(), makeOneChildTicket()));
+        Assertions.assertEquals(RejectionReason.ADULTS_ONLY,
+                rejection(ADULT_SCREENING, List.of(makeOneAdultTicket(), makeOneChildTicket())));
+        Assertions.assertEquals(RejectionReason.NO_ADULT_PRESENT, rejection(0, List.of(makeOneInfantTicket())));
+        Assertions.assertEquals(RejectionReason.NEGATIVE_TICKETS,
+                rejection(ADULT_SCREENING, List.of(makeMultiAdultTicket(-1))));
+    }
+
+    @Test
+    void rejectsOrdersTooLargeToTotalWhenThePolicyHasNoTicketLimit() {
+        purchase(UNCAPPED, List.of(makeMultiAdultTicket(1_000)));
+        Assertions.assertEquals(RejectionReason.EXCESSIVE_TICKETS,
+                rejection(UNCAPPED, List.of(makeMultiAdultTicket(Integer.MAX_VALUE), makeOneAdultTicket())));
+        Assertions.assertEquals(RejectionReason.EXCESSIVE_TICKETS,
+                rejection(UNCAPPED, List.of(makeMultiAdultTicket(200_000_000))));
+    }
+
+    @Test
+    void checksLineCountBeforeReadingTheLines() {
+        var program = validator.program(PREMIERE);
+
+        Assertions.assertEquals(RejectionReason.EXCESSIVE_TICKETS, program.checkLines(11));
+        Assertions.assertNull(program.checkLines(10));
+        Assertions.assertEquals(List.of(Rule.MAX_LINES, Rule.MAX_TICKETS, Rule.ADULT_REQUIRED), program.order());
+    }
+
+    @Test
+    void movesTheRuleRejectingMostToTheFrontOfItsPhase() {
+        var program = validator.program(PREMIERE);
+        var breaksBoth = List.of(makeMultiChildTicket(11));
+        Assertions.assertEquals(RejectionReason.EXCESSIVE_TICKETS, rejection(PREMIERE, breaksBoth));
+
+        for (int i = 0; i < 5; i++) {
+            rejection(PREMIERE, List.of(makeOneChildTicket()));
+        }
+        program.reorder();
+
+        Assertions.assertEquals(List.of(Rule.MAX_LINES, Rule.ADULT_REQUIRED, Rule.MAX_TICKETS), program.order());
+        Assertions.assertEquals(RejectionReason.NO_ADULT_PRESENT, rejection(PREMIERE, breaksBoth));
+        Assertions.assertEquals(6, program.rejections(Rule.ADULT_REQUIRED));
+        Assertions.assertEquals(1, program.rejections(Rule.MAX_TICKETS));
+    }
+
+    @Test
+    void sharesOneProgramBetweenPerformancesWithTheSamePolicyAndSwapsOnLoad() {
+        validator.load(ValidationRules.builder()
+                .defaultPolicy(PREMIERE_POLICY)
+                .performance(PREMIERE, PREMIERE_POLICY)
+                .build());
+
+        Assertions.assertSame(validator.program(PREMIERE), validator.program(0));
+        Assertions.assertEquals(RejectionReason.EXCESSIVE_TICKETS, rejection(0, List.of(makeMultiAdultTicket(15))));
+        purchase(ADULT_SCREENING, List.of(makeOneAdultTicket(), makeOneChildTicket()));
+    }
+
+    private void purchase(long performanceId, List<TicketRequest> tickets) {
+        ticketService.purchaseTickets(new TicketPurchaseRequest(1, tickets, null, performanceId));
+    }
+
+    private RejectionReason rejection(long performanceId, List<TicketRequest> tickets) {
+        return Assertions.assertThrows(InvalidPurchaseException.class, () -> purchase(performanceId, tickets))
+                .getReason();
+    }
+}
@@ -0,0 +1,136 @@
+package uk.gov.dwp.uc.pairtest.warmup;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import uk.gov.dwp.uc.pairtest.PricingServiceImpl;
+import uk.gov.dwp.uc.pairtest.PurchaseEvaluator;
+import uk.gov.dwp.uc.pairtest.SeatingCalculatorServiceImpl;
+import uk.gov.dwp.uc.pairtest.TariffRegistry;
+import uk.gov.dwp.uc.pairtest.TicketService;
+import uk.gov.dwp.uc.pairtest.TicketServiceImpl;
+import uk.gov.dwp.uc.pairtest.domain.TicketOrder;
+import uk.gov.dwp.uc.pairtest.events.PurchaseListener;
+import uk.gov.dwp.uc.pairtest.exception.InvalidPurchaseException;
+import uk.gov.dwp.uc.pairtest.exception.RejectionReason;
+import uk.gov.dwp.uc.pairtest.metrics.PurchaseMetrics;
+import uk.gov.dwp.uc.pairtest.metrics.StripedPurchaseMetrics;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+public class WarmUpTest {
+
+    private final TariffRegistry tariffRegistry =
+            new TariffRegistry(new PricingServiceImpl(), new SeatingCalculatorServiceImpl());
+
+    @Test
+    void runsBetweenTheMinimumAndMaximumRounds() {
+        var result = new WarmUp(new WarmUpConfig(1_000, 3, 6, Duration.ofMillis(5), Duration.ofSeconds(30)),
+                (payment, seats) -> TicketServiceImpl.builder(tariffRegistry, payment, seats).build()).run();
+
+        Assertions.assertTrue(result.rounds() >= 3 && result.rounds() <= 6, "ran " + result.rounds());
+        Assertions.assertEquals(result.rounds() * 1_000L, result.requests());
+        Assertions.assertTrue(result.settled() || result.rounds() == 6);
+    }
+
+    @Test
+    void buildsTheServiceOverStubPaymentAndSeatServices() {
+        var payments = new AtomicInteger();
+        var bookings = new AtomicInteger();
+
+        new WarmUp(new WarmUpConfig(256, 1, 1, Duration.ZERO, Duration.ofSeconds(30)),
+                (payment, seats) -> TicketServiceImpl.builder(tariffRegistry,
+                        (accountId, amount) -> {
+                            payments.incrementAndGet();
+                            payment.makePayment(accountId, amount);
+                        },
+                        (accountId, count) -> {
+                            bookings.incrementAndGet();
+                            seats.reserveSeat(accountId, count);
+                        }).build()).run();
+
+        Assertions.assertEquals(256 - 256 / 8, payments.get());
+        Assertions.assertEquals(payments.get(), bookings.get());
+    }
+
+    @Test
+    void keepsWarmUpTrafficOutOfTheRealServicesCollaborators() {
+        BiFunction<PurchaseMetrics, PurchaseListener, TicketService> service = (metrics, listener) ->
+                TicketServiceImpl.builder(tariffRegistry, (accountId, amount) -> { }, (accountId, count) -> { })
+                        .metrics(metrics)
+                        .listener(listener)
+                        .build();
+        var realMetrics = new StripedPurchaseMetrics();
+        var realListener = new CountingListener();
+        service.apply(realMetrics, realListener);
+        var warmUpMetrics = new StripedPurchaseMetrics();
+        var warmUpListener = new CountingListener();
+
+        new WarmUp(new WarmUpConfig(256, 1, 1, Duration.ZERO, Duration.ofSeconds(30)),
+                (payment, seats) -> service.apply(warmUpMetrics, warmUpListener)).run();
+
+        Assertions.assertEquals(256, warmUpListener.events.get());
+        Assertions.assertEquals(256, warmUpMetrics.snapshot().accepted() + warmUpMetrics.snapshot().totalRejected());
+        Assertions.assertEquals(0, realListener.events.get());
+        Assertions.assertEquals(0, realMetrics.snapshot().accepted() + realMetrics.snapshot().totalRejected());
+    }
+
+    @Test
+    void drivesValidAndInvalidPurchasesThroughTheService() {
+        var evaluator = new PurchaseEvaluator(tariffRegistry);
+        var accepted = new AtomicInteger();
+        var rejected = new AtomicInteger();
+        TicketService counting = request -> {
+            try {
+                evaluator.evaluate(request);
+                accepted.incrementAndGet();
+            } catch (InvalidPurchaseException e) {
+                rejected.incrementAndGet();
+                throw e;
+            }
+        };
+
+        new WarmUp(new WarmUpConfig(256, 1, 1, Duration.ZERO, Duration.ofSeconds(30)), counting).run();
+
+        Assertions.assertEquals(256, accepted.get() + rejected.get());
+        Assertions.assertEquals(256 / 8, rejected.get());
+    }
+
+    @Test
+    void reportsReadyOnlyOnceWarmUpHasFinished() throws Exception {
+        var release = new CountDownLatch(1);
+        TicketService blocked = request -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+
+        var probe = new WarmUp(new WarmUpConfig(10, 1, 1, Duration.ZERO, Duration.ofSeconds(30)), blocked).start();
+        Assertions.assertFalse(probe.isReady());
+        Assertions.assertFalse(probe.awaitReady(Duration.ofMillis(50)));
+        Assertions.assertNull(probe.result());
+
+        release.countDown();
+        Assertions.assertTrue(probe.awaitReady(Duration.ofSeconds(5)));
+        Assertions.assertEquals(10, probe.result().requests());
+    }
+
+    private static class CountingListener implements PurchaseListener {
+
+        private final AtomicInteger events = new AtomicInteger();
+
+        @Override
+        public void accepted(TicketOrder order, int amount, int seats) {
+            events.incrementAndGet();
+        }
+
+        @Override
+        public void rejected(TicketOrder order, RejectionReason reason) {
+            events.incrementAndGet();
+        }
+    }
+}